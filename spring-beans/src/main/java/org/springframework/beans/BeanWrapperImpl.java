@@ -91,6 +91,15 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 	 */
 	private static final Log logger = LogFactory.getLog(BeanWrapperImpl.class);
 
+	/**
+	 * System property that instructs Spring to invoke property methods through
+	 * generated accessor classes by default: "spring.beans.generatedAccessors".
+	 * @see #setUseGeneratedAccessors
+	 */
+	public static final String GENERATED_ACCESSORS_PROPERTY_NAME = "spring.beans.generatedAccessors";
+
+	private static final boolean DEFAULT_USE_GENERATED_ACCESSORS = determineDefaultUseGeneratedAccessors();
+
 
 	/** The wrapped object */
 	private Object object;
@@ -119,6 +128,8 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 
 	private int autoGrowCollectionLimit = Integer.MAX_VALUE;
 
+	private boolean useGeneratedAccessors = DEFAULT_USE_GENERATED_ACCESSORS;
+
 
 	/**
 	 * Create new empty BeanWrapperImpl. Wrapped instance needs to be set afterwards.
@@ -184,6 +195,7 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 		setExtractOldValueForEditor(superBw.isExtractOldValueForEditor());
 		setAutoGrowNestedPaths(superBw.isAutoGrowNestedPaths());
 		setAutoGrowCollectionLimit(superBw.getAutoGrowCollectionLimit());
+		setUseGeneratedAccessors(superBw.isUseGeneratedAccessors());
 		setConversionService(superBw.getConversionService());
 		setSecurityContext(superBw.acc);
 	}
@@ -289,6 +301,29 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 		return this.autoGrowCollectionLimit;
 	}
 
+	/**
+	 * Set whether to invoke property read and write methods through a generated
+	 * accessor class instead of through reflection.
+	 * <p>The accessor is generated once per bean class with CGLIB and calls the
+	 * methods directly. Non-public classes and methods are still invoked through
+	 * reflection, as are all methods when a SecurityManager is active.
+	 * <p>Default is "false", unless the "spring.beans.generatedAccessors" system
+	 * property is set to "true".
+	 * @since 4.0
+	 * @see #GENERATED_ACCESSORS_PROPERTY_NAME
+	 */
+	public void setUseGeneratedAccessors(boolean useGeneratedAccessors) {
+		this.useGeneratedAccessors = useGeneratedAccessors;
+	}
+
+	/**
+	 * Return whether property methods are invoked through a generated accessor.
+	 * @since 4.0
+	 */
+	public boolean isUseGeneratedAccessors() {
+		return this.useGeneratedAccessors;
+	}
+
 	/**
 	 * Set the security context used during the invocation of the wrapped instance methods.
 	 * Can be null.
@@ -329,6 +364,28 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 		return this.cachedIntrospectionResults;
 	}
 
+	private static boolean determineDefaultUseGeneratedAccessors() {
+		try {
+			return Boolean.parseBoolean(System.getProperty(GENERATED_ACCESSORS_PROPERTY_NAME));
+		}
+		catch (Throwable ex) {
+			// Not allowed to read the system property - e.g. in a restricted environment.
+			return false;
+		}
+	}
+
+	/**
+	 * Return the generated accessor to invoke the given property method with,
+	 * or {@code null} if the method is to be invoked through reflection.
+	 */
+	private GeneratedPropertyAccessor getGeneratedPropertyAccessor(Method method) {
+		if (!this.useGeneratedAccessors || System.getSecurityManager() != null) {
+			return null;
+		}
+		GeneratedPropertyAccessor accessor = getCachedIntrospectionResults().getGeneratedPropertyAccessor();
+		return (accessor != null && accessor.isInvokable(method) ? accessor : null);
+	}
+
 
 	@Override
 	public PropertyDescriptor[] getPropertyDescriptors() {
@@ -735,7 +792,11 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 			}
 
 			Object value;
-			if (System.getSecurityManager() != null) {
+			GeneratedPropertyAccessor accessor = getGeneratedPropertyAccessor(readMethod);
+			if (accessor != null) {
+				value = accessor.invoke(readMethod, this.object);
+			}
+			else if (System.getSecurityManager() != null) {
 				try {
 					value = AccessController.doPrivileged(new PrivilegedExceptionAction<Object>() {
 						@Override
@@ -1087,7 +1148,11 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 								}
 							}
 							try {
-								if (System.getSecurityManager() != null) {
+								GeneratedPropertyAccessor accessor = getGeneratedPropertyAccessor(readMethod);
+								if (accessor != null) {
+									oldValue = accessor.invoke(readMethod, this.object);
+								}
+								else if (System.getSecurityManager() != null) {
 									oldValue = AccessController.doPrivileged(new PrivilegedExceptionAction<Object>() {
 										@Override
 										public Object run() throws Exception {
@@ -1131,7 +1196,11 @@ public class BeanWrapperImpl extends AbstractPropertyAccessor implements BeanWra
 					}
 				}
 				final Object value = valueToApply;
-				if (System.getSecurityManager() != null) {
+				GeneratedPropertyAccessor accessor = getGeneratedPropertyAccessor(writeMethod);
+				if (accessor != null) {
+					accessor.invoke(writeMethod, this.object, value);
+				}
+				else if (System.getSecurityManager() != null) {
 					try {
 						AccessController.doPrivileged(new PrivilegedExceptionAction<Object>() {
 							@Override
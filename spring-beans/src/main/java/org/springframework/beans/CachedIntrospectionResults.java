@@ -20,21 +20,21 @@ import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
-import java.lang.ref.Reference;
-import java.lang.ref.WeakReference;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.core.io.support.SpringFactoriesLoader;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.StringUtils;
 
 /**
@@ -69,14 +69,23 @@ public class CachedIntrospectionResults {
 	 * Set of ClassLoaders that this CachedIntrospectionResults class will always
 	 * accept classes from, even if the classes do not qualify as cache-safe.
 	 */
-	static final Set<ClassLoader> acceptedClassLoaders = new HashSet<ClassLoader>();
+	static final Set<ClassLoader> acceptedClassLoaders =
+			Collections.newSetFromMap(new ConcurrentHashMap<ClassLoader, Boolean>(16));
 
 	/**
-	 * Map keyed by class containing CachedIntrospectionResults.
-	 * Needs to be a WeakHashMap with WeakReferences as values to allow
-	 * for proper garbage collection in case of multiple class loaders.
+	 * Map keyed by Class containing CachedIntrospectionResults, strongly held.
+	 * This variant is being used for cache-safe bean classes.
 	 */
-	static final Map<Class, Object> classCache = new WeakHashMap<Class, Object>();
+	static final ConcurrentMap<Class<?>, CachedIntrospectionResults> strongClassCache =
+			new ConcurrentHashMap<Class<?>, CachedIntrospectionResults>(64);
+
+	/**
+	 * Map keyed by Class containing CachedIntrospectionResults, softly held.
+	 * This variant is being used for non-cache-safe bean classes, allowing for
+	 * proper garbage collection in case of multiple class loaders.
+	 */
+	static final ConcurrentMap<Class<?>, CachedIntrospectionResults> softClassCache =
+			new ConcurrentReferenceHashMap<Class<?>, CachedIntrospectionResults>(64);
 
 
 	/**
@@ -93,9 +102,7 @@ public class CachedIntrospectionResults {
 	 */
 	public static void acceptClassLoader(ClassLoader classLoader) {
 		if (classLoader != null) {
-			synchronized (acceptedClassLoaders) {
-				acceptedClassLoaders.add(classLoader);
-			}
+			acceptedClassLoaders.add(classLoader);
 		}
 	}
 
@@ -107,64 +114,59 @@ public class CachedIntrospectionResults {
 	 * @param classLoader the ClassLoader to clear the cache for
 	 */
 	public static void clearClassLoader(ClassLoader classLoader) {
-		synchronized (classCache) {
-			for (Iterator<Class> it = classCache.keySet().iterator(); it.hasNext();) {
-				Class beanClass = it.next();
-				if (isUnderneathClassLoader(beanClass.getClassLoader(), classLoader)) {
-					it.remove();
-				}
+		for (Iterator<ClassLoader> it = acceptedClassLoaders.iterator(); it.hasNext();) {
+			ClassLoader registeredLoader = it.next();
+			if (isUnderneathClassLoader(registeredLoader, classLoader)) {
+				it.remove();
 			}
 		}
-		synchronized (acceptedClassLoaders) {
-			for (Iterator<ClassLoader> it = acceptedClassLoaders.iterator(); it.hasNext();) {
-				ClassLoader registeredLoader = it.next();
-				if (isUnderneathClassLoader(registeredLoader, classLoader)) {
-					it.remove();
-				}
+		for (Iterator<Class<?>> it = strongClassCache.keySet().iterator(); it.hasNext();) {
+			Class<?> beanClass = it.next();
+			if (isUnderneathClassLoader(beanClass.getClassLoader(), classLoader)) {
+				it.remove();
+			}
+		}
+		for (Iterator<Class<?>> it = softClassCache.keySet().iterator(); it.hasNext();) {
+			Class<?> beanClass = it.next();
+			if (isUnderneathClassLoader(beanClass.getClassLoader(), classLoader)) {
+				it.remove();
 			}
 		}
 	}
 
 	/**
 	 * Create CachedIntrospectionResults for the given bean class.
-	 * <P>We don't want to use synchronization here. Object references are atomic,
-	 * so we can live with doing the occasional unnecessary lookup at startup only.
+	 * <p>Lookups do not lock: both caches are concurrent maps. Concurrent
+	 * introspection of the same class may occasionally happen at startup,
+	 * in which case the first result registered wins.
 	 * @param beanClass the bean class to analyze
 	 * @return the corresponding CachedIntrospectionResults
 	 * @throws BeansException in case of introspection failure
 	 */
-	static CachedIntrospectionResults forClass(Class beanClass) throws BeansException {
-		CachedIntrospectionResults results;
-		Object value;
-		synchronized (classCache) {
-			value = classCache.get(beanClass);
+	static CachedIntrospectionResults forClass(Class<?> beanClass) throws BeansException {
+		CachedIntrospectionResults results = strongClassCache.get(beanClass);
+		if (results != null) {
+			return results;
 		}
-		if (value instanceof Reference) {
-			Reference ref = (Reference) value;
-			results = (CachedIntrospectionResults) ref.get();
+		results = softClassCache.get(beanClass);
+		if (results != null) {
+			return results;
 		}
-		else {
-			results = (CachedIntrospectionResults) value;
+
+		results = new CachedIntrospectionResults(beanClass);
+		ConcurrentMap<Class<?>, CachedIntrospectionResults> classCacheToUse;
+		if (ClassUtils.isCacheSafe(beanClass, CachedIntrospectionResults.class.getClassLoader()) ||
+				isClassLoaderAccepted(beanClass.getClassLoader())) {
+			classCacheToUse = strongClassCache;
 		}
-		if (results == null) {
-			if (ClassUtils.isCacheSafe(beanClass, CachedIntrospectionResults.class.getClassLoader()) ||
-					isClassLoaderAccepted(beanClass.getClassLoader())) {
-				results = new CachedIntrospectionResults(beanClass);
-				synchronized (classCache) {
-					classCache.put(beanClass, results);
-				}
-			}
-			else {
-				if (logger.isDebugEnabled()) {
-					logger.debug("Not strongly caching class [" + beanClass.getName() + "] because it is not cache-safe");
-				}
-				results = new CachedIntrospectionResults(beanClass);
-				synchronized (classCache) {
-					classCache.put(beanClass, new WeakReference<CachedIntrospectionResults>(results));
-				}
+		else {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Not strongly caching class [" + beanClass.getName() + "] because it is not cache-safe");
 			}
+			classCacheToUse = softClassCache;
 		}
-		return results;
+		CachedIntrospectionResults existing = classCacheToUse.putIfAbsent(beanClass, results);
+		return (existing != null ? existing : results);
 	}
 
 	/**
@@ -175,13 +177,7 @@ public class CachedIntrospectionResults {
 	 * @see #acceptClassLoader
 	 */
 	private static boolean isClassLoaderAccepted(ClassLoader classLoader) {
-		// Iterate over array copy in order to avoid synchronization for the entire
-		// ClassLoader check (avoiding a synchronized acceptedClassLoaders Iterator).
-		ClassLoader[] acceptedLoaderArray;
-		synchronized (acceptedClassLoaders) {
-			acceptedLoaderArray = acceptedClassLoaders.toArray(new ClassLoader[acceptedClassLoaders.size()]);
-		}
-		for (ClassLoader registeredLoader : acceptedLoaderArray) {
+		for (ClassLoader registeredLoader : acceptedClassLoaders) {
 			if (isUnderneathClassLoader(classLoader, registeredLoader)) {
 				return true;
 			}
@@ -219,6 +215,11 @@ public class CachedIntrospectionResults {
 	/** PropertyDescriptor objects keyed by property name String */
 	private final Map<String, PropertyDescriptor> propertyDescriptorCache;
 
+	/** Generated accessor for the property methods, lazily resolved */
+	private volatile GeneratedPropertyAccessor generatedPropertyAccessor;
+
+	private volatile boolean generatedPropertyAccessorResolved;
+
 
 	/**
 	 * Create a new CachedIntrospectionResults instance for the given class.
@@ -314,6 +315,25 @@ public class CachedIntrospectionResults {
 		return pds;
 	}
 
+	/**
+	 * Return the generated accessor for the property methods of the bean class,
+	 * generating it on first access.
+	 * @return the accessor, or {@code null} if none could be generated
+	 * for the bean class (e.g. if it is not public)
+	 */
+	GeneratedPropertyAccessor getGeneratedPropertyAccessor() {
+		if (!this.generatedPropertyAccessorResolved) {
+			synchronized (this) {
+				if (!this.generatedPropertyAccessorResolved) {
+					this.generatedPropertyAccessor =
+							GeneratedPropertyAccessor.forClass(getBeanClass(), getPropertyDescriptors());
+					this.generatedPropertyAccessorResolved = true;
+				}
+			}
+		}
+		return this.generatedPropertyAccessor;
+	}
+
 	private PropertyDescriptor buildGenericTypeAwarePropertyDescriptor(Class beanClass, PropertyDescriptor pd) {
 		try {
 			return new GenericTypeAwarePropertyDescriptor(beanClass, pd.getName(), pd.getReadMethod(),
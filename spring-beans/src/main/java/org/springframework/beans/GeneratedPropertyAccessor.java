@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.core.GeneratedMethodInvoker;
+
+/**
+ * Internal helper that invokes the read and write methods of a bean class
+ * through {@link GeneratedMethodInvoker}s, as opposed to
+ * {@link Method#invoke reflective invocation}.
+ *
+ * <p>Only public methods of public classes are covered. For any other method
+ * {@link #isInvokable} returns {@code false}, and callers fall back to reflection.
+ *
+ * @author Juergen Hoeller
+ * @since 4.0
+ * @see CachedIntrospectionResults#getGeneratedPropertyAccessor()
+ */
+final class GeneratedPropertyAccessor {
+
+	private final Map<Method, GeneratedMethodInvoker> methodInvokers;
+
+
+	private GeneratedPropertyAccessor(Map<Method, GeneratedMethodInvoker> methodInvokers) {
+		this.methodInvokers = methodInvokers;
+	}
+
+
+	/**
+	 * Return whether the given method can be invoked through the generated class.
+	 */
+	public boolean isInvokable(Method method) {
+		return this.methodInvokers.containsKey(method);
+	}
+
+	/**
+	 * Invoke the given method, which must be {@link #isInvokable invokable}.
+	 * @param method the read or write method
+	 * @param target the bean instance
+	 * @param args the arguments, if any
+	 * @return the return value
+	 * @throws InvocationTargetException if the method threw an exception
+	 */
+	public Object invoke(Method method, Object target, Object... args) throws InvocationTargetException {
+		return this.methodInvokers.get(method).invoke(target, args);
+	}
+
+
+	/**
+	 * Generate an accessor for the given bean class and property descriptors.
+	 * @return the accessor, or {@code null} if the class is not public, has no
+	 * public property methods, or the class could not be generated
+	 */
+	static GeneratedPropertyAccessor forClass(Class<?> beanClass, PropertyDescriptor[] pds) {
+		if (!Modifier.isPublic(beanClass.getModifiers()) || beanClass.getClassLoader() == null) {
+			return null;
+		}
+		Map<Method, GeneratedMethodInvoker> methodInvokers = new HashMap<Method, GeneratedMethodInvoker>();
+		for (PropertyDescriptor pd : pds) {
+			addMethod(pd.getReadMethod(), methodInvokers);
+			addMethod(pd.getWriteMethod(), methodInvokers);
+		}
+		return (!methodInvokers.isEmpty() ? new GeneratedPropertyAccessor(methodInvokers) : null);
+	}
+
+	private static void addMethod(Method method, Map<Method, GeneratedMethodInvoker> methodInvokers) {
+		if (method != null) {
+			GeneratedMethodInvoker invoker = GeneratedMethodInvoker.forMethod(method);
+			if (invoker != null) {
+				methodInvokers.put(method, invoker);
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,7 +25,6 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -48,6 +47,7 @@ import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
 import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.core.BridgeMethodResolver;
@@ -59,6 +59,7 @@ import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * {@link org.springframework.beans.factory.config.BeanPostProcessor} implementation
@@ -95,6 +96,12 @@ import org.springframework.util.ReflectionUtils;
  * thus the latter configuration will override the former for properties wired through
  * both approaches.
  *
+ * <p>The outcome of dependency resolution is cached per bean and injection point:
+ * subsequent instances of the same (e.g. prototype or request-scoped) bean get
+ * injected with the same target beans, obtained by name, without going through
+ * type matching against all beans again. Such an injection plan is re-resolved
+ * once the set of beans in a {@link DefaultListableBeanFactory} changes.
+ *
  * @author Juergen Hoeller
  * @author Mark Fisher
  * @since 2.5
@@ -440,6 +447,55 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 		}
 	}
 
+	/**
+	 * Return the current version of the factory's set of beans,
+	 * for checking whether a cached injection plan is still valid.
+	 * @see DefaultListableBeanFactory#getRegistryVersion()
+	 */
+	private int getRegistryVersion() {
+		return (this.beanFactory instanceof DefaultListableBeanFactory ?
+				((DefaultListableBeanFactory) this.beanFactory).getRegistryVersion() : 0);
+	}
+
+	/**
+	 * Return the cached injection plan for the given bean, if still valid.
+	 */
+	private InjectionPlan getInjectionPlan(Map<String, InjectionPlan> injectionPlans, String beanName) {
+		InjectionPlan plan = injectionPlans.get(beanName != null ? beanName : "");
+		return (plan != null && plan.registryVersion == getRegistryVersion() ? plan : null);
+	}
+
+	/**
+	 * Cache the given injection plan for the given bean.
+	 */
+	private void putInjectionPlan(Map<String, InjectionPlan> injectionPlans, String beanName, InjectionPlan plan) {
+		injectionPlans.put(beanName != null ? beanName : "", plan);
+	}
+
+	/**
+	 * Build the cached form of a resolved method argument or field value: a reference
+	 * to a single target bean of a matching type, or a copy of the given descriptor
+	 * with the target bean names pre-resolved.
+	 */
+	private Object buildCachedArgument(DependencyDescriptor descriptor, Class<?> requiredType,
+			Set<String> autowiredBeanNames) {
+
+		List<String> resolvedBeanNames = new ArrayList<String>(autowiredBeanNames.size());
+		for (String autowiredBeanName : autowiredBeanNames) {
+			// Resolvable dependencies are matched by the factory again anyway.
+			if (this.beanFactory.containsBean(autowiredBeanName)) {
+				resolvedBeanNames.add(autowiredBeanName);
+			}
+		}
+		if (resolvedBeanNames.size() == 1 && autowiredBeanNames.size() == 1) {
+			String autowiredBeanName = resolvedBeanNames.get(0);
+			if (this.beanFactory.isTypeMatch(autowiredBeanName, requiredType)) {
+				return new RuntimeBeanReference(autowiredBeanName);
+			}
+		}
+		return new ShortcutDependencyDescriptor(descriptor, StringUtils.toStringArray(resolvedBeanNames));
+	}
+
 	/**
 	 * Resolve the specified cached method argument or field value.
 	 */
@@ -465,9 +521,7 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 
 		private final boolean required;
 
-		private volatile boolean cached = false;
-
-		private volatile Object cachedFieldValue;
+		private final Map<String, InjectionPlan> injectionPlans = new ConcurrentHashMap<String, InjectionPlan>(4);
 
 		public AutowiredFieldElement(Field field, boolean required) {
 			super(field, null);
@@ -479,34 +533,23 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 			Field field = (Field) this.member;
 			try {
 				Object value;
-				if (this.cached) {
-					value = resolvedCachedArgument(beanName, this.cachedFieldValue);
+				InjectionPlan plan = getInjectionPlan(this.injectionPlans, beanName);
+				if (plan != null) {
+					value = resolvedCachedArgument(beanName, plan.arguments[0]);
 				}
 				else {
+					int registryVersion = getRegistryVersion();
 					DependencyDescriptor descriptor = new DependencyDescriptor(field, this.required);
 					Set<String> autowiredBeanNames = new LinkedHashSet<String>(1);
 					TypeConverter typeConverter = beanFactory.getTypeConverter();
 					value = beanFactory.resolveDependency(descriptor, beanName, autowiredBeanNames, typeConverter);
-					synchronized (this) {
-						if (!this.cached) {
-							if (value != null || this.required) {
-								this.cachedFieldValue = descriptor;
-								registerDependentBeans(beanName, autowiredBeanNames);
-								if (autowiredBeanNames.size() == 1) {
-									String autowiredBeanName = autowiredBeanNames.iterator().next();
-									if (beanFactory.containsBean(autowiredBeanName)) {
-										if (beanFactory.isTypeMatch(autowiredBeanName, field.getType())) {
-											this.cachedFieldValue = new RuntimeBeanReference(autowiredBeanName);
-										}
-									}
-								}
-							}
-							else {
-								this.cachedFieldValue = null;
-							}
-							this.cached = true;
-						}
+					Object cachedFieldValue = null;
+					if (value != null || this.required) {
+						registerDependentBeans(beanName, autowiredBeanNames);
+						cachedFieldValue = buildCachedArgument(descriptor, field.getType(), autowiredBeanNames);
 					}
+					putInjectionPlan(this.injectionPlans, beanName,
+							new InjectionPlan(new Object[] {cachedFieldValue}, registryVersion));
 				}
 				if (value != null) {
 					ReflectionUtils.makeAccessible(field);
@@ -527,9 +570,7 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 
 		private final boolean required;
 
-		private volatile boolean cached = false;
-
-		private volatile Object[] cachedMethodArguments;
+		private final Map<String, InjectionPlan> injectionPlans = new ConcurrentHashMap<String, InjectionPlan>(4);
 
 		public AutowiredMethodElement(Method method, boolean required, PropertyDescriptor pd) {
 			super(method, pd);
@@ -544,53 +585,37 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 			Method method = (Method) this.member;
 			try {
 				Object[] arguments;
-				if (this.cached) {
-					// Shortcut for avoiding synchronization...
-					arguments = resolveCachedArguments(beanName);
+				InjectionPlan plan = getInjectionPlan(this.injectionPlans, beanName);
+				if (plan != null) {
+					arguments = resolveCachedArguments(beanName, plan.arguments);
 				}
 				else {
+					int registryVersion = getRegistryVersion();
 					Class<?>[] paramTypes = method.getParameterTypes();
 					arguments = new Object[paramTypes.length];
-					DependencyDescriptor[] descriptors = new DependencyDescriptor[paramTypes.length];
-					Set<String> autowiredBeanNames = new LinkedHashSet<String>(paramTypes.length);
+					Object[] cachedMethodArguments = new Object[paramTypes.length];
+					Set<String> allAutowiredBeanNames = new LinkedHashSet<String>(paramTypes.length);
 					TypeConverter typeConverter = beanFactory.getTypeConverter();
 					for (int i = 0; i < arguments.length; i++) {
 						MethodParameter methodParam = new MethodParameter(method, i);
 						GenericTypeResolver.resolveParameterType(methodParam, bean.getClass());
-						descriptors[i] = new DependencyDescriptor(methodParam, this.required);
+						DependencyDescriptor descriptor = new DependencyDescriptor(methodParam, this.required);
+						Set<String> autowiredBeanNames = new LinkedHashSet<String>(1);
 						arguments[i] = beanFactory.resolveDependency(
-								descriptors[i], beanName, autowiredBeanNames, typeConverter);
+								descriptor, beanName, autowiredBeanNames, typeConverter);
 						if (arguments[i] == null && !this.required) {
 							arguments = null;
+							cachedMethodArguments = null;
 							break;
 						}
+						cachedMethodArguments[i] = buildCachedArgument(descriptor, paramTypes[i], autowiredBeanNames);
+						allAutowiredBeanNames.addAll(autowiredBeanNames);
 					}
-					synchronized (this) {
-						if (!this.cached) {
-							if (arguments != null) {
-								this.cachedMethodArguments = new Object[arguments.length];
-								for (int i = 0; i < arguments.length; i++) {
-									this.cachedMethodArguments[i] = descriptors[i];
-								}
-								registerDependentBeans(beanName, autowiredBeanNames);
-								if (autowiredBeanNames.size() == paramTypes.length) {
-									Iterator<String> it = autowiredBeanNames.iterator();
-									for (int i = 0; i < paramTypes.length; i++) {
-										String autowiredBeanName = it.next();
-										if (beanFactory.containsBean(autowiredBeanName)) {
-											if (beanFactory.isTypeMatch(autowiredBeanName, paramTypes[i])) {
-												this.cachedMethodArguments[i] = new RuntimeBeanReference(autowiredBeanName);
-											}
-										}
-									}
-								}
-							}
-							else {
-								this.cachedMethodArguments = null;
-							}
-							this.cached = true;
-						}
+					if (arguments != null) {
+						registerDependentBeans(beanName, allAutowiredBeanNames);
 					}
+					putInjectionPlan(this.injectionPlans, beanName,
+							new InjectionPlan(cachedMethodArguments, registryVersion));
 				}
 				if (arguments != null) {
 					ReflectionUtils.makeAccessible(method);
@@ -605,16 +630,53 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 			}
 		}
 
-		private Object[] resolveCachedArguments(String beanName) {
-			if (this.cachedMethodArguments == null) {
+		private Object[] resolveCachedArguments(String beanName, Object[] cachedMethodArguments) {
+			if (cachedMethodArguments == null) {
 				return null;
 			}
-			Object[] arguments = new Object[this.cachedMethodArguments.length];
+			Object[] arguments = new Object[cachedMethodArguments.length];
 			for (int i = 0; i < arguments.length; i++) {
-				arguments[i] = resolvedCachedArgument(beanName, this.cachedMethodArguments[i]);
+				arguments[i] = resolvedCachedArgument(beanName, cachedMethodArguments[i]);
 			}
 			return arguments;
 		}
 	}
 
+
+	/**
+	 * Cached arguments for an injected element of a specific bean, along with
+	 * the version of the factory's set of beans that they were resolved against.
+	 */
+	private static class InjectionPlan {
+
+		private final Object[] arguments;
+
+		private final int registryVersion;
+
+		public InjectionPlan(Object[] arguments, int registryVersion) {
+			this.arguments = arguments;
+			this.registryVersion = registryVersion;
+		}
+	}
+
+
+	/**
+	 * DependencyDescriptor variant with pre-resolved target bean names.
+	 */
+	@SuppressWarnings("serial")
+	private static class ShortcutDependencyDescriptor extends DependencyDescriptor {
+
+		private final String[] resolvedBeanNames;
+
+		public ShortcutDependencyDescriptor(DependencyDescriptor original, String[] resolvedBeanNames) {
+			super(original);
+			this.resolvedBeanNames = resolvedBeanNames;
+		}
+
+		@Override
+		public String[] getResolvedBeanNames() {
+			return this.resolvedBeanNames;
+		}
+	}
+
 }
@@ -27,6 +27,7 @@ import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.HierarchicalBeanFactory;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.core.metrics.ApplicationStartup;
 import org.springframework.util.StringValueResolver;
 
 /**
@@ -202,6 +203,21 @@ public interface ConfigurableBeanFactory extends HierarchicalBeanFactory, Single
 	 */
 	TypeConverter getTypeConverter();
 
+	/**
+	 * Set the {@link ApplicationStartup} for this bean factory, recording
+	 * the creation and initialization of beans as startup steps.
+	 * <p>Default is {@link ApplicationStartup#DEFAULT}, not recording anything.
+	 * @param applicationStartup the startup recorder to use
+	 * @since 4.0
+	 */
+	void setApplicationStartup(ApplicationStartup applicationStartup);
+
+	/**
+	 * Return the {@link ApplicationStartup} for this bean factory.
+	 * @since 4.0
+	 */
+	ApplicationStartup getApplicationStartup();
+
 	/**
 	 * Add a String resolver for embedded values such as annotation attributes.
 	 * @param valueResolver the String resolver to apply to embedded values
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -174,6 +174,22 @@ public class DependencyDescriptor implements Serializable {
 		return this.eager;
 	}
 
+	/**
+	 * Return the names of the beans to inject for this dependency,
+	 * if already known from an earlier resolution.
+	 * <p>The default implementation returns {@code null}, letting the factory
+	 * find matching beans by type. Subclasses may return pre-resolved bean names,
+	 * to be used as-is instead of going through the type matching algorithm
+	 * across all beans; it is up to the caller to keep those in sync with the
+	 * beans registered in the factory.
+	 * @return the pre-resolved bean names, or {@code null} if none
+	 * @since 4.0
+	 * @see org.springframework.beans.factory.support.DefaultListableBeanFactory#getRegistryVersion()
+	 */
+	public String[] getResolvedBeanNames() {
+		return null;
+	}
+
 
 	/**
 	 * Increase this descriptor's nesting level.
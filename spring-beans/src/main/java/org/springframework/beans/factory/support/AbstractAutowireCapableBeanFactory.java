@@ -73,6 +73,8 @@ import org.springframework.core.GenericTypeResolver;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.core.PriorityOrdered;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.ReflectionUtils;
@@ -445,38 +447,45 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	protected Object createBean(final String beanName, final RootBeanDefinition mbd, final Object[] args)
 			throws BeanCreationException {
 
-		if (logger.isDebugEnabled()) {
-			logger.debug("Creating instance of bean '" + beanName + "'");
-		}
-		// Make sure bean class is actually resolved at this point.
-		resolveBeanClass(mbd, beanName);
-
-		// Prepare method overrides.
+		StartupStep step = getApplicationStartup().start("spring.beans.instantiate").tag("beanName", beanName);
 		try {
-			mbd.prepareMethodOverrides();
-		}
-		catch (BeanDefinitionValidationException ex) {
-			throw new BeanDefinitionStoreException(mbd.getResourceDescription(),
-					beanName, "Validation of method overrides failed", ex);
-		}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Creating instance of bean '" + beanName + "'");
+			}
+			// Make sure bean class is actually resolved at this point.
+			resolveBeanClass(mbd, beanName);
+			step.tag("beanType", mbd.getBeanClassName());
 
-		try {
-			// Give BeanPostProcessors a chance to return a proxy instead of the target bean instance.
-			Object bean = resolveBeforeInstantiation(beanName, mbd);
-			if (bean != null) {
-				return bean;
+			// Prepare method overrides.
+			try {
+				mbd.prepareMethodOverrides();
+			}
+			catch (BeanDefinitionValidationException ex) {
+				throw new BeanDefinitionStoreException(mbd.getResourceDescription(),
+						beanName, "Validation of method overrides failed", ex);
 			}
-		}
-		catch (Throwable ex) {
-			throw new BeanCreationException(mbd.getResourceDescription(), beanName,
-					"BeanPostProcessor before instantiation of bean failed", ex);
-		}
 
-		Object beanInstance = doCreateBean(beanName, mbd, args);
-		if (logger.isDebugEnabled()) {
-			logger.debug("Finished creating instance of bean '" + beanName + "'");
+			try {
+				// Give BeanPostProcessors a chance to return a proxy instead of the target bean instance.
+				Object bean = resolveBeforeInstantiation(beanName, mbd);
+				if (bean != null) {
+					return bean;
+				}
+			}
+			catch (Throwable ex) {
+				throw new BeanCreationException(mbd.getResourceDescription(), beanName,
+						"BeanPostProcessor before instantiation of bean failed", ex);
+			}
+
+			Object beanInstance = doCreateBean(beanName, mbd, args);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Finished creating instance of bean '" + beanName + "'");
+			}
+			return beanInstance;
+		}
+		finally {
+			step.end();
 		}
-		return beanInstance;
 	}
 
 	/**
@@ -1494,11 +1503,20 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			invokeAwareMethods(beanName, bean);
 		}
 
+		ApplicationStartup applicationStartup = getApplicationStartup();
 		Object wrappedBean = bean;
 		if (mbd == null || !mbd.isSynthetic()) {
-			wrappedBean = applyBeanPostProcessorsBeforeInitialization(wrappedBean, beanName);
+			StartupStep step = applicationStartup.start("spring.beans.post-process.before-initialization")
+					.tag("beanName", beanName);
+			try {
+				wrappedBean = applyBeanPostProcessorsBeforeInitialization(wrappedBean, beanName);
+			}
+			finally {
+				step.end();
+			}
 		}
 
+		StartupStep step = applicationStartup.start("spring.beans.init-methods").tag("beanName", beanName);
 		try {
 			invokeInitMethods(beanName, wrappedBean, mbd);
 		}
@@ -1507,9 +1525,19 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 					(mbd != null ? mbd.getResourceDescription() : null),
 					beanName, "Invocation of init method failed", ex);
 		}
+		finally {
+			step.end();
+		}
 
 		if (mbd == null || !mbd.isSynthetic()) {
-			wrappedBean = applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName);
+			step = applicationStartup.start("spring.beans.post-process.after-initialization")
+					.tag("beanName", beanName);
+			try {
+				wrappedBean = applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName);
+			}
+			finally {
+				step.end();
+			}
 		}
 		return wrappedBean;
 	}
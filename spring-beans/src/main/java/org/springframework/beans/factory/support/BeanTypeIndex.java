@@ -0,0 +1,178 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Index of bean names by type, maintained incrementally by
+ * {@link DefaultListableBeanFactory} as bean definitions get registered,
+ * reset and removed.
+ *
+ * <p>A bean name is indexed under its bean type as well as all superclasses
+ * and interfaces of it, once its type is known to be stable. Bean names that
+ * are not indexed (yet) are always returned as candidates, so that a by-type
+ * lookup only needs to check the indexed matches plus the non-indexed names
+ * instead of all bean definitions. Candidates are returned in registration order.
+ *
+ * @author Juergen Hoeller
+ * @since 4.0
+ * @see DefaultListableBeanFactory#getBeanNamesForType
+ */
+class BeanTypeIndex {
+
+	/** Registration order of all known bean names */
+	private final Map<String, Integer> registrationOrder = new HashMap<String, Integer>(64);
+
+	/** Indexed type per bean name */
+	private final Map<String, Class<?>> indexedTypes = new HashMap<String, Class<?>>(64);
+
+	/** Bean names keyed by their indexed type and all of its supertypes */
+	private final Map<Class<?>, Set<String>> beanNamesByType = new HashMap<Class<?>, Set<String>>(64);
+
+	/** Bean names without an indexed type */
+	private final Set<String> nonIndexedBeanNames = new LinkedHashSet<String>(64);
+
+	private final Comparator<String> registrationOrderComparator = new Comparator<String>() {
+		@Override
+		public int compare(String name1, String name2) {
+			return registrationOrder.get(name1).compareTo(registrationOrder.get(name2));
+		}
+	};
+
+	private int nextOrder = 0;
+
+
+	/**
+	 * Register the given bean name, initially without an indexed type.
+	 * A bean name registered before keeps its position in the registration order.
+	 */
+	public synchronized void register(String beanName) {
+		if (!this.registrationOrder.containsKey(beanName)) {
+			this.registrationOrder.put(beanName, this.nextOrder++);
+		}
+		unindex(beanName);
+	}
+
+	/**
+	 * Remove the given bean name from the index completely.
+	 */
+	public synchronized void remove(String beanName) {
+		unindex(beanName);
+		this.nonIndexedBeanNames.remove(beanName);
+		this.registrationOrder.remove(beanName);
+	}
+
+	/**
+	 * Index the given bean name under the given type and all of its supertypes.
+	 * Ignored if the bean name has not been registered.
+	 */
+	public synchronized void index(String beanName, Class<?> beanType) {
+		if (!this.registrationOrder.containsKey(beanName)) {
+			return;
+		}
+		unindex(beanName);
+		this.nonIndexedBeanNames.remove(beanName);
+		this.indexedTypes.put(beanName, beanType);
+		for (Class<?> type : getTypeHierarchy(beanType)) {
+			Set<String> beanNames = this.beanNamesByType.get(type);
+			if (beanNames == null) {
+				beanNames = new LinkedHashSet<String>(4);
+				this.beanNamesByType.put(type, beanNames);
+			}
+			beanNames.add(beanName);
+		}
+	}
+
+	/**
+	 * Drop the indexed type for the given bean name, if any,
+	 * turning it into a candidate for every type again.
+	 */
+	public synchronized void unindex(String beanName) {
+		Class<?> beanType = this.indexedTypes.remove(beanName);
+		if (beanType != null) {
+			for (Class<?> type : getTypeHierarchy(beanType)) {
+				Set<String> beanNames = this.beanNamesByType.get(type);
+				if (beanNames != null) {
+					beanNames.remove(beanName);
+					if (beanNames.isEmpty()) {
+						this.beanNamesByType.remove(type);
+					}
+				}
+			}
+		}
+		if (this.registrationOrder.containsKey(beanName)) {
+			this.nonIndexedBeanNames.add(beanName);
+		}
+	}
+
+	/**
+	 * Return whether the given bean name has an indexed type.
+	 */
+	public synchronized boolean isIndexed(String beanName) {
+		return this.indexedTypes.containsKey(beanName);
+	}
+
+	/**
+	 * Return the names of all beans that may match the given type: indexed beans
+	 * of the given type or a subtype, plus all beans without an indexed type.
+	 * @param type the type to match
+	 * @return the candidate bean names, in registration order
+	 */
+	public synchronized String[] getCandidateBeanNames(Class<?> type) {
+		Set<String> matches = this.beanNamesByType.get(type);
+		List<String> candidates = new ArrayList<String>(
+				this.nonIndexedBeanNames.size() + (matches != null ? matches.size() : 0));
+		candidates.addAll(this.nonIndexedBeanNames);
+		if (matches != null) {
+			candidates.addAll(matches);
+		}
+		Collections.sort(candidates, this.registrationOrderComparator);
+		return StringUtils.toStringArray(candidates);
+	}
+
+	/**
+	 * Collect the given type, its superclasses and all interfaces
+	 * implemented or extended along the way.
+	 */
+	private static Set<Class<?>> getTypeHierarchy(Class<?> beanType) {
+		Set<Class<?>> types = new LinkedHashSet<Class<?>>();
+		List<Class<?>> typesToProcess = new ArrayList<Class<?>>();
+		typesToProcess.add(beanType);
+		for (int i = 0; i < typesToProcess.size(); i++) {
+			Class<?> type = typesToProcess.get(i);
+			if (types.add(type)) {
+				if (type.getSuperclass() != null) {
+					typesToProcess.add(type.getSuperclass());
+				}
+				Collections.addAll(typesToProcess, type.getInterfaces());
+			}
+		}
+		types.add(Object.class);
+		return types;
+	}
+
+}
@@ -24,21 +24,29 @@ import java.io.Serializable;
 import java.lang.annotation.Annotation;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.inject.Provider;
 
 import org.springframework.beans.BeansException;
 import org.springframework.beans.FatalBeanException;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCurrentlyInCreationException;
@@ -54,9 +62,14 @@ import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.SmartFactoryBean;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.BeanReference;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
@@ -140,6 +153,15 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Map of singleton-only bean names keyed by dependency type */
 	private final Map<Class<?>, String[]> singletonBeanNamesByType = new ConcurrentHashMap<Class<?>, String[]>(64);
 
+	/** Index of bean definition names by type, maintained as definitions change */
+	private final BeanTypeIndex beanTypeIndex = new BeanTypeIndex();
+
+	/** Number of changes to the set of registered beans and resolvable dependencies */
+	private final AtomicInteger registryVersion = new AtomicInteger();
+
+	/** Whether post-processors of a given type may predict bean types, keyed by post-processor type */
+	private final Map<Class<?>, Boolean> typePredictingPostProcessorTypes = new ConcurrentHashMap<Class<?>, Boolean>(16);
+
 	/** List of bean definition names, in registration order */
 	private final List<String> beanDefinitionNames = new ArrayList<String>();
 
@@ -149,6 +171,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Cached array of bean definition names in case of frozen configuration */
 	private String[] frozenBeanDefinitionNames;
 
+	/** Executor for pre-instantiating independent singletons concurrently, if any */
+	private Executor bootstrapExecutor;
+
 
 	/**
 	 * Create a new DefaultListableBeanFactory.
@@ -205,6 +230,34 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		this.allowEagerClassLoading = allowEagerClassLoading;
 	}
 
+	/**
+	 * Set an executor for pre-instantiating singletons concurrently.
+	 * <p>If set, {@link #preInstantiateSingletons()} groups the singletons into
+	 * sets of beans that refer to each other through their bean definitions
+	 * (depends-on, factory beans, bean references in constructor arguments and
+	 * property values), and creates the beans of each group in registration order,
+	 * with different groups created concurrently on the given executor. This helps
+	 * when initializing singletons involves I/O, e.g. connection pools.
+	 * <p>Dependencies not expressed in bean definitions, e.g. through annotation-driven
+	 * autowiring, are resolved at creation time: a thread that needs a singleton
+	 * being created by another thread waits for it. Singletons whose creation fails
+	 * due to a circular reference across threads are created again afterwards on
+	 * the calling thread. Default is none, creating all singletons on the calling
+	 * thread.
+	 * @since 4.0
+	 */
+	public void setBootstrapExecutor(Executor bootstrapExecutor) {
+		this.bootstrapExecutor = bootstrapExecutor;
+	}
+
+	/**
+	 * Return the executor for pre-instantiating singletons concurrently, if any.
+	 * @since 4.0
+	 */
+	public Executor getBootstrapExecutor() {
+		return this.bootstrapExecutor;
+	}
+
 	/**
 	 * Set a custom autowire candidate resolver for this BeanFactory to use
 	 * when deciding whether a bean definition should be considered as a
@@ -246,6 +299,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
 			this.autowireCandidateResolver = otherListableFactory.autowireCandidateResolver;
+			this.bootstrapExecutor = otherListableFactory.bootstrapExecutor;
 			this.resolvableDependencies.putAll(otherListableFactory.resolvableDependencies);
 		}
 	}
@@ -345,8 +399,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private String[] doGetBeanNamesForType(Class<?> type, boolean includeNonSingletons, boolean allowEagerInit) {
 		List<String> result = new ArrayList<String>();
 
-		// Check all bean definitions.
-		String[] beanDefinitionNames = getBeanDefinitionNames();
+		// Check all bean definitions which may match, according to the type index.
+		boolean useTypeIndex = (type != null && isTypeIndexApplicable());
+		String[] beanDefinitionNames =
+				(useTypeIndex ? this.beanTypeIndex.getCandidateBeanNames(type) : getBeanDefinitionNames());
 		for (String beanName : beanDefinitionNames) {
 			// Only consider bean as eligible if the bean name
 			// is not defined as alias for some other bean.
@@ -361,6 +417,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 						boolean isFactoryBean = isFactoryBean(beanName, mbd);
 						boolean matchFound = (allowEagerInit || !isFactoryBean || containsSingleton(beanName)) &&
 								(includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type);
+						if (useTypeIndex && !isFactoryBean) {
+							updateTypeIndex(beanName, mbd);
+						}
 						if (!matchFound && isFactoryBean) {
 							// In case of FactoryBean, try to match FactoryBean instance itself next.
 							beanName = FACTORY_BEAN_PREFIX + beanName;
@@ -419,6 +478,83 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return StringUtils.toStringArray(result);
 	}
 
+	/**
+	 * Determine whether the type index may be used for by-type lookups.
+	 * <p>This is not the case if a temporary ClassLoader is active for type
+	 * matching, or if a {@link SmartInstantiationAwareBeanPostProcessor} may
+	 * predict bean types or expose early bean references of a different type.
+	 */
+	private boolean isTypeIndexApplicable() {
+		if (getTempClassLoader() != null) {
+			return false;
+		}
+		if (hasInstantiationAwareBeanPostProcessors()) {
+			for (BeanPostProcessor bp : getBeanPostProcessors()) {
+				if (bp instanceof SmartInstantiationAwareBeanPostProcessor && isTypePredictingPostProcessor(bp)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Determine whether the given post-processor overrides the type prediction
+	 * or early reference callbacks of {@link InstantiationAwareBeanPostProcessorAdapter}.
+	 */
+	private boolean isTypePredictingPostProcessor(BeanPostProcessor bp) {
+		Boolean typePredicting = this.typePredictingPostProcessorTypes.get(bp.getClass());
+		if (typePredicting == null) {
+			try {
+				Method predictBeanType = bp.getClass().getMethod("predictBeanType", Class.class, String.class);
+				Method getEarlyBeanReference = bp.getClass().getMethod("getEarlyBeanReference", Object.class, String.class);
+				typePredicting = !(InstantiationAwareBeanPostProcessorAdapter.class.equals(predictBeanType.getDeclaringClass()) &&
+						InstantiationAwareBeanPostProcessorAdapter.class.equals(getEarlyBeanReference.getDeclaringClass()));
+			}
+			catch (NoSuchMethodException ex) {
+				typePredicting = true;
+			}
+			this.typePredictingPostProcessorTypes.put(bp.getClass(), typePredicting);
+		}
+		return typePredicting;
+	}
+
+	/**
+	 * Index the type of the given bean, provided that its bean definition metadata
+	 * is stable and its type is known without consulting factory methods or FactoryBeans.
+	 * Once the singleton instance exists, its actual type is indexed.
+	 * @param beanName the name of the bean
+	 * @param mbd the merged bean definition for the bean
+	 */
+	private void updateTypeIndex(String beanName, RootBeanDefinition mbd) {
+		if (this.beanTypeIndex.isIndexed(beanName) || !isBeanEligibleForMetadataCaching(beanName) ||
+				mbd.isAbstract() || !mbd.hasBeanClass() || mbd.getFactoryMethodName() != null ||
+				mbd.getDecoratedDefinition() != null || isCurrentlyInCreation(beanName)) {
+			return;
+		}
+		Class<?> beanType = mbd.getBeanClass();
+		if (FactoryBean.class.isAssignableFrom(beanType) ||
+				(mbd.getTargetType() != null && !beanType.equals(mbd.getTargetType()))) {
+			return;
+		}
+		// Check for the singleton instance and index atomically with respect to
+		// the registration of the singleton, which drops the indexed type again.
+		synchronized (getSingletonMutex()) {
+			Object beanInstance = getSingleton(beanName, false);
+			if (beanInstance != null) {
+				if (beanInstance instanceof FactoryBean) {
+					return;
+				}
+				beanType = beanInstance.getClass();
+			}
+			else if (containsSingleton(beanName)) {
+				// null instance registered
+				return;
+			}
+			this.beanTypeIndex.index(beanName, beanType);
+		}
+	}
+
 	/**
 	 * Check whether the specified bean would need to be eagerly initialized
 	 * in order to determine its type.
@@ -520,6 +656,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			Assert.isTrue((autowiredValue instanceof ObjectFactory || dependencyType.isInstance(autowiredValue)),
 					"Value [" + autowiredValue + "] does not implement specified type [" + dependencyType.getName() + "]");
 			this.resolvableDependencies.put(dependencyType, autowiredValue);
+			this.registryVersion.incrementAndGet();
 		}
 	}
 
@@ -607,6 +744,20 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return (this.configurationFrozen || super.isBeanEligibleForMetadataCaching(beanName));
 	}
 
+	/**
+	 * Return a version number for the set of beans known to this factory,
+	 * changing whenever a bean definition, a manually registered singleton or a
+	 * resolvable dependency gets added, replaced or removed.
+	 * <p>Allows for caching the outcome of dependency resolution, e.g. the names of
+	 * the beans to autowire, and for detecting that it needs to be re-resolved.
+	 * Note that changes in a parent factory are not reflected here.
+	 * @since 4.0
+	 * @see DependencyDescriptor#getResolvedBeanNames()
+	 */
+	public int getRegistryVersion() {
+		return this.registryVersion.get();
+	}
+
 	@Override
 	public void preInstantiateSingletons() throws BeansException {
 		if (this.logger.isDebugEnabled()) {
@@ -618,31 +769,208 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			// While this may not be part of the regular factory bootstrap, it does otherwise work fine.
 			beanNames = new ArrayList<String>(this.beanDefinitionNames);
 		}
+		if (this.bootstrapExecutor != null) {
+			preInstantiateSingletonsConcurrently(beanNames);
+		}
 		for (String beanName : beanNames) {
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				if (isFactoryBean(beanName)) {
-					final FactoryBean<?> factory = (FactoryBean<?>) getBean(FACTORY_BEAN_PREFIX + beanName);
-					boolean isEagerInit;
-					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-						isEagerInit = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
-							@Override
-							public Boolean run() {
-								return ((SmartFactoryBean<?>) factory).isEagerInit();
+			preInstantiateSingleton(beanName);
+		}
+	}
+
+	private void preInstantiateSingleton(String beanName) {
+		RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+		if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+			if (isFactoryBean(beanName)) {
+				final FactoryBean<?> factory = (FactoryBean<?>) getBean(FACTORY_BEAN_PREFIX + beanName);
+				boolean isEagerInit;
+				if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+					isEagerInit = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+						@Override
+						public Boolean run() {
+							return ((SmartFactoryBean<?>) factory).isEagerInit();
+						}
+					}, getAccessControlContext());
+				}
+				else {
+					isEagerInit = (factory instanceof SmartFactoryBean &&
+							((SmartFactoryBean<?>) factory).isEagerInit());
+				}
+				if (isEagerInit) {
+					getBean(beanName);
+				}
+			}
+			else {
+				getBean(beanName);
+			}
+		}
+	}
+
+	/**
+	 * Pre-instantiate groups of related singletons concurrently on the bootstrap
+	 * executor, waiting for all groups to complete. Failures caused by circular
+	 * references across threads are ignored, leaving the affected singletons to
+	 * the sequential pass that follows.
+	 */
+	private void preInstantiateSingletonsConcurrently(List<String> beanNames) throws BeansException {
+		List<List<String>> groups = groupSingletonsByDependencies(beanNames);
+		if (groups.size() < 2) {
+			return;
+		}
+		if (this.logger.isDebugEnabled()) {
+			this.logger.debug("Pre-instantiating " + groups.size() + " groups of singletons concurrently");
+		}
+		final CountDownLatch latch = new CountDownLatch(groups.size());
+		final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+		setConcurrentSingletonCreation(true);
+		try {
+			for (final List<String> group : groups) {
+				Runnable task = new Runnable() {
+					@Override
+					public void run() {
+						try {
+							for (String beanName : group) {
+								preInstantiateSingleton(beanName);
 							}
-						}, getAccessControlContext());
-					}
-					else {
-						isEagerInit = (factory instanceof SmartFactoryBean &&
-								((SmartFactoryBean<?>) factory).isEagerInit());
+						}
+						catch (Throwable ex) {
+							failures.add(ex);
+						}
+						finally {
+							latch.countDown();
+						}
 					}
-					if (isEagerInit) {
-						getBean(beanName);
+				};
+				try {
+					this.bootstrapExecutor.execute(task);
+				}
+				catch (RejectedExecutionException ex) {
+					task.run();
+				}
+			}
+			latch.await();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new FatalBeanException("Interrupted while pre-instantiating singletons", ex);
+		}
+		finally {
+			setConcurrentSingletonCreation(false);
+		}
+		for (Throwable ex : failures) {
+			if (ex instanceof BeansException && ((BeansException) ex).contains(BeanCurrentlyInCreationException.class)) {
+				if (this.logger.isDebugEnabled()) {
+					this.logger.debug("Deferring singleton creation to calling thread: " + ex.getMessage());
+				}
+				continue;
+			}
+			if (ex instanceof RuntimeException) {
+				throw (RuntimeException) ex;
+			}
+			if (ex instanceof Error) {
+				throw (Error) ex;
+			}
+			throw new FatalBeanException("Failed to pre-instantiate singletons", ex);
+		}
+	}
+
+	/**
+	 * Group the non-lazy singletons among the given bean names so that beans
+	 * referring to each other through their merged bean definitions, directly or
+	 * indirectly, end up in the same group, in registration order.
+	 */
+	private List<List<String>> groupSingletonsByDependencies(List<String> beanNames) {
+		Map<String, String> parents = new HashMap<String, String>(beanNames.size());
+		for (String beanName : beanNames) {
+			parents.put(beanName, beanName);
+		}
+		for (String beanName : beanNames) {
+			Set<String> references = new LinkedHashSet<String>();
+			collectBeanReferences(getMergedLocalBeanDefinition(beanName), references);
+			for (String reference : references) {
+				String referencedName = canonicalName(BeanFactoryUtils.transformedBeanName(reference));
+				if (parents.containsKey(referencedName)) {
+					String root = findGroupRoot(parents, beanName);
+					String referencedRoot = findGroupRoot(parents, referencedName);
+					if (!root.equals(referencedRoot)) {
+						parents.put(referencedRoot, root);
 					}
 				}
-				else {
-					getBean(beanName);
+			}
+		}
+		Map<String, List<String>> groups = new LinkedHashMap<String, List<String>>();
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+				String root = findGroupRoot(parents, beanName);
+				List<String> group = groups.get(root);
+				if (group == null) {
+					group = new ArrayList<String>();
+					groups.put(root, group);
 				}
+				group.add(beanName);
+			}
+		}
+		return new ArrayList<List<String>>(groups.values());
+	}
+
+	private static String findGroupRoot(Map<String, String> parents, String beanName) {
+		String root = beanName;
+		while (!root.equals(parents.get(root))) {
+			root = parents.get(root);
+		}
+		String current = beanName;
+		while (!current.equals(root)) {
+			String parent = parents.get(current);
+			parents.put(current, root);
+			current = parent;
+		}
+		return root;
+	}
+
+	/**
+	 * Collect the names of the beans that the given value, typically a bean
+	 * definition or one of its constructor argument or property values, refers to.
+	 */
+	private static void collectBeanReferences(Object value, Set<String> references) {
+		if (value instanceof BeanReference) {
+			references.add(((BeanReference) value).getBeanName());
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			collectBeanReferences(((BeanDefinitionHolder) value).getBeanDefinition(), references);
+		}
+		else if (value instanceof BeanDefinition) {
+			BeanDefinition bd = (BeanDefinition) value;
+			if (bd.getDependsOn() != null) {
+				references.addAll(Arrays.asList(bd.getDependsOn()));
+			}
+			if (bd.getFactoryBeanName() != null) {
+				references.add(bd.getFactoryBeanName());
+			}
+			ConstructorArgumentValues args = bd.getConstructorArgumentValues();
+			for (ConstructorArgumentValues.ValueHolder valueHolder : args.getIndexedArgumentValues().values()) {
+				collectBeanReferences(valueHolder.getValue(), references);
+			}
+			for (ConstructorArgumentValues.ValueHolder valueHolder : args.getGenericArgumentValues()) {
+				collectBeanReferences(valueHolder.getValue(), references);
+			}
+			for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+				collectBeanReferences(pv.getValue(), references);
+			}
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				collectBeanReferences(element, references);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				collectBeanReferences(entry.getKey(), references);
+				collectBeanReferences(entry.getValue(), references);
+			}
+		}
+		else if (value instanceof Object[]) {
+			for (Object element : (Object[]) value) {
+				collectBeanReferences(element, references);
 			}
 		}
 	}
@@ -687,6 +1015,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			else {
 				this.beanDefinitionNames.add(beanName);
 				this.frozenBeanDefinitionNames = null;
+				this.beanTypeIndex.register(beanName);
 			}
 			this.beanDefinitionMap.put(beanName, beanDefinition);
 		}
@@ -708,6 +1037,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			}
 			this.beanDefinitionNames.remove(beanName);
 			this.frozenBeanDefinitionNames = null;
+			this.beanTypeIndex.remove(beanName);
 		}
 
 		resetBeanDefinition(beanName);
@@ -728,6 +1058,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		destroySingleton(beanName);
 
 		// Remove any assumptions about by-type mappings.
+		this.beanTypeIndex.unindex(beanName);
 		clearByTypeCache();
 
 		// Reset all bean definitions that have the given bean as parent (recursively).
@@ -758,15 +1089,27 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	@Override
 	public void destroySingleton(String beanName) {
 		super.destroySingleton(beanName);
+		this.beanTypeIndex.unindex(beanName);
 		clearByTypeCache();
 	}
 
+	/**
+	 * Drops the indexed type for the given bean, so that the actual type
+	 * of the singleton instance gets indexed on the next by-type lookup.
+	 */
+	@Override
+	protected void addSingleton(String beanName, Object singletonObject) {
+		super.addSingleton(beanName, singletonObject);
+		this.beanTypeIndex.unindex(beanName);
+	}
+
 	/**
 	 * Remove any assumptions about by-type mappings.
 	 */
 	private void clearByTypeCache() {
 		this.allBeanNamesByType.clear();
 		this.singletonBeanNamesByType.clear();
+		this.registryVersion.incrementAndGet();
 	}
 
 
@@ -900,6 +1243,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/**
 	 * Find bean instances that match the required type.
 	 * Called during autowiring for the specified bean.
+	 * <p>Bean names {@link DependencyDescriptor#getResolvedBeanNames() pre-resolved}
+	 * by the given descriptor are taken as-is, without checking them against
+	 * the required type and the autowire candidate status of each bean.
 	 * @param beanName the name of the bean that is about to be wired
 	 * @param requiredType the actual type of bean to look for
 	 * (may be an array component type or collection element type)
@@ -913,8 +1259,12 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	protected Map<String, Object> findAutowireCandidates(
 			String beanName, Class<?> requiredType, DependencyDescriptor descriptor) {
 
-		String[] candidateNames = BeanFactoryUtils.beanNamesForTypeIncludingAncestors(
-				this, requiredType, true, descriptor.isEager());
+		String[] candidateNames = descriptor.getResolvedBeanNames();
+		boolean preResolved = (candidateNames != null);
+		if (!preResolved) {
+			candidateNames = BeanFactoryUtils.beanNamesForTypeIncludingAncestors(
+					this, requiredType, true, descriptor.isEager());
+		}
 		Map<String, Object> result = new LinkedHashMap<String, Object>(candidateNames.length);
 		for (Class<?> autowiringType : this.resolvableDependencies.keySet()) {
 			if (autowiringType.isAssignableFrom(requiredType)) {
@@ -927,7 +1277,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			}
 		}
 		for (String candidateName : candidateNames) {
-			if (!candidateName.equals(beanName) && isAutowireCandidate(candidateName, descriptor)) {
+			if (preResolved || (!candidateName.equals(beanName) && isAutowireCandidate(candidateName, descriptor))) {
 				result.put(candidateName, getBean(candidateName));
 			}
 		}
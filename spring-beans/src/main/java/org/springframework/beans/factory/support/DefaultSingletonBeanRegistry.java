@@ -119,6 +119,15 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	/** Map between depending bean names: bean name --> Set of bean names for the bean's dependencies */
 	private final Map<String, Set<String>> dependenciesForBeanMap = new ConcurrentHashMap<String, Set<String>>(64);
 
+	/** Whether singletons may currently be created by several threads at once */
+	private volatile boolean concurrentSingletonCreation = false;
+
+	/** Threads creating singletons concurrently: bean name --> creating thread */
+	private final Map<String, Thread> singletonCreationThreads = new ConcurrentHashMap<String, Thread>(16);
+
+	/** Threads waiting for a singleton created by another thread: thread --> bean name */
+	private final Map<Thread, String> singletonAwaitingThreads = new HashMap<Thread, String>(16);
+
 
 	@Override
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
@@ -182,7 +191,8 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	protected Object getSingleton(String beanName, boolean allowEarlyReference) {
 		Object singletonObject = this.singletonObjects.get(beanName);
-		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
+		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName) &&
+				!isSingletonCurrentlyInCreationByOtherThread(beanName)) {
 			synchronized (this.singletonObjects) {
 				singletonObject = this.earlySingletonObjects.get(beanName);
 				if (singletonObject == null && allowEarlyReference) {
@@ -208,6 +218,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory singletonFactory) {
 		Assert.notNull(beanName, "'beanName' must not be null");
+		if (this.concurrentSingletonCreation) {
+			return getSingletonConcurrently(beanName, singletonFactory);
+		}
 		synchronized (this.singletonObjects) {
 			Object singletonObject = this.singletonObjects.get(beanName);
 			if (singletonObject == null) {
@@ -247,6 +260,88 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		}
 	}
 
+	/**
+	 * Variant of {@link #getSingleton(String, ObjectFactory)} that invokes the given
+	 * factory without holding the singleton mutex, so that other threads may create
+	 * other singletons in the meantime. A thread requesting a singleton that another
+	 * thread is creating waits for it, unless that thread in turn waits for a
+	 * singleton this thread is creating, in which case a
+	 * {@link BeanCurrentlyInCreationException} is thrown.
+	 * @see #setConcurrentSingletonCreation
+	 */
+	private Object getSingletonConcurrently(String beanName, ObjectFactory singletonFactory) {
+		Thread currentThread = Thread.currentThread();
+		Object singletonObject;
+		synchronized (this.singletonObjects) {
+			while (true) {
+				singletonObject = this.singletonObjects.get(beanName);
+				if (singletonObject != null) {
+					return (singletonObject != NULL_OBJECT ? singletonObject : null);
+				}
+				Thread creatingThread = this.singletonCreationThreads.get(beanName);
+				if (creatingThread == null || creatingThread == currentThread) {
+					break;
+				}
+				awaitSingletonCreation(beanName, creatingThread);
+			}
+			if (this.singletonsCurrentlyInDestruction) {
+				throw new BeanCreationNotAllowedException(beanName,
+						"Singleton bean creation not allowed while the singletons of this factory are in destruction " +
+						"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Creating shared instance of singleton bean '" + beanName + "' concurrently");
+			}
+			beforeSingletonCreation(beanName);
+			this.singletonCreationThreads.put(beanName, currentThread);
+		}
+		boolean created = false;
+		try {
+			singletonObject = singletonFactory.getObject();
+			created = true;
+		}
+		finally {
+			synchronized (this.singletonObjects) {
+				this.singletonCreationThreads.remove(beanName);
+				afterSingletonCreation(beanName);
+				if (created) {
+					addSingleton(beanName, singletonObject);
+				}
+				this.singletonObjects.notifyAll();
+			}
+		}
+		return (singletonObject != NULL_OBJECT ? singletonObject : null);
+	}
+
+	/**
+	 * Wait, holding the singleton mutex, for the given singleton to be created
+	 * by another thread, checking for threads waiting for each other first.
+	 */
+	private void awaitSingletonCreation(String beanName, Thread creatingThread) {
+		Thread currentThread = Thread.currentThread();
+		Thread thread = creatingThread;
+		for (int i = 0; thread != null && i <= this.singletonAwaitingThreads.size(); i++) {
+			if (thread == currentThread) {
+				throw new BeanCurrentlyInCreationException(beanName, "Requested bean is currently in creation " +
+						"by thread '" + creatingThread.getName() + "', which waits for a bean created by this " +
+						"thread: Is there an unresolvable circular reference between concurrently created beans?");
+			}
+			String awaitedBeanName = this.singletonAwaitingThreads.get(thread);
+			thread = (awaitedBeanName != null ? this.singletonCreationThreads.get(awaitedBeanName) : null);
+		}
+		this.singletonAwaitingThreads.put(currentThread, beanName);
+		try {
+			this.singletonObjects.wait();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new BeanCreationException(beanName, "Interrupted while waiting for concurrent creation", ex);
+		}
+		finally {
+			this.singletonAwaitingThreads.remove(currentThread);
+		}
+	}
+
 	/**
 	 * Register an Exception that happened to get suppressed during the creation of a
 	 * singleton bean instance, e.g. a temporary circular reference resolution problem.
@@ -307,7 +402,8 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 
 	public boolean isCurrentlyInCreation(String beanName) {
 		Assert.notNull(beanName, "Bean name must not be null");
-		return (!this.inCreationCheckExclusions.contains(beanName) && isActuallyInCreation(beanName));
+		return (!this.inCreationCheckExclusions.contains(beanName) && isActuallyInCreation(beanName) &&
+				!isSingletonCurrentlyInCreationByOtherThread(beanName));
 	}
 
 	protected boolean isActuallyInCreation(String beanName) {
@@ -323,6 +419,30 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		return this.singletonsCurrentlyInCreation.contains(beanName);
 	}
 
+	/**
+	 * Return whether the specified singleton bean is currently being created
+	 * concurrently by a thread other than the current one. Such a bean is not
+	 * exposed to the current thread before it is fully initialized.
+	 * @param beanName the name of the bean
+	 * @see #setConcurrentSingletonCreation
+	 */
+	protected boolean isSingletonCurrentlyInCreationByOtherThread(String beanName) {
+		Thread creatingThread = this.singletonCreationThreads.get(beanName);
+		return (creatingThread != null && creatingThread != Thread.currentThread());
+	}
+
+	/**
+	 * Specify whether singletons may be created by several threads at once.
+	 * <p>When switched on, {@link #getSingleton(String, ObjectFactory)} creates
+	 * singletons without holding the singleton mutex, and threads requesting a
+	 * singleton that is being created by another thread wait for it to be fully
+	 * initialized. Meant to be switched on only while singletons are being
+	 * pre-instantiated concurrently.
+	 */
+	protected void setConcurrentSingletonCreation(boolean concurrentSingletonCreation) {
+		this.concurrentSingletonCreation = concurrentSingletonCreation;
+	}
+
 	/**
 	 * Callback before singleton creation.
 	 * <p>The default implementation register the singleton as currently in creation.
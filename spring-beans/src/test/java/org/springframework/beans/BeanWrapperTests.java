@@ -19,6 +19,7 @@ package org.springframework.beans;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -1240,6 +1241,87 @@ public final class BeanWrapperTests {
 		assertEquals("someValue", bean.getSomeProperty());
 	}
 
+	@Test
+	public void testGeneratedAccessors() {
+		TestBean tb = new TestBean();
+		BeanWrapperImpl bw = new BeanWrapperImpl(tb);
+		bw.setUseGeneratedAccessors(true);
+		bw.setPropertyValue("name", "tony");
+		bw.setPropertyValue("age", "65");
+		bw.setPropertyValue("spouse", new TestBean());
+		bw.setPropertyValue("spouse.name", "kerry");
+		assertEquals("tony", tb.getName());
+		assertEquals(65, tb.getAge());
+		assertEquals("kerry", tb.getSpouse().getName());
+		assertEquals("tony", bw.getPropertyValue("name"));
+		assertEquals(65, bw.getPropertyValue("age"));
+		assertEquals("kerry", bw.getPropertyValue("spouse.name"));
+		assertNotNull(CachedIntrospectionResults.forClass(TestBean.class).getGeneratedPropertyAccessor());
+	}
+
+	@Test
+	public void testGeneratedAccessorsWithExceptionInSetter() {
+		TestBean tb = new TestBean();
+		BeanWrapperImpl bw = new BeanWrapperImpl(tb);
+		bw.setUseGeneratedAccessors(true);
+		try {
+			bw.setPropertyValue("touchy", "1.2");
+			fail("Should have thrown MethodInvocationException");
+		}
+		catch (MethodInvocationException ex) {
+			assertEquals("Can't contain a .", ex.getCause().getMessage());
+		}
+		try {
+			bw.setPropertyValue("touchy", "1,2");
+			fail("Should have thrown MethodInvocationException");
+		}
+		catch (MethodInvocationException ex) {
+			assertTrue(ex.getCause() instanceof NumberFormatException);
+		}
+		bw.setPropertyValue("touchy", "valid");
+		assertEquals("valid", tb.getTouchy());
+	}
+
+	@Test
+	public void testGeneratedAccessorsWithNonPublicClass() {
+		NumberPropertyBean bean = new NumberPropertyBean();
+		BeanWrapperImpl bw = new BeanWrapperImpl(bean);
+		bw.setUseGeneratedAccessors(true);
+		bw.setPropertyValue("myPrimitiveInt", "5");
+		assertEquals(5, bw.getPropertyValue("myPrimitiveInt"));
+		assertNull(CachedIntrospectionResults.forClass(NumberPropertyBean.class).getGeneratedPropertyAccessor());
+	}
+
+	@Test
+	public void testGeneratedAccessorsWithProtectedBaseBean() {
+		DerivedFromProtectedBaseBean bean = new DerivedFromProtectedBaseBean();
+		BeanWrapperImpl bw = new BeanWrapperImpl(bean);
+		bw.setUseGeneratedAccessors(true);
+		bw.setPropertyValue("someProperty", "someValue");
+		assertEquals("someValue", bw.getPropertyValue("someProperty"));
+		assertEquals("someValue", bean.getSomeProperty());
+	}
+
+	@Test
+	public void testGeneratedAccessorsPerformance() {
+		Assume.group(TestGroup.PERFORMANCE);
+		TestBean tb = new TestBean();
+		BeanWrapperImpl bw = new BeanWrapperImpl(tb);
+		StopWatch sw = new StopWatch();
+		for (int run = 0; run < 2; run++) {
+			bw.setUseGeneratedAccessors(run == 1);
+			sw.start(run == 1 ? "generated" : "reflective");
+			for (int i = 0; i < 1000000; i++) {
+				bw.setPropertyValue("name", "tony");
+				bw.setPropertyValue("age", i);
+				bw.getPropertyValue("name");
+				bw.getPropertyValue("age");
+			}
+			sw.stop();
+		}
+		LogFactory.getLog(BeanWrapperTests.class).info(sw.prettyPrint());
+	}
+
 	@Test
 	public void testErrorMessageOfNestedProperty() {
 		ITestBean parent = new TestBean();
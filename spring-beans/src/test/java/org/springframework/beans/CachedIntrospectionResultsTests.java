@@ -40,28 +40,41 @@ public final class CachedIntrospectionResultsTests {
 		BeanWrapper bw = new BeanWrapperImpl(TestBean.class);
 		assertTrue(bw.isWritableProperty("name"));
 		assertTrue(bw.isWritableProperty("age"));
-		assertTrue(CachedIntrospectionResults.classCache.containsKey(TestBean.class));
+		assertTrue(CachedIntrospectionResults.strongClassCache.containsKey(TestBean.class));
 
 		ClassLoader child = new OverridingClassLoader(getClass().getClassLoader());
 		Class<?> tbClass = child.loadClass("org.springframework.tests.sample.beans.TestBean");
-		assertFalse(CachedIntrospectionResults.classCache.containsKey(tbClass));
+		assertFalse(CachedIntrospectionResults.strongClassCache.containsKey(tbClass));
 		CachedIntrospectionResults.acceptClassLoader(child);
 		bw = new BeanWrapperImpl(tbClass);
 		assertTrue(bw.isWritableProperty("name"));
 		assertTrue(bw.isWritableProperty("age"));
-		assertTrue(CachedIntrospectionResults.classCache.containsKey(tbClass));
+		assertTrue(CachedIntrospectionResults.strongClassCache.containsKey(tbClass));
 		CachedIntrospectionResults.clearClassLoader(child);
-		assertFalse(CachedIntrospectionResults.classCache.containsKey(tbClass));
+		assertFalse(CachedIntrospectionResults.strongClassCache.containsKey(tbClass));
 
-		assertTrue(CachedIntrospectionResults.classCache.containsKey(TestBean.class));
+		assertTrue(CachedIntrospectionResults.strongClassCache.containsKey(TestBean.class));
+	}
+
+	@Test
+	public void nonCacheSafeClassHeldSoftly() throws Exception {
+		ClassLoader child = new OverridingClassLoader(getClass().getClassLoader());
+		Class<?> tbClass = child.loadClass("org.springframework.tests.sample.beans.TestBean");
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(tbClass);
+		assertFalse(CachedIntrospectionResults.strongClassCache.containsKey(tbClass));
+		assertTrue(CachedIntrospectionResults.softClassCache.containsKey(tbClass));
+		assertSame(results, CachedIntrospectionResults.forClass(tbClass));
+
+		CachedIntrospectionResults.clearClassLoader(child);
+		assertFalse(CachedIntrospectionResults.softClassCache.containsKey(tbClass));
 	}
 
 	@Test
 	public void clearClassLoaderForSystemClassLoader() throws Exception {
 		BeanUtils.getPropertyDescriptors(ArrayList.class);
-		assertTrue(CachedIntrospectionResults.classCache.containsKey(ArrayList.class));
+		assertTrue(CachedIntrospectionResults.strongClassCache.containsKey(ArrayList.class));
 		CachedIntrospectionResults.clearClassLoader(ArrayList.class.getClassLoader());
-		assertFalse(CachedIntrospectionResults.classCache.containsKey(ArrayList.class));
+		assertFalse(CachedIntrospectionResults.strongClassCache.containsKey(ArrayList.class));
 	}
 
 	@Test
@@ -25,10 +25,16 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.junit.Test;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+import org.springframework.util.StopWatch;
 
 /**
  * @author Guillaume Poirier
@@ -77,6 +83,52 @@ public final class ConcurrentBeanWrapperTests {
 		}
 	}
 
+	@Test
+	public void testConcurrentPerformance() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+		Assume.notLogging(LogFactory.getLog(CachedIntrospectionResults.class));
+
+		int threadCount = Runtime.getRuntime().availableProcessors() * 2;
+		final int iterations = 100000;
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final CountDownLatch doneLatch = new CountDownLatch(threadCount);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		for (int i = 0; i < threadCount; i++) {
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						startLatch.await();
+						for (int j = 0; j < iterations; j++) {
+							BeanWrapperImpl wrapper = new BeanWrapperImpl(new NameAndAgeBean());
+							wrapper.setPropertyValue("name", "name" + j);
+							wrapper.setPropertyValue("age", j);
+						}
+					}
+					catch (Throwable ex) {
+						failure.set(ex);
+					}
+					finally {
+						doneLatch.countDown();
+					}
+				}
+			};
+			thread.setDaemon(true);
+			thread.start();
+		}
+		StopWatch sw = new StopWatch();
+		sw.start("setPropertyValue with " + threadCount + " threads");
+		startLatch.countDown();
+		assertTrue("Timed out", doneLatch.await(2, TimeUnit.MINUTES));
+		sw.stop();
+		if (failure.get() != null) {
+			throw new IllegalStateException(failure.get());
+		}
+		long operations = 2L * threadCount * iterations;
+		logger.info(sw.getLastTaskName() + ": " + operations + " operations in " +
+				sw.getTotalTimeMillis() + " ms (" + (operations / Math.max(1, sw.getTotalTimeMillis())) + " ops/ms)");
+	}
+
 	private static void performSet() {
 		TestBean bean = new TestBean();
 
@@ -149,4 +201,29 @@ public final class ConcurrentBeanWrapperTests {
 		}
 	}
 
+
+	@SuppressWarnings("unused")
+	private static class NameAndAgeBean {
+
+		private String name;
+
+		private int age;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+	}
+
 }
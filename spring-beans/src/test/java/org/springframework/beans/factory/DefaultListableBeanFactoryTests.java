@@ -26,12 +26,15 @@ import java.security.PrivilegedAction;
 import java.text.NumberFormat;
 import java.text.ParseException;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.security.auth.Subject;
 
 import org.apache.commons.logging.Log;
@@ -2302,10 +2305,150 @@ public class DefaultListableBeanFactoryTests {
 		verify(r3, never()).resolveStringValue(isNull(String.class));
 	}
 
+	@Test
+	public void preInstantiateSingletonsConcurrently() throws Exception {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		lbf.setBootstrapExecutor(executor);
+		for (int i = 0; i < 4; i++) {
+			lbf.registerBeanDefinition("slow" + i, new RootBeanDefinition(SlowInitBean.class));
+		}
+		RootBeanDefinition dependent = new RootBeanDefinition(SlowInitBean.class);
+		dependent.getPropertyValues().add("dependency", new RuntimeBeanReference("slow0"));
+		lbf.registerBeanDefinition("dependent", dependent);
+		RootBeanDefinition lazy = new RootBeanDefinition(SlowInitBean.class);
+		lazy.setLazyInit(true);
+		lbf.registerBeanDefinition("lazy", lazy);
+
+		try {
+			lbf.preInstantiateSingletons();
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		Set<String> threadNames = new HashSet<String>();
+		for (int i = 0; i < 4; i++) {
+			SlowInitBean bean = lbf.getBean("slow" + i, SlowInitBean.class);
+			assertTrue(bean.isInitialized());
+			threadNames.add(bean.getThreadName());
+		}
+		assertTrue("Expected singletons to be created on several threads", threadNames.size() > 1);
+		SlowInitBean dependentBean = lbf.getBean("dependent", SlowInitBean.class);
+		assertSame(lbf.getBean("slow0"), dependentBean.getDependency());
+		assertEquals(lbf.getBean("slow0", SlowInitBean.class).getThreadName(), dependentBean.getThreadName());
+		assertFalse(lbf.containsSingleton("lazy"));
+	}
+
+	@Test
+	public void preInstantiateSingletonsConcurrentlyWithLookupAcrossThreads() throws Exception {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		lbf.setBootstrapExecutor(executor);
+		RootBeanDefinition lookup = new RootBeanDefinition(LookupInitBean.class);
+		lookup.getPropertyValues().add("lookupName", "slow");
+		lbf.registerBeanDefinition("lookup", lookup);
+		lbf.registerBeanDefinition("slow", new RootBeanDefinition(SlowInitBean.class));
+
+		try {
+			lbf.preInstantiateSingletons();
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		SlowInitBean lookedUp = (SlowInitBean) lbf.getBean("lookup", LookupInitBean.class).getLookedUp();
+		assertSame(lbf.getBean("slow"), lookedUp);
+		assertTrue(lookedUp.isInitialized());
+	}
+
+	@Test
+	public void preInstantiateSingletonsConcurrentlyWithCircularLookup() throws Exception {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		lbf.setBootstrapExecutor(executor);
+		RootBeanDefinition x = new RootBeanDefinition(LookupInitBean.class);
+		x.getPropertyValues().add("lookupName", "y");
+		lbf.registerBeanDefinition("x", x);
+		RootBeanDefinition y = new RootBeanDefinition(LookupInitBean.class);
+		y.getPropertyValues().add("lookupName", "x");
+		lbf.registerBeanDefinition("y", y);
+
+		try {
+			lbf.preInstantiateSingletons();
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		assertSame(lbf.getBean("y"), lbf.getBean("x", LookupInitBean.class).getLookedUp());
+		assertSame(lbf.getBean("x"), lbf.getBean("y", LookupInitBean.class).getLookedUp());
+	}
+
 
 	static class A { }
 	static class B { }
 
+	public static class SlowInitBean implements InitializingBean {
+
+		private Object dependency;
+
+		private volatile String threadName;
+
+		private volatile boolean initialized;
+
+		public Object getDependency() {
+			return this.dependency;
+		}
+
+		public void setDependency(Object dependency) {
+			this.dependency = dependency;
+		}
+
+		public String getThreadName() {
+			return this.threadName;
+		}
+
+		public boolean isInitialized() {
+			return this.initialized;
+		}
+
+		@Override
+		public void afterPropertiesSet() throws Exception {
+			Thread.sleep(100);
+			this.threadName = Thread.currentThread().getName();
+			this.initialized = true;
+		}
+	}
+
+	public static class LookupInitBean implements BeanFactoryAware, InitializingBean {
+
+		private BeanFactory beanFactory;
+
+		private String lookupName;
+
+		private Object lookedUp;
+
+		@Override
+		public void setBeanFactory(BeanFactory beanFactory) {
+			this.beanFactory = beanFactory;
+		}
+
+		public void setLookupName(String lookupName) {
+			this.lookupName = lookupName;
+		}
+
+		public Object getLookedUp() {
+			return this.lookedUp;
+		}
+
+		@Override
+		public void afterPropertiesSet() throws Exception {
+			Thread.sleep(50);
+			this.lookedUp = this.beanFactory.getBean(this.lookupName);
+		}
+	}
+
 	/**
 	 * Test that by-type bean lookup caching is working effectively by searching for a
 	 * bean of type B 10K times within a container having 1K additional beans of type A.
@@ -2333,6 +2476,81 @@ public class DefaultListableBeanFactoryTests {
 		}
 	}
 
+	/**
+	 * Lookups that do not allow for eager initialization are not cached by type,
+	 * so they rely on the type index to avoid checking all 1001 beans each time.
+	 */
+	@Test(timeout=1000)
+	public void testByTypeLookupWithoutEagerInitIsFastEnough() {
+		Assume.group(TestGroup.PERFORMANCE);
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+
+		for (int i = 0; i < 1000; i++) {
+			bf.registerBeanDefinition("a"+i, new RootBeanDefinition(A.class));
+		}
+		bf.registerBeanDefinition("b", new RootBeanDefinition(B.class));
+
+		bf.freezeConfiguration();
+
+		for (int i=0; i<10000; i++) {
+			assertEquals(1, bf.getBeanNamesForType(B.class, true, false).length);
+		}
+	}
+
+	@Test
+	public void byTypeLookupWithTypeIndex() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb1", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("ntb", new RootBeanDefinition(NestedTestBean.class));
+		lbf.registerBeanDefinition("tb2", new RootBeanDefinition(DerivedTestBean.class));
+		lbf.registerBeanDefinition("fb", new RootBeanDefinition(DummyFactory.class));
+		lbf.freezeConfiguration();
+
+		for (int i = 0; i < 2; i++) {
+			assertEquals(Arrays.asList("tb1", "tb2", "fb"), Arrays.asList(lbf.getBeanNamesForType(TestBean.class)));
+			assertEquals(Arrays.asList("tb1", "tb2"), Arrays.asList(lbf.getBeanNamesForType(ITestBean.class, true, false)));
+			assertEquals(Arrays.asList("ntb"), Arrays.asList(lbf.getBeanNamesForType(NestedTestBean.class, true, false)));
+			assertEquals(Arrays.asList("tb1", "ntb", "tb2", "fb"), Arrays.asList(lbf.getBeanNamesForType(Object.class)));
+		}
+
+		lbf.registerBeanDefinition("tb1", new RootBeanDefinition(NestedTestBean.class));
+		lbf.registerBeanDefinition("tb3", new RootBeanDefinition(TestBean.class));
+		lbf.removeBeanDefinition("tb2");
+		for (int i = 0; i < 2; i++) {
+			assertEquals(Arrays.asList("fb", "tb3"), Arrays.asList(lbf.getBeanNamesForType(TestBean.class)));
+			assertEquals(Arrays.asList("tb1", "ntb"), Arrays.asList(lbf.getBeanNamesForType(NestedTestBean.class, true, false)));
+		}
+	}
+
+	@Test
+	public void byTypeLookupWithTypeIndexAndWrappingPostProcessor() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		lbf.addBeanPostProcessor(new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				return bean;
+			}
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				return (bean instanceof TestBean ? new NestedTestBean(((TestBean) bean).getName()) : bean);
+			}
+		});
+		lbf.freezeConfiguration();
+
+		assertEquals(Arrays.asList("tb"), Arrays.asList(lbf.getBeanNamesForType(TestBean.class, true, false)));
+		assertEquals(0, lbf.getBeanNamesForType(NestedTestBean.class, true, false).length);
+
+		assertTrue(lbf.getBean("tb") instanceof NestedTestBean);
+		for (int i = 0; i < 2; i++) {
+			assertEquals(0, lbf.getBeanNamesForType(TestBean.class, true, false).length);
+			assertEquals(Arrays.asList("tb"), Arrays.asList(lbf.getBeanNamesForType(NestedTestBean.class, true, false)));
+		}
+
+		lbf.destroySingleton("tb");
+		assertEquals(Arrays.asList("tb"), Arrays.asList(lbf.getBeanNamesForType(TestBean.class, true, false)));
+	}
+
 
 	public static class NoDependencies {
 
@@ -955,6 +955,66 @@ public final class AutowiredAnnotationBeanPostProcessorTests {
 		bf.destroySingletons();
 	}
 
+	@Test
+	public void testPrototypeCollectionInjectionAfterRegistryChange() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		AutowiredAnnotationBeanPostProcessor bpp = new AutowiredAnnotationBeanPostProcessor();
+		bpp.setBeanFactory(bf);
+		bf.addBeanPostProcessor(bpp);
+		RootBeanDefinition rbd = new RootBeanDefinition(OptionalCollectionResourceInjectionBean.class);
+		rbd.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		bf.registerBeanDefinition("annotatedBean", rbd);
+		TestBean tb = new TestBean();
+		bf.registerSingleton("testBean", tb);
+		IndexedTestBean itb = new IndexedTestBean();
+		bf.registerSingleton("indexedTestBean", itb);
+		NestedTestBean ntb1 = new NestedTestBean();
+		bf.registerSingleton("nestedTestBean1", ntb1);
+
+		for (int i = 0; i < 2; i++) {
+			OptionalCollectionResourceInjectionBean bean = (OptionalCollectionResourceInjectionBean) bf.getBean("annotatedBean");
+			assertSame(tb, bean.getTestBean());
+			assertSame(itb, bean.getIndexedTestBean());
+			assertEquals(1, bean.getNestedTestBeans().size());
+			assertSame(ntb1, bean.getNestedTestBeans().get(0));
+			assertEquals(1, bean.nestedTestBeansField.size());
+			assertSame(ntb1, bean.nestedTestBeansField.get(0));
+		}
+
+		NestedTestBean ntb2 = new NestedTestBean();
+		bf.registerSingleton("nestedTestBean2", ntb2);
+		OptionalCollectionResourceInjectionBean bean = (OptionalCollectionResourceInjectionBean) bf.getBean("annotatedBean");
+		assertEquals(2, bean.getNestedTestBeans().size());
+		assertSame(ntb1, bean.getNestedTestBeans().get(0));
+		assertSame(ntb2, bean.getNestedTestBeans().get(1));
+		assertEquals(2, bean.nestedTestBeansSetter.size());
+		assertEquals(2, bean.nestedTestBeansField.size());
+
+		bf.destroySingleton("nestedTestBean1");
+		bean = (OptionalCollectionResourceInjectionBean) bf.getBean("annotatedBean");
+		assertEquals(1, bean.getNestedTestBeans().size());
+		assertSame(ntb2, bean.getNestedTestBeans().get(0));
+		assertEquals(1, bean.nestedTestBeansSetter.size());
+		assertSame(ntb2, bean.nestedTestBeansField.get(0));
+		bf.destroySingletons();
+	}
+
+	@Test
+	public void testInjectionResolvedPerBean() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		AutowiredAnnotationBeanPostProcessor bpp = new AutowiredAnnotationBeanPostProcessor();
+		bpp.setBeanFactory(bf);
+		bf.addBeanPostProcessor(bpp);
+		bf.registerBeanDefinition("bean1", new RootBeanDefinition(SelfInjectionBean.class));
+		bf.registerBeanDefinition("bean2", new RootBeanDefinition(SelfInjectionBean.class));
+
+		SelfInjectionBean bean1 = (SelfInjectionBean) bf.getBean("bean1");
+		SelfInjectionBean bean2 = (SelfInjectionBean) bf.getBean("bean2");
+		assertSame(bean2, bean1.reference);
+		assertSame(bean1, bean2.reference);
+		bf.destroySingletons();
+	}
+
 
 	public static class ResourceInjectionBean {
 
@@ -1337,6 +1397,13 @@ public final class AutowiredAnnotationBeanPostProcessorTests {
 	}
 
 
+	public static class SelfInjectionBean {
+
+		@Autowired
+		public SelfInjectionBean reference;
+	}
+
+
 	public static class MapMethodInjectionBean {
 
 		private TestBean testBean;
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation {@link javax.annotation.processing.Processor Processor} that writes
+ * the candidate components index to {@value #COMPONENTS_RESOURCE_LOCATION}.
+ *
+ * <p>Every class or interface compiled is recorded in the index, along with its
+ * stereotypes, if it carries at least one stereotype. The stereotypes of a type
+ * are the annotations present on it, directly, as meta-annotations or inherited,
+ * that are either marked {@code @org.springframework.stereotype.Indexed} or
+ * declared in a {@code javax} package. For example, a class annotated with
+ * {@code @Service} has the {@code org.springframework.stereotype.Component}
+ * stereotype, since {@code @Service} is meta-annotated with {@code @Component},
+ * which is itself {@code @Indexed}.
+ *
+ * <p>Entries of an existing index in the class output location are retained for
+ * types that still exist, so that incremental compilation keeps the index complete.
+ *
+ * @author Juergen Hoeller
+ * @since 4.0
+ */
+@SupportedAnnotationTypes("*")
+public class CandidateComponentsIndexer extends AbstractProcessor {
+
+	/**
+	 * The location of the index, relative to the class output location.
+	 */
+	public static final String COMPONENTS_RESOURCE_LOCATION = "META-INF/spring.components";
+
+	private static final String INDEXED_ANNOTATION = "org.springframework.stereotype.Indexed";
+
+	private static final String JAVAX_PACKAGE_PREFIX = "javax.";
+
+	private static final String JAVA_LANG_ANNOTATION_PACKAGE_PREFIX = "java.lang.annotation.";
+
+
+	private final Map<String, Set<String>> components = new TreeMap<String, Set<String>>();
+
+	private final Set<String> processedTypes = new HashSet<String>();
+
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (Element element : roundEnv.getRootElements()) {
+			processElement(element);
+		}
+		if (roundEnv.processingOver()) {
+			writeIndex();
+		}
+		return false;
+	}
+
+	private void processElement(Element element) {
+		if (element.getKind() != ElementKind.CLASS && element.getKind() != ElementKind.INTERFACE) {
+			return;
+		}
+		TypeElement type = (TypeElement) element;
+		Elements elementUtils = this.processingEnv.getElementUtils();
+		String typeName = elementUtils.getBinaryName(type).toString();
+		this.processedTypes.add(typeName);
+		Set<String> stereotypes = new TreeSet<String>();
+		Set<Element> visited = new HashSet<Element>();
+		for (AnnotationMirror annotation : elementUtils.getAllAnnotationMirrors(type)) {
+			collectStereotypes(annotation.getAnnotationType().asElement(), stereotypes, visited);
+		}
+		if (!stereotypes.isEmpty()) {
+			this.components.put(typeName, stereotypes);
+		}
+		for (Element enclosed : type.getEnclosedElements()) {
+			if (enclosed.getModifiers().contains(Modifier.STATIC)) {
+				processElement(enclosed);
+			}
+		}
+	}
+
+	private void collectStereotypes(Element annotationType, Set<String> stereotypes, Set<Element> visited) {
+		if (!visited.add(annotationType)) {
+			return;
+		}
+		String name = ((TypeElement) annotationType).getQualifiedName().toString();
+		if (name.startsWith(JAVA_LANG_ANNOTATION_PACKAGE_PREFIX)) {
+			return;
+		}
+		if (name.startsWith(JAVAX_PACKAGE_PREFIX) || isIndexed(annotationType)) {
+			stereotypes.add(name);
+		}
+		for (AnnotationMirror metaAnnotation : annotationType.getAnnotationMirrors()) {
+			collectStereotypes(metaAnnotation.getAnnotationType().asElement(), stereotypes, visited);
+		}
+	}
+
+	private boolean isIndexed(Element annotationType) {
+		for (AnnotationMirror annotation : annotationType.getAnnotationMirrors()) {
+			TypeElement element = (TypeElement) annotation.getAnnotationType().asElement();
+			if (INDEXED_ANNOTATION.equals(element.getQualifiedName().toString())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void writeIndex() {
+		Map<String, String> index = readExistingIndex();
+		for (Map.Entry<String, Set<String>> entry : this.components.entrySet()) {
+			index.put(entry.getKey(), toCommaDelimitedString(entry.getValue()));
+		}
+		if (index.isEmpty()) {
+			return;
+		}
+		try {
+			FileObject file = this.processingEnv.getFiler().createResource(
+					StandardLocation.CLASS_OUTPUT, "", COMPONENTS_RESOURCE_LOCATION);
+			Writer writer = new OutputStreamWriter(file.openOutputStream(), "ISO-8859-1");
+			try {
+				for (Map.Entry<String, String> entry : index.entrySet()) {
+					writer.write(entry.getKey());
+					writer.write('=');
+					writer.write(entry.getValue());
+					writer.write('\n');
+				}
+			}
+			finally {
+				writer.close();
+			}
+		}
+		catch (IOException ex) {
+			this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Failed to write candidate components index: " + ex);
+		}
+	}
+
+	/**
+	 * Read the entries of a previously generated index for types that still exist
+	 * and were not processed in this compilation.
+	 */
+	private Map<String, String> readExistingIndex() {
+		Map<String, String> index = new TreeMap<String, String>();
+		try {
+			FileObject file = this.processingEnv.getFiler().getResource(
+					StandardLocation.CLASS_OUTPUT, "", COMPONENTS_RESOURCE_LOCATION);
+			InputStream in = file.openInputStream();
+			Properties properties = new Properties();
+			try {
+				properties.load(in);
+			}
+			finally {
+				in.close();
+			}
+			Elements elementUtils = this.processingEnv.getElementUtils();
+			for (String type : properties.stringPropertyNames()) {
+				if (!this.processedTypes.contains(type) &&
+						elementUtils.getTypeElement(type.replace('$', '.')) != null) {
+					index.put(type, properties.getProperty(type));
+				}
+			}
+		}
+		catch (IOException ex) {
+			// no index from a previous compilation
+		}
+		return index;
+	}
+
+	private static String toCommaDelimitedString(Set<String> values) {
+		StringBuilder sb = new StringBuilder();
+		Iterator<String> it = values.iterator();
+		while (it.hasNext()) {
+			sb.append(it.next());
+			if (it.hasNext()) {
+				sb.append(',');
+			}
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.FileSystemUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link CandidateComponentsIndexer}.
+ *
+ * @author Juergen Hoeller
+ */
+public class CandidateComponentsIndexerTests {
+
+	private File outputDirectory;
+
+
+	@Before
+	public void setup() throws IOException {
+		this.outputDirectory = File.createTempFile("indexer", "");
+		this.outputDirectory.delete();
+		this.outputDirectory.mkdirs();
+	}
+
+	@After
+	public void cleanup() {
+		FileSystemUtils.deleteRecursively(this.outputDirectory);
+	}
+
+
+	@Test
+	public void noCandidate() throws IOException {
+		compile(source("sample.Plain", "public class Plain {}"));
+		assertFalse(new File(this.outputDirectory, CandidateComponentsIndexer.COMPONENTS_RESOURCE_LOCATION).exists());
+	}
+
+	@Test
+	public void stereotypes() throws IOException {
+		compile(source("sample.SampleComponent", "@org.springframework.stereotype.Component public class SampleComponent {}"),
+				source("sample.SampleService", "@org.springframework.stereotype.Service public class SampleService {}"),
+				source("sample.SampleNamed", "@javax.inject.Named public class SampleNamed {}"),
+				source("sample.Plain", "public class Plain {}"));
+		Properties index = readIndex();
+		assertEquals(3, index.size());
+		assertEquals("org.springframework.stereotype.Component", index.getProperty("sample.SampleComponent"));
+		assertEquals("org.springframework.stereotype.Component", index.getProperty("sample.SampleService"));
+		assertEquals("javax.inject.Named,javax.inject.Qualifier", index.getProperty("sample.SampleNamed"));
+	}
+
+	@Test
+	public void customStereotypeAndNestedType() throws IOException {
+		compile(source("sample.Marker", "@org.springframework.stereotype.Indexed " +
+						"@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME) " +
+						"public @interface Marker {}"),
+				source("sample.Outer", "public class Outer { " +
+						"@Marker @org.springframework.stereotype.Repository public static class Inner {} }"));
+		Properties index = readIndex();
+		assertEquals(1, index.size());
+		assertEquals("org.springframework.stereotype.Component,sample.Marker", index.getProperty("sample.Outer$Inner"));
+	}
+
+	@Test
+	public void incrementalCompilationKeepsExistingEntries() throws IOException {
+		compile(source("sample.First", "@org.springframework.stereotype.Component public class First {}"));
+		compile(source("sample.Second", "@org.springframework.stereotype.Component public class Second {}"));
+		Properties index = readIndex();
+		assertEquals(2, index.size());
+		assertTrue(index.containsKey("sample.First"));
+		assertTrue(index.containsKey("sample.Second"));
+	}
+
+
+	private JavaFileObject source(String className, String body) {
+		String packageName = className.substring(0, className.lastIndexOf('.'));
+		final String content = "package " + packageName + "; " + body;
+		return new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"),
+				JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return content;
+			}
+		};
+	}
+
+	private void compile(JavaFileObject... sources) throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+		try {
+			List<String> options = new ArrayList<String>(Arrays.asList(
+					"-d", this.outputDirectory.getAbsolutePath(),
+					"-classpath", System.getProperty("java.class.path") + File.pathSeparator +
+							this.outputDirectory.getAbsolutePath()));
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null,
+					Arrays.asList(sources));
+			task.setProcessors(Collections.singletonList(new CandidateComponentsIndexer()));
+			assertTrue("Compilation failed", task.call());
+		}
+		finally {
+			fileManager.close();
+		}
+	}
+
+	private Properties readIndex() throws IOException {
+		Properties properties = new Properties();
+		InputStream in = new FileInputStream(
+				new File(this.outputDirectory, CandidateComponentsIndexer.COMPONENTS_RESOURCE_LOCATION));
+		try {
+			properties.load(in);
+		}
+		finally {
+			in.close();
+		}
+		return properties;
+	}
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.annotation.AnnotatedGenericBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Pre-processed set of bean definitions derived from annotated classes, allowing
+ * for fast creation of any number of similar application contexts.
+ *
+ * <p>The given classes - typically {@link Configuration @Configuration} classes -
+ * get parsed once on construction of the template, including component scanning,
+ * {@code @Import} processing and CGLIB enhancement of configuration classes.
+ * Each context initialized from the template receives a fresh copy of the resulting
+ * bean definitions, skipping all of those steps: the enhanced configuration classes
+ * are shared, with each context's singletons remaining fully independent.
+ *
+ * <p>Typically used for creating one context per tenant or per test case:
+ *
+ * <pre class="code">
+ * AnnotationConfigContextTemplate template = new AnnotationConfigContextTemplate(AppConfig.class);
+ * GenericApplicationContext ctx = template.createApplicationContext();
+ * ctx.refresh();</pre>
+ *
+ * <p>Note that {@link Conditional @Conditional} and {@link Profile @Profile}
+ * declarations are evaluated once, against the template's environment. Property sources
+ * declared through {@link org.springframework.context.annotation.PropertySource
+ * @PropertySource} are loaded once as well, getting added to the environment of
+ * each initialized context.
+ *
+ * @author Juergen Hoeller
+ * @since 4.0
+ * @see ConfigurationClassPostProcessor
+ * @see AnnotationConfigApplicationContext
+ */
+public class AnnotationConfigContextTemplate implements ApplicationContextInitializer<GenericApplicationContext> {
+
+	private final Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<String, BeanDefinition>(64);
+
+	private final Map<String, String> aliases = new LinkedHashMap<String, String>();
+
+	private final List<PropertySource<?>> propertySources = new ArrayList<PropertySource<?>>();
+
+	private final Object importRegistry;
+
+
+	/**
+	 * Create a new AnnotationConfigContextTemplate for the given annotated classes,
+	 * parsing them against a {@link StandardEnvironment}.
+	 * @param annotatedClasses one or more annotated classes,
+	 * e.g. {@link Configuration @Configuration} classes
+	 */
+	public AnnotationConfigContextTemplate(Class<?>... annotatedClasses) {
+		this(new StandardEnvironment(), annotatedClasses);
+	}
+
+	/**
+	 * Create a new AnnotationConfigContextTemplate for the given annotated classes.
+	 * @param environment the environment to evaluate conditions and profiles against
+	 * @param annotatedClasses one or more annotated classes,
+	 * e.g. {@link Configuration @Configuration} classes
+	 */
+	public AnnotationConfigContextTemplate(ConfigurableEnvironment environment, Class<?>... annotatedClasses) {
+		Assert.notNull(environment, "Environment must not be null");
+		Assert.notEmpty(annotatedClasses, "At least one annotated class must be specified");
+
+		ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.setBeanClassLoader(classLoader);
+		new AnnotatedBeanDefinitionReader(beanFactory, environment).register(annotatedClasses);
+
+		Set<String> existingPropertySources = new HashSet<String>();
+		for (PropertySource<?> propertySource : environment.getPropertySources()) {
+			existingPropertySources.add(propertySource.getName());
+		}
+
+		ConfigurationClassPostProcessor postProcessor = new ConfigurationClassPostProcessor();
+		postProcessor.setEnvironment(environment);
+		postProcessor.setResourceLoader(new DefaultResourceLoader(classLoader));
+		postProcessor.setBeanClassLoader(classLoader);
+		postProcessor.postProcessBeanDefinitionRegistry(beanFactory);
+		postProcessor.postProcessBeanFactory(beanFactory);
+
+		for (String beanName : beanFactory.getBeanDefinitionNames()) {
+			if (!AnnotationConfigUtils.CONFIGURATION_ANNOTATION_PROCESSOR_BEAN_NAME.equals(beanName)) {
+				this.beanDefinitions.put(beanName, copyBeanDefinition(beanFactory.getBeanDefinition(beanName)));
+				for (String alias : beanFactory.getAliases(beanName)) {
+					this.aliases.put(alias, beanName);
+				}
+			}
+		}
+		for (PropertySource<?> propertySource : environment.getPropertySources()) {
+			if (!existingPropertySources.contains(propertySource.getName())) {
+				this.propertySources.add(propertySource);
+			}
+		}
+		this.importRegistry = (beanFactory.containsSingleton(ConfigurationClassPostProcessor.IMPORT_REGISTRY_BEAN_NAME) ?
+				beanFactory.getSingleton(ConfigurationClassPostProcessor.IMPORT_REGISTRY_BEAN_NAME) : null);
+	}
+
+
+	/**
+	 * Return the names of all bean definitions contained in this template,
+	 * in registration order.
+	 */
+	public Set<String> getBeanDefinitionNames() {
+		return Collections.unmodifiableSet(this.beanDefinitions.keySet());
+	}
+
+	/**
+	 * Create a new {@link GenericApplicationContext} populated from this template.
+	 * <p>The returned context still needs to be {@linkplain GenericApplicationContext#refresh()
+	 * refreshed}, allowing for further customization of it before.
+	 * @see #initialize
+	 */
+	public GenericApplicationContext createApplicationContext() {
+		GenericApplicationContext context = new GenericApplicationContext();
+		initialize(context);
+		return context;
+	}
+
+	/**
+	 * Populate the given application context with copies of the bean definitions
+	 * in this template. The context must not have been refreshed yet.
+	 * <p>A {@link ConfigurationClassPostProcessor} registered with the context,
+	 * e.g. by an {@link AnnotationConfigApplicationContext}, gets removed since
+	 * the template's configuration classes have been processed already. Other
+	 * annotation config processors registered with the context are kept as-is.
+	 */
+	@Override
+	public void initialize(GenericApplicationContext context) {
+		if (context.containsBeanDefinition(AnnotationConfigUtils.CONFIGURATION_ANNOTATION_PROCESSOR_BEAN_NAME)) {
+			context.removeBeanDefinition(AnnotationConfigUtils.CONFIGURATION_ANNOTATION_PROCESSOR_BEAN_NAME);
+		}
+		for (Map.Entry<String, BeanDefinition> entry : this.beanDefinitions.entrySet()) {
+			String beanName = entry.getKey();
+			BeanDefinition bd = entry.getValue();
+			if (bd.getRole() == BeanDefinition.ROLE_INFRASTRUCTURE && context.containsBeanDefinition(beanName)) {
+				continue;
+			}
+			context.registerBeanDefinition(beanName, copyBeanDefinition(bd));
+		}
+		for (Map.Entry<String, String> entry : this.aliases.entrySet()) {
+			context.registerAlias(entry.getValue(), entry.getKey());
+		}
+		if (this.importRegistry != null) {
+			context.getBeanFactory().registerSingleton(
+					ConfigurationClassPostProcessor.IMPORT_REGISTRY_BEAN_NAME, this.importRegistry);
+		}
+		if (!this.propertySources.isEmpty()) {
+			MutablePropertySources contextPropertySources = context.getEnvironment().getPropertySources();
+			for (PropertySource<?> propertySource : this.propertySources) {
+				if (!contextPropertySources.contains(propertySource.getName())) {
+					contextPropertySources.addLast(propertySource);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Create an independent copy of the given bean definition,
+	 * preserving its annotation metadata if available.
+	 */
+	private static BeanDefinition copyBeanDefinition(BeanDefinition bd) {
+		if (bd instanceof AnnotatedBeanDefinition && bd instanceof GenericBeanDefinition) {
+			AnnotatedGenericBeanDefinition copy =
+					new AnnotatedGenericBeanDefinition(((AnnotatedBeanDefinition) bd).getMetadata());
+			copy.overrideFrom(bd);
+			return copy;
+		}
+		if (bd instanceof AbstractBeanDefinition) {
+			return ((AbstractBeanDefinition) bd).cloneBeanDefinition();
+		}
+		return new GenericBeanDefinition(bd);
+	}
+
+}
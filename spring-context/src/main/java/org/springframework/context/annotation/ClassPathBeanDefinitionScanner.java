@@ -22,18 +22,23 @@ import java.util.Set;
 import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionDefaults;
 import org.springframework.beans.factory.support.BeanDefinitionReaderUtils;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanNameGenerator;
+import org.springframework.context.support.AbstractApplicationContext;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.util.Assert;
 import org.springframework.util.PatternMatchUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * A bean definition scanner that detects bean candidates on the classpath,
@@ -238,28 +243,50 @@ public class ClassPathBeanDefinitionScanner extends ClassPathScanningCandidateCo
 	 */
 	protected Set<BeanDefinitionHolder> doScan(String... basePackages) {
 		Assert.notEmpty(basePackages, "At least one base package must be specified");
-		Set<BeanDefinitionHolder> beanDefinitions = new LinkedHashSet<BeanDefinitionHolder>();
-		for (String basePackage : basePackages) {
-			Set<BeanDefinition> candidates = findCandidateComponents(basePackage);
-			for (BeanDefinition candidate : candidates) {
-				ScopeMetadata scopeMetadata = this.scopeMetadataResolver.resolveScopeMetadata(candidate);
-				candidate.setScope(scopeMetadata.getScopeName());
-				String beanName = this.beanNameGenerator.generateBeanName(candidate, this.registry);
-				if (candidate instanceof AbstractBeanDefinition) {
-					postProcessBeanDefinition((AbstractBeanDefinition) candidate, beanName);
-				}
-				if (candidate instanceof AnnotatedBeanDefinition) {
-					AnnotationConfigUtils.processCommonDefinitionAnnotations((AnnotatedBeanDefinition) candidate);
-				}
-				if (checkCandidate(beanName, candidate)) {
-					BeanDefinitionHolder definitionHolder = new BeanDefinitionHolder(candidate, beanName);
-					definitionHolder = AnnotationConfigUtils.applyScopedProxyMode(scopeMetadata, definitionHolder, this.registry);
-					beanDefinitions.add(definitionHolder);
-					registerBeanDefinition(definitionHolder, this.registry);
+		StartupStep step = getApplicationStartup().start("spring.context.component-scan")
+				.tag("packages", StringUtils.arrayToCommaDelimitedString(basePackages));
+		try {
+			Set<BeanDefinitionHolder> beanDefinitions = new LinkedHashSet<BeanDefinitionHolder>();
+			for (String basePackage : basePackages) {
+				Set<BeanDefinition> candidates = findCandidateComponents(basePackage);
+				for (BeanDefinition candidate : candidates) {
+					ScopeMetadata scopeMetadata = this.scopeMetadataResolver.resolveScopeMetadata(candidate);
+					candidate.setScope(scopeMetadata.getScopeName());
+					String beanName = this.beanNameGenerator.generateBeanName(candidate, this.registry);
+					if (candidate instanceof AbstractBeanDefinition) {
+						postProcessBeanDefinition((AbstractBeanDefinition) candidate, beanName);
+					}
+					if (candidate instanceof AnnotatedBeanDefinition) {
+						AnnotationConfigUtils.processCommonDefinitionAnnotations((AnnotatedBeanDefinition) candidate);
+					}
+					if (checkCandidate(beanName, candidate)) {
+						BeanDefinitionHolder definitionHolder = new BeanDefinitionHolder(candidate, beanName);
+						definitionHolder = AnnotationConfigUtils.applyScopedProxyMode(scopeMetadata, definitionHolder, this.registry);
+						beanDefinitions.add(definitionHolder);
+						registerBeanDefinition(definitionHolder, this.registry);
+					}
 				}
 			}
+			step.tag("beanDefinitionCount", String.valueOf(beanDefinitions.size()));
+			return beanDefinitions;
+		}
+		finally {
+			step.end();
+		}
+	}
+
+	/**
+	 * Determine the {@link ApplicationStartup} to record scanning steps with,
+	 * as configured on the underlying registry (if any).
+	 */
+	private ApplicationStartup getApplicationStartup() {
+		if (this.registry instanceof ConfigurableBeanFactory) {
+			return ((ConfigurableBeanFactory) this.registry).getApplicationStartup();
+		}
+		if (this.registry instanceof AbstractApplicationContext) {
+			return ((AbstractApplicationContext) this.registry).getApplicationStartup();
 		}
-		return beanDefinitions;
+		return ApplicationStartup.DEFAULT;
 	}
 
 	/**
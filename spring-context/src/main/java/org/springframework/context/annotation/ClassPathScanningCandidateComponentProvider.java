@@ -30,6 +30,9 @@ import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.context.ResourceLoaderAware;
+import org.springframework.context.index.CandidateComponentsIndex;
+import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
 import org.springframework.core.env.StandardEnvironment;
@@ -45,6 +48,7 @@ import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.core.type.filter.TypeFilter;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Controller;
+import org.springframework.stereotype.Indexed;
 import org.springframework.stereotype.Repository;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
@@ -58,6 +62,11 @@ import org.springframework.util.ClassUtils;
  * {@link org.springframework.core.type.classreading.MetadataReader MetadataReader}
  * facility, backed by an ASM {@link org.springframework.asm.ClassReader ClassReader}.
  *
+ * <p>If a candidate components index ({@code META-INF/spring.components}) is
+ * present on the classpath, candidates are looked up in the index instead of
+ * reading every class under the base package, provided that all include filters
+ * are supported by the index. Only the indexed types are then read.
+ *
  * @author Mark Fisher
  * @author Juergen Hoeller
  * @author Ramnivas Laddad
@@ -88,6 +97,10 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 
 	private ConditionEvaluator conditionEvaluator;
 
+	private CandidateComponentsIndex componentsIndex;
+
+	private boolean componentsIndexLoaded;
+
 
 	/**
 	 * Create a ClassPathScanningCandidateComponentProvider with a {@link StandardEnvironment}.
@@ -130,6 +143,8 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	public void setResourceLoader(ResourceLoader resourceLoader) {
 		this.resourcePatternResolver = ResourcePatternUtils.getResourcePatternResolver(resourceLoader);
 		this.metadataReaderFactory = new CachingMetadataReaderFactory(resourceLoader);
+		this.componentsIndex = null;
+		this.componentsIndexLoaded = false;
 	}
 
 	/**
@@ -256,10 +271,103 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 
 	/**
 	 * Scan the class path for candidate components.
+	 * <p>Uses the candidate components index if present and applicable,
+	 * falling back to reading all classes under the base package otherwise.
 	 * @param basePackage the package to check for annotated classes
 	 * @return a corresponding Set of autodetected bean definitions
 	 */
 	public Set<BeanDefinition> findCandidateComponents(String basePackage) {
+		CandidateComponentsIndex index = getComponentsIndex();
+		if (index != null && indexSupportsIncludeFilters()) {
+			return addCandidateComponentsFromIndex(index, basePackage);
+		}
+		return scanCandidateComponents(basePackage);
+	}
+
+	private CandidateComponentsIndex getComponentsIndex() {
+		if (!this.componentsIndexLoaded) {
+			this.componentsIndex = CandidateComponentsIndexLoader.loadIndex(
+					this.resourcePatternResolver.getClassLoader());
+			this.componentsIndexLoaded = true;
+		}
+		return this.componentsIndex;
+	}
+
+	/**
+	 * Determine whether the index can be used with the configured include filters.
+	 */
+	private boolean indexSupportsIncludeFilters() {
+		if (this.includeFilters.isEmpty()) {
+			return false;
+		}
+		for (TypeFilter includeFilter : this.includeFilters) {
+			if (getIndexStereotype(includeFilter) == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Return the stereotype under which candidates for the given include filter
+	 * are recorded in the index, or {@code null} if the filter is not supported:
+	 * only {@link AnnotationTypeFilter AnnotationTypeFilters} for an annotation
+	 * marked {@link Indexed @Indexed} or from a {@code javax.} package are.
+	 */
+	private String getIndexStereotype(TypeFilter filter) {
+		if (filter instanceof AnnotationTypeFilter) {
+			Class<? extends Annotation> annotation = ((AnnotationTypeFilter) filter).getAnnotationType();
+			if (AnnotationUtils.isAnnotationDeclaredLocally(Indexed.class, annotation) ||
+					annotation.getName().startsWith("javax.")) {
+				return annotation.getName();
+			}
+		}
+		return null;
+	}
+
+	private Set<BeanDefinition> addCandidateComponentsFromIndex(CandidateComponentsIndex index, String basePackage) {
+		Set<BeanDefinition> candidates = new LinkedHashSet<BeanDefinition>();
+		Set<String> types = new LinkedHashSet<String>();
+		String pathPattern = resolveBasePackage(basePackage) + "/" + this.resourcePattern;
+		for (TypeFilter filter : this.includeFilters) {
+			types.addAll(index.getCandidateTypes(pathPattern, getIndexStereotype(filter)));
+		}
+		boolean traceEnabled = logger.isTraceEnabled();
+		boolean debugEnabled = logger.isDebugEnabled();
+		for (String type : types) {
+			try {
+				MetadataReader metadataReader = this.metadataReaderFactory.getMetadataReader(type);
+				if (isCandidateComponent(metadataReader)) {
+					ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
+					sbd.setResource(metadataReader.getResource());
+					sbd.setSource(metadataReader.getResource());
+					if (isCandidateComponent(sbd)) {
+						if (debugEnabled) {
+							logger.debug("Using candidate component class from index: " + type);
+						}
+						candidates.add(sbd);
+					}
+					else {
+						if (debugEnabled) {
+							logger.debug("Ignored because not a concrete top-level class: " + type);
+						}
+					}
+				}
+				else {
+					if (traceEnabled) {
+						logger.trace("Ignored because not matching any filter: " + type);
+					}
+				}
+			}
+			catch (Throwable ex) {
+				throw new BeanDefinitionStoreException(
+						"Failed to read candidate component class: " + type, ex);
+			}
+		}
+		return candidates;
+	}
+
+	private Set<BeanDefinition> scanCandidateComponents(String basePackage) {
 		Set<BeanDefinition> candidates = new LinkedHashSet<BeanDefinition>();
 		try {
 			String packageSearchPath = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
@@ -380,6 +488,8 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		if (this.metadataReaderFactory instanceof CachingMetadataReaderFactory) {
 			((CachingMetadataReaderFactory) this.metadataReaderFactory).clearCache();
 		}
+		this.componentsIndex = null;
+		this.componentsIndexLoaded = false;
 	}
 
 }
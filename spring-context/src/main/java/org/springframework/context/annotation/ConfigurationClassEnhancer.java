@@ -144,8 +144,8 @@ class ConfigurationClassEnhancer {
 	 * have already been enhanced.
 	 * <p>Also extends {@link DisposableBean} and {@link BeanFactoryAware}, as all
 	 * enhanced {@code @Configuration} classes require access to the {@link BeanFactory}
-	 * that created them and must de-register static CGLIB callbacks on destruction,
-	 * which is handled by the (private) {@code DisposableBeanMethodInterceptor}.
+	 * that created them. Destruction is handled by the (private)
+	 * {@code DisposableBeanMethodInterceptor}.
 	 * <p>Note that this interface is intended for framework-internal use only, however
 	 * must remain public in order to allow access to subclasses generated from other
 	 * packages (i.e. user code).
@@ -199,8 +199,11 @@ class ConfigurationClassEnhancer {
 
 	/**
 	 * Intercepts the invocation of any {@link DisposableBean#destroy()} on @Configuration
-	 * class instances for the purpose of de-registering CGLIB callbacks. This helps avoid
-	 * garbage collection issues. See SPR-7901.
+	 * class instances, delegating to the superclass if it implements DisposableBean itself.
+	 * <p>Note that the static CGLIB callbacks remain registered: the enhanced class may be
+	 * shared with other application contexts (e.g. through the CGLIB class cache or an
+	 * {@link AnnotationConfigContextTemplate}) that still need to create instances of it.
+	 * The callbacks do not hold on to any bean factory, so there is no leak (SPR-7901).
 	 * @see EnhancedConfiguration
 	 */
 	private static class DisposableBeanMethodInterceptor implements MethodInterceptor,
@@ -215,7 +218,6 @@ class ConfigurationClassEnhancer {
 
 		@Override
 		public Object intercept(Object obj, Method method, Object[] args, MethodProxy proxy) throws Throwable {
-			Enhancer.registerStaticCallbacks(obj.getClass(), null);
 			// does the actual (non-CGLIB) superclass actually implement DisposableBean?
 			// if so, call its dispose() method. If not, just exit.
 			if (DisposableBean.class.isAssignableFrom(obj.getClass().getSuperclass())) {
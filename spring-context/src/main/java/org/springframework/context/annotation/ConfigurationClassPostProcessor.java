@@ -38,6 +38,7 @@ import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
 import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
@@ -64,6 +65,8 @@ import org.springframework.core.env.MutablePropertySources;
 import org.springframework.core.env.PropertySource;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
@@ -98,7 +101,7 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 	private static final String IMPORT_AWARE_PROCESSOR_BEAN_NAME =
 			ConfigurationClassPostProcessor.class.getName() + ".importAwareProcessor";
 
-	private static final String IMPORT_REGISTRY_BEAN_NAME =
+	static final String IMPORT_REGISTRY_BEAN_NAME =
 			ConfigurationClassPostProcessor.class.getName() + ".importRegistry";
 
 	private static final String ENHANCED_CONFIGURATION_PROCESSOR_BEAN_NAME =
@@ -305,8 +308,15 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 				this.metadataReaderFactory, this.problemReporter, this.environment,
 				this.resourceLoader, this.componentScanBeanNameGenerator, registry,
 				this.applicationContext);
-		parser.parse(configCandidates);
-		parser.validate();
+		StartupStep step = getApplicationStartup(registry).start("spring.context.config-classes.parse")
+				.tag("candidateCount", String.valueOf(configCandidates.size()));
+		try {
+			parser.parse(configCandidates);
+			parser.validate();
+		}
+		finally {
+			step.end();
+		}
 
 		// Handle any @PropertySource annotations
 		Stack<PropertySource<?>> parsedPropertySources = parser.getPropertySources();
@@ -367,6 +377,17 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 			// nothing to enhance -> return immediately
 			return;
 		}
+		StartupStep step = getApplicationStartup(beanFactory).start("spring.context.config-classes.enhance")
+				.tag("classCount", String.valueOf(configBeanDefs.size()));
+		try {
+			doEnhanceConfigurationClasses(configBeanDefs);
+		}
+		finally {
+			step.end();
+		}
+	}
+
+	private void doEnhanceConfigurationClasses(Map<String, AbstractBeanDefinition> configBeanDefs) {
 		ConfigurationClassEnhancer enhancer = new ConfigurationClassEnhancer();
 		for (Map.Entry<String, AbstractBeanDefinition> entry : configBeanDefs.entrySet()) {
 			AbstractBeanDefinition beanDef = entry.getValue();
@@ -392,6 +413,11 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		return Ordered.HIGHEST_PRECEDENCE;
 	}
 
+	private static ApplicationStartup getApplicationStartup(Object registry) {
+		return (registry instanceof ConfigurableBeanFactory ?
+				((ConfigurableBeanFactory) registry).getApplicationStartup() : ApplicationStartup.DEFAULT);
+	}
+
 
 	private static class ImportAwareBeanPostProcessor implements PriorityOrdered, BeanFactoryAware, BeanPostProcessor {
 
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+
+/**
+ * Provide access to the candidates that are defined in {@code META-INF/spring.components}.
+ *
+ * <p>An arbitrary number of stereotypes can be registered (and queried) on the index:
+ * a typical example is the fully qualified name of an annotation that flags the class
+ * for a certain use case. The following call returns all the {@code @Component}
+ * candidate types for the {@code com.example} package (and its sub-packages):
+ * <pre class="code">
+ * Set&lt;String&gt; candidates = index.getCandidateTypes(
+ *         "com/example/&#42;&#42;/&#42;.class", "org.springframework.stereotype.Component");
+ * </pre>
+ *
+ * <p>The {@code type} is usually the fully qualified name of a class, though this is
+ * not a rule. Similarly, the {@code stereotype} is usually the fully qualified name of
+ * a target type but it can be any marker really.
+ *
+ * @author Juergen Hoeller
+ * @since 4.0
+ * @see CandidateComponentsIndexLoader
+ */
+public class CandidateComponentsIndex {
+
+	private static final PathMatcher pathMatcher = new AntPathMatcher();
+
+	private final MultiValueMap<String, String> index;
+
+
+	CandidateComponentsIndex(List<Properties> content) {
+		this.index = parseIndex(content);
+	}
+
+
+	/**
+	 * Return the candidate types that are associated with the specified stereotype.
+	 * @param pathPattern the resource path pattern that candidate class files must
+	 * match, e.g. {@code "com/example/&#42;&#42;/&#42;.class"}
+	 * @param stereotype the stereotype to use
+	 * @return the candidate types associated with the specified {@code stereotype}
+	 * whose class file path matches the given pattern
+	 */
+	public Set<String> getCandidateTypes(String pathPattern, String stereotype) {
+		Set<String> result = new LinkedHashSet<String>();
+		List<String> candidates = this.index.get(stereotype);
+		if (candidates != null) {
+			for (String type : candidates) {
+				String path = ClassUtils.convertClassNameToResourcePath(type) + ClassUtils.CLASS_FILE_SUFFIX;
+				if (pathMatcher.match(pathPattern, path)) {
+					result.add(type);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the number of types registered in the index.
+	 */
+	public int getTypeCount() {
+		Set<String> types = new LinkedHashSet<String>();
+		for (List<String> candidates : this.index.values()) {
+			types.addAll(candidates);
+		}
+		return types.size();
+	}
+
+
+	private static MultiValueMap<String, String> parseIndex(List<Properties> content) {
+		MultiValueMap<String, String> index = new LinkedMultiValueMap<String, String>();
+		for (Properties entry : content) {
+			for (Map.Entry<Object, Object> typeEntry : entry.entrySet()) {
+				String type = (String) typeEntry.getKey();
+				String[] stereotypes = StringUtils.commaDelimitedListToStringArray((String) typeEntry.getValue());
+				for (String stereotype : stereotypes) {
+					stereotype = stereotype.trim();
+					if (StringUtils.hasLength(stereotype)) {
+						index.add(stereotype, type);
+					}
+				}
+			}
+		}
+		return index;
+	}
+
+}
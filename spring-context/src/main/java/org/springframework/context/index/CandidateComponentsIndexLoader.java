@@ -0,0 +1,137 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Candidate components index loading mechanism for internal use within the framework.
+ *
+ * <p>The index is read from all {@value #COMPONENTS_RESOURCE_LOCATION} files on the
+ * classpath, as generated by the {@code spring-context-indexer} annotation processor,
+ * and cached per class loader.
+ *
+ * @author Juergen Hoeller
+ * @since 4.0
+ */
+public abstract class CandidateComponentsIndexLoader {
+
+	/**
+	 * The location to look for components.
+	 * <p>Can be present in multiple JAR files.
+	 */
+	public static final String COMPONENTS_RESOURCE_LOCATION = "META-INF/spring.components";
+
+	/**
+	 * System property that instructs Spring to ignore the index, i.e.
+	 * to always return {@code null} from {@link #loadIndex(ClassLoader)}.
+	 * <p>The default is "false", allowing for regular use of the index. Switching this
+	 * flag to {@code true} covers the case where an index is available for some
+	 * libraries but could not be built for the whole application, in which case
+	 * component scanning falls back to reading the classpath as if no index was present.
+	 */
+	public static final String IGNORE_INDEX = "spring.index.ignore";
+
+
+	private static final Log logger = LogFactory.getLog(CandidateComponentsIndexLoader.class);
+
+	private static final ConcurrentReferenceHashMap<ClassLoader, CandidateComponentsIndex> cache =
+			new ConcurrentReferenceHashMap<ClassLoader, CandidateComponentsIndex>();
+
+
+	/**
+	 * Load and instantiate the {@link CandidateComponentsIndex} from
+	 * {@value #COMPONENTS_RESOURCE_LOCATION}, using the given class loader. If no
+	 * index is available, return {@code null}.
+	 * @param classLoader the ClassLoader to use for loading (can be {@code null} to use the default)
+	 * @return the index to use or {@code null} if no index was found
+	 * @throws IllegalStateException if any module index cannot be loaded
+	 */
+	public static CandidateComponentsIndex loadIndex(ClassLoader classLoader) {
+		ClassLoader classLoaderToUse = classLoader;
+		if (classLoaderToUse == null) {
+			classLoaderToUse = CandidateComponentsIndexLoader.class.getClassLoader();
+		}
+		if (cache.containsKey(classLoaderToUse)) {
+			return cache.get(classLoaderToUse);
+		}
+		CandidateComponentsIndex index = doLoadIndex(classLoaderToUse);
+		cache.put(classLoaderToUse, index);
+		return index;
+	}
+
+	private static CandidateComponentsIndex doLoadIndex(ClassLoader classLoader) {
+		if (shouldIgnoreIndex()) {
+			return null;
+		}
+		try {
+			Enumeration<URL> urls = classLoader.getResources(COMPONENTS_RESOURCE_LOCATION);
+			if (!urls.hasMoreElements()) {
+				return null;
+			}
+			List<Properties> result = new ArrayList<Properties>();
+			while (urls.hasMoreElements()) {
+				URL url = urls.nextElement();
+				Properties properties = PropertiesLoaderUtils.loadProperties(new UrlResource(url));
+				result.add(properties);
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded [" + result.size() + "] index(es)");
+			}
+			int totalCount = 0;
+			for (Properties properties : result) {
+				totalCount += properties.size();
+			}
+			return (totalCount > 0 ? new CandidateComponentsIndex(result) : null);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Unable to load indexes from location [" +
+					COMPONENTS_RESOURCE_LOCATION + "]", ex);
+		}
+	}
+
+	private static boolean shouldIgnoreIndex() {
+		try {
+			return Boolean.parseBoolean(System.getProperty(IGNORE_INDEX));
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Could not retrieve system property '" + IGNORE_INDEX + "': " + ex);
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Clear the index cache, e.g. after the class loader's resources changed.
+	 */
+	public static void clearCache() {
+		cache.clear();
+	}
+
+}
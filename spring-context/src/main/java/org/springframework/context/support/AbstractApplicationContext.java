@@ -82,8 +82,11 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * Abstract implementation of the {@link org.springframework.context.ApplicationContext}
@@ -212,6 +215,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	/** Environment used by this context; initialized by {@link #createEnvironment()} */
 	private ConfigurableEnvironment environment;
 
+	/** Recorder for the steps of the refresh process */
+	private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
 
 	/**
 	 * Create a new AbstractApplicationContext with no parent.
@@ -446,6 +452,28 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		return this.applicationListeners;
 	}
 
+	/**
+	 * Set the {@link ApplicationStartup} for this application context,
+	 * recording the steps of the {@link #refresh()} process as well as the
+	 * creation of beans in the internal bean factory.
+	 * <p>Default is {@link ApplicationStartup#DEFAULT}, not recording anything.
+	 * Needs to be set before {@link #refresh()}.
+	 * @since 4.0
+	 * @see org.springframework.core.metrics.BufferingApplicationStartup
+	 */
+	public void setApplicationStartup(ApplicationStartup applicationStartup) {
+		Assert.notNull(applicationStartup, "ApplicationStartup must not be null");
+		this.applicationStartup = applicationStartup;
+	}
+
+	/**
+	 * Return the {@link ApplicationStartup} for this application context.
+	 * @since 4.0
+	 */
+	public ApplicationStartup getApplicationStartup() {
+		return this.applicationStartup;
+	}
+
 	/**
 	 * Create and return a new {@link StandardEnvironment}.
 	 * <p>Subclasses may override this method in order to supply
@@ -458,53 +486,73 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	@Override
 	public void refresh() throws BeansException, IllegalStateException {
 		synchronized (this.startupShutdownMonitor) {
-			// Prepare this context for refreshing.
-			prepareRefresh();
+			StartupStep contextRefresh = this.applicationStartup.start("spring.context.refresh");
 
-			// Tell the subclass to refresh the internal bean factory.
-			ConfigurableListableBeanFactory beanFactory = obtainFreshBeanFactory();
+			try {
+				// Prepare this context for refreshing.
+				prepareRefresh();
 
-			// Prepare the bean factory for use in this context.
-			prepareBeanFactory(beanFactory);
+				// Tell the subclass to refresh the internal bean factory.
+				ConfigurableListableBeanFactory beanFactory = obtainFreshBeanFactory();
 
-			try {
-				// Allows post-processing of the bean factory in context subclasses.
-				postProcessBeanFactory(beanFactory);
+				// Prepare the bean factory for use in this context.
+				prepareBeanFactory(beanFactory);
 
-				// Invoke factory processors registered as beans in the context.
-				invokeBeanFactoryPostProcessors(beanFactory);
+				try {
+					StartupStep beanPostProcess = this.applicationStartup.start("spring.context.beans.post-process");
+					try {
+						// Allows post-processing of the bean factory in context subclasses.
+						postProcessBeanFactory(beanFactory);
 
-				// Register bean processors that intercept bean creation.
-				registerBeanPostProcessors(beanFactory);
+						// Invoke factory processors registered as beans in the context.
+						invokeBeanFactoryPostProcessors(beanFactory);
 
-				// Initialize message source for this context.
-				initMessageSource();
+						// Register bean processors that intercept bean creation.
+						registerBeanPostProcessors(beanFactory);
+					}
+					finally {
+						beanPostProcess.end();
+					}
 
-				// Initialize event multicaster for this context.
-				initApplicationEventMulticaster();
+					// Initialize message source for this context.
+					initMessageSource();
 
-				// Initialize other special beans in specific context subclasses.
-				onRefresh();
+					// Initialize event multicaster for this context.
+					initApplicationEventMulticaster();
 
-				// Check for listener beans and register them.
-				registerListeners();
+					// Initialize other special beans in specific context subclasses.
+					onRefresh();
 
-				// Instantiate all remaining (non-lazy-init) singletons.
-				finishBeanFactoryInitialization(beanFactory);
+					// Check for listener beans and register them.
+					registerListeners();
 
-				// Last step: publish corresponding event.
-				finishRefresh();
-			}
+					// Instantiate all remaining (non-lazy-init) singletons.
+					finishBeanFactoryInitialization(beanFactory);
+
+					// Last step: publish corresponding event.
+					finishRefresh();
+				}
+
+				catch (BeansException ex) {
+					// Destroy already created singletons to avoid dangling resources.
+					destroyBeans();
 
-			catch (BeansException ex) {
-				// Destroy already created singletons to avoid dangling resources.
-				destroyBeans();
+					// Reset 'active' flag.
+					cancelRefresh(ex);
 
-				// Reset 'active' flag.
-				cancelRefresh(ex);
+					// Propagate exception to caller.
+					throw ex;
+				}
 
-				// Propagate exception to caller.
-				throw ex;
+				finally {
+					// Reset common introspection caches in Spring's core, since we
+					// might not ever need metadata for singleton beans anymore...
+					resetCommonCaches();
+				}
+			}
+
+			finally {
+				contextRefresh.end();
 			}
 		}
 	}
@@ -565,6 +613,7 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		// Tell the internal bean factory to use the context's class loader etc.
 		beanFactory.setBeanClassLoader(getClassLoader());
 		beanFactory.setBeanExpressionResolver(new StandardBeanExpressionResolver());
+		beanFactory.setApplicationStartup(getApplicationStartup());
 		beanFactory.addPropertyEditorRegistrar(new ResourceEditorRegistrar(this, getEnvironment()));
 
 		// Configure the bean factory with context callbacks.
@@ -628,7 +677,7 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 				if (postProcessor instanceof BeanDefinitionRegistryPostProcessor) {
 					BeanDefinitionRegistryPostProcessor registryPostProcessor =
 							(BeanDefinitionRegistryPostProcessor) postProcessor;
-					registryPostProcessor.postProcessBeanDefinitionRegistry(registry);
+					invokeBeanDefinitionRegistryPostProcessor(registryPostProcessor, registry);
 					registryPostProcessors.add(registryPostProcessor);
 				}
 				else {
@@ -641,7 +690,7 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 					new ArrayList<BeanDefinitionRegistryPostProcessor>(beanMap.values());
 			OrderComparator.sort(registryPostProcessorBeans);
 			for (BeanDefinitionRegistryPostProcessor postProcessor : registryPostProcessorBeans) {
-				postProcessor.postProcessBeanDefinitionRegistry(registry);
+				invokeBeanDefinitionRegistryPostProcessor(postProcessor, registry);
 			}
 			invokeBeanFactoryPostProcessors(registryPostProcessors, beanFactory);
 			invokeBeanFactoryPostProcessors(registryPostProcessorBeans, beanFactory);
@@ -698,6 +747,22 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		invokeBeanFactoryPostProcessors(nonOrderedPostProcessors, beanFactory);
 	}
 
+	/**
+	 * Invoke the given BeanDefinitionRegistryPostProcessor bean.
+	 */
+	private void invokeBeanDefinitionRegistryPostProcessor(
+			BeanDefinitionRegistryPostProcessor postProcessor, BeanDefinitionRegistry registry) {
+
+		StartupStep step = this.applicationStartup.start("spring.context.beandef-registry.post-process")
+				.tag("postProcessor", postProcessor.getClass().getName());
+		try {
+			postProcessor.postProcessBeanDefinitionRegistry(registry);
+		}
+		finally {
+			step.end();
+		}
+	}
+
 	/**
 	 * Invoke the given BeanFactoryPostProcessor beans.
 	 */
@@ -705,7 +770,14 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 			Collection<? extends BeanFactoryPostProcessor> postProcessors, ConfigurableListableBeanFactory beanFactory) {
 
 		for (BeanFactoryPostProcessor postProcessor : postProcessors) {
-			postProcessor.postProcessBeanFactory(beanFactory);
+			StartupStep step = this.applicationStartup.start("spring.context.bean-factory.post-process")
+					.tag("postProcessor", postProcessor.getClass().getName());
+			try {
+				postProcessor.postProcessBeanFactory(beanFactory);
+			}
+			finally {
+				step.end();
+			}
 		}
 	}
 
@@ -951,6 +1023,16 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		LiveBeansView.registerApplicationContext(this);
 	}
 
+	/**
+	 * Reset Spring's common core caches, in particular the {@link ReflectionUtils}
+	 * cache of declared methods and fields.
+	 * @since 4.0
+	 * @see ReflectionUtils#clearCache()
+	 */
+	protected void resetCommonCaches() {
+		ReflectionUtils.clearCache();
+	}
+
 	/**
 	 * Cancel this context's refresh attempt, resetting the {@code active} flag
 	 * after an exception got thrown.
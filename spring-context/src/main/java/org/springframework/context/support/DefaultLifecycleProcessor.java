@@ -39,6 +39,7 @@ import org.springframework.context.Lifecycle;
 import org.springframework.context.LifecycleProcessor;
 import org.springframework.context.Phased;
 import org.springframework.context.SmartLifecycle;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.util.Assert;
 
 /**
@@ -169,12 +170,17 @@ public class DefaultLifecycleProcessor implements LifecycleProcessor, BeanFactor
 				if (logger.isDebugEnabled()) {
 					logger.debug("Starting bean '" + beanName + "' of type [" + bean.getClass() + "]");
 				}
+				StartupStep step = this.beanFactory.getApplicationStartup().start("spring.context.lifecycle.start")
+						.tag("beanName", beanName);
 				try {
 					bean.start();
 				}
 				catch (Throwable ex) {
 					throw new ApplicationContextException("Failed to start bean '" + beanName + "'", ex);
 				}
+				finally {
+					step.end();
+				}
 				if (logger.isDebugEnabled()) {
 					logger.debug("Successfully started bean '" + beanName + "'");
 				}
@@ -341,11 +347,18 @@ public class DefaultLifecycleProcessor implements LifecycleProcessor, BeanFactor
 				logger.info("Starting beans in phase " + this.phase);
 			}
 			Collections.sort(this.members);
-			for (LifecycleGroupMember member : this.members) {
-				if (this.lifecycleBeans.containsKey(member.name)) {
-					doStart(this.lifecycleBeans, member.name, this.autoStartupOnly);
+			StartupStep step = beanFactory.getApplicationStartup().start("spring.context.lifecycle.phase.start")
+					.tag("phase", String.valueOf(this.phase));
+			try {
+				for (LifecycleGroupMember member : this.members) {
+					if (this.lifecycleBeans.containsKey(member.name)) {
+						doStart(this.lifecycleBeans, member.name, this.autoStartupOnly);
+					}
 				}
 			}
+			finally {
+				step.end();
+			}
 		}
 
 		public void stop() {
@@ -30,6 +30,7 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.metrics.ApplicationStartup;
 import org.springframework.util.Assert;
 
 /**
@@ -154,6 +155,17 @@ public class GenericApplicationContext extends AbstractApplicationContext implem
 		super.setId(id);
 	}
 
+	/**
+	 * Set the ApplicationStartup for this application context,
+	 * also applying it to the internal BeanFactory right away.
+	 * @see org.springframework.beans.factory.config.ConfigurableBeanFactory#setApplicationStartup
+	 */
+	@Override
+	public void setApplicationStartup(ApplicationStartup applicationStartup) {
+		super.setApplicationStartup(applicationStartup);
+		this.beanFactory.setApplicationStartup(applicationStartup);
+	}
+
 	/**
 	 * Set whether it should be allowed to override bean definitions by registering
 	 * a different definition with the same name, automatically replacing the former.
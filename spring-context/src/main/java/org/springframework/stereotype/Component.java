@@ -32,6 +32,10 @@ import java.lang.annotation.Target;
  * e.g. the {@link Repository @Repository} annotation or AspectJ's
  * {@link org.aspectj.lang.annotation.Aspect @Aspect} annotation.
  *
+ * <p>{@code @Component} is {@link Indexed @Indexed}, so that components, including
+ * those declared through specializations of this annotation, are recorded in the
+ * candidate components index when it is generated at build time.
+ *
  * @author Mark Fisher
  * @since 2.5
  * @see Repository
@@ -42,6 +46,7 @@ import java.lang.annotation.Target;
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
+@Indexed
 public @interface Component {
 
 	/**
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.stereotype;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indicates that the annotated element represents a stereotype for the
+ * candidate components index ({@code META-INF/spring.components}).
+ *
+ * <p>The index is generated at build time by the {@code spring-context-indexer}
+ * annotation processor. A type is recorded in the index with the names of all
+ * annotations present on it that are themselves annotated or meta-annotated
+ * with {@code @Indexed}, such as {@link Component @Component} and its
+ * specializations. At runtime, classpath scanning can then look up candidates
+ * for an include filter on such an annotation without reading every class
+ * in the base package.
+ *
+ * @author Juergen Hoeller
+ * @since 4.0
+ * @see Component
+ * @see org.springframework.context.index.CandidateComponentsIndex
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Indexed {
+
+}
@@ -16,18 +16,24 @@
 
 package org.springframework.context.annotation;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Pattern;
 
 import org.junit.Test;
 
+import org.springframework.beans.FatalBeanException;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.context.annotation6.ComponentForScanning;
 import org.springframework.context.annotation6.ConfigForScanning;
 import org.springframework.context.annotation6.Jsr330NamedForScanning;
+import org.springframework.core.metrics.BufferingApplicationStartup;
+import org.springframework.core.metrics.BufferingApplicationStartup.RecordedStep;
 
 import static java.lang.String.format;
 import static org.hamcrest.Matchers.*;
@@ -70,6 +76,63 @@ public class AnnotationConfigApplicationContextTests {
 		assertEquals(2, beans.size());
 	}
 
+	@Test
+	public void scanAndRefreshWithApplicationStartup() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(1000);
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setApplicationStartup(startup);
+		context.scan("org.springframework.context.annotation6");
+		context.refresh();
+
+		Map<String, RecordedStep> stepsByName = new HashMap<String, RecordedStep>();
+		RecordedStep testBeanStep = null;
+		for (RecordedStep step : startup.getRecordedSteps()) {
+			stepsByName.put(step.getName(), step);
+			if (step.getName().equals("spring.beans.instantiate") && "testBean".equals(step.getTags().get("beanName"))) {
+				testBeanStep = step;
+			}
+		}
+		RecordedStep refreshStep = stepsByName.get("spring.context.refresh");
+		assertNotNull(refreshStep);
+		assertNull(refreshStep.getParentId());
+		assertEquals("org.springframework.context.annotation6",
+				stepsByName.get("spring.context.component-scan").getTags().get("packages"));
+		assertEquals(Long.valueOf(refreshStep.getId()), stepsByName.get("spring.context.beans.post-process").getParentId());
+		assertNotNull(stepsByName.get("spring.context.config-classes.parse"));
+		assertNotNull(stepsByName.get("spring.context.config-classes.enhance"));
+		assertNotNull(stepsByName.get("spring.beans.init-methods"));
+		assertNotNull(testBeanStep);
+		assertEquals(0, startup.getDroppedStepCount());
+	}
+
+	@Test
+	public void failedRefreshEndsStartupSteps() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(1000);
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setApplicationStartup(startup);
+		context.addBeanFactoryPostProcessor(new BeanFactoryPostProcessor() {
+			@Override
+			public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+				throw new FatalBeanException("Post-processing failed");
+			}
+		});
+		try {
+			context.refresh();
+			fail("Should have thrown FatalBeanException");
+		}
+		catch (FatalBeanException ex) {
+			// expected
+		}
+
+		Map<String, RecordedStep> stepsByName = new HashMap<String, RecordedStep>();
+		for (RecordedStep step : startup.getRecordedSteps()) {
+			stepsByName.put(step.getName(), step);
+		}
+		assertNotNull(stepsByName.get("spring.context.refresh"));
+		assertNotNull(stepsByName.get("spring.context.beans.post-process"));
+		assertNull("No step should remain open", startup.start("next").getParentId());
+	}
+
 	@Test
 	public void getBeansWithAnnotation() {
 		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+import org.springframework.tests.sample.beans.ITestBean;
+import org.springframework.tests.sample.beans.TestBean;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StopWatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link AnnotationConfigContextTemplate}.
+ *
+ * @author Juergen Hoeller
+ */
+public class AnnotationConfigContextTemplateTests {
+
+	@Test
+	public void contextsFromSameTemplate() {
+		AnnotationConfigContextTemplate template = new AnnotationConfigContextTemplate(ImportingConfig.class);
+		assertTrue(template.getBeanDefinitionNames().contains("testBean"));
+		assertFalse(template.getBeanDefinitionNames().contains(
+				AnnotationConfigUtils.CONFIGURATION_ANNOTATION_PROCESSOR_BEAN_NAME));
+
+		GenericApplicationContext ctx1 = template.createApplicationContext();
+		ctx1.refresh();
+		GenericApplicationContext ctx2 = template.createApplicationContext();
+		ctx2.refresh();
+
+		TestBean testBean1 = ctx1.getBean("testBean", TestBean.class);
+		TestBean testBean2 = ctx2.getBean("testBean", TestBean.class);
+		assertNotSame(testBean1, testBean2);
+		assertSame(testBean1, ctx1.getBean("spouseHolder", TestBean.class).getSpouse());
+		assertSame(testBean2, ctx2.getBean("spouseHolder", TestBean.class).getSpouse());
+		assertSame(testBean1, ctx1.getBean("alias"));
+
+		ImportingConfig config1 = ctx1.getBean(ImportingConfig.class);
+		ImportingConfig config2 = ctx2.getBean(ImportingConfig.class);
+		assertNotSame(config1, config2);
+		assertSame(config1.getClass(), config2.getClass());
+		assertTrue(ClassUtils.isCglibProxyClass(config1.getClass()));
+		assertSame(testBean1, config1.testBean());
+		assertSame(testBean2, config2.testBean());
+
+		assertEquals("p1TestBean", testBean1.getName());
+		assertEquals("p1TestBean", testBean2.getName());
+		assertEquals("p1Value", ctx1.getEnvironment().getProperty("from.p1"));
+
+		ImportedConfig imported = ctx2.getBean(ImportedConfig.class);
+		assertNotNull(imported.importMetadata);
+		assertEquals(ImportingConfig.class.getName(), imported.importMetadata.getClassName());
+		assertSame(testBean2, imported.testBean);
+
+		ctx1.close();
+		ctx2.close();
+	}
+
+	@Test
+	public void contextsHaveIndependentBeanDefinitions() {
+		AnnotationConfigContextTemplate template = new AnnotationConfigContextTemplate(ImportingConfig.class);
+		GenericApplicationContext ctx1 = template.createApplicationContext();
+		ctx1.getBeanDefinition("testBean").setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		ctx1.refresh();
+		GenericApplicationContext ctx2 = template.createApplicationContext();
+		ctx2.refresh();
+
+		assertNotSame(ctx1.getBean("testBean"), ctx1.getBean("testBean"));
+		assertSame(ctx2.getBean("testBean"), ctx2.getBean("testBean"));
+		ctx1.close();
+		ctx2.close();
+	}
+
+	@Test
+	public void initializeAnnotationConfigApplicationContext() {
+		AnnotationConfigContextTemplate template = new AnnotationConfigContextTemplate(ImportingConfig.class);
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		template.initialize(ctx);
+		ctx.refresh();
+
+		assertFalse(ctx.containsBeanDefinition(AnnotationConfigUtils.CONFIGURATION_ANNOTATION_PROCESSOR_BEAN_NAME));
+		assertSame(ctx.getBean("testBean"), ctx.getBean(ImportedConfig.class).testBean);
+		ctx.close();
+	}
+
+	@Test
+	public void manyContextsFromSameTemplate() {
+		Assume.group(TestGroup.PERFORMANCE);
+		StopWatch sw = new StopWatch();
+		sw.start("parse per context");
+		for (int i = 0; i < 500; i++) {
+			AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext(ImportingConfig.class);
+			assertNotNull(ctx.getBean(ImportedConfig.class).testBean);
+			ctx.close();
+		}
+		sw.stop();
+		long parseTime = sw.getLastTaskTimeMillis();
+		sw.start("contexts from template");
+		AnnotationConfigContextTemplate template = new AnnotationConfigContextTemplate(ImportingConfig.class);
+		for (int i = 0; i < 500; i++) {
+			GenericApplicationContext ctx = template.createApplicationContext();
+			ctx.refresh();
+			assertNotNull(ctx.getBean(ImportedConfig.class).testBean);
+			ctx.close();
+		}
+		sw.stop();
+		// System.out.println(sw.prettyPrint());
+		assertTrue("Contexts from template took " + sw.getLastTaskTimeMillis() + "ms versus " + parseTime + "ms",
+				sw.getLastTaskTimeMillis() < parseTime);
+	}
+
+
+	@Configuration
+	@Import(ImportedConfig.class)
+	@org.springframework.context.annotation.PropertySource("classpath:org/springframework/context/annotation/p1.properties")
+	static class ImportingConfig {
+
+		@Autowired
+		private Environment environment;
+
+		@Bean(name = {"testBean", "alias"})
+		public TestBean testBean() {
+			return new TestBean(this.environment.getProperty("testbean.name"));
+		}
+
+		@Bean
+		public TestBean spouseHolder() {
+			TestBean spouseHolder = new TestBean();
+			spouseHolder.setSpouse(testBean());
+			return spouseHolder;
+		}
+	}
+
+
+	@Configuration
+	static class ImportedConfig implements ImportAware {
+
+		AnnotationMetadata importMetadata;
+
+		@Autowired
+		@Qualifier("testBean")
+		ITestBean testBean;
+
+		@Override
+		public void setImportMetadata(AnnotationMetadata importMetadata) {
+			this.importMetadata = importMetadata;
+		}
+	}
+
+}
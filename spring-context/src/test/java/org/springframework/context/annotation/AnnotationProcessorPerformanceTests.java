@@ -18,6 +18,8 @@ package org.springframework.context.annotation;
 
 import static org.junit.Assert.*;
 
+import java.util.List;
+
 import javax.annotation.Resource;
 
 import org.apache.commons.logging.Log;
@@ -32,6 +34,7 @@ import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.tests.Assume;
 import org.springframework.tests.TestGroup;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.util.StopWatch;
 
@@ -143,6 +146,35 @@ public class AnnotationProcessorPerformanceTests {
 	}
 
 
+	@Test
+	public void testPrototypeCreationWithAutowiredCollectionIsFastEnough() {
+		Assume.group(TestGroup.PERFORMANCE);
+		Assume.notLogging(factoryLog);
+		GenericApplicationContext ctx = new GenericApplicationContext();
+		AnnotationConfigUtils.registerAnnotationConfigProcessors(ctx);
+		for (int i = 0; i < 100; i++) {
+			ctx.registerBeanDefinition("bean" + i, new RootBeanDefinition(Object.class));
+		}
+		ctx.refresh();
+
+		RootBeanDefinition rbd = new RootBeanDefinition(AutowiredCollectionAnnotatedTestBean.class);
+		rbd.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		ctx.registerBeanDefinition("test", rbd);
+		ctx.registerBeanDefinition("spouse", new RootBeanDefinition(TestBean.class));
+		TestBean spouse = (TestBean) ctx.getBean("spouse");
+		StopWatch sw = new StopWatch();
+		sw.start("prototype");
+		for (int i = 0; i < 100000; i++) {
+			AutowiredCollectionAnnotatedTestBean tb = (AutowiredCollectionAnnotatedTestBean) ctx.getBean("test");
+			assertSame(spouse, tb.spouses.get(0));
+			assertSame(ctx, tb.applicationContext);
+		}
+		sw.stop();
+		//System.out.println(sw.getTotalTimeMillis());
+		assertTrue("Prototype creation took too long: " + sw.getTotalTimeMillis(), sw.getTotalTimeMillis() < 6000);
+	}
+
+
 	private static class ResourceAnnotatedTestBean extends TestBean {
 
 		@Override
@@ -162,4 +194,14 @@ public class AnnotationProcessorPerformanceTests {
 		}
 	}
 
+
+	private static class AutowiredCollectionAnnotatedTestBean extends TestBean {
+
+		@Autowired
+		private List<ITestBean> spouses;
+
+		@Autowired
+		private ApplicationContext applicationContext;
+	}
+
 }
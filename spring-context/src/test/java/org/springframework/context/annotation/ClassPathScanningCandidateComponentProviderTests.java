@@ -29,8 +29,12 @@ import java.util.regex.Pattern;
 import org.aspectj.lang.annotation.Aspect;
 import org.junit.Test;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.index.CandidateComponentsIndex;
+import org.springframework.context.index.CandidateComponentsTestClassLoader;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.core.type.filter.AssignableTypeFilter;
 import org.springframework.core.type.filter.RegexPatternTypeFilter;
@@ -75,6 +79,43 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		assertTrue(containsBeanClass(candidates, ServiceInvocationCounter.class));
 	}
 
+	@Test
+	public void testWithDefaultsAndComponentsIndex() {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(CandidateComponentsTestClassLoader.index(
+				getClass().getClassLoader(), new ClassPathResource("spring.components", CandidateComponentsIndex.class))));
+		Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE);
+		assertEquals(3, candidates.size());
+		assertTrue(containsBeanClass(candidates, NamedComponent.class));
+		assertTrue(containsBeanClass(candidates, FooServiceImpl.class));
+		assertTrue(containsBeanClass(candidates, StubFooDao.class));
+		assertFalse(containsBeanClass(candidates, NamedStubDao.class));
+	}
+
+	@Test
+	public void testWithComponentsIndexAndExcludeFilter() {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(CandidateComponentsTestClassLoader.index(
+				getClass().getClassLoader(), new ClassPathResource("spring.components", CandidateComponentsIndex.class))));
+		provider.addExcludeFilter(new AnnotationTypeFilter(Service.class));
+		Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE);
+		assertEquals(2, candidates.size());
+		assertTrue(containsBeanClass(candidates, NamedComponent.class));
+		assertTrue(containsBeanClass(candidates, StubFooDao.class));
+	}
+
+	@Test
+	public void testWithComponentsIndexAndUnsupportedIncludeFilter() {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(false);
+		provider.setResourceLoader(new DefaultResourceLoader(CandidateComponentsTestClassLoader.index(
+				getClass().getClassLoader(), new ClassPathResource("spring.components", CandidateComponentsIndex.class))));
+		provider.addIncludeFilter(new AnnotationTypeFilter(Repository.class));
+		Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE);
+		assertEquals(2, candidates.size());
+		assertTrue(containsBeanClass(candidates, StubFooDao.class));
+		assertTrue(containsBeanClass(candidates, NamedStubDao.class));
+	}
+
 	@Test
 	public void testWithBogusBasePackage() {
 		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
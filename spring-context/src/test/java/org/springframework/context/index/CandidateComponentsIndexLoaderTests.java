@@ -0,0 +1,123 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link CandidateComponentsIndexLoader} and {@link CandidateComponentsIndex}.
+ *
+ * @author Juergen Hoeller
+ */
+public class CandidateComponentsIndexLoaderTests {
+
+	private static final String COMPONENT = "org.springframework.stereotype.Component";
+
+
+	@After
+	public void clearCache() {
+		CandidateComponentsIndexLoader.clearCache();
+	}
+
+
+	@Test
+	public void validateIndexIsDisabledByDefault() {
+		CandidateComponentsIndex index = CandidateComponentsIndexLoader.loadIndex(null);
+		assertThat("No spring.components should be available at the default location", index, is(nullValue()));
+	}
+
+	@Test
+	public void loadIndexWithNoEntries() {
+		CandidateComponentsIndex index = CandidateComponentsIndexLoader.loadIndex(
+				CandidateComponentsTestClassLoader.index(getClass().getClassLoader(),
+						new ClassPathResource("empty-spring.components", getClass())));
+		assertThat(index, is(nullValue()));
+	}
+
+	@Test
+	public void loadIndexIsCachedPerClassLoader() {
+		ClassLoader classLoader = CandidateComponentsTestClassLoader.index(getClass().getClassLoader(),
+				new ClassPathResource("spring.components", getClass()));
+		CandidateComponentsIndex index = CandidateComponentsIndexLoader.loadIndex(classLoader);
+		assertThat(index, is(notNullValue()));
+		assertSame(index, CandidateComponentsIndexLoader.loadIndex(classLoader));
+		assertEquals(5, index.getTypeCount());
+	}
+
+	@Test
+	public void getCandidateTypesInPackage() {
+		CandidateComponentsIndex index = loadTestIndex();
+		Set<String> types = index.getCandidateTypes("example/scannable/**/*.class", COMPONENT);
+		assertThat(types, containsInAnyOrder("example.scannable.NamedComponent",
+				"example.scannable.FooServiceImpl", "example.scannable.StubFooDao"));
+	}
+
+	@Test
+	public void getCandidateTypesInParentPackage() {
+		CandidateComponentsIndex index = loadTestIndex();
+		Set<String> types = index.getCandidateTypes("example/**/*.class", COMPONENT);
+		assertThat(types, hasSize(4));
+		assertThat(types, hasItem("example.other.NotScanned"));
+	}
+
+	@Test
+	public void getCandidateTypesWithPattern() {
+		CandidateComponentsIndex index = loadTestIndex();
+		Set<String> types = index.getCandidateTypes("example/*/*Stub*.class", COMPONENT);
+		assertThat(types, contains("example.scannable.StubFooDao"));
+	}
+
+	@Test
+	public void getCandidateTypesWithSeveralStereotypes() {
+		CandidateComponentsIndex index = loadTestIndex();
+		Set<String> types = index.getCandidateTypes("org/springframework/**/*.class", "javax.inject.Named");
+		assertThat(types, contains("org.springframework.context.index.Sample"));
+	}
+
+	@Test
+	public void getCandidateTypesWithUnknownStereotype() {
+		CandidateComponentsIndex index = loadTestIndex();
+		Set<String> types = index.getCandidateTypes("example/**/*.class", "com.example.Foo");
+		assertThat(types, hasSize(0));
+	}
+
+	@Test
+	public void ignoreIndexWithSystemProperty() {
+		System.setProperty(CandidateComponentsIndexLoader.IGNORE_INDEX, "true");
+		try {
+			assertThat(loadTestIndex(), is(nullValue()));
+		}
+		finally {
+			System.clearProperty(CandidateComponentsIndexLoader.IGNORE_INDEX);
+		}
+	}
+
+
+	private CandidateComponentsIndex loadTestIndex() {
+		return CandidateComponentsIndexLoader.loadIndex(
+				CandidateComponentsTestClassLoader.index(getClass().getClassLoader(),
+						new ClassPathResource("spring.components", getClass())));
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * A test {@link ClassLoader} that can be used in a testing context to control the
+ * {@code spring.components} resource that should be loaded.
+ *
+ * @author Juergen Hoeller
+ */
+public class CandidateComponentsTestClassLoader extends ClassLoader {
+
+	private final List<URL> indexUrls;
+
+
+	/**
+	 * Create a test {@link ClassLoader} that does not expose any
+	 * {@code spring.components} resource.
+	 */
+	public static ClassLoader disableIndex(ClassLoader classLoader) {
+		return new CandidateComponentsTestClassLoader(classLoader, new ArrayList<URL>());
+	}
+
+	/**
+	 * Create a test {@link ClassLoader} that exposes the given resources as the
+	 * {@code spring.components} resources.
+	 */
+	public static ClassLoader index(ClassLoader classLoader, Resource... resources) {
+		List<URL> urls = new ArrayList<URL>();
+		try {
+			for (Resource resource : resources) {
+				urls.add(resource.getURL());
+			}
+		}
+		catch (IOException ex) {
+			throw new IllegalArgumentException("Invalid resource", ex);
+		}
+		return new CandidateComponentsTestClassLoader(classLoader, urls);
+	}
+
+
+	private CandidateComponentsTestClassLoader(ClassLoader parent, List<URL> indexUrls) {
+		super(parent);
+		this.indexUrls = indexUrls;
+	}
+
+
+	@Override
+	public Enumeration<URL> getResources(String name) throws IOException {
+		if (CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION.equals(name)) {
+			return Collections.enumeration(this.indexUrls);
+		}
+		return super.getResources(name);
+	}
+
+}
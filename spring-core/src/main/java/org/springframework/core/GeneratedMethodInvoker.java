@@ -0,0 +1,135 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cglib.reflect.FastClass;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Invokes a method through a CGLIB-generated {@link FastClass}: a class with
+ * direct calls selected by a switch on the method index, as opposed to
+ * {@link Method#invoke reflective invocation}.
+ *
+ * <p>Only public methods of public classes are covered. For any other method
+ * {@link #forMethod} returns {@code null}, and callers fall back to reflection.
+ *
+ * <p>Mainly for internal use within the framework, e.g. by the bean property
+ * accessors and the invocable handler methods of the web and messaging modules.
+ *
+ * @author Rossen Stoyanchev
+ * @since 4.0
+ */
+public final class GeneratedMethodInvoker {
+
+	private static final Log logger = LogFactory.getLog(GeneratedMethodInvoker.class);
+
+	/** Marker for methods that cannot be invoked through a generated class */
+	private static final GeneratedMethodInvoker NOT_INVOKABLE = new GeneratedMethodInvoker(null, -1, null);
+
+	private static final Map<Method, GeneratedMethodInvoker> invokerCache =
+			new ConcurrentReferenceHashMap<Method, GeneratedMethodInvoker>(256);
+
+
+	private final FastClass fastClass;
+
+	private final int index;
+
+	private final Class<?>[] parameterTypes;
+
+
+	private GeneratedMethodInvoker(FastClass fastClass, int index, Class<?>[] parameterTypes) {
+		this.fastClass = fastClass;
+		this.index = index;
+		this.parameterTypes = parameterTypes;
+	}
+
+
+	/**
+	 * Return whether the given argument values match the parameter types of the
+	 * method, i.e. whether they can be passed to it without an IllegalArgumentException
+	 * in case of reflective invocation.
+	 */
+	public boolean isInvokableWith(Object[] args) {
+		if (args.length != this.parameterTypes.length) {
+			return false;
+		}
+		for (int i = 0; i < args.length; i++) {
+			if (!ClassUtils.isAssignableValue(this.parameterTypes[i], args[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Invoke the method on the given target.
+	 * @param target the target instance
+	 * @param args the arguments, which must be {@link #isInvokableWith applicable}
+	 * @return the return value
+	 * @throws InvocationTargetException if the method threw an exception
+	 */
+	public Object invoke(Object target, Object[] args) throws InvocationTargetException {
+		return this.fastClass.invoke(this.index, target, args);
+	}
+
+
+	/**
+	 * Return the invoker for the given method, generating it if necessary.
+	 * @param method the method to invoke
+	 * @return the invoker, or {@code null} if the method or its declaring class
+	 * is not public, or the class could not be generated
+	 */
+	public static GeneratedMethodInvoker forMethod(Method method) {
+		GeneratedMethodInvoker invoker = invokerCache.get(method);
+		if (invoker == null) {
+			invoker = createInvoker(method);
+			invokerCache.put(method, invoker);
+		}
+		return (invoker != NOT_INVOKABLE ? invoker : null);
+	}
+
+	private static GeneratedMethodInvoker createInvoker(Method method) {
+		Class<?> declaringClass = method.getDeclaringClass();
+		if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(declaringClass.getModifiers()) ||
+				declaringClass.getClassLoader() == null) {
+			return NOT_INVOKABLE;
+		}
+		try {
+			FastClass fastClass = FastClass.create(declaringClass.getClassLoader(), declaringClass);
+			int index = fastClass.getIndex(method.getName(), method.getParameterTypes());
+			return (index >= 0 ? new GeneratedMethodInvoker(fastClass, index, method.getParameterTypes()) :
+					NOT_INVOKABLE);
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Could not generate invoker for method [" + method +
+						"] - falling back to reflection", ex);
+			}
+			return NOT_INVOKABLE;
+		}
+	}
+
+}
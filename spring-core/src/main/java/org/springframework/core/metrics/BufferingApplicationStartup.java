@@ -0,0 +1,461 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * {@link ApplicationStartup} implementation that keeps ended steps in an
+ * in-memory buffer of limited capacity, for inspection after startup.
+ *
+ * <p>Each step records its nesting within other steps on the same thread, its
+ * start time relative to the creation of this recorder, its duration and, on
+ * JVMs that support per-thread allocation counters, the number of bytes allocated
+ * by the starting thread while the step was in progress. Note that the duration
+ * and allocation of a step include those of its nested steps.
+ *
+ * <p>Recorded steps can be {@link #exportTo(Writer) exported} in CSV format.
+ * This class follows the standard MBean convention, so an instance can be
+ * registered with an {@link javax.management.MBeanServer} as-is:
+ *
+ * <pre class="code">
+ * BufferingApplicationStartup startup = new BufferingApplicationStartup(10000);
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(startup,
+ *     new ObjectName("org.springframework:type=ApplicationStartup"));
+ * context.setApplicationStartup(startup);
+ * context.refresh();</pre>
+ *
+ * @author Juergen Hoeller
+ * @since 4.0
+ */
+public class BufferingApplicationStartup implements ApplicationStartup, BufferingApplicationStartupMBean {
+
+	private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+	/** {@code com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}, if supported */
+	private static final Method getThreadAllocatedBytesMethod = findThreadAllocatedBytesMethod();
+
+
+	private final int capacity;
+
+	private final long startTime = System.nanoTime();
+
+	private final AtomicLong idCounter = new AtomicLong();
+
+	private final ThreadLocal<BufferedStartupStep> currentStep = new ThreadLocal<BufferedStartupStep>();
+
+	private final Queue<RecordedStep> recordedSteps = new ConcurrentLinkedQueue<RecordedStep>();
+
+	private final AtomicInteger recordedStepCount = new AtomicInteger();
+
+	private final AtomicLong droppedStepCount = new AtomicLong();
+
+	private volatile boolean allocationTracking = (getThreadAllocatedBytesMethod != null);
+
+
+	/**
+	 * Create a new buffering startup recorder.
+	 * @param capacity the maximum number of steps to keep;
+	 * steps ending once the buffer is full are counted but not kept
+	 */
+	public BufferingApplicationStartup(int capacity) {
+		Assert.isTrue(capacity > 0, "Capacity must be greater than 0");
+		this.capacity = capacity;
+	}
+
+
+	/**
+	 * Set whether to measure the memory allocated during each step.
+	 * <p>Default is "true" if the JVM exposes per-thread allocation counters.
+	 * Setting this to "true" has no effect on other JVMs.
+	 */
+	public void setAllocationTracking(boolean allocationTracking) {
+		this.allocationTracking = (allocationTracking && getThreadAllocatedBytesMethod != null);
+	}
+
+	@Override
+	public boolean isAllocationTracking() {
+		return this.allocationTracking;
+	}
+
+	@Override
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	@Override
+	public int getRecordedStepCount() {
+		return this.recordedStepCount.get();
+	}
+
+	@Override
+	public long getDroppedStepCount() {
+		return this.droppedStepCount.get();
+	}
+
+
+	@Override
+	public StartupStep start(String name) {
+		Assert.notNull(name, "Step name must not be null");
+		BufferedStartupStep parent = this.currentStep.get();
+		while (parent != null && parent.ended) {
+			// Step ended on another thread...
+			parent = parent.parent;
+		}
+		BufferedStartupStep step = new BufferedStartupStep(this.idCounter.incrementAndGet(), name, parent);
+		this.currentStep.set(step);
+		return step;
+	}
+
+	private void record(BufferedStartupStep step, long endTime, long allocatedBytes) {
+		if (this.currentStep.get() == step) {
+			BufferedStartupStep parent = step.parent;
+			while (parent != null && parent.ended) {
+				parent = parent.parent;
+			}
+			if (parent != null) {
+				this.currentStep.set(parent);
+			}
+			else {
+				this.currentStep.remove();
+			}
+		}
+		if (this.recordedStepCount.incrementAndGet() <= this.capacity) {
+			this.recordedSteps.add(new RecordedStep(step.id, (step.parent != null ? step.parent.id : null),
+					step.name, step.tags, step.threadName, step.startTime - this.startTime,
+					endTime - step.startTime, allocatedBytes));
+		}
+		else {
+			this.recordedStepCount.decrementAndGet();
+			this.droppedStepCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Return all recorded steps, in the order they were started.
+	 */
+	public List<RecordedStep> getRecordedSteps() {
+		List<RecordedStep> steps = new ArrayList<RecordedStep>(this.recordedSteps);
+		Collections.sort(steps, new Comparator<RecordedStep>() {
+			@Override
+			public int compare(RecordedStep step1, RecordedStep step2) {
+				return (step1.getId() < step2.getId() ? -1 : (step1.getId() == step2.getId() ? 0 : 1));
+			}
+		});
+		return steps;
+	}
+
+	@Override
+	public String[] getSlowestSteps(int count) {
+		List<RecordedStep> steps = new ArrayList<RecordedStep>(this.recordedSteps);
+		Collections.sort(steps, new Comparator<RecordedStep>() {
+			@Override
+			public int compare(RecordedStep step1, RecordedStep step2) {
+				return (step1.getDuration() > step2.getDuration() ? -1 :
+						(step1.getDuration() == step2.getDuration() ? 0 : 1));
+			}
+		});
+		int size = Math.min(Math.max(count, 0), steps.size());
+		String[] result = new String[size];
+		for (int i = 0; i < size; i++) {
+			result[i] = steps.get(i).toString();
+		}
+		return result;
+	}
+
+	/**
+	 * Write all recorded steps to the given Writer, one line per step in the
+	 * order they were started, as comma-separated values with a header line:
+	 * id, parent id, name, thread, start and duration in milliseconds,
+	 * allocated bytes (-1 if not measured) and the tags as "key=value" pairs
+	 * separated by ";".
+	 * <p>The given Writer is flushed but not closed.
+	 * @param writer the Writer to write to
+	 * @throws IOException in case of I/O errors
+	 */
+	public void exportTo(Writer writer) throws IOException {
+		writer.write("id,parentId,name,thread,startMillis,durationMillis,allocatedBytes,tags\n");
+		for (RecordedStep step : getRecordedSteps()) {
+			StringBuilder tags = new StringBuilder();
+			for (Map.Entry<String, String> tag : step.getTags().entrySet()) {
+				if (tags.length() > 0) {
+					tags.append(';');
+				}
+				tags.append(tag.getKey()).append('=').append(tag.getValue());
+			}
+			writer.write(step.getId() + "," + (step.getParentId() != null ? step.getParentId() : "") + "," +
+					quote(step.getName()) + "," + quote(step.getThreadName()) + "," +
+					formatMillis(step.getStartTime()) + "," + formatMillis(step.getDuration()) + "," +
+					step.getAllocatedBytes() + "," + quote(tags.toString()) + "\n");
+		}
+		writer.flush();
+	}
+
+	@Override
+	public void exportTo(String path) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path), "UTF-8"));
+		try {
+			exportTo(writer);
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	@Override
+	public void clear() {
+		this.recordedSteps.clear();
+		this.recordedStepCount.set(0);
+	}
+
+
+	private static String quote(String value) {
+		if (value.indexOf(',') == -1 && value.indexOf('"') == -1 && value.indexOf('\n') == -1) {
+			return value;
+		}
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+
+	private static String formatMillis(long nanos) {
+		return String.format(Locale.ENGLISH, "%.3f", nanos / 1000000.0);
+	}
+
+	private static Method findThreadAllocatedBytesMethod() {
+		try {
+			Class<?> sunThreadMXBean = ClassUtils.forName("com.sun.management.ThreadMXBean",
+					BufferingApplicationStartup.class.getClassLoader());
+			if (sunThreadMXBean.isInstance(threadMXBean) && (Boolean)
+					sunThreadMXBean.getMethod("isThreadAllocatedMemorySupported").invoke(threadMXBean) &&
+					(Boolean) sunThreadMXBean.getMethod("isThreadAllocatedMemoryEnabled").invoke(threadMXBean)) {
+				return sunThreadMXBean.getMethod("getThreadAllocatedBytes", long.class);
+			}
+		}
+		catch (Throwable ex) {
+			// Not a HotSpot-based JVM, or not accessible.
+		}
+		return null;
+	}
+
+	private static long getThreadAllocatedBytes(long threadId) {
+		try {
+			return (Long) getThreadAllocatedBytesMethod.invoke(threadMXBean, threadId);
+		}
+		catch (Throwable ex) {
+			return -1;
+		}
+	}
+
+
+	/**
+	 * {@link StartupStep} which records itself with the enclosing
+	 * {@link BufferingApplicationStartup} when ended.
+	 */
+	private class BufferedStartupStep implements StartupStep {
+
+		private final long id;
+
+		private final String name;
+
+		private final BufferedStartupStep parent;
+
+		private final Map<String, String> tags = new LinkedHashMap<String, String>(4);
+
+		private final long threadId;
+
+		private final String threadName;
+
+		private final long startAllocatedBytes;
+
+		private final long startTime;
+
+		private volatile boolean ended;
+
+
+		public BufferedStartupStep(long id, String name, BufferedStartupStep parent) {
+			this.id = id;
+			this.name = name;
+			this.parent = parent;
+			Thread thread = Thread.currentThread();
+			this.threadId = thread.getId();
+			this.threadName = thread.getName();
+			this.startAllocatedBytes = (allocationTracking ? getThreadAllocatedBytes(this.threadId) : -1);
+			this.startTime = System.nanoTime();
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public long getId() {
+			return this.id;
+		}
+
+		@Override
+		public Long getParentId() {
+			return (this.parent != null ? this.parent.id : null);
+		}
+
+		@Override
+		public StartupStep tag(String key, String value) {
+			Assert.state(!this.ended, "StartupStep has already ended");
+			Assert.notNull(key, "Tag key must not be null");
+			this.tags.put(key, value);
+			return this;
+		}
+
+		@Override
+		public Map<String, String> getTags() {
+			return Collections.unmodifiableMap(this.tags);
+		}
+
+		@Override
+		public void end() {
+			Assert.state(!this.ended, "StartupStep has already ended");
+			long endTime = System.nanoTime();
+			long allocatedBytes = -1;
+			if (this.startAllocatedBytes >= 0) {
+				long endAllocatedBytes = getThreadAllocatedBytes(this.threadId);
+				if (endAllocatedBytes >= 0) {
+					allocatedBytes = endAllocatedBytes - this.startAllocatedBytes;
+				}
+			}
+			this.ended = true;
+			record(this, endTime, allocatedBytes);
+		}
+	}
+
+
+	/**
+	 * Immutable snapshot of an ended {@link StartupStep}.
+	 */
+	public static final class RecordedStep {
+
+		private final long id;
+
+		private final Long parentId;
+
+		private final String name;
+
+		private final Map<String, String> tags;
+
+		private final String threadName;
+
+		private final long startTime;
+
+		private final long duration;
+
+		private final long allocatedBytes;
+
+
+		RecordedStep(long id, Long parentId, String name, Map<String, String> tags, String threadName,
+				long startTime, long duration, long allocatedBytes) {
+
+			this.id = id;
+			this.parentId = parentId;
+			this.name = name;
+			this.tags = Collections.unmodifiableMap(new LinkedHashMap<String, String>(tags));
+			this.threadName = threadName;
+			this.startTime = startTime;
+			this.duration = duration;
+			this.allocatedBytes = allocatedBytes;
+		}
+
+		public long getId() {
+			return this.id;
+		}
+
+		public Long getParentId() {
+			return this.parentId;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public Map<String, String> getTags() {
+			return this.tags;
+		}
+
+		public String getThreadName() {
+			return this.threadName;
+		}
+
+		/**
+		 * Return the start time in nanoseconds, relative to the creation of the recorder.
+		 */
+		public long getStartTime() {
+			return this.startTime;
+		}
+
+		/**
+		 * Return the duration in nanoseconds, including nested steps.
+		 */
+		public long getDuration() {
+			return this.duration;
+		}
+
+		/**
+		 * Return the number of bytes allocated by the starting thread during the step,
+		 * including nested steps, or -1 if not measured.
+		 */
+		public long getAllocatedBytes() {
+			return this.allocatedBytes;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder(this.name);
+			if (!this.tags.isEmpty()) {
+				sb.append(' ').append(this.tags);
+			}
+			sb.append(" took ").append(formatMillis(this.duration)).append(" ms");
+			if (this.allocatedBytes >= 0) {
+				sb.append(", allocated ").append(this.allocatedBytes).append(" bytes");
+			}
+			sb.append(" (id=").append(this.id);
+			if (this.parentId != null) {
+				sb.append(", parent=").append(this.parentId);
+			}
+			sb.append(", thread=").append(this.threadName).append(')');
+			return sb.toString();
+		}
+	}
+
+}
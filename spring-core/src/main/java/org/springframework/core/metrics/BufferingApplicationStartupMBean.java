@@ -0,0 +1,69 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.io.IOException;
+
+/**
+ * JMX management interface for {@link BufferingApplicationStartup},
+ * following the standard MBean naming convention.
+ *
+ * @author Juergen Hoeller
+ * @since 4.0
+ */
+public interface BufferingApplicationStartupMBean {
+
+	/**
+	 * Return the maximum number of steps kept in the buffer.
+	 */
+	int getCapacity();
+
+	/**
+	 * Return the number of steps currently kept in the buffer.
+	 */
+	int getRecordedStepCount();
+
+	/**
+	 * Return the number of ended steps that did not fit into the buffer.
+	 */
+	long getDroppedStepCount();
+
+	/**
+	 * Return whether allocated memory is measured per step.
+	 */
+	boolean isAllocationTracking();
+
+	/**
+	 * Return a one-line description of each of the given number of slowest
+	 * recorded steps, in descending order of duration.
+	 * @param count the maximum number of steps to describe
+	 */
+	String[] getSlowestSteps(int count);
+
+	/**
+	 * Export all recorded steps to the given file, in CSV format.
+	 * @param path the path of the file to write
+	 * @see BufferingApplicationStartup#exportTo(java.io.Writer)
+	 */
+	void exportTo(String path) throws IOException;
+
+	/**
+	 * Remove all recorded steps from the buffer.
+	 */
+	void clear();
+
+}
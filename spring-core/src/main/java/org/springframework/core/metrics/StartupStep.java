@@ -0,0 +1,78 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.util.Map;
+
+/**
+ * Step recording metrics about a particular phase or action happening
+ * during the {@link ApplicationStartup}.
+ *
+ * <p>The lifecycle of a {@code StartupStep} goes as follows:
+ * <ol>
+ * <li>the step is created and starts by calling {@link ApplicationStartup#start(String)}
+ * and is assigned a unique {@link #getId() id}
+ * <li>we can then attach information with {@link #tag(String, String)} during processing
+ * <li>we then need to mark the {@link #end()} of the step
+ * </ol>
+ *
+ * <p>Steps started while another step is in progress on the same thread
+ * are recorded as children of that step, resulting in nested timings.
+ *
+ * @author Juergen Hoeller
+ * @since 4.0
+ */
+public interface StartupStep {
+
+	/**
+	 * Return the name of the startup step.
+	 */
+	String getName();
+
+	/**
+	 * Return the unique id for this step within the application startup.
+	 */
+	long getId();
+
+	/**
+	 * Return the id of the parent step, if available.
+	 * <p>The parent step is the step that was most recently started
+	 * on the same thread when the current step was created.
+	 */
+	Long getParentId();
+
+	/**
+	 * Add a tag, i.e. a key/value pair, to the step.
+	 * @param key the tag key
+	 * @param value the tag value
+	 * @return this step, for chaining
+	 */
+	StartupStep tag(String key, String value);
+
+	/**
+	 * Return the tags collected for this step, in the order they were added.
+	 */
+	Map<String, String> getTags();
+
+	/**
+	 * Record the state of the step and possibly other metrics
+	 * like execution time and allocated memory.
+	 * <p>Once ended, changes on the step state are not allowed.
+	 */
+	void end();
+
+}
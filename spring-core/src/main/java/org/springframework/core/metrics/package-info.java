@@ -0,0 +1,7 @@
+/**
+ *
+ * Support for recording the steps of an application startup,
+ * with a no-op default and a buffering, JMX-exposed implementation.
+ *
+ */
+package org.springframework.core.metrics;
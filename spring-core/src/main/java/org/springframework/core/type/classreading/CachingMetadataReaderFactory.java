@@ -17,17 +17,24 @@
 package org.springframework.core.type.classreading;
 
 import java.io.IOException;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.net.URL;
 
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.ObjectUtils;
 
 /**
  * Caching implementation of the {@link MetadataReaderFactory} interface,
  * caching {@link MetadataReader} per Spring {@link Resource} handle
  * (i.e. per ".class" file).
  *
+ * <p>Entries are held in a concurrent, segmented {@link MetadataReaderCache},
+ * so that parallel lookups do not serialize on a single lock. By default each
+ * factory has a cache of its own. Alternatively a cache instance may be shared
+ * by several factories, e.g. by the factories of all application contexts
+ * started in a test suite, through {@link #setMetadataReaderCache}, in which case
+ * entries are keyed by the URL and last-modified timestamp of the class file.
+ *
  * @author Juergen Hoeller
  * @author Costin Leau
  * @since 2.5
@@ -35,19 +42,12 @@ import org.springframework.core.io.ResourceLoader;
 public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 
 	/** Default maximum number of entries for the MetadataReader cache: 256 */
-	public static final int DEFAULT_CACHE_LIMIT = 256;
+	public static final int DEFAULT_CACHE_LIMIT = MetadataReaderCache.DEFAULT_CACHE_LIMIT;
 
 
-	private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
+	private volatile MetadataReaderCache metadataReaderCache = new MetadataReaderCache(DEFAULT_CACHE_LIMIT);
 
-	@SuppressWarnings("serial")
-	private final Map<Resource, MetadataReader> metadataReaderCache =
-			new LinkedHashMap<Resource, MetadataReader>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
-				@Override
-				protected boolean removeEldestEntry(Map.Entry<Resource, MetadataReader> eldest) {
-					return size() > getCacheLimit();
-				}
-			};
+	private volatile boolean sharedCache;
 
 
 	/**
@@ -78,41 +78,119 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 	/**
 	 * Specify the maximum number of entries for the MetadataReader cache.
 	 * Default is 256.
+	 * <p>When a {@linkplain #setMetadataReaderCache shared cache} is used, this
+	 * changes the limit of the shared cache.
 	 */
 	public void setCacheLimit(int cacheLimit) {
-		this.cacheLimit = cacheLimit;
+		this.metadataReaderCache.setCacheLimit(cacheLimit);
 	}
 
 	/**
 	 * Return the maximum number of entries for the MetadataReader cache.
 	 */
 	public int getCacheLimit() {
-		return this.cacheLimit;
+		return this.metadataReaderCache.getCacheLimit();
+	}
+
+	/**
+	 * Use the given cache, shared with other factories, instead of a cache
+	 * local to this factory.
+	 * <p>Entries in a shared cache are keyed by the URL and the last-modified
+	 * timestamp of the class file, as well as by the ClassLoader of this factory,
+	 * so that factories for the same class loader reuse each other's results
+	 * while changed class files are read again. Resources that cannot be resolved
+	 * to a URL are not cached.
+	 * @param metadataReaderCache the shared cache
+	 * @since 4.0
+	 */
+	public void setMetadataReaderCache(MetadataReaderCache metadataReaderCache) {
+		this.metadataReaderCache = metadataReaderCache;
+		this.sharedCache = true;
+	}
+
+	/**
+	 * Return the cache in use, local or shared, e.g. to access its hit and
+	 * miss counts.
+	 * @since 4.0
+	 */
+	public MetadataReaderCache getMetadataReaderCache() {
+		return this.metadataReaderCache;
 	}
 
 
 	@Override
 	public MetadataReader getMetadataReader(Resource resource) throws IOException {
-		if (getCacheLimit() <= 0) {
+		MetadataReaderCache cache = this.metadataReaderCache;
+		if (cache.getCacheLimit() <= 0) {
 			return super.getMetadataReader(resource);
 		}
-		synchronized (this.metadataReaderCache) {
-			MetadataReader metadataReader = this.metadataReaderCache.get(resource);
-			if (metadataReader == null) {
-				metadataReader = super.getMetadataReader(resource);
-				this.metadataReaderCache.put(resource, metadataReader);
-			}
-			return metadataReader;
+		Object cacheKey = (this.sharedCache ? getSharedCacheKey(resource) : resource);
+		if (cacheKey == null) {
+			return super.getMetadataReader(resource);
+		}
+		MetadataReader metadataReader = cache.get(cacheKey);
+		if (metadataReader == null) {
+			metadataReader = cache.putIfAbsent(cacheKey, super.getMetadataReader(resource));
+		}
+		return metadataReader;
+	}
+
+	private Object getSharedCacheKey(Resource resource) {
+		try {
+			return new SharedCacheKey(resource.getURL(), resource.lastModified(),
+					getResourceLoader().getClassLoader());
+		}
+		catch (IOException ex) {
+			return null;
 		}
 	}
 
 	/**
 	 * Clear the entire MetadataReader cache, removing all cached class metadata.
+	 * <p>A {@linkplain #setMetadataReaderCache shared cache} is left untouched,
+	 * since other factories rely on it.
 	 */
 	public void clearCache() {
-		synchronized (this.metadataReaderCache) {
+		if (!this.sharedCache) {
 			this.metadataReaderCache.clear();
 		}
 	}
 
+
+	/**
+	 * Key for entries in a shared cache.
+	 */
+	private static class SharedCacheKey {
+
+		private final String url;
+
+		private final long lastModified;
+
+		private final ClassLoader classLoader;
+
+		public SharedCacheKey(URL url, long lastModified, ClassLoader classLoader) {
+			this.url = url.toExternalForm();
+			this.lastModified = lastModified;
+			this.classLoader = classLoader;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof SharedCacheKey)) {
+				return false;
+			}
+			SharedCacheKey otherKey = (SharedCacheKey) other;
+			return (this.url.equals(otherKey.url) && this.lastModified == otherKey.lastModified &&
+					this.classLoader == otherKey.classLoader);
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.url.hashCode() * 29 + ObjectUtils.hashCode(this.lastModified));
+		}
+	}
+
 }
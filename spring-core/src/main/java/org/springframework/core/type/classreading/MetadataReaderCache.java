@@ -0,0 +1,195 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A concurrent, bounded cache of {@link MetadataReader} instances, as used by
+ * {@link CachingMetadataReaderFactory}.
+ *
+ * <p>The cache is split into a fixed number of segments, each an LRU map guarded
+ * by its own lock, so that concurrent lookups for different classes rarely contend.
+ * Eviction is least-recently-used per segment, so the limit is approximate: the
+ * cache holds at most the limit rounded up to a multiple of the segment count.
+ *
+ * <p>A single instance may be {@linkplain CachingMetadataReaderFactory#setMetadataReaderCache
+ * shared} by several factories, e.g. across application contexts started in the
+ * same JVM, in which case entries are keyed by class file URL, last-modified
+ * timestamp and class loader.
+ *
+ * @author Juergen Hoeller
+ * @since 4.0
+ * @see CachingMetadataReaderFactory
+ */
+public class MetadataReaderCache {
+
+	/** Default maximum number of entries: 256 */
+	public static final int DEFAULT_CACHE_LIMIT = 256;
+
+	private static final int SEGMENT_COUNT = 16;
+
+
+	private volatile int cacheLimit;
+
+	private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+
+	/**
+	 * Create a new cache with the {@link #DEFAULT_CACHE_LIMIT default limit}.
+	 */
+	public MetadataReaderCache() {
+		this(DEFAULT_CACHE_LIMIT);
+	}
+
+	/**
+	 * Create a new cache with the given limit.
+	 * @param cacheLimit the maximum number of entries
+	 */
+	public MetadataReaderCache(int cacheLimit) {
+		this.cacheLimit = cacheLimit;
+		for (int i = 0; i < SEGMENT_COUNT; i++) {
+			this.segments[i] = new Segment();
+		}
+	}
+
+
+	/**
+	 * Specify the maximum number of entries. A limit of 0 or less disables caching.
+	 * <p>A lower limit takes effect as entries are added.
+	 */
+	public void setCacheLimit(int cacheLimit) {
+		this.cacheLimit = cacheLimit;
+	}
+
+	/**
+	 * Return the maximum number of entries.
+	 */
+	public int getCacheLimit() {
+		return this.cacheLimit;
+	}
+
+	/**
+	 * Return the number of cached entries.
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment segment : this.segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Return the number of lookups that found a cached entry.
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * Return the number of lookups that did not find a cached entry.
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * Remove all cached entries. Hit and miss counts are not reset.
+	 */
+	public void clear() {
+		for (Segment segment : this.segments) {
+			segment.clear();
+		}
+	}
+
+
+	MetadataReader get(Object key) {
+		MetadataReader metadataReader = getSegment(key).get(key);
+		if (metadataReader != null) {
+			this.hitCount.incrementAndGet();
+		}
+		else {
+			this.missCount.incrementAndGet();
+		}
+		return metadataReader;
+	}
+
+	/**
+	 * Add the given entry unless another thread added one for the same key in
+	 * the meantime, in which case that one is returned instead.
+	 */
+	MetadataReader putIfAbsent(Object key, MetadataReader metadataReader) {
+		return getSegment(key).putIfAbsent(key, metadataReader);
+	}
+
+	private Segment getSegment(Object key) {
+		int hash = key.hashCode();
+		hash ^= (hash >>> 16);
+		return this.segments[hash & (SEGMENT_COUNT - 1)];
+	}
+
+	private int getSegmentLimit() {
+		int limit = this.cacheLimit;
+		return (limit + SEGMENT_COUNT - 1) / SEGMENT_COUNT;
+	}
+
+
+	@SuppressWarnings("serial")
+	private class Segment extends LinkedHashMap<Object, MetadataReader> {
+
+		public Segment() {
+			super(16, 0.75f, true);
+		}
+
+		@Override
+		public synchronized MetadataReader get(Object key) {
+			return super.get(key);
+		}
+
+		public synchronized MetadataReader putIfAbsent(Object key, MetadataReader metadataReader) {
+			MetadataReader existing = super.get(key);
+			if (existing != null) {
+				return existing;
+			}
+			super.put(key, metadataReader);
+			return metadataReader;
+		}
+
+		@Override
+		public synchronized int size() {
+			return super.size();
+		}
+
+		@Override
+		public synchronized void clear() {
+			super.clear();
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Object, MetadataReader> eldest) {
+			return (size() > getSegmentLimit());
+		}
+	}
+
+}
@@ -55,22 +55,50 @@ public class AntPathMatcher implements PathMatcher {
 	/** Default path separator: "/" */
 	public static final String DEFAULT_PATH_SEPARATOR = "/";
 
-	private String pathSeparator = DEFAULT_PATH_SEPARATOR;
+	private static final int CACHE_TURNOFF_THRESHOLD = 65536;
 
-	private final Map<String, AntPathStringMatcher> stringMatcherCache =
-			new ConcurrentHashMap<String, AntPathStringMatcher>(256);
+	private String pathSeparator = DEFAULT_PATH_SEPARATOR;
 
 	private boolean trimTokens = true;
 
+	private volatile Boolean cachePatterns;
+
+	final Map<String, AntPathPattern> patternCache = new ConcurrentHashMap<String, AntPathPattern>(256);
+
 
 	/** Set the path separator to use for pattern parsing. Default is "/", as in Ant. */
 	public void setPathSeparator(String pathSeparator) {
 		this.pathSeparator = (pathSeparator != null ? pathSeparator : DEFAULT_PATH_SEPARATOR);
+		this.patternCache.clear();
+	}
+
+	/** Return the path separator used for pattern parsing. */
+	public String getPathSeparator() {
+		return this.pathSeparator;
 	}
 
 	/** Whether to trim tokenized paths and patterns. */
 	public void setTrimTokens(boolean trimTokens) {
-		this.trimTokens  = trimTokens;
+		this.trimTokens = trimTokens;
+		this.patternCache.clear();
+	}
+
+	/**
+	 * Specify whether to cache parsed pattern metadata for patterns passed
+	 * into this matcher's {@link #match} method. A value of {@code true}
+	 * activates an unlimited pattern cache; a value of {@code false} turns
+	 * the pattern cache off completely.
+	 * <p>Default is for the cache to be on, but with the variant to automatically
+	 * turn it off when encountering too many patterns to cache at runtime
+	 * (the threshold is 65536), assuming that arbitrary permutations of patterns
+	 * are coming in, with little chance for encountering a reoccurring pattern.
+	 * @since 4.0
+	 */
+	public void setCachePatterns(boolean cachePatterns) {
+		this.cachePatterns = cachePatterns;
+		if (!cachePatterns) {
+			this.patternCache.clear();
+		}
 	}
 
 	@Override
@@ -104,21 +132,26 @@ public class AntPathMatcher implements PathMatcher {
 			return false;
 		}
 
-		String[] pattDirs = StringUtils.tokenizeToStringArray(pattern, this.pathSeparator, this.trimTokens, true);
-		String[] pathDirs = StringUtils.tokenizeToStringArray(path, this.pathSeparator, this.trimTokens, true);
+		AntPathPattern compiledPattern = getCompiledPattern(pattern);
+		if (!compiledPattern.hasDoubleWildcard()) {
+			return doMatchSegments(compiledPattern, path, fullMatch, uriTemplateVariables);
+		}
+
+		AntPathSegment[] pattDirs = compiledPattern.getSegments();
+		int[] pathDirs = tokenizePath(path);
 
 		int pattIdxStart = 0;
 		int pattIdxEnd = pattDirs.length - 1;
 		int pathIdxStart = 0;
-		int pathIdxEnd = pathDirs.length - 1;
+		int pathIdxEnd = pathDirs.length / 2 - 1;
 
 		// Match all elements up to the first **
 		while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
-			String patDir = pattDirs[pattIdxStart];
-			if ("**".equals(patDir)) {
+			AntPathSegment patDir = pattDirs[pattIdxStart];
+			if (patDir.isDoubleWildcard()) {
 				break;
 			}
-			if (!matchStrings(patDir, pathDirs[pathIdxStart], uriTemplateVariables)) {
+			if (!patDir.matches(path, pathDirs[pathIdxStart * 2], pathDirs[pathIdxStart * 2 + 1], uriTemplateVariables)) {
 				return false;
 			}
 			pattIdxStart++;
@@ -134,11 +167,11 @@ public class AntPathMatcher implements PathMatcher {
 			if (!fullMatch) {
 				return true;
 			}
-			if (pattIdxStart == pattIdxEnd && pattDirs[pattIdxStart].equals("*") && path.endsWith(this.pathSeparator)) {
+			if (pattIdxStart == pattIdxEnd && pattDirs[pattIdxStart].isSingleWildcard() && path.endsWith(this.pathSeparator)) {
 				return true;
 			}
 			for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
-				if (!pattDirs[i].equals("**")) {
+				if (!pattDirs[i].isDoubleWildcard()) {
 					return false;
 				}
 			}
@@ -148,18 +181,18 @@ public class AntPathMatcher implements PathMatcher {
 			// String not exhausted, but pattern is. Failure.
 			return false;
 		}
-		else if (!fullMatch && "**".equals(pattDirs[pattIdxStart])) {
+		else if (!fullMatch && pattDirs[pattIdxStart].isDoubleWildcard()) {
 			// Path start definitely matches due to "**" part in pattern.
 			return true;
 		}
 
 		// up to last '**'
 		while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
-			String patDir = pattDirs[pattIdxEnd];
-			if (patDir.equals("**")) {
+			AntPathSegment patDir = pattDirs[pattIdxEnd];
+			if (patDir.isDoubleWildcard()) {
 				break;
 			}
-			if (!matchStrings(patDir, pathDirs[pathIdxEnd], uriTemplateVariables)) {
+			if (!patDir.matches(path, pathDirs[pathIdxEnd * 2], pathDirs[pathIdxEnd * 2 + 1], uriTemplateVariables)) {
 				return false;
 			}
 			pattIdxEnd--;
@@ -168,7 +201,7 @@ public class AntPathMatcher implements PathMatcher {
 		if (pathIdxStart > pathIdxEnd) {
 			// String is exhausted
 			for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
-				if (!pattDirs[i].equals("**")) {
+				if (!pattDirs[i].isDoubleWildcard()) {
 					return false;
 				}
 			}
@@ -178,7 +211,7 @@ public class AntPathMatcher implements PathMatcher {
 		while (pattIdxStart != pattIdxEnd && pathIdxStart <= pathIdxEnd) {
 			int patIdxTmp = -1;
 			for (int i = pattIdxStart + 1; i <= pattIdxEnd; i++) {
-				if (pattDirs[i].equals("**")) {
+				if (pattDirs[i].isDoubleWildcard()) {
 					patIdxTmp = i;
 					break;
 				}
@@ -197,9 +230,9 @@ public class AntPathMatcher implements PathMatcher {
 			strLoop:
 			for (int i = 0; i <= strLength - patLength; i++) {
 				for (int j = 0; j < patLength; j++) {
-					String subPat = pattDirs[pattIdxStart + j + 1];
-					String subStr = pathDirs[pathIdxStart + i + j];
-					if (!matchStrings(subPat, subStr, uriTemplateVariables)) {
+					AntPathSegment subPat = pattDirs[pattIdxStart + j + 1];
+					int subStrIdx = pathIdxStart + i + j;
+					if (!subPat.matches(path, pathDirs[subStrIdx * 2], pathDirs[subStrIdx * 2 + 1], uriTemplateVariables)) {
 						continue strLoop;
 					}
 				}
@@ -216,7 +249,7 @@ public class AntPathMatcher implements PathMatcher {
 		}
 
 		for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
-			if (!pattDirs[i].equals("**")) {
+			if (!pattDirs[i].isDoubleWildcard()) {
 				return false;
 			}
 		}
@@ -225,20 +258,134 @@ public class AntPathMatcher implements PathMatcher {
 	}
 
 	/**
-	 * Tests whether or not a string matches against a pattern. The pattern may contain two special characters:
-	 * <br>'*' means zero or more characters
-	 * <br>'?' means one and only one character
-	 * @param pattern pattern to match against. Must not be {@code null}.
-	 * @param str string which must be matched against the pattern. Must not be {@code null}.
-	 * @return {@code true} if the string matches against the pattern, or {@code false} otherwise.
+	 * Match the given path against a pattern without {@code **} segments,
+	 * following the path segments one by one without tokenizing the path upfront.
+	 */
+	private boolean doMatchSegments(AntPathPattern compiledPattern, String path, boolean fullMatch,
+			Map<String, String> uriTemplateVariables) {
+
+		AntPathSegment[] pattDirs = compiledPattern.getSegments();
+		int pattIdx = 0;
+		int pos = 0;
+		int length = path.length();
+		while (pos < length) {
+			while (pos < length && isSeparator(path.charAt(pos))) {
+				pos++;
+			}
+			int start = pos;
+			while (pos < length && !isSeparator(path.charAt(pos))) {
+				pos++;
+			}
+			int end = pos;
+			if (this.trimTokens) {
+				while (start < end && path.charAt(start) <= ' ') {
+					start++;
+				}
+				while (end > start && path.charAt(end - 1) <= ' ') {
+					end--;
+				}
+			}
+			if (start == end) {
+				continue;
+			}
+			if (pattIdx == pattDirs.length) {
+				// String not exhausted, but pattern is. Failure.
+				return false;
+			}
+			if (!pattDirs[pattIdx].matches(path, start, end, uriTemplateVariables)) {
+				return false;
+			}
+			pattIdx++;
+		}
+
+		// Path is exhausted, only match if rest of pattern is *
+		if (pattIdx == pattDirs.length) {
+			return (compiledPattern.getPattern().endsWith(this.pathSeparator) ? path.endsWith(this.pathSeparator) :
+					!path.endsWith(this.pathSeparator));
+		}
+		if (!fullMatch) {
+			return true;
+		}
+		return (pattIdx == pattDirs.length - 1 && pattDirs[pattIdx].isSingleWildcard() &&
+				path.endsWith(this.pathSeparator));
+	}
+
+	/**
+	 * Tokenize the given path into the start and end index of each segment,
+	 * following the same rules as {@link StringUtils#tokenizeToStringArray}.
+	 * @return an array with two entries per path segment
+	 */
+	private int[] tokenizePath(String path) {
+		int[] bounds = new int[8];
+		int count = 0;
+		int pos = 0;
+		int length = path.length();
+		while (pos < length) {
+			while (pos < length && isSeparator(path.charAt(pos))) {
+				pos++;
+			}
+			int start = pos;
+			while (pos < length && !isSeparator(path.charAt(pos))) {
+				pos++;
+			}
+			int end = pos;
+			if (this.trimTokens) {
+				while (start < end && path.charAt(start) <= ' ') {
+					start++;
+				}
+				while (end > start && path.charAt(end - 1) <= ' ') {
+					end--;
+				}
+			}
+			if (start < end) {
+				if (count + 2 > bounds.length) {
+					int[] newBounds = new int[bounds.length * 2];
+					System.arraycopy(bounds, 0, newBounds, 0, count);
+					bounds = newBounds;
+				}
+				bounds[count++] = start;
+				bounds[count++] = end;
+			}
+		}
+		if (count == bounds.length) {
+			return bounds;
+		}
+		int[] result = new int[count];
+		System.arraycopy(bounds, 0, result, 0, count);
+		return result;
+	}
+
+	private boolean isSeparator(char c) {
+		String separator = this.pathSeparator;
+		return (separator.length() == 1 ? c == separator.charAt(0) : separator.indexOf(c) != -1);
+	}
+
+	/**
+	 * Return the parsed form of the given pattern, from the pattern cache if possible.
+	 * @param pattern the pattern to parse
+	 * @see #setCachePatterns
 	 */
-	private boolean matchStrings(String pattern, String str, Map<String, String> uriTemplateVariables) {
-		AntPathStringMatcher matcher = this.stringMatcherCache.get(pattern);
-		if (matcher == null) {
-			matcher = new AntPathStringMatcher(pattern);
-			this.stringMatcherCache.put(pattern, matcher);
+	private AntPathPattern getCompiledPattern(String pattern) {
+		AntPathPattern compiledPattern = null;
+		Boolean cachePatterns = this.cachePatterns;
+		if (cachePatterns == null || cachePatterns.booleanValue()) {
+			compiledPattern = this.patternCache.get(pattern);
+		}
+		if (compiledPattern == null) {
+			compiledPattern = new AntPathPattern(pattern, this.pathSeparator, this.trimTokens);
+			if (cachePatterns == null && this.patternCache.size() >= CACHE_TURNOFF_THRESHOLD) {
+				// Try to adapt to the runtime situation that we're encountering:
+				// There are obviously too many different patterns coming in here...
+				// So let's turn off the cache since the patterns are unlikely to be reoccurring.
+				this.cachePatterns = false;
+				this.patternCache.clear();
+				return compiledPattern;
+			}
+			if (cachePatterns == null || cachePatterns.booleanValue()) {
+				this.patternCache.put(pattern, compiledPattern);
+			}
 		}
-		return matcher.matchStrings(str, uriTemplateVariables);
+		return compiledPattern;
 	}
 
 	/**
@@ -256,7 +403,7 @@ public class AntPathMatcher implements PathMatcher {
 	 */
 	@Override
 	public String extractPathWithinPattern(String pattern, String path) {
-		String[] patternParts = StringUtils.tokenizeToStringArray(pattern, this.pathSeparator, this.trimTokens, true);
+		AntPathSegment[] patternParts = getCompiledPattern(pattern).getSegments();
 		String[] pathParts = StringUtils.tokenizeToStringArray(path, this.pathSeparator, this.trimTokens, true);
 
 		StringBuilder builder = new StringBuilder();
@@ -264,7 +411,7 @@ public class AntPathMatcher implements PathMatcher {
 		// Add any path parts that have a wildcarded pattern part.
 		int puts = 0;
 		for (int i = 0; i < patternParts.length; i++) {
-			String patternPart = patternParts[i];
+			String patternPart = patternParts[i].getPattern();
 			if ((patternPart.indexOf('*') > -1 || patternPart.indexOf('?') > -1) && pathParts.length >= i + 1) {
 				if (puts > 0 || (i == 0 && !pattern.startsWith(this.pathSeparator))) {
 					builder.append(this.pathSeparator);
@@ -287,7 +434,8 @@ public class AntPathMatcher implements PathMatcher {
 
 	@Override
 	public Map<String, String> extractUriTemplateVariables(String pattern, String path) {
-		Map<String, String> variables = new LinkedHashMap<String, String>();
+		Map<String, String> variables =
+				new LinkedHashMap<String, String>(getCompiledPattern(pattern).getVariableCount() * 2);
 		boolean result = doMatch(pattern, path, true, variables);
 		Assert.state(result, "Pattern \"" + pattern + "\" is not a match for \"" + path + "\"");
 		return variables;
@@ -399,7 +547,7 @@ public class AntPathMatcher implements PathMatcher {
 	}
 
 
-	private static class AntPatternComparator implements Comparator<String> {
+	private class AntPatternComparator implements Comparator<String> {
 
 		private final String path;
 
@@ -429,11 +577,14 @@ public class AntPathMatcher implements PathMatcher {
 			else if (pattern2EqualsPath) {
 				return 1;
 			}
-			int wildCardCount1 = getWildCardCount(pattern1);
-			int wildCardCount2 = getWildCardCount(pattern2);
+			AntPathPattern compiledPattern1 = getCompiledPattern(pattern1);
+			AntPathPattern compiledPattern2 = getCompiledPattern(pattern2);
+
+			int wildCardCount1 = compiledPattern1.getWildCardCount();
+			int wildCardCount2 = compiledPattern2.getWildCardCount();
 
-			int bracketCount1 = StringUtils.countOccurrencesOf(pattern1, "{");
-			int bracketCount2 = StringUtils.countOccurrencesOf(pattern2, "{");
+			int bracketCount1 = compiledPattern1.getBracketCount();
+			int bracketCount2 = compiledPattern2.getBracketCount();
 
 			int totalCount1 = wildCardCount1 + bracketCount1;
 			int totalCount2 = wildCardCount2 + bracketCount2;
@@ -442,8 +593,8 @@ public class AntPathMatcher implements PathMatcher {
 				return totalCount1 - totalCount2;
 			}
 
-			int pattern1Length = getPatternLength(pattern1);
-			int pattern2Length = getPatternLength(pattern2);
+			int pattern1Length = compiledPattern1.getLength();
+			int pattern2Length = compiledPattern2.getLength();
 
 			if (pattern1Length != pattern2Length) {
 				return pattern2Length - pattern1Length;
@@ -465,20 +616,202 @@ public class AntPathMatcher implements PathMatcher {
 
 			return 0;
 		}
+	}
+
+
+	/**
+	 * Parsed form of a pattern: its segments as tokenized by the path separator,
+	 * each one prepared for matching, plus the metadata needed for comparing the
+	 * specificity of patterns.
+	 */
+	private static class AntPathPattern {
+
+		private final String pattern;
+
+		private final AntPathSegment[] segments;
+
+		private final boolean doubleWildcard;
+
+		private final int variableCount;
+
+		private final int wildCardCount;
+
+		private final int bracketCount;
+
+		private final int length;
+
+		public AntPathPattern(String pattern, String pathSeparator, boolean trimTokens) {
+			this.pattern = pattern;
+			String[] pattDirs = StringUtils.tokenizeToStringArray(pattern, pathSeparator, trimTokens, true);
+			this.segments = new AntPathSegment[pattDirs.length];
+			boolean doubleWildcard = false;
+			int variableCount = 0;
+			for (int i = 0; i < pattDirs.length; i++) {
+				this.segments[i] = new AntPathSegment(pattDirs[i]);
+				doubleWildcard |= this.segments[i].isDoubleWildcard();
+				variableCount += this.segments[i].getVariableCount();
+			}
+			this.doubleWildcard = doubleWildcard;
+			this.variableCount = variableCount;
+			String patternToCount = (pattern.endsWith(".*") ? pattern.substring(0, pattern.length() - 2) : pattern);
+			this.wildCardCount = StringUtils.countOccurrencesOf(patternToCount, "*");
+			this.bracketCount = StringUtils.countOccurrencesOf(pattern, "{");
+			// template variables are considered to be 1 long
+			this.length = VARIABLE_PATTERN.matcher(pattern).replaceAll("#").length();
+		}
+
+		public String getPattern() {
+			return this.pattern;
+		}
+
+		public AntPathSegment[] getSegments() {
+			return this.segments;
+		}
+
+		public boolean hasDoubleWildcard() {
+			return this.doubleWildcard;
+		}
+
+		public int getVariableCount() {
+			return this.variableCount;
+		}
+
+		public int getWildCardCount() {
+			return this.wildCardCount;
+		}
+
+		public int getBracketCount() {
+			return this.bracketCount;
+		}
+
+		public int getLength() {
+			return this.length;
+		}
+	}
+
+
+	/**
+	 * A single segment of a pattern. Literal segments, plain wildcards and
+	 * plain URI template variables are matched directly against the path;
+	 * any other segment is matched through an {@link AntPathStringMatcher}.
+	 */
+	private static class AntPathSegment {
+
+		private static final int LITERAL = 0;
+
+		private static final int SINGLE_WILDCARD = 1;
+
+		private static final int DOUBLE_WILDCARD = 2;
+
+		private static final int VARIABLE = 3;
+
+		private static final int REGEX = 4;
+
+		private final String pattern;
+
+		private final int kind;
+
+		private final String variableName;
+
+		private final AntPathStringMatcher stringMatcher;
+
+		public AntPathSegment(String pattern) {
+			this.pattern = pattern;
+			if ("**".equals(pattern)) {
+				this.kind = DOUBLE_WILDCARD;
+			}
+			else if ("*".equals(pattern)) {
+				this.kind = SINGLE_WILDCARD;
+			}
+			else if (isPlainVariable(pattern)) {
+				this.kind = VARIABLE;
+			}
+			else if (pattern.indexOf('*') == -1 && pattern.indexOf('?') == -1 &&
+					pattern.indexOf('{') == -1 && pattern.indexOf('}') == -1) {
+				this.kind = LITERAL;
+			}
+			else {
+				this.kind = REGEX;
+			}
+			this.variableName = (this.kind == VARIABLE ? pattern.substring(1, pattern.length() - 1) : null);
+			this.stringMatcher = (this.kind == REGEX ? new AntPathStringMatcher(pattern) : null);
+		}
+
+		private static boolean isPlainVariable(String pattern) {
+			int length = pattern.length();
+			if (length < 3 || pattern.charAt(0) != '{' || pattern.charAt(length - 1) != '}') {
+				return false;
+			}
+			for (int i = 1; i < length - 1; i++) {
+				char c = pattern.charAt(i);
+				if (c == '{' || c == '}' || c == ':' || c == '/' || c == '\\') {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		public String getPattern() {
+			return this.pattern;
+		}
+
+		public boolean isSingleWildcard() {
+			return (this.kind == SINGLE_WILDCARD);
+		}
+
+		public boolean isDoubleWildcard() {
+			return (this.kind == DOUBLE_WILDCARD);
+		}
+
+		public int getVariableCount() {
+			if (this.kind == VARIABLE) {
+				return 1;
+			}
+			return (this.stringMatcher != null ? this.stringMatcher.getVariableCount() : 0);
+		}
 
-		private int getWildCardCount(String pattern) {
-			if (pattern.endsWith(".*")) {
-				pattern = pattern.substring(0, pattern.length() - 2);
+		/**
+		 * Match this segment against the given segment of the path.
+		 * @param path the full path
+		 * @param start the start index of the path segment
+		 * @param end the end index of the path segment
+		 * @param uriTemplateVariables the map to put extracted variables into, if any
+		 * @return {@code true} if the path segment matches, {@code false} otherwise
+		 */
+		public boolean matches(String path, int start, int end, Map<String, String> uriTemplateVariables) {
+			switch (this.kind) {
+				case LITERAL:
+					return (end - start == this.pattern.length() && path.startsWith(this.pattern, start));
+				case SINGLE_WILDCARD:
+					return !containsLineTerminator(path, start, end);
+				case DOUBLE_WILDCARD:
+					return true;
+				case VARIABLE:
+					if (containsLineTerminator(path, start, end)) {
+						return false;
+					}
+					if (uriTemplateVariables != null) {
+						uriTemplateVariables.put(this.variableName, path.substring(start, end));
+					}
+					return true;
+				default:
+					return this.stringMatcher.matchStrings(path, start, end, uriTemplateVariables);
 			}
-			return StringUtils.countOccurrencesOf(pattern, "*");
 		}
 
 		/**
-		 * Returns the length of the given pattern, where template variables are considered to be 1 long.
+		 * Whether the given range of the path contains a line terminator, which is
+		 * not matched by "*" and "{var}" as they are equivalent to the regular
+		 * expression ".*" and "(.*)" respectively.
 		 */
-		private int getPatternLength(String pattern) {
-			Matcher m = VARIABLE_PATTERN.matcher(pattern);
-			return m.replaceAll("#").length();
+		private static boolean containsLineTerminator(String path, int start, int end) {
+			for (int i = start; i < end; i++) {
+				char c = path.charAt(i);
+				if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+					return true;
+				}
+			}
+			return false;
 		}
 	}
 
@@ -539,12 +872,17 @@ public class AntPathMatcher implements PathMatcher {
 			return Pattern.quote(s.substring(start, end));
 		}
 
+		public int getVariableCount() {
+			return this.variableNames.size();
+		}
+
 		/**
 		 * Main entry point.
-		 * @return {@code true} if the string matches against the pattern, or {@code false} otherwise.
+		 * @return {@code true} if the given region of the string matches against the pattern,
+		 * or {@code false} otherwise.
 		 */
-		public boolean matchStrings(String str, Map<String, String> uriTemplateVariables) {
-			Matcher matcher = this.pattern.matcher(str);
+		public boolean matchStrings(String str, int start, int end, Map<String, String> uriTemplateVariables) {
+			Matcher matcher = this.pattern.matcher(str).region(start, end);
 			if (matcher.matches()) {
 				if (uriTemplateVariables != null) {
 					// SPR-8455
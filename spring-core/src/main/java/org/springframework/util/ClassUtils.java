@@ -361,7 +361,8 @@ public abstract class ClassUtils {
 		Assert.notNull(clazz, "Class must not be null");
 		ClassLoader target = clazz.getClassLoader();
 		if (target == null) {
-			return false;
+			// loaded by the bootstrap ClassLoader, i.e. the parent of all
+			return true;
 		}
 		ClassLoader cur = classLoader;
 		if (cur == target) {
@@ -26,6 +26,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 /**
@@ -46,6 +47,20 @@ public abstract class ReflectionUtils {
 
 	private static final Pattern CGLIB_RENAMED_METHOD_PATTERN = Pattern.compile("CGLIB\\$(.+)\\$\\d+");
 
+	/**
+	 * Cache for {@link Class#getDeclaredMethods()}, allowing for fast iteration.
+	 * Soft references let classes and their class loaders be garbage-collected.
+	 */
+	private static final Map<Class<?>, Method[]> declaredMethodsCache =
+			new ConcurrentReferenceHashMap<Class<?>, Method[]>(256);
+
+	/**
+	 * Cache for {@link Class#getDeclaredFields()}, allowing for fast iteration.
+	 */
+	private static final Map<Class<?>, Field[]> declaredFieldsCache =
+			new ConcurrentReferenceHashMap<Class<?>, Field[]>(256);
+
+
 	/**
 	 * Attempt to find a {@link Field field} on the supplied {@link Class} with the
 	 * supplied {@code name}. Searches all superclasses up to {@link Object}.
@@ -71,6 +86,8 @@ public abstract class ReflectionUtils {
 		Assert.isTrue(name != null || type != null, "Either name or type of the field must be specified");
 		Class<?> searchType = clazz;
 		while (!Object.class.equals(searchType) && searchType != null) {
+			// Not served from the declared fields cache: this is a one-off lookup rather
+			// than a startup scan, and callers get a Field that nobody else has made accessible
 			Field[] fields = searchType.getDeclaredFields();
 			for (Field field : fields) {
 				if ((name == null || name.equals(field.getName())) && (type == null || type.equals(field.getType()))) {
@@ -151,7 +168,7 @@ public abstract class ReflectionUtils {
 		Assert.notNull(name, "Method name must not be null");
 		Class<?> searchType = clazz;
 		while (searchType != null) {
-			Method[] methods = (searchType.isInterface() ? searchType.getMethods() : searchType.getDeclaredMethods());
+			Method[] methods = (searchType.isInterface() ? searchType.getMethods() : getDeclaredMethods(searchType));
 			for (Method method : methods) {
 				if (name.equals(method.getName())
 						&& (paramTypes == null || Arrays.equals(paramTypes, method.getParameterTypes()))) {
@@ -464,7 +481,7 @@ public abstract class ReflectionUtils {
 			throws IllegalArgumentException {
 
 		// Keep backing up the inheritance hierarchy.
-		Method[] methods = clazz.getDeclaredMethods();
+		Method[] methods = getDeclaredMethods(clazz);
 		for (Method method : methods) {
 			if (mf != null && !mf.matches(method)) {
 				continue;
@@ -539,6 +556,51 @@ public abstract class ReflectionUtils {
 		return methods.toArray(new Method[methods.size()]);
 	}
 
+	/**
+	 * This method retrieves {@link Class#getDeclaredMethods()} from a local cache
+	 * in order to avoid the JDK's internal copying of the method array.
+	 * <p>The returned array is shared and must not be modified.
+	 * @param clazz the class to introspect
+	 * @return the cached array of methods
+	 * @see Class#getDeclaredMethods()
+	 */
+	private static Method[] getDeclaredMethods(Class<?> clazz) {
+		Method[] result = declaredMethodsCache.get(clazz);
+		if (result == null) {
+			result = clazz.getDeclaredMethods();
+			declaredMethodsCache.put(clazz, result);
+		}
+		return result;
+	}
+
+	/**
+	 * This method retrieves {@link Class#getDeclaredFields()} from a local cache
+	 * in order to avoid the JDK's internal copying of the field array.
+	 * <p>The returned array is shared and must not be modified.
+	 * @param clazz the class to introspect
+	 * @return the cached array of fields
+	 * @see Class#getDeclaredFields()
+	 */
+	private static Field[] getDeclaredFields(Class<?> clazz) {
+		Field[] result = declaredFieldsCache.get(clazz);
+		if (result == null) {
+			result = clazz.getDeclaredFields();
+			declaredFieldsCache.put(clazz, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Clear the internal method/field cache.
+	 * <p>Typically called after the startup of an application context,
+	 * once bean post-processing has scanned all bean classes.
+	 * @since 4.0
+	 */
+	public static void clearCache() {
+		declaredMethodsCache.clear();
+		declaredFieldsCache.clear();
+	}
+
 	/**
 	 * Invoke the given callback on all fields in the target class, going up the
 	 * class hierarchy to get all declared fields.
@@ -562,7 +624,7 @@ public abstract class ReflectionUtils {
 		// Keep backing up the inheritance hierarchy.
 		Class<?> targetClass = clazz;
 		do {
-			Field[] fields = targetClass.getDeclaredFields();
+			Field[] fields = getDeclaredFields(targetClass);
 			for (Field field : fields) {
 				// Skip static and final fields.
 				if (ff != null && !ff.matches(field)) {
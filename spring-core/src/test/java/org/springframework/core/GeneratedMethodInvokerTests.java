@@ -0,0 +1,93 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link GeneratedMethodInvoker}.
+ *
+ * @author Rossen Stoyanchev
+ */
+public class GeneratedMethodInvokerTests {
+
+	@Test
+	public void invoke() throws Exception {
+		Method method = PublicHandler.class.getMethod("handle", Integer.class, String.class);
+		GeneratedMethodInvoker invoker = GeneratedMethodInvoker.forMethod(method);
+		assertNotNull(invoker);
+		assertSame(invoker, GeneratedMethodInvoker.forMethod(method));
+		assertEquals("1-a", invoker.invoke(new PublicHandler(), new Object[] { 1, "a" }));
+	}
+
+	@Test
+	public void isInvokableWith() throws Exception {
+		Method method = PublicHandler.class.getMethod("handle", Integer.class, String.class);
+		GeneratedMethodInvoker invoker = GeneratedMethodInvoker.forMethod(method);
+		assertTrue(invoker.isInvokableWith(new Object[] { 1, "a" }));
+		assertTrue(invoker.isInvokableWith(new Object[] { null, null }));
+		assertFalse(invoker.isInvokableWith(new Object[] { "a", "a" }));
+		assertFalse(invoker.isInvokableWith(new Object[] { 1 }));
+	}
+
+	@Test
+	public void notInvokable() throws Exception {
+		assertNull(GeneratedMethodInvoker.forMethod(Handler.class.getMethod("handle")));
+		assertNull(GeneratedMethodInvoker.forMethod(PublicHandler.class.getDeclaredMethod("handleInternal")));
+		assertNull(GeneratedMethodInvoker.forMethod(Object.class.getMethod("toString")));
+	}
+
+	@Test
+	public void invocationTargetException() throws Exception {
+		Method method = PublicHandler.class.getMethod("raiseException");
+		try {
+			GeneratedMethodInvoker.forMethod(method).invoke(new PublicHandler(), new Object[0]);
+			fail("Expected exception");
+		}
+		catch (InvocationTargetException ex) {
+			assertEquals("error", ex.getTargetException().getMessage());
+		}
+	}
+
+
+	public static class PublicHandler {
+
+		public String handle(Integer intArg, String stringArg) {
+			return intArg + "-" + stringArg;
+		}
+
+		public void raiseException() throws Exception {
+			throw new Exception("error");
+		}
+
+		void handleInternal() {
+		}
+	}
+
+	@SuppressWarnings("unused")
+	private static class Handler {
+
+		public void handle() {
+		}
+	}
+
+}
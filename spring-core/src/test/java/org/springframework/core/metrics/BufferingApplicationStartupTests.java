@@ -0,0 +1,164 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.core.metrics.BufferingApplicationStartup.RecordedStep;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link BufferingApplicationStartup}.
+ *
+ * @author Juergen Hoeller
+ */
+public class BufferingApplicationStartupTests {
+
+	@Test
+	public void nestedSteps() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep outer = startup.start("outer").tag("key", "value");
+		StartupStep inner = startup.start("inner");
+		inner.end();
+		StartupStep sibling = startup.start("sibling");
+		sibling.end();
+		outer.end();
+		StartupStep next = startup.start("next");
+		next.end();
+
+		List<RecordedStep> steps = startup.getRecordedSteps();
+		assertEquals(4, steps.size());
+		assertEquals("outer", steps.get(0).getName());
+		assertNull(steps.get(0).getParentId());
+		assertEquals("value", steps.get(0).getTags().get("key"));
+		assertEquals("inner", steps.get(1).getName());
+		assertEquals(Long.valueOf(outer.getId()), steps.get(1).getParentId());
+		assertEquals("sibling", steps.get(2).getName());
+		assertEquals(Long.valueOf(outer.getId()), steps.get(2).getParentId());
+		assertEquals("next", steps.get(3).getName());
+		assertNull(steps.get(3).getParentId());
+		assertTrue(steps.get(0).getDuration() >= steps.get(1).getDuration() + steps.get(2).getDuration());
+		assertEquals(Thread.currentThread().getName(), steps.get(0).getThreadName());
+	}
+
+	@Test
+	public void stepEndedOnOtherThread() throws Exception {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		final StartupStep outer = startup.start("outer");
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				outer.end();
+			}
+		};
+		thread.start();
+		thread.join();
+		StartupStep next = startup.start("next");
+		assertNull(next.getParentId());
+		next.end();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void stepEndedTwice() {
+		StartupStep step = new BufferingApplicationStartup(10).start("step");
+		step.end();
+		step.end();
+	}
+
+	@Test
+	public void capacity() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(2);
+		for (int i = 0; i < 5; i++) {
+			startup.start("step" + i).end();
+		}
+		assertEquals(2, startup.getRecordedStepCount());
+		assertEquals(3, startup.getDroppedStepCount());
+		assertEquals("step0", startup.getRecordedSteps().get(0).getName());
+
+		startup.clear();
+		assertEquals(0, startup.getRecordedStepCount());
+		startup.start("step5").end();
+		assertEquals(1, startup.getRecordedStepCount());
+	}
+
+	@Test
+	public void allocationTracking() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep step = startup.start("allocating");
+		byte[][] data = new byte[100][];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = new byte[1024];
+		}
+		step.end();
+		long allocatedBytes = startup.getRecordedSteps().get(0).getAllocatedBytes();
+		if (startup.isAllocationTracking()) {
+			assertTrue(allocatedBytes >= 100 * 1024);
+		}
+		else {
+			assertEquals(-1, allocatedBytes);
+		}
+
+		startup.setAllocationTracking(false);
+		startup.start("untracked").end();
+		assertEquals(-1, startup.getRecordedSteps().get(1).getAllocatedBytes());
+	}
+
+	@Test
+	public void slowestSteps() throws Exception {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		startup.start("fast").end();
+		StartupStep slow = startup.start("slow");
+		Thread.sleep(10);
+		slow.end();
+
+		String[] slowest = startup.getSlowestSteps(5);
+		assertEquals(2, slowest.length);
+		assertTrue(slowest[0].startsWith("slow took "));
+		assertEquals(1, startup.getSlowestSteps(1).length);
+	}
+
+	@Test
+	public void exportToCsv() throws Exception {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep outer = startup.start("outer").tag("beanName", "a,b").tag("beanType", "x.Y");
+		startup.start("inner").end();
+		outer.end();
+
+		StringWriter writer = new StringWriter();
+		startup.exportTo(writer);
+		String[] lines = writer.toString().split("\n");
+		assertEquals(3, lines.length);
+		assertEquals("id,parentId,name,thread,startMillis,durationMillis,allocatedBytes,tags", lines[0]);
+		assertTrue(lines[1], lines[1].startsWith(outer.getId() + ",,outer,"));
+		assertTrue(lines[1], lines[1].endsWith(",\"beanName=a,b;beanType=x.Y\""));
+		assertTrue(lines[2], lines[2].startsWith((outer.getId() + 1) + "," + outer.getId() + ",inner,"));
+		assertTrue(lines[2], lines[2].endsWith(","));
+	}
+
+	@Test
+	public void defaultStartupRecordsNothing() {
+		StartupStep step = ApplicationStartup.DEFAULT.start("step").tag("key", "value");
+		assertTrue(step.getTags().isEmpty());
+		step.end();
+		assertSame(step, ApplicationStartup.DEFAULT.start("other"));
+	}
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.FileCopyUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link CachingMetadataReaderFactory}.
+ *
+ * @author Juergen Hoeller
+ */
+public class CachingMetadataReaderFactoryTests {
+
+	private static final Class<?>[] CLASSES = new Class<?>[] {
+		String.class, Integer.class, Long.class, List.class, ArrayList.class,
+		CachingMetadataReaderFactory.class, MetadataReaderCache.class, SimpleMetadataReaderFactory.class
+	};
+
+
+	@Test
+	public void cachedPerResource() throws Exception {
+		CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory();
+		MetadataReader reader = factory.getMetadataReader(String.class.getName());
+		assertSame(reader, factory.getMetadataReader(String.class.getName()));
+		assertEquals(String.class.getName(), reader.getClassMetadata().getClassName());
+
+		MetadataReaderCache cache = factory.getMetadataReaderCache();
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		factory.clearCache();
+		assertEquals(0, cache.size());
+		assertNotSame(reader, factory.getMetadataReader(String.class.getName()));
+	}
+
+	@Test
+	public void cacheLimit() throws Exception {
+		CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory();
+		factory.setCacheLimit(1);
+		for (Class<?> clazz : CLASSES) {
+			factory.getMetadataReader(clazz.getName());
+		}
+		assertTrue(factory.getMetadataReaderCache().size() <= 16);
+		assertTrue(factory.getMetadataReaderCache().size() > 0);
+	}
+
+	@Test
+	public void cacheDisabled() throws Exception {
+		CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory();
+		factory.setCacheLimit(0);
+		MetadataReader reader = factory.getMetadataReader(String.class.getName());
+		assertNotSame(reader, factory.getMetadataReader(String.class.getName()));
+		assertEquals(0, factory.getMetadataReaderCache().size());
+	}
+
+	@Test
+	public void sharedCache() throws Exception {
+		MetadataReaderCache cache = new MetadataReaderCache();
+		ClassLoader classLoader = getClass().getClassLoader();
+		CachingMetadataReaderFactory factory1 = new CachingMetadataReaderFactory(new DefaultResourceLoader(classLoader));
+		factory1.setMetadataReaderCache(cache);
+		CachingMetadataReaderFactory factory2 = new CachingMetadataReaderFactory(new DefaultResourceLoader(classLoader));
+		factory2.setMetadataReaderCache(cache);
+
+		MetadataReader reader = factory1.getMetadataReader(String.class.getName());
+		assertSame(reader, factory2.getMetadataReader(String.class.getName()));
+		assertEquals(1, cache.getHitCount());
+
+		factory1.clearCache();
+		assertSame(reader, factory2.getMetadataReader(String.class.getName()));
+	}
+
+	@Test
+	public void sharedCacheWithDifferentClassLoaders() throws Exception {
+		MetadataReaderCache cache = new MetadataReaderCache();
+		CachingMetadataReaderFactory factory1 = new CachingMetadataReaderFactory(getClass().getClassLoader());
+		factory1.setMetadataReaderCache(cache);
+		CachingMetadataReaderFactory factory2 = new CachingMetadataReaderFactory(new ClassLoader(getClass().getClassLoader()) {});
+		factory2.setMetadataReaderCache(cache);
+
+		MetadataReader reader = factory1.getMetadataReader(String.class.getName());
+		assertNotSame(reader, factory2.getMetadataReader(String.class.getName()));
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void sharedCacheWithResourceWithoutUrl() throws Exception {
+		MetadataReaderCache cache = new MetadataReaderCache();
+		CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory();
+		factory.setMetadataReaderCache(cache);
+		Resource resource = new ByteArrayResource(readClassFile(String.class));
+		MetadataReader reader = factory.getMetadataReader(resource);
+		assertEquals(String.class.getName(), reader.getClassMetadata().getClassName());
+		assertNotSame(reader, factory.getMetadataReader(resource));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void concurrentLookups() throws Exception {
+		final CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<MetadataReader>> futures = new ArrayList<Future<MetadataReader>>();
+			for (int i = 0; i < 400; i++) {
+				final Class<?> clazz = CLASSES[i % CLASSES.length];
+				futures.add(executor.submit(new Callable<MetadataReader>() {
+					@Override
+					public MetadataReader call() throws Exception {
+						return factory.getMetadataReader(clazz.getName());
+					}
+				}));
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				MetadataReader reader = futures.get(i).get();
+				assertEquals(CLASSES[i % CLASSES.length].getName(), reader.getClassMetadata().getClassName());
+				assertSame(reader, factory.getMetadataReader(reader.getClassMetadata().getClassName()));
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+		MetadataReaderCache cache = factory.getMetadataReaderCache();
+		assertEquals(CLASSES.length, cache.size());
+		assertEquals(800, cache.getHitCount() + cache.getMissCount());
+	}
+
+
+	private static byte[] readClassFile(Class<?> clazz) throws Exception {
+		return FileCopyUtils.copyToByteArray(
+				clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class"));
+	}
+
+}
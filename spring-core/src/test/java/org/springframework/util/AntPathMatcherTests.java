@@ -27,6 +27,9 @@ import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
 
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+
 /**
  * @author Alef Arendsen
  * @author Seth Ladd
@@ -553,4 +556,112 @@ public class AntPathMatcherTests {
 		assertTrue(pathMatcher.match("/group/{groupName}/members", "/group/  sales/members"));
 	}
 
+	@Test
+	public void trimTokensChangedAfterMatch() {
+		assertTrue(pathMatcher.match("/group/ {groupName}/members", "/group/sales/members"));
+		pathMatcher.setTrimTokens(false);
+		assertFalse(pathMatcher.match("/group/ {groupName}/members", "/group/sales/members"));
+	}
+
+	@Test
+	public void trimTokensLikeStringTrim() {
+		assertTrue(pathMatcher.match("/files/a", "/files/a\u0001"));
+		assertFalse(pathMatcher.match("/files/a", "/files/a\u2003"));
+		assertEquals("a\u2003", pathMatcher.extractUriTemplateVariables("/files/{name}", "/files/a\u2003").get("name"));
+	}
+
+	@Test
+	public void wildcardsDoNotMatchLineTerminators() {
+		for (String path : new String[] { "/a\nb", "/a\rb", "/a\u0085b", "/a\u2028b", "/a\u2029b" }) {
+			assertFalse(pathMatcher.match("/*", path));
+			assertFalse(pathMatcher.match("/{x}", path));
+			assertFalse(pathMatcher.match("/a*", path));
+			assertFalse(pathMatcher.matchStart("/*/c", path + "/c"));
+			try {
+				pathMatcher.extractUriTemplateVariables("/{x}", path);
+				fail("Expected IllegalStateException");
+			}
+			catch (IllegalStateException ex) {
+				// expected
+			}
+		}
+		assertTrue(pathMatcher.match("/*", "/a\tb"));
+		assertEquals("a\tb", pathMatcher.extractUriTemplateVariables("/{x}", "/a\tb").get("x"));
+	}
+
+	@Test
+	public void pathSeparatorChangedAfterMatch() {
+		assertTrue(pathMatcher.match("*", "a.b"));
+		pathMatcher.setPathSeparator(".");
+		assertFalse(pathMatcher.match("*", "a.b"));
+		assertTrue(pathMatcher.match("*.*", "a.b"));
+	}
+
+	@Test
+	public void extractUriTemplateVariablesFromMixedSegments() {
+		Map<String, String> result = pathMatcher.extractUriTemplateVariables(
+				"/{type}/**/{name:[a-z]+}-{version}.jar", "/lib/x/y/spring-4.0.jar");
+		assertEquals(3, result.size());
+		assertEquals("lib", result.get("type"));
+		assertEquals("spring", result.get("name"));
+		assertEquals("4.0", result.get("version"));
+	}
+
+	@Test
+	public void defaultCacheSetting() {
+		match();
+		assertTrue(pathMatcher.patternCache.size() > 20);
+
+		for (int i = 0; i < 65536; i++) {
+			pathMatcher.match("test" + i, "test");
+		}
+		// Cache turned off because it went beyond the threshold
+		assertTrue(pathMatcher.patternCache.isEmpty());
+		assertTrue(pathMatcher.match("/test/{id}", "/test/1"));
+		assertTrue(pathMatcher.patternCache.isEmpty());
+	}
+
+	@Test
+	public void cachePatternsSetToTrue() {
+		pathMatcher.setCachePatterns(true);
+		match();
+		assertTrue(pathMatcher.patternCache.size() > 20);
+
+		for (int i = 0; i < 65536; i++) {
+			pathMatcher.match("test" + i, "test" + i);
+		}
+		// Cache keeps being alive due to the explicit cache setting
+		assertTrue(pathMatcher.patternCache.size() > 65536);
+	}
+
+	@Test
+	public void cachePatternsSetToFalse() {
+		pathMatcher.setCachePatterns(false);
+		match();
+		assertTrue(pathMatcher.patternCache.isEmpty());
+	}
+
+	@Test
+	public void matchPerformance() {
+		Assume.group(TestGroup.PERFORMANCE);
+		String[] patterns = new String[] {"/hotels/{hotel}/bookings/{booking}", "/hotels/*/rooms/*.html",
+				"/static/**/*.css", "/api/v{version:\\d+}/customers/{id}", "/admin/users"};
+		String[] paths = new String[] {"/hotels/1/bookings/2", "/hotels/1/rooms/2.html",
+				"/static/css/site/main.css", "/api/v2/customers/42", "/admin/users/42"};
+		StopWatch sw = new StopWatch();
+		sw.start("match");
+		int matches = 0;
+		for (int i = 0; i < 200000; i++) {
+			for (String pattern : patterns) {
+				if (pathMatcher.match(pattern, paths[i % paths.length])) {
+					matches++;
+				}
+			}
+		}
+		sw.stop();
+		// System.out.println(sw.prettyPrint());
+		assertEquals(160000, matches);
+		assertTrue("Matching took " + sw.getTotalTimeMillis() + "ms", sw.getTotalTimeMillis() < 5000);
+	}
+
 }
@@ -242,6 +242,35 @@ public class ReflectionUtilsTests {
 		assertNotNull(ReflectionUtils.findMethod(B.class, "getClass"));
 	}
 
+	@Test
+	public void declaredMethodsAndFieldsCached() throws Exception {
+		Method method = ReflectionUtils.findMethod(B.class, "bar", String.class);
+		assertSame(method, ReflectionUtils.findMethod(B.class, "bar", String.class));
+		Field field = findDeclaredField(TestObjectSubclassWithNewField.class, "magic");
+		assertSame(field, findDeclaredField(TestObjectSubclassWithNewField.class, "magic"));
+
+		ReflectionUtils.clearCache();
+		Method refreshedMethod = ReflectionUtils.findMethod(B.class, "bar", String.class);
+		assertNotSame(method, refreshedMethod);
+		assertEquals(method, refreshedMethod);
+		Field refreshedField = findDeclaredField(TestObjectSubclassWithNewField.class, "magic");
+		assertNotSame(field, refreshedField);
+		assertEquals(field, refreshedField);
+	}
+
+	private Field findDeclaredField(Class<?> clazz, final String name) {
+		final List<Field> fields = new LinkedList<Field>();
+		ReflectionUtils.doWithFields(clazz, new ReflectionUtils.FieldCallback() {
+			@Override
+			public void doWith(Field field) {
+				if (field.getName().equals(name)) {
+					fields.add(field);
+				}
+			}
+		});
+		return fields.get(0);
+	}
+
 	@Ignore("[SPR-8644] findMethod() does not currently support var-args")
 	@Test
 	public void findMethodWithVarArgs() throws Exception {
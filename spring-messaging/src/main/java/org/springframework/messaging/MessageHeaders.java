@@ -101,6 +101,30 @@ public final class MessageHeaders implements Map<String, Object>, Serializable {
 		this.headers.put(TIMESTAMP, new Long(System.currentTimeMillis()));
 	}
 
+	/**
+	 * Configure the strategy to use to generate message ids. This applies to all
+	 * messages created from then on in the same class loader.
+	 * <p>By default this is not set and {@link UUID#randomUUID()} is used, which
+	 * relies on {@link java.security.SecureRandom} and may become a point of contention
+	 * at high message rates. See
+	 * {@link org.springframework.messaging.support.AlternativeJdkIdGenerator} and
+	 * {@link org.springframework.messaging.support.CounterIdGenerator} for alternatives.
+	 * @param idGenerator the id generator to use, or {@code null} to use the default
+	 * @see org.springframework.messaging.support.IdGeneratorConfigurer
+	 */
+	public static void setIdGenerator(IdGenerator idGenerator) {
+		MessageHeaders.idGenerator = idGenerator;
+	}
+
+	/**
+	 * Return the configured strategy to generate message ids, or {@code null} if
+	 * {@link UUID#randomUUID()} is used.
+	 */
+	public static IdGenerator getIdGenerator() {
+		return MessageHeaders.idGenerator;
+	}
+
+
 	public UUID getId() {
 		return this.get(ID, UUID.class);
 	}
@@ -240,7 +264,15 @@ public final class MessageHeaders implements Map<String, Object>, Serializable {
 		in.defaultReadObject();
 	}
 
+	/**
+	 * Strategy to generate message ids.
+	 */
 	public static interface IdGenerator {
+
+		/**
+		 * Generate a new message id.
+		 */
 		UUID generateId();
 	}
+
 }
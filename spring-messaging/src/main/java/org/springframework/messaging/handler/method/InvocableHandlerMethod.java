@@ -20,6 +20,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 
+import org.springframework.core.GeneratedMethodInvoker;
 import org.springframework.core.GenericTypeResolver;
 import org.springframework.core.LocalVariableTableParameterNameDiscoverer;
 import org.springframework.core.MethodParameter;
@@ -43,6 +44,8 @@ public class InvocableHandlerMethod extends HandlerMethod {
 
 	private ParameterNameDiscoverer parameterNameDiscoverer = new LocalVariableTableParameterNameDiscoverer();
 
+	private boolean useGeneratedInvoker = false;
+
 
 	/**
 	 * Create an instance from a {@code HandlerMethod}.
@@ -93,6 +96,20 @@ public class InvocableHandlerMethod extends HandlerMethod {
 		this.parameterNameDiscoverer = parameterNameDiscoverer;
 	}
 
+	/**
+	 * Whether to invoke the handler method through a generated class rather than
+	 * through reflection, with the argument resolvers for its parameters looked up
+	 * once per method rather than for every invocation.
+	 * <p>The generated class calls the method directly, which is only possible for
+	 * public methods of public classes; any other method is still invoked reflectively.
+	 * Note that the resolvers contained in the {@link HandlerMethodArgumentResolverComposite}
+	 * get called directly in this case, bypassing the composite's own {@code resolveArgument}.
+	 * <p>Default is "false".
+	 */
+	public void setUseGeneratedInvoker(boolean useGeneratedInvoker) {
+		this.useGeneratedInvoker = useGeneratedInvoker;
+	}
+
 	/**
 	 * TODO
 	 *
@@ -124,6 +141,10 @@ public class InvocableHandlerMethod extends HandlerMethod {
 	 */
 	private Object[] getMethodArgumentValues(Message<?> message, Object... providedArgs) throws Exception {
 
+		if (this.useGeneratedInvoker) {
+			return getPreResolvedMethodArgumentValues(message, providedArgs);
+		}
+
 		MethodParameter[] parameters = getMethodParameters();
 		Object[] args = new Object[parameters.length];
 		for (int i = 0; i < parameters.length; i++) {
@@ -156,6 +177,47 @@ public class InvocableHandlerMethod extends HandlerMethod {
 		return args;
 	}
 
+	/**
+	 * Get the method argument values for the current message, using the argument
+	 * resolvers looked up once for the method.
+	 */
+	private Object[] getPreResolvedMethodArgumentValues(Message<?> message, Object... providedArgs)
+			throws Exception {
+
+		MethodParameter[] parameters = getMethodParameters();
+		Class<?> beanClass = getBean().getClass();
+		for (MethodParameter parameter : parameters) {
+			parameter.initParameterNameDiscovery(this.parameterNameDiscoverer);
+			GenericTypeResolver.resolveParameterType(parameter, beanClass);
+		}
+
+		HandlerMethodArgumentResolver[] resolvers =
+				this.argumentResolvers.getArgumentResolvers(getBridgedMethod(), parameters);
+		Object[] args = new Object[parameters.length];
+		for (int i = 0; i < parameters.length; i++) {
+			if (providedArgs != null && providedArgs.length > 0) {
+				args[i] = resolveProvidedArgument(parameters[i], providedArgs);
+				if (args[i] != null) {
+					continue;
+				}
+			}
+			if (resolvers[i] == null) {
+				String msg = getArgumentResolutionErrorMessage("No suitable resolver for argument", i);
+				throw new IllegalStateException(msg);
+			}
+			try {
+				args[i] = resolvers[i].resolveArgument(parameters[i], message);
+			}
+			catch (Exception ex) {
+				if (logger.isTraceEnabled()) {
+					logger.trace(getArgumentResolutionErrorMessage("Error resolving argument", i), ex);
+				}
+				throw ex;
+			}
+		}
+		return args;
+	}
+
 	private String getArgumentResolutionErrorMessage(String message, int index) {
 		MethodParameter param = getMethodParameters()[index];
 		message += " [" + index + "] [type=" + param.getParameterType().getName() + "]";
@@ -193,8 +255,14 @@ public class InvocableHandlerMethod extends HandlerMethod {
 	 * Invoke the handler method with the given argument values.
 	 */
 	private Object invoke(Object... args) throws Exception {
-		ReflectionUtils.makeAccessible(this.getBridgedMethod());
 		try {
+			if (this.useGeneratedInvoker) {
+				GeneratedMethodInvoker invoker = GeneratedMethodInvoker.forMethod(getBridgedMethod());
+				if (invoker != null && invoker.isInvokableWith(args)) {
+					return invoker.invoke(getBean(), args);
+				}
+			}
+			ReflectionUtils.makeAccessible(this.getBridgedMethod());
 			return getBridgedMethod().invoke(getBean(), args);
 		}
 		catch (IllegalArgumentException e) {
@@ -17,6 +17,7 @@
 package org.springframework.messaging.handler.websocket;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -28,12 +29,18 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.support.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.support.ConcurrentWebSocketSessionDecorator.OverflowPolicy;
 
 
 /**
@@ -60,6 +67,14 @@ public class SubProtocolWebSocketHandler implements WebSocketHandler, MessageHan
 
 	private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<String, WebSocketSession>();
 
+	private int sendTimeLimit = 10 * 1000;
+
+	private int sendBufferSizeLimit = 512 * 1024;
+
+	private int sendBufferMessageLimit = -1;
+
+	private OverflowPolicy sendBufferOverflowPolicy = OverflowPolicy.CLOSE;
+
 
 	/**
 	 * @param outputChannel
@@ -124,12 +139,97 @@ public class SubProtocolWebSocketHandler implements WebSocketHandler, MessageHan
 	}
 
 
+	/**
+	 * Configure the maximum amount of time in milliseconds a single send to a client
+	 * may take before the session is closed. Messages sent to the client in the mean
+	 * time are buffered rather than blocking the sending thread.
+	 * <p>By default this is set to 10 seconds.
+	 * @see ConcurrentWebSocketSessionDecorator
+	 */
+	public void setSendTimeLimit(int sendTimeLimit) {
+		this.sendTimeLimit = sendTimeLimit;
+	}
+
+	/**
+	 * @return the send time limit in milliseconds
+	 */
+	public int getSendTimeLimit() {
+		return this.sendTimeLimit;
+	}
+
+	/**
+	 * Configure the maximum amount of data to buffer for a client while a send to
+	 * it is in progress.
+	 * <p>By default this is set to 512K.
+	 * @see #setSendBufferOverflowPolicy(OverflowPolicy)
+	 */
+	public void setSendBufferSizeLimit(int sendBufferSizeLimit) {
+		this.sendBufferSizeLimit = sendBufferSizeLimit;
+	}
+
+	/**
+	 * @return the buffer size limit
+	 */
+	public int getSendBufferSizeLimit() {
+		return this.sendBufferSizeLimit;
+	}
+
+	/**
+	 * Configure the maximum number of messages to buffer for a client while a send
+	 * to it is in progress. By default this is not set.
+	 * @see #setSendBufferOverflowPolicy(OverflowPolicy)
+	 */
+	public void setSendBufferMessageLimit(int sendBufferMessageLimit) {
+		this.sendBufferMessageLimit = sendBufferMessageLimit;
+	}
+
+	/**
+	 * @return the buffered message count limit
+	 */
+	public int getSendBufferMessageLimit() {
+		return this.sendBufferMessageLimit;
+	}
+
+	/**
+	 * Configure what to do when the buffer of a client exceeds its limits.
+	 * <p>By default this is set to {@link OverflowPolicy#CLOSE}.
+	 */
+	public void setSendBufferOverflowPolicy(OverflowPolicy sendBufferOverflowPolicy) {
+		Assert.notNull(sendBufferOverflowPolicy, "sendBufferOverflowPolicy is required");
+		this.sendBufferOverflowPolicy = sendBufferOverflowPolicy;
+	}
+
+	/**
+	 * @return the policy to apply when a buffer limit is exceeded
+	 */
+	public OverflowPolicy getSendBufferOverflowPolicy() {
+		return this.sendBufferOverflowPolicy;
+	}
+
+
 	@Override
 	public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+		session = decorateSession(session);
 		this.sessions.put(session.getId(), session);
 		getProtocolHandler(session).afterSessionStarted(session, this.outputChannel);
 	}
 
+	/**
+	 * Decorate the session so that sends to a slow client do not block other threads.
+	 */
+	protected WebSocketSession decorateSession(WebSocketSession session) {
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, this.sendTimeLimit, this.sendBufferSizeLimit);
+		decorator.setMessageCountLimit(this.sendBufferMessageLimit);
+		decorator.setOverflowPolicy(this.sendBufferOverflowPolicy);
+		return decorator;
+	}
+
+	private WebSocketSession getDecoratedSession(WebSocketSession session) {
+		WebSocketSession decorated = this.sessions.get(session.getId());
+		return (decorated != null) ? decorated : session;
+	}
+
 	protected final SubProtocolHandler getProtocolHandler(WebSocketSession session) {
 		SubProtocolHandler handler;
 		String protocol = session.getAcceptedProtocol();
@@ -148,12 +248,21 @@ public class SubProtocolWebSocketHandler implements WebSocketHandler, MessageHan
 
 	@Override
 	public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+		session = getDecoratedSession(session);
 		getProtocolHandler(session).handleMessageFromClient(session, message, this.outputChannel);
 	}
 
 	@Override
 	public void handleMessage(Message<?> message) throws MessagingException {
 
+		@SuppressWarnings("unchecked")
+		MultiValueMap<String, String> sessionSubscriptions = (MultiValueMap<String, String>)
+				MessageHeaderAccessor.getHeader(message, SimpMessageHeaderAccessor.SESSION_SUBSCRIPTIONS_HEADER);
+		if (sessionSubscriptions != null) {
+			handleBatchMessage(message, sessionSubscriptions);
+			return;
+		}
+
 		String sessionId = resolveSessionId(message);
 		if (sessionId == null) {
 			logger.error("sessionId not found in message " + message);
@@ -174,6 +283,37 @@ public class SubProtocolWebSocketHandler implements WebSocketHandler, MessageHan
 		}
 	}
 
+	/**
+	 * Deliver a message published to a batch of sessions, creating for each
+	 * subscription a copy that shares the payload and the {@code MessageHeaders}
+	 * instance of the message, with the session and subscription id on top.
+	 * @see org.springframework.messaging.simp.handler.SimpleBrokerMessageHandler#setFanOutBatchSize
+	 */
+	private void handleBatchMessage(Message<?> message, MultiValueMap<String, String> sessionSubscriptions) {
+		for (Map.Entry<String, List<String>> entry : sessionSubscriptions.entrySet()) {
+			String sessionId = entry.getKey();
+			WebSocketSession session = this.sessions.get(sessionId);
+			if (session == null) {
+				logger.error("Session not found for session with id " + sessionId);
+				continue;
+			}
+			SubProtocolHandler handler = getProtocolHandler(session);
+			for (String subscriptionId : entry.getValue()) {
+				Map<String, Object> headers = new HashMap<String, Object>(4);
+				headers.put(SimpMessageHeaderAccessor.SESSION_SUBSCRIPTIONS_HEADER, null);
+				headers.put(SimpMessageHeaderAccessor.SESSION_ID_HEADER, sessionId);
+				headers.put(SimpMessageHeaderAccessor.SUBSCRIPTION_ID_HEADER, subscriptionId);
+				Message<?> sessionMessage = MessageBuilder.copyWithHeaders(message, headers);
+				try {
+					handler.handleMessageToClient(session, sessionMessage);
+				}
+				catch (Exception e) {
+					logger.error("Failed to send message to client " + sessionMessage, e);
+				}
+			}
+		}
+	}
+
 	private String resolveSessionId(Message<?> message) {
 		for (SubProtocolHandler handler : this.protocolHandlers.values()) {
 			String sessionId = handler.resolveSessionId(message);
@@ -196,7 +336,8 @@ public class SubProtocolWebSocketHandler implements WebSocketHandler, MessageHan
 
 	@Override
 	public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
-		this.sessions.remove(session.getId());
+		WebSocketSession decorated = this.sessions.remove(session.getId());
+		session = (decorated != null) ? decorated : session;
 		getProtocolHandler(session).afterSessionEnded(session, closeStatus, this.outputChannel);
 	}
 
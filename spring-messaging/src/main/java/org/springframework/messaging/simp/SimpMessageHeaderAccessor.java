@@ -25,6 +25,7 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.support.NativeMessageHeaderAccessor;
 import org.springframework.util.Assert;
+import org.springframework.util.MultiValueMap;
 
 
 /**
@@ -49,6 +50,8 @@ public class SimpMessageHeaderAccessor extends NativeMessageHeaderAccessor {
 
 	public static final String SUBSCRIPTION_ID_HEADER = "subscriptionId";
 
+	public static final String SESSION_SUBSCRIPTIONS_HEADER = "sessionSubscriptions";
+
 	public static final String USER_HEADER = "user";
 
 
@@ -137,6 +140,19 @@ public class SimpMessageHeaderAccessor extends NativeMessageHeaderAccessor {
 		setHeader(SESSION_ID_HEADER, sessionId);
 	}
 
+	/**
+	 * Return the subscription ids by session id for a message that is to be
+	 * delivered to a batch of sessions rather than to a single session.
+	 */
+	@SuppressWarnings("unchecked")
+	public MultiValueMap<String, String> getSessionSubscriptions() {
+		return (MultiValueMap<String, String>) getHeader(SESSION_SUBSCRIPTIONS_HEADER);
+	}
+
+	public void setSessionSubscriptions(MultiValueMap<String, String> sessionSubscriptions) {
+		setHeader(SESSION_SUBSCRIPTIONS_HEADER, sessionSubscriptions);
+	}
+
 	public Principal getUser() {
 		return (Principal) getHeader(USER_HEADER);
 	}
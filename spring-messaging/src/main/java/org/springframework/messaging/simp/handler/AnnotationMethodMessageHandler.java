@@ -96,6 +96,8 @@ public class AnnotationMethodMessageHandler implements MessageHandler, Applicati
 
 	private HandlerMethodReturnValueHandlerComposite returnValueHandlers = new HandlerMethodReturnValueHandlerComposite();
 
+	private boolean useGeneratedInvokers = false;
+
 
 	/**
 	 * @param dispatchMessagingTemplate a messaging template to dispatch messages to for
@@ -134,6 +136,15 @@ public class AnnotationMethodMessageHandler implements MessageHandler, Applicati
 		return this.messageConverter;
 	}
 
+	/**
+	 * Whether to invoke message handling and exception handling methods through
+	 * generated classes rather than through reflection. Default is "false".
+	 * @see InvocableHandlerMethod#setUseGeneratedInvoker
+	 */
+	public void setUseGeneratedInvokers(boolean useGeneratedInvokers) {
+		this.useGeneratedInvokers = useGeneratedInvokers;
+	}
+
 	@Override
 	public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
 		this.applicationContext = applicationContext;
@@ -251,6 +262,7 @@ public class AnnotationMethodMessageHandler implements MessageHandler, Applicati
 
 		InvocableHandlerMethod invocableHandlerMethod = new InvocableHandlerMethod(handlerMethod);
 		invocableHandlerMethod.setMessageMethodArgumentResolvers(this.argumentResolvers);
+		invocableHandlerMethod.setUseGeneratedInvoker(this.useGeneratedInvokers);
 
 		try {
 			Object returnValue = invocableHandlerMethod.invoke(message);
@@ -300,6 +312,7 @@ public class AnnotationMethodMessageHandler implements MessageHandler, Applicati
 
 		exceptionHandlerMethod = new InvocableHandlerMethod(handlerMethod.getBean(), method);
 		exceptionHandlerMethod.setMessageMethodArgumentResolvers(this.argumentResolvers);
+		exceptionHandlerMethod.setUseGeneratedInvoker(this.useGeneratedInvokers);
 
 		try {
 			Object returnValue = exceptionHandlerMethod.invoke(message, ex);
@@ -16,7 +16,9 @@
 
 package org.springframework.messaging.simp.handler;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -29,6 +31,7 @@ import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
 
@@ -46,6 +49,10 @@ public class SimpleBrokerMessageHandler implements MessageHandler {
 
 	private SubscriptionRegistry subscriptionRegistry = new DefaultSubscriptionRegistry();
 
+	private boolean shareMessageHeaders = false;
+
+	private int fanOutBatchSize = 0;
+
 
 	/**
 	 * @param messageChannel the channel to broadcast messages to
@@ -73,6 +80,45 @@ public class SimpleBrokerMessageHandler implements MessageHandler {
 		return this.subscriptionRegistry;
 	}
 
+	/**
+	 * Whether the message sent to each subscriber should share the payload and the
+	 * {@link org.springframework.messaging.MessageHeaders MessageHeaders} instance of
+	 * the published message, including its id, with only the session and subscription
+	 * id added on top. This avoids copying the headers and generating a new id for
+	 * every subscriber. The session and subscription id are then not part of
+	 * {@code getHeaders()} and must be read through a {@link SimpMessageHeaderAccessor}.
+	 * <p>By default this is set to "false" in which case every message sent to a
+	 * subscriber is created through a {@link SimpMessageHeaderAccessor}.
+	 * @see MessageBuilder#copyWithHeaders(Message, java.util.Map)
+	 */
+	public void setShareMessageHeaders(boolean shareMessageHeaders) {
+		this.shareMessageHeaders = shareMessageHeaders;
+	}
+
+	public boolean isShareMessageHeaders() {
+		return this.shareMessageHeaders;
+	}
+
+	/**
+	 * Configure the maximum number of sessions to deliver to with a single message
+	 * sent to the message channel. Instead of a session id such a message has a
+	 * {@link SimpMessageHeaderAccessor#SESSION_SUBSCRIPTIONS_HEADER session subscriptions}
+	 * header, and it must be consumed by a handler that supports it such as the
+	 * {@link org.springframework.messaging.handler.websocket.SubProtocolWebSocketHandler}.
+	 * Messages for a batch of sessions always share the headers of the published message,
+	 * as described for {@link #setShareMessageHeaders}.
+	 * <p>By default this is set to 0, in which case one message is sent to the message
+	 * channel for each subscription.
+	 */
+	public void setFanOutBatchSize(int fanOutBatchSize) {
+		Assert.isTrue(fanOutBatchSize >= 0, "fanOutBatchSize must be >= 0");
+		this.fanOutBatchSize = fanOutBatchSize;
+	}
+
+	public int getFanOutBatchSize() {
+		return this.fanOutBatchSize;
+	}
+
 	@Override
 	public void handleMessage(Message<?> message) throws MessagingException {
 
@@ -123,15 +169,13 @@ public class SimpleBrokerMessageHandler implements MessageHandler {
 
 	protected void sendMessageToSubscribers(String destination, Message<?> message) {
 		MultiValueMap<String,String> subscriptions = this.subscriptionRegistry.findSubscriptions(message);
+		if (this.fanOutBatchSize > 0) {
+			sendMessageToSubscribersInBatches(destination, message, subscriptions);
+			return;
+		}
 		for (String sessionId : subscriptions.keySet()) {
 			for (String subscriptionId : subscriptions.get(sessionId)) {
-
-				SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(message);
-				headers.setSessionId(sessionId);
-				headers.setSubscriptionId(subscriptionId);
-
-				Object payload = message.getPayload();
-				Message<?> clientMessage = MessageBuilder.withPayloadAndHeaders(payload, headers).build();
+				Message<?> clientMessage = createSubscriberMessage(message, sessionId, subscriptionId);
 				try {
 					this.messageChannel.send(clientMessage);
 				}
@@ -142,4 +186,47 @@ public class SimpleBrokerMessageHandler implements MessageHandler {
 			}
 		}
 	}
+
+	private Message<?> createSubscriberMessage(Message<?> message, String sessionId, String subscriptionId) {
+		if (this.shareMessageHeaders) {
+			Map<String, Object> headers = new HashMap<String, Object>(4);
+			headers.put(SimpMessageHeaderAccessor.SESSION_ID_HEADER, sessionId);
+			headers.put(SimpMessageHeaderAccessor.SUBSCRIPTION_ID_HEADER, subscriptionId);
+			return MessageBuilder.copyWithHeaders(message, headers);
+		}
+		SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(message);
+		headers.setSessionId(sessionId);
+		headers.setSubscriptionId(subscriptionId);
+		Object payload = message.getPayload();
+		return MessageBuilder.withPayloadAndHeaders(payload, headers).build();
+	}
+
+	private void sendMessageToSubscribersInBatches(String destination, Message<?> message,
+			MultiValueMap<String, String> subscriptions) {
+
+		MultiValueMap<String, String> batch = new LinkedMultiValueMap<String, String>(this.fanOutBatchSize);
+		for (Map.Entry<String, List<String>> entry : subscriptions.entrySet()) {
+			batch.put(entry.getKey(), entry.getValue());
+			if (batch.size() == this.fanOutBatchSize) {
+				sendBatch(destination, message, batch);
+				batch = new LinkedMultiValueMap<String, String>(this.fanOutBatchSize);
+			}
+		}
+		if (!batch.isEmpty()) {
+			sendBatch(destination, message, batch);
+		}
+	}
+
+	private void sendBatch(String destination, Message<?> message, MultiValueMap<String, String> batch) {
+		Map<String, Object> headers = new HashMap<String, Object>(4);
+		headers.put(SimpMessageHeaderAccessor.SESSION_SUBSCRIPTIONS_HEADER, batch);
+		Message<?> batchMessage = MessageBuilder.copyWithHeaders(message, headers);
+		try {
+			this.messageChannel.send(batchMessage);
+		}
+		catch (Throwable ex) {
+			logger.error("Failed to send message to destination=" + destination +
+					", sessionIds=" + batch.keySet(), ex);
+		}
+	}
 }
@@ -0,0 +1,449 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.handler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.messaging.Message;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.Assert;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+
+/**
+ * A {@link SubscriptionRegistry} that indexes destination patterns in a trie of
+ * destination segments so that looking up the subscriptions for a destination
+ * depends on the depth of the destination rather than on the number of sessions
+ * and subscriptions.
+ *
+ * <p>Each pattern is split on the path separator. Literal segments are indexed by
+ * value, the {@code "**"} segment matches zero or more segments, and any other
+ * segment containing wildcards or URI template variables is treated as matching a
+ * single segment. The candidate patterns found in the trie are then confirmed with
+ * {@link AntPathMatcher#match(String, String)}, so matching semantics are the same
+ * as with {@link DefaultSubscriptionRegistry}. The path separator used for the trie
+ * must therefore be the same as the one used by the configured path matcher.
+ *
+ * <p>Subscriptions to non-pattern destinations are looked up directly. The patterns
+ * matching a destination are kept in a bounded cache, which is invalidated only
+ * for the affected destinations when a pattern is first subscribed to or when its
+ * last subscription is removed.
+ *
+ * @author Rossen Stoyanchev
+ * @since 4.0
+ */
+public class TrieSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+	/** Default maximum number of entries for the resolved destination cache: 1024 */
+	public static final int DEFAULT_CACHE_LIMIT = 1024;
+
+
+	private AntPathMatcher pathMatcher = new AntPathMatcher();
+
+	private String pathSeparator = AntPathMatcher.DEFAULT_PATH_SEPARATOR;
+
+	private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
+
+	// destination (pattern or not) -> subscriptions
+	private final ConcurrentMap<String, DestinationSubscriptions> subscriptionsByDestination =
+			new ConcurrentHashMap<String, DestinationSubscriptions>();
+
+	// sessionId -> (subscriptionId -> destination)
+	private final ConcurrentMap<String, Map<String, String>> destinationsBySession =
+			new ConcurrentHashMap<String, Map<String, String>>();
+
+	private final TrieNode root = new TrieNode();
+
+	// destination -> subscriptions of matching patterns
+	@SuppressWarnings("serial")
+	private final Map<String, List<DestinationSubscriptions>> resolvedCache =
+			new LinkedHashMap<String, List<DestinationSubscriptions>>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, List<DestinationSubscriptions>> eldest) {
+					return size() > getCacheLimit();
+				}
+			};
+
+	private long patternGeneration;
+
+	private final Object monitor = new Object();
+
+
+	/**
+	 * Configure the path matcher used to confirm candidate patterns found in the trie.
+	 */
+	public void setPathMatcher(AntPathMatcher pathMatcher) {
+		Assert.notNull(pathMatcher, "PathMatcher must not be null");
+		this.pathMatcher = pathMatcher;
+	}
+
+	public AntPathMatcher getPathMatcher() {
+		return this.pathMatcher;
+	}
+
+	/**
+	 * Configure the separator used to split destinations into trie segments.
+	 * This must be the same separator as the one of the configured path matcher.
+	 * <p>The default is "/".
+	 */
+	public void setPathSeparator(String pathSeparator) {
+		Assert.hasText(pathSeparator, "PathSeparator must not be empty");
+		this.pathSeparator = pathSeparator;
+	}
+
+	public String getPathSeparator() {
+		return this.pathSeparator;
+	}
+
+	/**
+	 * Specify the maximum number of destinations for which the matching patterns
+	 * are cached. The default is {@link #DEFAULT_CACHE_LIMIT}.
+	 */
+	public void setCacheLimit(int cacheLimit) {
+		Assert.isTrue(cacheLimit >= 0, "CacheLimit must be >= 0");
+		this.cacheLimit = cacheLimit;
+		synchronized (this.resolvedCache) {
+			this.resolvedCache.clear();
+		}
+	}
+
+	/**
+	 * Return the maximum number of destinations for which the matching patterns are cached.
+	 */
+	public int getCacheLimit() {
+		return this.cacheLimit;
+	}
+
+
+	@Override
+	protected void addSubscriptionInternal(String sessionId, String subsId, String destination, Message<?> message) {
+		synchronized (this.monitor) {
+			Map<String, String> destinations = this.destinationsBySession.get(sessionId);
+			if (destinations == null) {
+				destinations = new ConcurrentHashMap<String, String>(4);
+				this.destinationsBySession.put(sessionId, destinations);
+			}
+			String previous = destinations.put(subsId, destination);
+			if (previous != null) {
+				removeFromDestination(previous, sessionId, subsId);
+			}
+			DestinationSubscriptions subscriptions = this.subscriptionsByDestination.get(destination);
+			if (subscriptions == null) {
+				subscriptions = new DestinationSubscriptions(destination, this.pathMatcher.isPattern(destination));
+				this.subscriptionsByDestination.put(destination, subscriptions);
+				if (subscriptions.isPattern()) {
+					this.root.addPattern(destination, tokenize(destination), 0);
+					invalidateResolvedCache(destination);
+				}
+			}
+			subscriptions.add(sessionId, subsId);
+		}
+	}
+
+	@Override
+	protected void removeSubscriptionInternal(String sessionId, String subscriptionId, Message<?> message) {
+		synchronized (this.monitor) {
+			Map<String, String> destinations = this.destinationsBySession.get(sessionId);
+			if (destinations != null) {
+				String destination = destinations.remove(subscriptionId);
+				if (destination != null) {
+					removeFromDestination(destination, sessionId, subscriptionId);
+				}
+				if (destinations.isEmpty()) {
+					this.destinationsBySession.remove(sessionId);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void unregisterAllSubscriptions(String sessionId) {
+		synchronized (this.monitor) {
+			Map<String, String> destinations = this.destinationsBySession.remove(sessionId);
+			if (destinations != null) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Unregistering subscriptions for sessionId=" + sessionId);
+				}
+				for (Map.Entry<String, String> entry : destinations.entrySet()) {
+					removeFromDestination(entry.getValue(), sessionId, entry.getKey());
+				}
+			}
+		}
+	}
+
+	private void removeFromDestination(String destination, String sessionId, String subscriptionId) {
+		DestinationSubscriptions subscriptions = this.subscriptionsByDestination.get(destination);
+		if (subscriptions != null && subscriptions.remove(sessionId, subscriptionId)) {
+			this.subscriptionsByDestination.remove(destination);
+			if (subscriptions.isPattern()) {
+				this.root.removePattern(destination, tokenize(destination), 0);
+				invalidateResolvedCache(destination);
+			}
+		}
+	}
+
+	private void invalidateResolvedCache(String pattern) {
+		synchronized (this.resolvedCache) {
+			this.patternGeneration++;
+			for (Iterator<String> iterator = this.resolvedCache.keySet().iterator(); iterator.hasNext(); ) {
+				if (this.pathMatcher.match(pattern, iterator.next())) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	@Override
+	protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+		MultiValueMap<String, String> result = new LinkedMultiValueMap<String, String>();
+		DestinationSubscriptions subscriptions = this.subscriptionsByDestination.get(destination);
+		if (subscriptions != null && !subscriptions.isPattern()) {
+			subscriptions.addTo(result);
+		}
+		for (DestinationSubscriptions patternSubscriptions : getPatternSubscriptions(destination)) {
+			patternSubscriptions.addTo(result);
+		}
+		return result;
+	}
+
+	private List<DestinationSubscriptions> getPatternSubscriptions(String destination) {
+		long generation;
+		synchronized (this.resolvedCache) {
+			List<DestinationSubscriptions> cached = this.resolvedCache.get(destination);
+			if (cached != null) {
+				return cached;
+			}
+			generation = this.patternGeneration;
+		}
+		Set<String> candidates = new LinkedHashSet<String>();
+		this.root.collectPatterns(tokenize(destination), 0, candidates);
+		List<DestinationSubscriptions> result;
+		if (candidates.isEmpty()) {
+			result = Collections.emptyList();
+		}
+		else {
+			result = new ArrayList<DestinationSubscriptions>(candidates.size());
+			for (String pattern : candidates) {
+				if (this.pathMatcher.match(pattern, destination)) {
+					DestinationSubscriptions subscriptions = this.subscriptionsByDestination.get(pattern);
+					if (subscriptions != null) {
+						result.add(subscriptions);
+					}
+				}
+			}
+		}
+		synchronized (this.resolvedCache) {
+			if (generation == this.patternGeneration && this.cacheLimit > 0) {
+				this.resolvedCache.put(destination, result);
+			}
+		}
+		return result;
+	}
+
+	private String[] tokenize(String destination) {
+		return StringUtils.tokenizeToStringArray(destination, this.pathSeparator);
+	}
+
+	@Override
+	public String toString() {
+		return "[subscriptionsByDestination=" + this.subscriptionsByDestination + "]";
+	}
+
+
+	/**
+	 * A node in the trie of destination pattern segments.
+	 */
+	private static class TrieNode {
+
+		private static final String MULTI_SEGMENT_WILDCARD = "**";
+
+		private final ConcurrentMap<String, TrieNode> literalChildren = new ConcurrentHashMap<String, TrieNode>(4);
+
+		private volatile TrieNode wildcardChild;
+
+		private volatile TrieNode multiSegmentChild;
+
+		// patterns ending at this node
+		private final Set<String> patterns = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>(4));
+
+
+		public void addPattern(String pattern, String[] segments, int index) {
+			if (index == segments.length) {
+				this.patterns.add(pattern);
+				return;
+			}
+			String segment = segments[index];
+			TrieNode child;
+			if (MULTI_SEGMENT_WILDCARD.equals(segment)) {
+				if (this.multiSegmentChild == null) {
+					this.multiSegmentChild = new TrieNode();
+				}
+				child = this.multiSegmentChild;
+			}
+			else if (isWildcardSegment(segment)) {
+				if (this.wildcardChild == null) {
+					this.wildcardChild = new TrieNode();
+				}
+				child = this.wildcardChild;
+			}
+			else {
+				child = this.literalChildren.get(segment);
+				if (child == null) {
+					child = new TrieNode();
+					this.literalChildren.put(segment, child);
+				}
+			}
+			child.addPattern(pattern, segments, index + 1);
+		}
+
+		public void removePattern(String pattern, String[] segments, int index) {
+			if (index == segments.length) {
+				this.patterns.remove(pattern);
+				return;
+			}
+			String segment = segments[index];
+			if (MULTI_SEGMENT_WILDCARD.equals(segment)) {
+				TrieNode child = this.multiSegmentChild;
+				if (child != null) {
+					child.removePattern(pattern, segments, index + 1);
+					if (child.isEmpty()) {
+						this.multiSegmentChild = null;
+					}
+				}
+			}
+			else if (isWildcardSegment(segment)) {
+				TrieNode child = this.wildcardChild;
+				if (child != null) {
+					child.removePattern(pattern, segments, index + 1);
+					if (child.isEmpty()) {
+						this.wildcardChild = null;
+					}
+				}
+			}
+			else {
+				TrieNode child = this.literalChildren.get(segment);
+				if (child != null) {
+					child.removePattern(pattern, segments, index + 1);
+					if (child.isEmpty()) {
+						this.literalChildren.remove(segment);
+					}
+				}
+			}
+		}
+
+		public void collectPatterns(String[] segments, int index, Set<String> result) {
+			TrieNode multiSegmentChild = this.multiSegmentChild;
+			if (multiSegmentChild != null) {
+				for (int i = index; i <= segments.length; i++) {
+					multiSegmentChild.collectPatterns(segments, i, result);
+				}
+			}
+			if (index == segments.length) {
+				result.addAll(this.patterns);
+				return;
+			}
+			TrieNode literalChild = this.literalChildren.get(segments[index]);
+			if (literalChild != null) {
+				literalChild.collectPatterns(segments, index + 1, result);
+			}
+			TrieNode wildcardChild = this.wildcardChild;
+			if (wildcardChild != null) {
+				wildcardChild.collectPatterns(segments, index + 1, result);
+			}
+		}
+
+		private boolean isEmpty() {
+			return (this.patterns.isEmpty() && this.literalChildren.isEmpty() &&
+					this.wildcardChild == null && this.multiSegmentChild == null);
+		}
+
+		private static boolean isWildcardSegment(String segment) {
+			return (segment.indexOf('*') != -1 || segment.indexOf('?') != -1 || segment.indexOf('{') != -1);
+		}
+	}
+
+	/**
+	 * Hold the subscriptions of all sessions to one destination.
+	 */
+	private static class DestinationSubscriptions {
+
+		private final String destination;
+
+		private final boolean pattern;
+
+		// sessionId -> subscriptionIds
+		private final ConcurrentMap<String, Set<String>> subscriptionIds = new ConcurrentHashMap<String, Set<String>>(4);
+
+
+		public DestinationSubscriptions(String destination, boolean pattern) {
+			this.destination = destination;
+			this.pattern = pattern;
+		}
+
+		public boolean isPattern() {
+			return this.pattern;
+		}
+
+		public void add(String sessionId, String subscriptionId) {
+			Set<String> ids = this.subscriptionIds.get(sessionId);
+			if (ids == null) {
+				ids = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>(4));
+				this.subscriptionIds.put(sessionId, ids);
+			}
+			ids.add(subscriptionId);
+		}
+
+		/**
+		 * Remove the given subscription and return {@code true} if there are no
+		 * subscriptions left for the destination.
+		 */
+		public boolean remove(String sessionId, String subscriptionId) {
+			Set<String> ids = this.subscriptionIds.get(sessionId);
+			if (ids != null) {
+				ids.remove(subscriptionId);
+				if (ids.isEmpty()) {
+					this.subscriptionIds.remove(sessionId);
+				}
+			}
+			return this.subscriptionIds.isEmpty();
+		}
+
+		public void addTo(MultiValueMap<String, String> result) {
+			for (Map.Entry<String, Set<String>> entry : this.subscriptionIds.entrySet()) {
+				for (String subscriptionId : entry.getValue()) {
+					result.add(entry.getKey(), subscriptionId);
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "[destination=" + this.destination + ", subscriptions=" + this.subscriptionIds + "]";
+		}
+	}
+
+}
@@ -16,14 +16,16 @@
 
 package org.springframework.messaging.simp.stomp;
 
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -34,15 +36,12 @@ import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.util.Assert;
-import org.springframework.util.StringUtils;
 
 import reactor.core.Environment;
 import reactor.core.composable.Promise;
 import reactor.function.Consumer;
 import reactor.tcp.TcpClient;
 import reactor.tcp.TcpConnection;
-import reactor.tcp.encoding.DelimitedCodec;
-import reactor.tcp.encoding.StandardCodecs;
 import reactor.tcp.netty.NettyTcpClient;
 import reactor.tcp.spec.TcpClientSpec;
 
@@ -57,6 +56,10 @@ public class StompBrokerRelayMessageHandler implements MessageHandler, SmartLife
 
 	private static final String STOMP_RELAY_SYSTEM_SESSION_ID = "stompRelaySystemSessionId";
 
+	private static final String STOMP_RELAY_SHARED_SESSION_ID_PREFIX = "stompRelaySharedSessionId-";
+
+	private static final String STOMP_RECEIPT_HEADER = "receipt";
+
 	private final MessageChannel messageChannel;
 
 	private final String[] destinationPrefixes;
@@ -69,14 +72,25 @@ public class StompBrokerRelayMessageHandler implements MessageHandler, SmartLife
 
 	private String systemPasscode = "guest";
 
-	private final StompMessageConverter stompMessageConverter = new StompMessageConverter();
+	private final StompCodec stompCodec = new StompCodec();
 
 	private Environment environment;
 
-	private TcpClient<String, String> tcpClient;
+	private TcpClient<Message<byte[]>, Message<?>> tcpClient;
 
 	private final Map<String, RelaySession> relaySessions = new ConcurrentHashMap<String, RelaySession>();
 
+	private int sharedConnectionCount = 0;
+
+	private int sharedConnectionQueueCapacity = 1000;
+
+	private volatile SharedRelaySession[] sharedSessions;
+
+	private final AtomicInteger sharedSessionIndex = new AtomicInteger();
+
+	private final Map<String, SharedRelaySession> sharedSessionsByClient =
+			new ConcurrentHashMap<String, SharedRelaySession>();
+
 	private Object lifecycleMonitor = new Object();
 
 	private boolean running = false;
@@ -154,6 +168,63 @@ public class StompBrokerRelayMessageHandler implements MessageHandler, SmartLife
 		return this.systemPasscode;
 	}
 
+	/**
+	 * Configure the number of TCP connections to the STOMP broker over which client
+	 * sessions are multiplexed. By default this is set to 0 in which case a separate
+	 * TCP connection is opened for every client session.
+	 * <p>When set to a value greater than 0, client sessions are assigned in
+	 * round-robin fashion to a fixed number of connections authenticated with the
+	 * {@link #setSystemLogin(String) system login}. Subscription ids and receipts
+	 * are rewritten to be unique per broker connection and messages received from
+	 * the broker are routed back to the client session they belong to. Client
+	 * CONNECT frames are not forwarded to the broker, and client DISCONNECT frames
+	 * result in the removal of the subscriptions of the client session only.
+	 * <p>If a shared connection fails, for example when the broker sends an ERROR
+	 * frame, all client sessions using it receive an ERROR frame, the connection
+	 * is closed, and it is replaced with a new one when the next client session
+	 * is assigned to it.
+	 */
+	public void setSharedConnectionCount(int sharedConnectionCount) {
+		Assert.isTrue(sharedConnectionCount >= 0, "sharedConnectionCount must be >= 0");
+		this.sharedConnectionCount = sharedConnectionCount;
+	}
+
+	/**
+	 * @return the number of TCP connections over which client sessions are multiplexed.
+	 */
+	public int getSharedConnectionCount() {
+		return this.sharedConnectionCount;
+	}
+
+	/**
+	 * Configure the maximum number of messages to queue for a shared broker
+	 * connection while it is being established. By default this is set to 1000.
+	 * @see #setSharedConnectionCount(int)
+	 */
+	public void setSharedConnectionQueueCapacity(int sharedConnectionQueueCapacity) {
+		Assert.isTrue(sharedConnectionQueueCapacity > 0, "sharedConnectionQueueCapacity must be > 0");
+		this.sharedConnectionQueueCapacity = sharedConnectionQueueCapacity;
+	}
+
+	/**
+	 * @return the maximum number of messages queued per shared broker connection.
+	 */
+	public int getSharedConnectionQueueCapacity() {
+		return this.sharedConnectionQueueCapacity;
+	}
+
+	/**
+	 * Configure the TCP client to use to connect to the STOMP broker. By default
+	 * a {@link NettyTcpClient} is created for the configured relay host and port
+	 * on {@link #start()}, and closed along with its {@link Environment} on
+	 * {@link #stop()}. A client configured here is closed on {@link #stop()} as
+	 * well, and used again if the relay is restarted.
+	 * @param tcpClient the TCP client, using a codec that produces STOMP messages
+	 */
+	public void setTcpClient(TcpClient<Message<byte[]>, Message<?>> tcpClient) {
+		this.tcpClient = tcpClient;
+	}
+
 	/**
 	 * @return the configured STOMP broker supported destination prefixes.
 	 */
@@ -184,13 +255,16 @@ public class StompBrokerRelayMessageHandler implements MessageHandler, SmartLife
 			if (logger.isDebugEnabled()) {
 				logger.debug("Starting STOMP broker relay");
 			}
-			this.environment = new Environment();
-			this.tcpClient = new TcpClientSpec<String, String>(NettyTcpClient.class)
-					.env(this.environment)
-					.codec(new DelimitedCodec<String, String>((byte) 0, true, StandardCodecs.STRING_CODEC))
-					.connect(this.relayHost, this.relayPort)
-					.get();
+			if (this.tcpClient == null) {
+				this.environment = new Environment();
+				this.tcpClient = new TcpClientSpec<Message<byte[]>, Message<?>>(NettyTcpClient.class)
+						.env(this.environment)
+						.codec(this.stompCodec)
+						.connect(this.relayHost, this.relayPort)
+						.get();
+			}
 			openSystemSession();
+			openSharedSessions();
 			this.running = true;
 		}
 	}
@@ -223,6 +297,65 @@ public class StompBrokerRelayMessageHandler implements MessageHandler, SmartLife
 		session.open(message);
 	}
 
+	/**
+	 * Open the TCP connections over which client sessions are multiplexed, if any.
+	 * @see #setSharedConnectionCount(int)
+	 */
+	private void openSharedSessions() {
+		if (this.sharedConnectionCount == 0) {
+			this.sharedSessions = null;
+			return;
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Opening " + this.sharedConnectionCount + " shared TCP connection(s) to the STOMP broker");
+		}
+		SharedRelaySession[] sessions = new SharedRelaySession[this.sharedConnectionCount];
+		for (int i = 0; i < sessions.length; i++) {
+			sessions[i] = openSharedSession(i);
+		}
+		this.sharedSessions = sessions;
+	}
+
+	/**
+	 * Open a TCP connection over which client sessions are multiplexed.
+	 * <p>Heart-beats are disabled ("0,0") on shared connections, as on all other
+	 * connections of the relay, since the relay neither sends heart-beat frames
+	 * nor checks for incoming ones. A failed shared connection is detected through
+	 * an ERROR frame from the broker or a failed send instead.
+	 */
+	private SharedRelaySession openSharedSession(int index) {
+		SharedRelaySession session = new SharedRelaySession(STOMP_RELAY_SHARED_SESSION_ID_PREFIX + index);
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.CONNECT);
+		headers.setAcceptVersion("1.1,1.2");
+		headers.setLogin(this.systemLogin);
+		headers.setPasscode(this.systemPasscode);
+		headers.setHeartbeat(0, 0);
+		session.open(MessageBuilder.withPayloadAndHeaders(new byte[0], headers).build());
+		return session;
+	}
+
+	/**
+	 * Return the shared session for the given round-robin counter value,
+	 * replacing it first with a new one if it has failed.
+	 * @return the session, or {@code null} if the relay has been stopped
+	 */
+	private SharedRelaySession getSharedSession(int counter) {
+		synchronized (this.lifecycleMonitor) {
+			SharedRelaySession[] sessions = this.sharedSessions;
+			if (sessions == null) {
+				return null;
+			}
+			int index = (counter & Integer.MAX_VALUE) % sessions.length;
+			if (sessions[index].isClosed()) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Replacing failed shared TCP connection " + sessions[index].getSessionId());
+				}
+				sessions[index] = openSharedSession(index);
+			}
+			return sessions[index];
+		}
+	}
+
 	@Override
 	public void stop() {
 		synchronized (this.lifecycleMonitor) {
@@ -236,12 +369,19 @@ public class StompBrokerRelayMessageHandler implements MessageHandler, SmartLife
 			catch (Throwable t) {
 				logger.error("Failed to close reactor TCP client", t);
 			}
-			try {
-				this.environment.shutdown();
-			}
-			catch (Throwable t) {
-				logger.error("Failed to shut down reactor Environment", t);
+			if (this.environment != null) {
+				try {
+					this.environment.shutdown();
+				}
+				catch (Throwable t) {
+					logger.error("Failed to shut down reactor Environment", t);
+				}
+				this.environment = null;
+				this.tcpClient = null;
 			}
+			this.relaySessions.clear();
+			this.sharedSessions = null;
+			this.sharedSessionsByClient.clear();
 		}
 	}
 
@@ -293,7 +433,10 @@ public class StompBrokerRelayMessageHandler implements MessageHandler, SmartLife
 					logger.trace("Processing message: " + message);
 				}
 
-				if (SimpMessageType.CONNECT.equals(messageType)) {
+				if ((this.sharedSessions != null) && !STOMP_RELAY_SYSTEM_SESSION_ID.equals(sessionId)) {
+					handleMessageOnSharedSession(sessionId, messageType, message);
+				}
+				else if (SimpMessageType.CONNECT.equals(messageType)) {
 					headers.setHeartbeat(0, 0); // TODO: disable for now
 					message = MessageBuilder.withPayloadAndHeaders(message.getPayload(), headers).build();
 					RelaySession session = new RelaySession(sessionId);
@@ -325,6 +468,41 @@ public class StompBrokerRelayMessageHandler implements MessageHandler, SmartLife
 		}
 	}
 
+	private void handleMessageOnSharedSession(String sessionId, SimpMessageType messageType, Message<?> message) {
+		if (SimpMessageType.CONNECT.equals(messageType)) {
+			int counter = this.sharedSessionIndex.getAndIncrement();
+			SharedRelaySession session;
+			do {
+				session = getSharedSession(counter);
+				if (session == null) {
+					if (logger.isTraceEnabled()) {
+						logger.trace("STOMP broker relay stopped. Ignoring message: " + message);
+					}
+					return;
+				}
+			}
+			while (!session.addClientSession(sessionId));
+		}
+		else if (SimpMessageType.DISCONNECT.equals(messageType)) {
+			SharedRelaySession session = this.sharedSessionsByClient.remove(sessionId);
+			if (session == null) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Session already removed, sessionId=" + sessionId);
+				}
+				return;
+			}
+			session.removeClientSession(sessionId);
+		}
+		else {
+			SharedRelaySession session = this.sharedSessionsByClient.get(sessionId);
+			if (session == null) {
+				logger.warn("Session id=" + sessionId + " not found. Ignoring message: " + message);
+				return;
+			}
+			session.forwardClientMessage(sessionId, message);
+		}
+	}
+
 	protected boolean checkDestinationPrefix(StompCommand command, String destination) {
 		if (!command.requiresDestination()) {
 			return true;
@@ -345,9 +523,11 @@ public class StompBrokerRelayMessageHandler implements MessageHandler, SmartLife
 
 		private final String sessionId;
 
-		private final BlockingQueue<Message<?>> messageQueue = new LinkedBlockingQueue<Message<?>>(50);
+		private final BlockingQueue<Message<?>> messageQueue;
+
+		private Promise<TcpConnection<Message<byte[]>, Message<?>>> promise;
 
-		private Promise<TcpConnection<String, String>> promise;
+		private volatile TcpConnection<Message<byte[]>, Message<?>> connection;
 
 		private volatile boolean isConnected = false;
 
@@ -355,8 +535,17 @@ public class StompBrokerRelayMessageHandler implements MessageHandler, SmartLife
 
 
 		public RelaySession(String sessionId) {
+			this(sessionId, 50);
+		}
+
+		public RelaySession(String sessionId, int queueCapacity) {
 			Assert.notNull(sessionId, "sessionId is required");
 			this.sessionId = sessionId;
+			this.messageQueue = new LinkedBlockingQueue<Message<?>>(queueCapacity);
+		}
+
+		public String getSessionId() {
+			return this.sessionId;
 		}
 
 		public void open(final Message<?> message) {
@@ -364,13 +553,14 @@ public class StompBrokerRelayMessageHandler implements MessageHandler, SmartLife
 
 			this.promise = tcpClient.open();
 
-			this.promise.consume(new Consumer<TcpConnection<String,String>>() {
+			this.promise.consume(new Consumer<TcpConnection<Message<byte[]>, Message<?>>>() {
 				@Override
-				public void accept(TcpConnection<String, String> connection) {
-					connection.in().consume(new Consumer<String>() {
+				public void accept(TcpConnection<Message<byte[]>, Message<?>> connection) {
+					RelaySession.this.connection = connection;
+					connection.in().consume(new Consumer<Message<byte[]>>() {
 						@Override
-						public void accept(String stompFrame) {
-							readStompFrame(stompFrame);
+						public void accept(Message<byte[]> message) {
+							readStompMessage(message);
 						}
 					});
 					forwardInternal(message, connection);
@@ -386,14 +576,8 @@ public class StompBrokerRelayMessageHandler implements MessageHandler, SmartLife
 			});
 		}
 
-		private void readStompFrame(String stompFrame) {
+		private void readStompMessage(Message<?> message) {
 
-			// heartbeat
-			if (StringUtils.isEmpty(stompFrame)) {
-				return;
-			}
-
-			Message<?> message = stompMessageConverter.toMessage(stompFrame);
 			if (logger.isTraceEnabled()) {
 				logger.trace("Reading message " + message);
 			}
@@ -407,6 +591,10 @@ public class StompBrokerRelayMessageHandler implements MessageHandler, SmartLife
 				return;
 			}
 
+			handleBrokerMessage(message, headers);
+		}
+
+		protected void handleBrokerMessage(Message<?> message, StompHeaderAccessor headers) {
 			headers.setSessionId(this.sessionId);
 			message = MessageBuilder.withPayloadAndHeaders(message.getPayload(), headers).build();
 			sendMessageToClient(message);
@@ -438,7 +626,7 @@ public class StompBrokerRelayMessageHandler implements MessageHandler, SmartLife
 				}
 			}
 
-			TcpConnection<String, String> connection = this.promise.get();
+			TcpConnection<Message<byte[]>, Message<?>> connection = this.promise.get();
 
 			if (this.messageQueue.isEmpty()) {
 				forwardInternal(message, connection);
@@ -449,18 +637,15 @@ public class StompBrokerRelayMessageHandler implements MessageHandler, SmartLife
 			}
 		}
 
-		private boolean forwardInternal(final Message<?> message, TcpConnection<String, String> connection) {
+		private boolean forwardInternal(final Message<?> message, TcpConnection<Message<byte[]>, Message<?>> connection) {
 			if (logger.isTraceEnabled()) {
 				logger.trace("Forwarding message to STOMP broker, message id=" + message.getHeaders().getId());
 			}
-			byte[] bytes = stompMessageConverter.fromMessage(message);
-			connection.send(new String(bytes, Charset.forName("UTF-8")), new Consumer<Boolean>() {
+			connection.send(message, new Consumer<Boolean>() {
 				@Override
 				public void accept(Boolean success) {
 					if (!success) {
-						String sessionId = StompHeaderAccessor.wrap(message).getSessionId();
-						relaySessions.remove(sessionId);
-						sendError(sessionId, "Failed to relay message to broker");
+						handleForwardFailure(message);
 					}
 				}
 			});
@@ -469,7 +654,13 @@ public class StompBrokerRelayMessageHandler implements MessageHandler, SmartLife
 			return true;
 		}
 
-		private void flushMessages(TcpConnection<String, String> connection) {
+		protected void handleForwardFailure(Message<?> message) {
+			String sessionId = StompHeaderAccessor.wrap(message).getSessionId();
+			relaySessions.remove(sessionId);
+			sendError(sessionId, "Failed to relay message to broker");
+		}
+
+		private void flushMessages(TcpConnection<Message<byte[]>, Message<?>> connection) {
 			List<Message<?>> messages = new ArrayList<Message<?>>();
 			this.messageQueue.drainTo(messages);
 			for (Message<?> message : messages) {
@@ -478,5 +669,249 @@ public class StompBrokerRelayMessageHandler implements MessageHandler, SmartLife
 				}
 			}
 		}
+
+		/**
+		 * Close the TCP connection to the broker, if it has been opened.
+		 */
+		protected void closeConnection() {
+			TcpConnection<Message<byte[]>, Message<?>> connection = this.connection;
+			if (connection != null) {
+				try {
+					connection.close();
+				}
+				catch (Throwable t) {
+					logger.error("Failed to close TCP connection " + this.sessionId, t);
+				}
+			}
+		}
 	}
+
+
+	/**
+	 * A {@link RelaySession} for a TCP connection to the broker shared by many
+	 * client sessions.
+	 */
+	private class SharedRelaySession extends RelaySession {
+
+		private final AtomicLong idCounter = new AtomicLong();
+
+		// client session id -> (client subscription id -> broker subscription id)
+		private final Map<String, Map<String, String>> clientSubscriptions =
+				new ConcurrentHashMap<String, Map<String, String>>();
+
+		// broker subscription id -> client subscription
+		private final Map<String, SessionRoute> subscriptionRoutes = new ConcurrentHashMap<String, SessionRoute>();
+
+		// broker receipt -> client receipt
+		private final Map<String, SessionRoute> receiptRoutes = new ConcurrentHashMap<String, SessionRoute>();
+
+		private volatile boolean closed = false;
+
+		private final Object clientSessionMonitor = new Object();
+
+
+		public SharedRelaySession(String sessionId) {
+			super(sessionId, sharedConnectionQueueCapacity);
+		}
+
+		public boolean isClosed() {
+			return this.closed;
+		}
+
+		/**
+		 * Add a client session to this shared session.
+		 * @return {@code false} if this session has failed and the client session
+		 * must be added to another one
+		 */
+		public boolean addClientSession(String clientSessionId) {
+			synchronized (this.clientSessionMonitor) {
+				if (this.closed) {
+					return false;
+				}
+				this.clientSubscriptions.put(clientSessionId, new ConcurrentHashMap<String, String>());
+				sharedSessionsByClient.put(clientSessionId, this);
+				return true;
+			}
+		}
+
+		public void forwardClientMessage(String clientSessionId, Message<?> message) {
+
+			Map<String, String> subscriptions = this.clientSubscriptions.get(clientSessionId);
+			if (subscriptions == null) {
+				logger.warn("Session id=" + clientSessionId + " not found. Ignoring message: " + message);
+				return;
+			}
+
+			StompHeaderAccessor headers = StompHeaderAccessor.wrap(message);
+			StompCommand command = headers.getCommand();
+
+			if (StompCommand.SUBSCRIBE.equals(command)) {
+				String brokerId = nextId("sub-");
+				subscriptions.put(headers.getSubscriptionId(), brokerId);
+				this.subscriptionRoutes.put(brokerId, new SessionRoute(clientSessionId, headers.getSubscriptionId()));
+				headers.setNativeHeader(StompHeaderAccessor.STOMP_ID_HEADER, brokerId);
+			}
+			else if (StompCommand.UNSUBSCRIBE.equals(command)) {
+				String brokerId = subscriptions.remove(headers.getSubscriptionId());
+				if (brokerId == null) {
+					if (logger.isTraceEnabled()) {
+						logger.trace("Subscription not found, ignoring message: " + message);
+					}
+					return;
+				}
+				this.subscriptionRoutes.remove(brokerId);
+				headers.setNativeHeader(StompHeaderAccessor.STOMP_ID_HEADER, brokerId);
+			}
+			else if (StompCommand.ACK.equals(command) || StompCommand.NACK.equals(command)) {
+				String subscriptionId = headers.getFirstNativeHeader(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER);
+				if ((subscriptionId != null) && subscriptions.containsKey(subscriptionId)) {
+					headers.setNativeHeader(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER,
+							subscriptions.get(subscriptionId));
+				}
+			}
+
+			String receipt = headers.getFirstNativeHeader(STOMP_RECEIPT_HEADER);
+			if (receipt != null) {
+				String brokerReceipt = nextId("receipt-");
+				this.receiptRoutes.put(brokerReceipt, new SessionRoute(clientSessionId, receipt));
+				headers.setNativeHeader(STOMP_RECEIPT_HEADER, brokerReceipt);
+			}
+
+			forward(MessageBuilder.withPayloadAndHeaders(message.getPayload(), headers).build());
+		}
+
+		public void removeClientSession(String clientSessionId) {
+			Map<String, String> subscriptions = this.clientSubscriptions.remove(clientSessionId);
+			if (subscriptions == null) {
+				return;
+			}
+			for (String brokerId : subscriptions.values()) {
+				this.subscriptionRoutes.remove(brokerId);
+				StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+				headers.setSessionId(clientSessionId);
+				headers.setNativeHeader(StompHeaderAccessor.STOMP_ID_HEADER, brokerId);
+				forward(MessageBuilder.withPayloadAndHeaders(new byte[0], headers).build());
+			}
+			for (Iterator<SessionRoute> iterator = this.receiptRoutes.values().iterator(); iterator.hasNext(); ) {
+				if (iterator.next().getSessionId().equals(clientSessionId)) {
+					iterator.remove();
+				}
+			}
+		}
+
+		private String nextId(String prefix) {
+			return prefix + this.idCounter.getAndIncrement();
+		}
+
+		@Override
+		protected void handleBrokerMessage(Message<?> message, StompHeaderAccessor headers) {
+			StompCommand command = headers.getCommand();
+			if (StompCommand.MESSAGE.equals(command)) {
+				SessionRoute route = this.subscriptionRoutes.get(headers.getSubscriptionId());
+				if (route == null) {
+					if (logger.isTraceEnabled()) {
+						logger.trace("No client subscription for message " + message);
+					}
+					return;
+				}
+				headers.setSessionId(route.getSessionId());
+				headers.setSubscriptionId(route.getId());
+				messageChannel.send(MessageBuilder.withPayloadAndHeaders(message.getPayload(), headers).build());
+			}
+			else if (StompCommand.RECEIPT.equals(command)) {
+				SessionRoute route = this.receiptRoutes.remove(headers.getReceiptId());
+				if (route == null) {
+					if (logger.isTraceEnabled()) {
+						logger.trace("No client receipt for message " + message);
+					}
+					return;
+				}
+				headers.setSessionId(route.getSessionId());
+				headers.setReceiptId(route.getId());
+				messageChannel.send(MessageBuilder.withPayloadAndHeaders(message.getPayload(), headers).build());
+			}
+			else {
+				super.handleBrokerMessage(message, headers);
+			}
+		}
+
+		/**
+		 * Messages not associated with a client session, such as an ERROR frame,
+		 * apply to the connection and are sent to all client sessions using it.
+		 * An ERROR frame also means the connection has failed.
+		 */
+		@Override
+		protected void sendMessageToClient(Message<?> message) {
+			StompHeaderAccessor headers = StompHeaderAccessor.wrap(message);
+			if (!getSessionId().equals(headers.getSessionId())) {
+				super.sendMessageToClient(message);
+				return;
+			}
+			if (StompCommand.ERROR.equals(headers.getCommand())) {
+				close();
+			}
+			for (String clientSessionId : this.clientSubscriptions.keySet()) {
+				headers = StompHeaderAccessor.wrap(message);
+				headers.setSessionId(clientSessionId);
+				super.sendMessageToClient(MessageBuilder.withPayloadAndHeaders(message.getPayload(), headers).build());
+			}
+			if (this.closed) {
+				for (String clientSessionId : this.clientSubscriptions.keySet()) {
+					sharedSessionsByClient.remove(clientSessionId);
+				}
+				this.clientSubscriptions.clear();
+				this.subscriptionRoutes.clear();
+				this.receiptRoutes.clear();
+			}
+		}
+
+		/**
+		 * A failed send on a shared connection affects all client sessions using it.
+		 */
+		@Override
+		protected void handleForwardFailure(Message<?> message) {
+			StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.ERROR);
+			headers.setSessionId(getSessionId());
+			headers.setMessage("Failed to relay message to broker");
+			sendMessageToClient(MessageBuilder.withPayloadAndHeaders(new byte[0], headers).build());
+		}
+
+		/**
+		 * Take this session out of rotation, so that no more client sessions are
+		 * added and it is replaced when the next client session is assigned to it,
+		 * and close its TCP connection.
+		 */
+		private void close() {
+			synchronized (this.clientSessionMonitor) {
+				if (this.closed) {
+					return;
+				}
+				this.closed = true;
+			}
+			closeConnection();
+		}
+	}
+
+
+	private static class SessionRoute {
+
+		private final String sessionId;
+
+		private final String id;
+
+
+		public SessionRoute(String sessionId, String id) {
+			this.sessionId = sessionId;
+			this.id = id;
+		}
+
+		public String getSessionId() {
+			return this.sessionId;
+		}
+
+		public String getId() {
+			return this.id;
+		}
+	}
+
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.stomp;
+
+import org.springframework.messaging.Message;
+
+import reactor.function.Consumer;
+import reactor.function.Function;
+import reactor.io.Buffer;
+import reactor.tcp.encoding.Codec;
+
+/**
+ * A reactor TCP {@link Codec} that decodes and encodes STOMP frames directly from
+ * and to bytes, without converting frames to and from Strings. Decoding is
+ * incremental and honours the {@code content-length} header, see {@link StompDecoder}.
+ *
+ * @author Rossen Stoyanchev
+ * @since 4.0
+ */
+public class StompCodec implements Codec<Buffer, Message<byte[]>, Message<?>> {
+
+	private final StompEncoder encoder = new StompEncoder();
+
+	private final Function<Message<?>, Buffer> encodingFunction = new Function<Message<?>, Buffer>() {
+		@Override
+		public Buffer apply(Message<?> message) {
+			return Buffer.wrap(encoder.encode(message));
+		}
+	};
+
+	private int bufferSizeLimit = StompDecoder.DEFAULT_BUFFER_SIZE_LIMIT;
+
+
+	/**
+	 * Configure the maximum size of an incomplete frame buffered per connection.
+	 * @see StompDecoder#setBufferSizeLimit(int)
+	 */
+	public void setBufferSizeLimit(int bufferSizeLimit) {
+		this.bufferSizeLimit = bufferSizeLimit;
+	}
+
+	public int getBufferSizeLimit() {
+		return this.bufferSizeLimit;
+	}
+
+
+	@Override
+	public Function<Buffer, Message<byte[]>> decoder(final Consumer<Message<byte[]>> next) {
+		final StompDecoder decoder = new StompDecoder();
+		decoder.setBufferSizeLimit(this.bufferSizeLimit);
+		return new Function<Buffer, Message<byte[]>>() {
+			@Override
+			public Message<byte[]> apply(Buffer buffer) {
+				for (Message<byte[]> message : decoder.decode(buffer.byteBuffer())) {
+					next.accept(message);
+				}
+				return null;
+			}
+		};
+	}
+
+	@Override
+	public Function<Message<?>, Buffer> encoder() {
+		return this.encodingFunction;
+	}
+
+}
@@ -0,0 +1,422 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.stomp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.Assert;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * An incremental decoder of STOMP frames that works directly on {@link ByteBuffer}s.
+ *
+ * <p>A decoder keeps state across invocations of {@link #decode(ByteBuffer)} and is
+ * intended to be used for the data received on a single connection. A buffer may
+ * contain any number of frames as well as a partial frame, in which case the
+ * remaining data is retained until more data is available. The {@code content-length}
+ * header is honoured when present and otherwise the body extends to the first NULL
+ * octet. Heart-beats (end-of-line characters between frames) are skipped.
+ *
+ * <p>The frame payload is copied from the buffer once into the {@code byte[]} payload
+ * of the resulting message; the command and the names of common headers are matched
+ * against the raw bytes without creating intermediate strings.
+ *
+ * <p>This class is not thread-safe.
+ *
+ * @author Rossen Stoyanchev
+ * @since 4.0
+ */
+public class StompDecoder {
+
+	/** The default limit for the size of a buffered partial frame: 64K */
+	public static final int DEFAULT_BUFFER_SIZE_LIMIT = 64 * 1024;
+
+	private static final Charset STOMP_CHARSET = Charset.forName("UTF-8");
+
+	private static final byte LF = 0x0a;
+
+	private static final byte CR = 0x0d;
+
+	private static final byte COLON = ':';
+
+	private static final byte NULL = 0x00;
+
+	private static final byte[][] COMMANDS;
+
+	private static final byte[][] HEADER_NAMES;
+
+	private static final String[] HEADER_NAME_STRINGS = new String[] {
+			StompHeaderAccessor.STOMP_DESTINATION_HEADER, StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER,
+			StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER, StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER,
+			StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER, StompHeaderAccessor.STOMP_ID_HEADER,
+			StompHeaderAccessor.STOMP_ACK_HEADER, StompHeaderAccessor.STOMP_RECEIPT_ID_HEADER,
+			"receipt", StompHeaderAccessor.STOMP_HEARTBEAT_HEADER, StompHeaderAccessor.STOMP_HOST_HEADER,
+			StompHeaderAccessor.STOMP_ACCEPT_VERSION_HEADER, StompHeaderAccessor.STOMP_VERSION_HEADER,
+			StompHeaderAccessor.STOMP_LOGIN_HEADER, StompHeaderAccessor.STOMP_PASSCODE_HEADER,
+			StompHeaderAccessor.STOMP_MESSAGE_HEADER, "transaction", "session", "server"
+	};
+
+	static {
+		StompCommand[] commands = StompCommand.values();
+		COMMANDS = new byte[commands.length][];
+		for (int i = 0; i < commands.length; i++) {
+			COMMANDS[i] = commands[i].name().getBytes(STOMP_CHARSET);
+		}
+		HEADER_NAMES = new byte[HEADER_NAME_STRINGS.length][];
+		for (int i = 0; i < HEADER_NAME_STRINGS.length; i++) {
+			HEADER_NAMES[i] = HEADER_NAME_STRINGS[i].getBytes(STOMP_CHARSET);
+		}
+	}
+
+
+	private int bufferSizeLimit = DEFAULT_BUFFER_SIZE_LIMIT;
+
+	// data of an incomplete frame retained between invocations, or null
+	private ByteBuffer partialFrame;
+
+
+	/**
+	 * Configure the maximum number of bytes of an incomplete frame to retain while
+	 * waiting for more data. A frame that exceeds the limit is rejected with a
+	 * {@link StompConversionException}.
+	 * <p>By default this is set to {@link #DEFAULT_BUFFER_SIZE_LIMIT}.
+	 */
+	public void setBufferSizeLimit(int bufferSizeLimit) {
+		Assert.isTrue(bufferSizeLimit > 0, "bufferSizeLimit must be > 0");
+		this.bufferSizeLimit = bufferSizeLimit;
+	}
+
+	public int getBufferSizeLimit() {
+		return this.bufferSizeLimit;
+	}
+
+	/**
+	 * Return the number of bytes of an incomplete frame currently retained.
+	 */
+	public int getBufferSize() {
+		return (this.partialFrame != null) ? this.partialFrame.remaining() : 0;
+	}
+
+
+	/**
+	 * Decode all complete frames available in the given buffer, along with any data
+	 * retained from previous invocations. The data of a trailing incomplete frame is
+	 * retained until the next invocation. The given buffer is fully consumed.
+	 * @param buffer the data to decode
+	 * @return the decoded messages, possibly empty, never {@code null}
+	 * @throws StompConversionException if the data is not valid STOMP
+	 */
+	public List<Message<byte[]>> decode(ByteBuffer buffer) {
+		boolean owned = false;
+		if (this.partialFrame != null) {
+			buffer = append(this.partialFrame, buffer);
+			this.partialFrame = null;
+			owned = true;
+		}
+		List<Message<byte[]>> messages = null;
+		while (buffer.hasRemaining()) {
+			int frameStart = buffer.position();
+			Message<byte[]> message;
+			try {
+				message = decodeFrame(buffer);
+			}
+			catch (RuntimeException ex) {
+				buffer.position(buffer.limit());
+				throw ex;
+			}
+			if (message == null) {
+				buffer.position(frameStart);
+				skipEndOfLines(buffer);
+				if (buffer.hasRemaining()) {
+					retainPartialFrame(buffer, owned);
+				}
+				break;
+			}
+			if (messages == null) {
+				messages = new ArrayList<Message<byte[]>>(1);
+			}
+			messages.add(message);
+		}
+		if (messages == null) {
+			return Collections.emptyList();
+		}
+		return messages;
+	}
+
+	/**
+	 * Discard any data retained for an incomplete frame.
+	 */
+	public void reset() {
+		this.partialFrame = null;
+	}
+
+	private ByteBuffer append(ByteBuffer partial, ByteBuffer buffer) {
+		int required = partial.remaining() + buffer.remaining();
+		if (partial.capacity() - partial.limit() >= buffer.remaining()) {
+			int position = partial.position();
+			partial.position(partial.limit());
+			partial.limit(partial.limit() + buffer.remaining());
+			partial.put(buffer);
+			partial.position(position);
+			return partial;
+		}
+		ByteBuffer result = ByteBuffer.allocate(Math.max(required, partial.capacity() * 2));
+		result.put(partial);
+		result.put(buffer);
+		result.flip();
+		return result;
+	}
+
+	private void retainPartialFrame(ByteBuffer buffer, boolean owned) {
+		if (buffer.remaining() > this.bufferSizeLimit) {
+			buffer.position(buffer.limit());
+			throw new StompConversionException("The size of the incomplete STOMP frame exceeds the limit of " +
+					this.bufferSizeLimit + " bytes");
+		}
+		if (owned) {
+			buffer.compact();
+			buffer.flip();
+			this.partialFrame = buffer;
+		}
+		else {
+			ByteBuffer copy = ByteBuffer.allocate(Math.max(buffer.remaining() * 2, 256));
+			copy.put(buffer);
+			copy.flip();
+			this.partialFrame = copy;
+		}
+	}
+
+	/**
+	 * Decode a single frame, or return {@code null} if the frame is incomplete or if
+	 * the buffer contains only heart-beats.
+	 */
+	private Message<byte[]> decodeFrame(ByteBuffer buffer) {
+		skipEndOfLines(buffer);
+		if (!buffer.hasRemaining()) {
+			return null;
+		}
+		int lineEnd = findLineEnd(buffer);
+		if (lineEnd == -1) {
+			return null;
+		}
+		StompCommand command = readCommand(buffer, lineEnd);
+
+		MultiValueMap<String, String> headers = new LinkedMultiValueMap<String, String>(4);
+		int contentLength = -1;
+		while (true) {
+			lineEnd = findLineEnd(buffer);
+			if (lineEnd == -1) {
+				return null;
+			}
+			int length = lineLength(buffer, lineEnd);
+			if (length == 0) {
+				buffer.position(lineEnd + 1);
+				break;
+			}
+			int colon = indexOf(buffer, buffer.position(), buffer.position() + length, COLON);
+			if (colon == -1) {
+				throw new StompConversionException("Illegal header line: '" +
+						readString(buffer, buffer.position(), length) + "'");
+			}
+			String name = readHeaderName(buffer, buffer.position(), colon - buffer.position());
+			String value = readHeaderValue(buffer, colon + 1, buffer.position() + length - colon - 1);
+			if (contentLength == -1 && StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER.equals(name)) {
+				contentLength = parseContentLength(value);
+			}
+			headers.add(name, value);
+			buffer.position(lineEnd + 1);
+		}
+
+		byte[] payload;
+		if (contentLength != -1) {
+			if (buffer.remaining() < contentLength + 1) {
+				return null;
+			}
+			payload = new byte[contentLength];
+			buffer.get(payload);
+			if (buffer.get() != NULL) {
+				throw new StompConversionException("Frame must be terminated with a NULL octet");
+			}
+		}
+		else {
+			int end = indexOf(buffer, buffer.position(), buffer.limit(), NULL);
+			if (end == -1) {
+				return null;
+			}
+			payload = new byte[end - buffer.position()];
+			buffer.get(payload);
+			buffer.get();
+		}
+
+		StompHeaderAccessor headerAccessor = StompHeaderAccessor.create(command, headers);
+		return MessageBuilder.withPayloadAndHeaders(payload, headerAccessor).build();
+	}
+
+	private void skipEndOfLines(ByteBuffer buffer) {
+		while (buffer.hasRemaining()) {
+			byte b = buffer.get(buffer.position());
+			if (b != LF && b != CR) {
+				break;
+			}
+			buffer.position(buffer.position() + 1);
+		}
+	}
+
+	private int findLineEnd(ByteBuffer buffer) {
+		return indexOf(buffer, buffer.position(), buffer.limit(), LF);
+	}
+
+	private int lineLength(ByteBuffer buffer, int lineEnd) {
+		int length = lineEnd - buffer.position();
+		if (length > 0 && buffer.get(lineEnd - 1) == CR) {
+			length--;
+		}
+		return length;
+	}
+
+	private StompCommand readCommand(ByteBuffer buffer, int lineEnd) {
+		int start = buffer.position();
+		int length = lineLength(buffer, lineEnd);
+		// tolerate trailing white space
+		while (length > 0 && buffer.get(start + length - 1) == ' ') {
+			length--;
+		}
+		StompCommand[] commands = StompCommand.values();
+		for (int i = 0; i < COMMANDS.length; i++) {
+			if (matches(buffer, start, length, COMMANDS[i])) {
+				buffer.position(lineEnd + 1);
+				return commands[i];
+			}
+		}
+		throw new StompConversionException("Unknown STOMP command '" + readString(buffer, start, length) + "'");
+	}
+
+	private String readHeaderName(ByteBuffer buffer, int start, int length) {
+		for (int i = 0; i < HEADER_NAMES.length; i++) {
+			if (matches(buffer, start, length, HEADER_NAMES[i])) {
+				return HEADER_NAME_STRINGS[i];
+			}
+		}
+		return unescape(readString(buffer, start, length));
+	}
+
+	private String readHeaderValue(ByteBuffer buffer, int start, int length) {
+		return unescape(readString(buffer, start, length));
+	}
+
+	private static boolean matches(ByteBuffer buffer, int start, int length, byte[] bytes) {
+		if (length != bytes.length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (buffer.get(start + i) != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int indexOf(ByteBuffer buffer, int start, int end, byte b) {
+		if (buffer.hasArray()) {
+			byte[] array = buffer.array();
+			int offset = buffer.arrayOffset();
+			for (int i = start; i < end; i++) {
+				if (array[offset + i] == b) {
+					return i;
+				}
+			}
+			return -1;
+		}
+		for (int i = start; i < end; i++) {
+			if (buffer.get(i) == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static String readString(ByteBuffer buffer, int start, int length) {
+		if (length == 0) {
+			return "";
+		}
+		if (buffer.hasArray()) {
+			return new String(buffer.array(), buffer.arrayOffset() + start, length, STOMP_CHARSET);
+		}
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = buffer.get(start + i);
+		}
+		return new String(bytes, STOMP_CHARSET);
+	}
+
+	private static int parseContentLength(String value) {
+		try {
+			int contentLength = Integer.parseInt(value.trim());
+			if (contentLength < 0) {
+				throw new StompConversionException("Invalid content-length " + value);
+			}
+			return contentLength;
+		}
+		catch (NumberFormatException ex) {
+			throw new StompConversionException("Invalid content-length " + value, ex);
+		}
+	}
+
+	/**
+	 * Decode the escape sequences defined by STOMP 1.2. Unrecognized escape
+	 * sequences are left as they are.
+	 */
+	private static String unescape(String value) {
+		int index = value.indexOf('\\');
+		if (index == -1) {
+			return value;
+		}
+		StringBuilder sb = new StringBuilder(value.length());
+		int start = 0;
+		while (index != -1 && index + 1 < value.length()) {
+			sb.append(value, start, index);
+			char c = value.charAt(index + 1);
+			if (c == 'n') {
+				sb.append('\n');
+			}
+			else if (c == 'r') {
+				sb.append('\r');
+			}
+			else if (c == 'c') {
+				sb.append(':');
+			}
+			else if (c == '\\') {
+				sb.append('\\');
+			}
+			else {
+				sb.append('\\').append(c);
+			}
+			start = index + 2;
+			index = value.indexOf('\\', start);
+		}
+		sb.append(value, start, value.length());
+		return sb.toString();
+	}
+
+}
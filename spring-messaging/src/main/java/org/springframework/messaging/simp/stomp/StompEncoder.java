@@ -0,0 +1,191 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.stomp;
+
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+/**
+ * Encodes a {@link Message} with a {@code byte[]} payload into a STOMP frame.
+ *
+ * <p>A {@code content-length} header is added to frames with a non-empty payload
+ * unless already present, so that the payload may contain NULL octets. Frames are
+ * assembled in a scratch buffer that is reused by the calling thread and copied
+ * once into the resulting array.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author Rossen Stoyanchev
+ * @since 4.0
+ * @see StompDecoder
+ */
+public class StompEncoder {
+
+	private static final Charset STOMP_CHARSET = Charset.forName("UTF-8");
+
+	private static final byte LF = '\n';
+
+	private static final byte COLON = ':';
+
+	private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+	private static final ThreadLocal<FrameBuffer> frameBuffers = new ThreadLocal<FrameBuffer>() {
+		@Override
+		protected FrameBuffer initialValue() {
+			return new FrameBuffer();
+		}
+	};
+
+
+	/**
+	 * Encode the given message to a STOMP frame.
+	 * @param message the message to encode; the payload must be a {@code byte[]}
+	 * @return the encoded frame
+	 */
+	public byte[] encode(Message<?> message) {
+		FrameBuffer buffer = frameBuffers.get();
+		try {
+			writeFrame(message, buffer);
+			return buffer.toByteArray();
+		}
+		finally {
+			buffer.release();
+		}
+	}
+
+	private void writeFrame(Message<?> message, FrameBuffer buffer) {
+		Assert.isInstanceOf(byte[].class, message.getPayload(), "Expected byte[] payload");
+		byte[] payload = (byte[]) message.getPayload();
+
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(message);
+		StompCommand command = headers.getCommand();
+		Assert.notNull(command, "No STOMP command in message " + message);
+
+		buffer.writeAscii(command.name());
+		buffer.write(LF);
+
+		Map<String, List<String>> nativeHeaders = headers.toNativeHeaderMap();
+		for (Entry<String, List<String>> entry : nativeHeaders.entrySet()) {
+			byte[] name = escape(entry.getKey()).getBytes(STOMP_CHARSET);
+			for (String value : entry.getValue()) {
+				buffer.write(name);
+				buffer.write(COLON);
+				buffer.write(escape(value).getBytes(STOMP_CHARSET));
+				buffer.write(LF);
+			}
+		}
+		if ((payload.length > 0) && !nativeHeaders.containsKey(StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER)) {
+			buffer.writeAscii(StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER);
+			buffer.write(COLON);
+			buffer.writeAscii(String.valueOf(payload.length));
+			buffer.write(LF);
+		}
+		buffer.write(LF);
+		buffer.write(payload);
+		buffer.write((byte) 0);
+	}
+
+	private static String escape(String value) {
+		StringBuilder sb = null;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			String replacement = null;
+			if (c == '\\') {
+				replacement = "\\\\";
+			}
+			else if (c == ':') {
+				replacement = "\\c";
+			}
+			else if (c == '\n') {
+				replacement = "\\n";
+			}
+			else if (c == '\r') {
+				replacement = "\\r";
+			}
+			if (replacement != null) {
+				if (sb == null) {
+					sb = new StringBuilder(value.length() + 8);
+					sb.append(value, 0, i);
+				}
+				sb.append(replacement);
+			}
+			else if (sb != null) {
+				sb.append(c);
+			}
+		}
+		return (sb != null) ? sb.toString() : value;
+	}
+
+
+	/**
+	 * A growable byte array reused across invocations on the same thread.
+	 */
+	private static class FrameBuffer {
+
+		private byte[] bytes = new byte[1024];
+
+		private int count;
+
+
+		public void write(byte b) {
+			ensureCapacity(1);
+			this.bytes[this.count++] = b;
+		}
+
+		public void write(byte[] b) {
+			ensureCapacity(b.length);
+			System.arraycopy(b, 0, this.bytes, this.count, b.length);
+			this.count += b.length;
+		}
+
+		public void writeAscii(String value) {
+			int length = value.length();
+			ensureCapacity(length);
+			for (int i = 0; i < length; i++) {
+				this.bytes[this.count++] = (byte) value.charAt(i);
+			}
+		}
+
+		public byte[] toByteArray() {
+			byte[] result = new byte[this.count];
+			System.arraycopy(this.bytes, 0, result, 0, this.count);
+			return result;
+		}
+
+		public void release() {
+			this.count = 0;
+			if (this.bytes.length > MAX_POOLED_BUFFER_SIZE) {
+				// don't hold on to the memory of unusually large frames
+				this.bytes = new byte[1024];
+			}
+		}
+
+		private void ensureCapacity(int length) {
+			if (this.count + length > this.bytes.length) {
+				byte[] newBytes = new byte[Math.max(this.bytes.length * 2, this.count + length)];
+				System.arraycopy(this.bytes, 0, newBytes, 0, this.count);
+				this.bytes = newBytes;
+			}
+		}
+	}
+
+}
@@ -17,11 +17,14 @@
 package org.springframework.messaging.simp.stomp;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.security.Principal;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -31,7 +34,7 @@ import org.springframework.messaging.handler.websocket.SubProtocolHandler;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.handler.MutableUserQueueSuffixResolver;
 import org.springframework.messaging.support.MessageBuilder;
-import org.springframework.util.Assert;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketMessage;
@@ -60,10 +63,14 @@ public class StompProtocolHandler implements SubProtocolHandler {
 	 */
 	public static final String QUEUE_SUFFIX_HEADER = "queue-suffix";
 
+	private static final Charset UTF8_CHARSET = Charset.forName("UTF-8");
+
 	private final Log logger = LogFactory.getLog(StompProtocolHandler.class);
 
 	private final StompMessageConverter stompMessageConverter = new StompMessageConverter();
 
+	private final ConcurrentMap<String, StompDecoder> decoders = new ConcurrentHashMap<String, StompDecoder>();
+
 	private MutableUserQueueSuffixResolver queueSuffixResolver;
 
 
@@ -88,18 +95,36 @@ public class StompProtocolHandler implements SubProtocolHandler {
 	}
 
 	/**
-	 * Handle incoming WebSocket messages from clients.
+	 * Handle incoming WebSocket messages from clients. A single text or binary
+	 * WebSocket message may contain any number of STOMP frames, including a partial
+	 * frame that is completed by subsequent WebSocket messages.
 	 */
 	public void handleMessageFromClient(WebSocketSession session, WebSocketMessage webSocketMessage,
 			MessageChannel outputChannel) {
 
+		List<Message<byte[]>> messages;
 		try {
-			Assert.isInstanceOf(TextMessage.class,  webSocketMessage);
-			String payload = ((TextMessage)webSocketMessage).getPayload();
-			Message<?> message = this.stompMessageConverter.toMessage(payload);
+			ByteBuffer byteBuffer;
+			if (webSocketMessage instanceof TextMessage) {
+				byteBuffer = ByteBuffer.wrap(((TextMessage) webSocketMessage).getPayload().getBytes(UTF8_CHARSET));
+			}
+			else if (webSocketMessage instanceof BinaryMessage) {
+				byteBuffer = ((BinaryMessage) webSocketMessage).getPayload();
+			}
+			else {
+				throw new IllegalArgumentException("Unexpected WebSocket message type: " + webSocketMessage);
+			}
+			messages = getDecoder(session).decode(byteBuffer);
+		}
+		catch (Throwable error) {
+			sendErrorMessage(session, error);
+			return;
+		}
+
+		// TODO: validate size limits
+		// http://stomp.github.io/stomp-specification-1.2.html#Size_Limits
 
-			// TODO: validate size limits
-			// http://stomp.github.io/stomp-specification-1.2.html#Size_Limits
+		for (Message<byte[]> message : messages) {
 
 			if (logger.isTraceEnabled()) {
 				logger.trace("Processing STOMP message: " + message);
@@ -122,15 +147,24 @@ public class StompProtocolHandler implements SubProtocolHandler {
 			catch (Throwable t) {
 				logger.error("Terminating STOMP session due to failure to send message: ", t);
 				sendErrorMessage(session, t);
+				return;
 			}
 
 			// TODO: send RECEIPT message if incoming message has "receipt" header
 			// http://stomp.github.io/stomp-specification-1.2.html#Header_receipt
-
 		}
-		catch (Throwable error) {
-			sendErrorMessage(session, error);
+	}
+
+	private StompDecoder getDecoder(WebSocketSession session) {
+		StompDecoder decoder = this.decoders.get(session.getId());
+		if (decoder == null) {
+			decoder = new StompDecoder();
+			StompDecoder existing = this.decoders.putIfAbsent(session.getId(), decoder);
+			if (existing != null) {
+				decoder = existing;
+			}
 		}
+		return decoder;
 	}
 
 	/**
@@ -162,7 +196,7 @@ public class StompProtocolHandler implements SubProtocolHandler {
 		try {
 			message = MessageBuilder.withPayloadAndHeaders(message.getPayload(), headers).build();
 			byte[] bytes = this.stompMessageConverter.fromMessage(message);
-			session.sendMessage(new TextMessage(new String(bytes, Charset.forName("UTF-8"))));
+			session.sendMessage(new TextMessage(new String(bytes, UTF8_CHARSET)));
 		}
 		catch (Throwable t) {
 			sendErrorMessage(session, t);
@@ -213,7 +247,7 @@ public class StompProtocolHandler implements SubProtocolHandler {
 
 		Message<?> connectedMessage = MessageBuilder.withPayloadAndHeaders(new byte[0], connectedHeaders).build();
 		byte[] bytes = this.stompMessageConverter.fromMessage(connectedMessage);
-		session.sendMessage(new TextMessage(new String(bytes, Charset.forName("UTF-8"))));
+		session.sendMessage(new TextMessage(new String(bytes, UTF8_CHARSET)));
 	}
 
 	protected void sendErrorMessage(WebSocketSession session, Throwable error) {
@@ -223,7 +257,7 @@ public class StompProtocolHandler implements SubProtocolHandler {
 		Message<?> message = MessageBuilder.withPayloadAndHeaders(new byte[0], headers).build();
 		byte[] bytes = this.stompMessageConverter.fromMessage(message);
 		try {
-			session.sendMessage(new TextMessage(new String(bytes, Charset.forName("UTF-8"))));
+			session.sendMessage(new TextMessage(new String(bytes, UTF8_CHARSET)));
 		}
 		catch (Throwable t) {
 			// ignore
@@ -238,11 +272,14 @@ public class StompProtocolHandler implements SubProtocolHandler {
 
 	@Override
 	public void afterSessionStarted(WebSocketSession session, MessageChannel outputChannel) {
+		this.decoders.put(session.getId(), new StompDecoder());
 	}
 
 	@Override
 	public void afterSessionEnded(WebSocketSession session, CloseStatus closeStatus, MessageChannel outputChannel) {
 
+		this.decoders.remove(session.getId());
+
 		if ((this.queueSuffixResolver != null) && (session.getPrincipal() != null)) {
 			this.queueSuffixResolver.removeQueueSuffix(session.getPrincipal().getName(), session.getId());
 		}
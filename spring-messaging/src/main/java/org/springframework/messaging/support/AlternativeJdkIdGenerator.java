@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.support;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.UUID;
+
+import org.springframework.messaging.MessageHeaders;
+
+/**
+ * A {@link MessageHeaders.IdGenerator} that uses {@link SecureRandom} only for the
+ * initial seed and {@link Random} thereafter, instead of calling
+ * {@link UUID#randomUUID()} which uses {@link SecureRandom} for every id.
+ * The generated ids are random (version 4) UUIDs. This provides a better balance
+ * between securely random ids and performance.
+ *
+ * @author Rossen Stoyanchev
+ * @since 4.0
+ * @see MessageHeaders#setIdGenerator
+ */
+public class AlternativeJdkIdGenerator implements MessageHeaders.IdGenerator {
+
+	private final Random random;
+
+
+	public AlternativeJdkIdGenerator() {
+		this.random = new Random(new SecureRandom().nextLong());
+	}
+
+
+	@Override
+	public UUID generateId() {
+		long mostSigBits = this.random.nextLong();
+		long leastSigBits = this.random.nextLong();
+		mostSigBits = (mostSigBits & 0xFFFFFFFFFFFF0FFFL) | 0x0000000000004000L; // version 4
+		leastSigBits = (leastSigBits & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L; // IETF variant
+		return new UUID(mostSigBits, leastSigBits);
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.support;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.messaging.MessageHeaders;
+
+/**
+ * A {@link MessageHeaders.IdGenerator} that combines a random prefix, chosen once
+ * when the generator is created, with a monotonically increasing counter. Generating
+ * an id costs one atomic increment, so this is the cheapest option when ids only
+ * need to be unique and not unpredictable.
+ *
+ * <p>The most significant 64 bits of each id are the random prefix and the least
+ * significant 64 bits are the counter. Ids are therefore unique across JVMs with
+ * high probability, as long as a single instance is used per JVM.
+ *
+ * @author Rossen Stoyanchev
+ * @since 4.0
+ * @see MessageHeaders#setIdGenerator
+ */
+public class CounterIdGenerator implements MessageHeaders.IdGenerator {
+
+	private final long prefix;
+
+	private final AtomicLong counter = new AtomicLong();
+
+
+	public CounterIdGenerator() {
+		this.prefix = new SecureRandom().nextLong();
+	}
+
+
+	@Override
+	public UUID generateId() {
+		return new UUID(this.prefix, this.counter.incrementAndGet());
+	}
+
+}
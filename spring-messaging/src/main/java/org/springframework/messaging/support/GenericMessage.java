@@ -17,7 +17,6 @@
 package org.springframework.messaging.support;
 
 import java.io.Serializable;
-import java.util.HashMap;
 import java.util.Map;
 
 import org.springframework.messaging.Message;
@@ -62,12 +61,7 @@ public class GenericMessage<T> implements Message<T>, Serializable {
 	 */
 	protected GenericMessage(T payload, Map<String, Object> headers) {
 		Assert.notNull(payload, "payload must not be null");
-		if (headers == null) {
-			headers = new HashMap<String, Object>();
-		}
-		else {
-			headers = new HashMap<String, Object>(headers);
-		}
+		// MessageHeaders copies the given map, no need for a copy here
 		this.headers = new MessageHeaders(headers);
 		this.payload = payload;
 	}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.support;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.Assert;
+
+/**
+ * A bean that installs the configured {@link MessageHeaders.IdGenerator} through
+ * {@link MessageHeaders#setIdGenerator} when initialized, and restores the previous
+ * one when destroyed. This allows selecting the id generation strategy in XML or
+ * Java-based configuration along with the rest of the messaging infrastructure:
+ *
+ * <pre class="code">
+ * &lt;bean class="org.springframework.messaging.support.IdGeneratorConfigurer"&gt;
+ *     &lt;property name="idGenerator"&gt;
+ *         &lt;bean class="org.springframework.messaging.support.AlternativeJdkIdGenerator"/&gt;
+ *     &lt;/property&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ *
+ * <p>Note that the id generator applies to all messages created in the same class
+ * loader, so only one such bean should be present.
+ *
+ * @author Rossen Stoyanchev
+ * @since 4.0
+ */
+public class IdGeneratorConfigurer implements InitializingBean, DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(IdGeneratorConfigurer.class);
+
+	private MessageHeaders.IdGenerator idGenerator = new AlternativeJdkIdGenerator();
+
+	private MessageHeaders.IdGenerator previousIdGenerator;
+
+
+	/**
+	 * Configure the id generator to install.
+	 * <p>By default this is an {@link AlternativeJdkIdGenerator}.
+	 */
+	public void setIdGenerator(MessageHeaders.IdGenerator idGenerator) {
+		Assert.notNull(idGenerator, "idGenerator is required");
+		this.idGenerator = idGenerator;
+	}
+
+	public MessageHeaders.IdGenerator getIdGenerator() {
+		return this.idGenerator;
+	}
+
+
+	@Override
+	public void afterPropertiesSet() {
+		this.previousIdGenerator = MessageHeaders.getIdGenerator();
+		if (this.previousIdGenerator != null && logger.isWarnEnabled()) {
+			logger.warn("Replacing message id generator " + this.previousIdGenerator + " with " + this.idGenerator);
+		}
+		MessageHeaders.setIdGenerator(this.idGenerator);
+	}
+
+	@Override
+	public void destroy() {
+		if (MessageHeaders.getIdGenerator() == this.idGenerator) {
+			MessageHeaders.setIdGenerator(this.previousIdGenerator);
+		}
+	}
+
+}
@@ -20,7 +20,9 @@ import java.util.Map;
 
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
 
 /**
  * A builder for creating {@link GenericMessage} or {@link ErrorMessage} if the payload is
@@ -86,6 +88,35 @@ public final class MessageBuilder<T> {
 		return builder;
 	}
 
+	/**
+	 * Create a copy of the given message that shares its payload and its
+	 * {@link MessageHeaders} instance, including the id and timestamp, and that has
+	 * the given headers in addition. This is useful when delivering one message to
+	 * many recipients, for example broadcasting to subscribers, where each copy
+	 * differs only in a few headers: the headers of the original message are neither
+	 * copied nor is a new id generated for each copy.
+	 * <p>Note that the added headers are not part of {@link Message#getHeaders()} of
+	 * the copy. They are visible through {@link MessageHeaderAccessor} and its
+	 * sub-classes, and through {@link MessageHeaderAccessor#getHeader(Message, String)}.
+	 * A message with a {@link Throwable} payload is copied into a new
+	 * {@link ErrorMessage} instead.
+	 *
+	 * @param message the message to copy
+	 * @param headersToAdd the headers to add, or to replace if already present;
+	 * a {@code null} value removes the header
+	 * @see SharedHeadersMessage
+	 */
+	public static <T> Message<T> copyWithHeaders(Message<T> message, Map<String, ?> headersToAdd) {
+		Assert.notNull(message, "message must not be null");
+		if (message.getPayload() instanceof Throwable) {
+			return fromMessage(message).copyHeaders(headersToAdd).build();
+		}
+		if (CollectionUtils.isEmpty(headersToAdd)) {
+			return message;
+		}
+		return new SharedHeadersMessage<T>(message, headersToAdd);
+	}
+
 	/**
 	 * Set the value for the given header name. If the provided value is {@code null},
 	 * the header will be removed.
@@ -53,6 +53,9 @@ public class MessageHeaderAccessor {
 	// wrapped read-only message headers
 	private final MessageHeaders originalHeaders;
 
+	// additional headers of a wrapped SharedHeadersMessage
+	private final Map<String, Object> additionalHeaders;
+
 	// header updates
 	private final Map<String, Object> headers = new HashMap<String, Object>(4);
 
@@ -62,6 +65,7 @@ public class MessageHeaderAccessor {
 	 */
 	public MessageHeaderAccessor() {
 		this.originalHeaders = null;
+		this.additionalHeaders = null;
 	}
 
 	/**
@@ -69,6 +73,20 @@ public class MessageHeaderAccessor {
 	 */
 	public MessageHeaderAccessor(Message<?> message) {
 		this.originalHeaders = (message != null) ? message.getHeaders() : null;
+		this.additionalHeaders = (message instanceof SharedHeadersMessage) ?
+				((SharedHeadersMessage<?>) message).getAdditionalHeaders() : null;
+	}
+
+
+	/**
+	 * Return the value of the given header of the given message, including the
+	 * additional headers of a {@link SharedHeadersMessage}.
+	 */
+	public static Object getHeader(Message<?> message, String headerName) {
+		if (message instanceof SharedHeadersMessage) {
+			return ((SharedHeadersMessage<?>) message).getHeader(headerName);
+		}
+		return message.getHeaders().get(headerName);
 	}
 
 
@@ -81,8 +99,16 @@ public class MessageHeaderAccessor {
 		if (this.originalHeaders != null) {
 			result.putAll(this.originalHeaders);
 		}
-		for (String key : this.headers.keySet()) {
-			Object value = this.headers.get(key);
+		if (this.additionalHeaders != null) {
+			putAll(result, this.additionalHeaders);
+		}
+		putAll(result, this.headers);
+		return result;
+	}
+
+	private static void putAll(Map<String, Object> result, Map<String, Object> headers) {
+		for (String key : headers.keySet()) {
+			Object value = headers.get(key);
 			if (value == null) {
 				result.remove(key);
 			}
@@ -90,7 +116,6 @@ public class MessageHeaderAccessor {
 				result.put(key, value);
 			}
 		}
-		return result;
 	}
 
 	public boolean isModified() {
@@ -101,6 +126,9 @@ public class MessageHeaderAccessor {
 		if (this.headers.containsKey(headerName)) {
 			return this.headers.get(headerName);
 		}
+		else if ((this.additionalHeaders != null) && this.additionalHeaders.containsKey(headerName)) {
+			return this.additionalHeaders.get(headerName);
+		}
 		else if (this.originalHeaders != null) {
 			return this.originalHeaders.get(headerName);
 		}
@@ -143,6 +171,7 @@ public class MessageHeaderAccessor {
 			if (StringUtils.hasLength(pattern)){
 				if (pattern.contains("*")){
 					headersToRemove.addAll(getMatchingHeaderNames(pattern, this.headers));
+					headersToRemove.addAll(getMatchingHeaderNames(pattern, this.additionalHeaders));
 					headersToRemove.addAll(getMatchingHeaderNames(pattern, this.originalHeaders));
 				}
 				else {
@@ -238,7 +267,7 @@ public class MessageHeaderAccessor {
 	@Override
 	public String toString() {
 		return getClass().getSimpleName() + " [originalHeaders=" + this.originalHeaders
-				+ ", updated headers=" + this.headers + "]";
+				+ ", additional headers=" + this.additionalHeaders + ", updated headers=" + this.headers + "]";
 	}
 
 	protected void verifyType(String headerName, Object headerValue) {
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.support;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * A message that shares the payload and the {@link MessageHeaders} instance of
+ * another message, including its id and timestamp, and that has a few additional
+ * headers of its own. This allows delivering one message to many recipients, each
+ * with different session or subscription headers, without copying the headers
+ * for every recipient.
+ *
+ * <p>The additional headers are <em>not</em> part of {@link #getHeaders()}. They are
+ * visible through {@link MessageHeaderAccessor} and its sub-classes, e.g.
+ * {@code SimpMessageHeaderAccessor.wrap(message)}, and through
+ * {@link MessageHeaderAccessor#getHeader(Message, String)}. A {@code null} value
+ * hides the shared header of the same name.
+ *
+ * @author Rossen Stoyanchev
+ * @since 4.0
+ * @see MessageBuilder#copyWithHeaders(Message, Map)
+ */
+public class SharedHeadersMessage<T> implements Message<T>, Serializable {
+
+	private static final long serialVersionUID = 3471526817213467548L;
+
+
+	private final T payload;
+
+	private final MessageHeaders headers;
+
+	private final Map<String, Object> additionalHeaders;
+
+
+	/**
+	 * Create a message that shares the payload and headers of the given message.
+	 * If the given message is itself a {@code SharedHeadersMessage}, its additional
+	 * headers are carried over, with the given headers on top.
+	 * @param message the message to share the payload and headers of
+	 * @param additionalHeaders the headers to add; a {@code null} value hides the
+	 * shared header of the same name
+	 */
+	public SharedHeadersMessage(Message<T> message, Map<String, ?> additionalHeaders) {
+		Assert.notNull(message, "message must not be null");
+		this.payload = message.getPayload();
+		this.headers = message.getHeaders();
+		Map<String, Object> headers;
+		if (message instanceof SharedHeadersMessage) {
+			headers = new HashMap<String, Object>(((SharedHeadersMessage<T>) message).additionalHeaders);
+			headers.putAll(additionalHeaders);
+		}
+		else {
+			headers = new HashMap<String, Object>(additionalHeaders);
+		}
+		this.additionalHeaders = Collections.unmodifiableMap(headers);
+	}
+
+
+	public T getPayload() {
+		return this.payload;
+	}
+
+	/**
+	 * Return the shared headers, without the additional headers of this message.
+	 */
+	public MessageHeaders getHeaders() {
+		return this.headers;
+	}
+
+	/**
+	 * Return the additional headers of this message.
+	 */
+	public Map<String, Object> getAdditionalHeaders() {
+		return this.additionalHeaders;
+	}
+
+	/**
+	 * Return the value of the given header, looking at the additional headers first.
+	 */
+	public Object getHeader(String headerName) {
+		if (this.additionalHeaders.containsKey(headerName)) {
+			return this.additionalHeaders.get(headerName);
+		}
+		return this.headers.get(headerName);
+	}
+
+	public String toString() {
+		return "[Payload=" + this.payload + "][Headers=" + this.headers +
+				"][AdditionalHeaders=" + this.additionalHeaders + "]";
+	}
+
+	public int hashCode() {
+		return (this.headers.hashCode() * 23 + this.additionalHeaders.hashCode()) * 23 +
+				ObjectUtils.nullSafeHashCode(this.payload);
+	}
+
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj != null && obj instanceof SharedHeadersMessage<?>) {
+			SharedHeadersMessage<?> other = (SharedHeadersMessage<?>) obj;
+			return this.headers.equals(other.headers) && this.additionalHeaders.equals(other.additionalHeaders) &&
+					this.payload.equals(other.payload);
+		}
+		return false;
+	}
+
+}
@@ -23,6 +23,7 @@ import java.util.concurrent.Executor;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.support.MessageHeaderAccessor;
 
 /**
  * A {@link SubscribableChannel} that sends messages to each of its subscribers.
@@ -37,6 +38,8 @@ public class ExecutorSubscribableChannel extends AbstractSubscribableChannel {
 
 	private final Set<MessageHandler> handlers = new CopyOnWriteArraySet<MessageHandler>();
 
+	private String shardKeyHeaderName;
+
 
 	/**
 	 * Create a new {@link ExecutorSubscribableChannel} instance where messages will be sent
@@ -57,6 +60,29 @@ public class ExecutorSubscribableChannel extends AbstractSubscribableChannel {
 	}
 
 
+	/**
+	 * Configure the name of a message header whose value is used to select the lane
+	 * of a {@link ShardedExecutor} on which a message is handled. Messages with the
+	 * same header value are then handled in the order in which they were sent and
+	 * never concurrently, e.g. use
+	 * {@link org.springframework.messaging.simp.SimpMessageHeaderAccessor#SESSION_ID_HEADER}
+	 * to preserve the order of the messages of each client session.
+	 * <p>This property is ignored unless the channel is configured with a
+	 * {@link ShardedExecutor}. By default it is not set and messages are assigned to
+	 * lanes in round-robin fashion.
+	 */
+	public void setShardKeyHeaderName(String shardKeyHeaderName) {
+		this.shardKeyHeaderName = shardKeyHeaderName;
+	}
+
+	/**
+	 * @return the name of the header used to select the lane of a {@link ShardedExecutor}
+	 */
+	public String getShardKeyHeaderName() {
+		return this.shardKeyHeaderName;
+	}
+
+
 	@Override
 	protected boolean hasSubscription(MessageHandler handler) {
 		return this.handlers.contains(handler);
@@ -64,17 +90,27 @@ public class ExecutorSubscribableChannel extends AbstractSubscribableChannel {
 
 	@Override
 	public boolean sendInternal(final Message<?> message, long timeout) {
+		Object shardKey = null;
+		if ((this.shardKeyHeaderName != null) && (this.executor instanceof ShardedExecutor)) {
+			shardKey = MessageHeaderAccessor.getHeader(message, this.shardKeyHeaderName);
+		}
 		for (final MessageHandler handler : this.handlers) {
 			if (this.executor == null) {
 				handler.handleMessage(message);
 			}
 			else {
-				this.executor.execute(new Runnable() {
+				Runnable task = new Runnable() {
 					@Override
 					public void run() {
 						handler.handleMessage(message);
 					}
-				});
+				};
+				if (shardKey != null) {
+					((ShardedExecutor) this.executor).execute(shardKey, task);
+				}
+				else {
+					this.executor.execute(task);
+				}
 			}
 		}
 		return true;
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.support.channel;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.Assert;
+import org.springframework.util.CustomizableThreadCreator;
+
+/**
+ * An {@link Executor} with a fixed number of lanes, each with its own queue and a
+ * single thread consuming from it. Tasks submitted with the same shard key via
+ * {@link #execute(Object, Runnable)} are always assigned to the same lane and are
+ * therefore executed one at a time and in the order of submission.
+ *
+ * <p>Tasks submitted via {@link #execute(Runnable)} are assigned to lanes in
+ * round-robin fashion.
+ *
+ * <p>Queue depth and lane utilization metrics are exposed as JMX attributes when
+ * the executor is exported through an annotation-driven
+ * {@link org.springframework.jmx.export.MBeanExporter}.
+ *
+ * @author Rossen Stoyanchev
+ * @since 4.0
+ * @see ExecutorSubscribableChannel#setShardKeyHeaderName(String)
+ */
+@SuppressWarnings("serial")
+@ManagedResource(description = "Executor that runs tasks with the same shard key in order on a single thread")
+public class ShardedExecutor extends CustomizableThreadCreator implements Executor, DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(ShardedExecutor.class);
+
+	private final Lane[] lanes;
+
+	private final int queueCapacity;
+
+	private final AtomicInteger laneIndex = new AtomicInteger();
+
+	private final AtomicLong rejectedTaskCount = new AtomicLong();
+
+	private volatile boolean shutdown;
+
+
+	/**
+	 * Create an executor with one lane per available processor and unbounded queues.
+	 */
+	public ShardedExecutor() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Create an executor with the given number of lanes and unbounded queues.
+	 */
+	public ShardedExecutor(int laneCount) {
+		this(laneCount, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Create an executor with the given number of lanes.
+	 * @param laneCount the number of lanes, i.e. threads
+	 * @param queueCapacity the maximum number of tasks waiting in a lane; tasks
+	 *        submitted to a full lane are rejected
+	 */
+	public ShardedExecutor(int laneCount, int queueCapacity) {
+		super("sharded-executor-");
+		Assert.isTrue(laneCount > 0, "laneCount must be > 0");
+		Assert.isTrue(queueCapacity > 0, "queueCapacity must be > 0");
+		this.queueCapacity = queueCapacity;
+		this.lanes = new Lane[laneCount];
+		for (int i = 0; i < laneCount; i++) {
+			this.lanes[i] = new Lane(i);
+		}
+	}
+
+
+	/**
+	 * Execute the given task on the next lane in round-robin order.
+	 */
+	@Override
+	public void execute(Runnable task) {
+		int index = (this.laneIndex.getAndIncrement() & Integer.MAX_VALUE) % this.lanes.length;
+		this.lanes[index].execute(task);
+	}
+
+	/**
+	 * Execute the given task on the lane for the given shard key. Tasks with equal
+	 * keys are executed in the order in which they were submitted.
+	 * @param shardKey the key to select a lane with, or {@code null} to select
+	 *        the next lane in round-robin order
+	 * @param task the task to execute
+	 * @throws RejectedExecutionException if the lane's queue is full or if the
+	 *         executor has been shut down
+	 */
+	public void execute(Object shardKey, Runnable task) {
+		if (shardKey == null) {
+			execute(task);
+			return;
+		}
+		int hash = shardKey.hashCode();
+		hash ^= (hash >>> 16);
+		this.lanes[(hash & Integer.MAX_VALUE) % this.lanes.length].execute(task);
+	}
+
+	/**
+	 * Stop all lanes. Tasks still waiting in the queues are not executed.
+	 */
+	public void shutdown() {
+		this.shutdown = true;
+		for (Lane lane : this.lanes) {
+			lane.stop();
+		}
+	}
+
+	@Override
+	public void destroy() {
+		shutdown();
+	}
+
+
+	@ManagedAttribute(description = "The number of lanes")
+	public int getLaneCount() {
+		return this.lanes.length;
+	}
+
+	@ManagedAttribute(description = "The maximum number of tasks waiting in a lane")
+	public int getQueueCapacity() {
+		return this.queueCapacity;
+	}
+
+	@ManagedAttribute(description = "The number of tasks waiting in each lane")
+	public int[] getQueueDepths() {
+		int[] depths = new int[this.lanes.length];
+		for (int i = 0; i < this.lanes.length; i++) {
+			depths[i] = this.lanes[i].queue.size();
+		}
+		return depths;
+	}
+
+	@ManagedAttribute(description = "The number of tasks waiting across all lanes")
+	public int getTotalQueueDepth() {
+		int total = 0;
+		for (Lane lane : this.lanes) {
+			total += lane.queue.size();
+		}
+		return total;
+	}
+
+	@ManagedAttribute(description = "The number of tasks waiting in the most loaded lane")
+	public int getMaxQueueDepth() {
+		int max = 0;
+		for (Lane lane : this.lanes) {
+			max = Math.max(max, lane.queue.size());
+		}
+		return max;
+	}
+
+	@ManagedAttribute(description = "The number of lanes currently executing a task")
+	public int getActiveLaneCount() {
+		int count = 0;
+		for (Lane lane : this.lanes) {
+			if (lane.active) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@ManagedAttribute(description = "The number of lanes with a full queue")
+	public int getSaturatedLaneCount() {
+		int count = 0;
+		for (Lane lane : this.lanes) {
+			if (lane.queue.remainingCapacity() == 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@ManagedAttribute(description = "The number of tasks completed across all lanes")
+	public long getCompletedTaskCount() {
+		long count = 0;
+		for (Lane lane : this.lanes) {
+			count += lane.completedTaskCount.get();
+		}
+		return count;
+	}
+
+	@ManagedAttribute(description = "The number of tasks rejected because of a full queue or shutdown")
+	public long getRejectedTaskCount() {
+		return this.rejectedTaskCount.get();
+	}
+
+
+	private class Lane implements Runnable {
+
+		private final int index;
+
+		private final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>(queueCapacity);
+
+		private final AtomicLong completedTaskCount = new AtomicLong();
+
+		private volatile Thread thread;
+
+		private volatile boolean active;
+
+
+		public Lane(int index) {
+			this.index = index;
+		}
+
+		public void execute(Runnable task) {
+			Assert.notNull(task, "task must not be null");
+			if (shutdown) {
+				rejectedTaskCount.incrementAndGet();
+				throw new RejectedExecutionException("Executor has been shut down");
+			}
+			if (this.thread == null) {
+				startThread();
+			}
+			if (!this.queue.offer(task)) {
+				rejectedTaskCount.incrementAndGet();
+				throw new RejectedExecutionException("Queue of lane " + this.index + " is full");
+			}
+		}
+
+		private synchronized void startThread() {
+			if (this.thread == null && !shutdown) {
+				Thread thread = createThread(this);
+				this.thread = thread;
+				thread.start();
+			}
+		}
+
+		public synchronized void stop() {
+			if (this.thread != null) {
+				this.thread.interrupt();
+			}
+		}
+
+		@Override
+		public void run() {
+			while (!shutdown) {
+				Runnable task;
+				try {
+					task = this.queue.take();
+				}
+				catch (InterruptedException ex) {
+					continue;
+				}
+				this.active = true;
+				try {
+					task.run();
+				}
+				catch (Throwable ex) {
+					logger.error("Task failed in lane " + this.index, ex);
+				}
+				finally {
+					this.active = false;
+					this.completedTaskCount.incrementAndGet();
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.handler.method;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.GeneratedMethodInvoker;
+import org.springframework.core.MethodParameter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test fixture for {@link InvocableHandlerMethod} unit tests.
+ *
+ * @author Rossen Stoyanchev
+ */
+public class InvocableHandlerMethodTests {
+
+	private InvocableHandlerMethod handlerMethod;
+
+	private Message<?> message;
+
+
+	@Before
+	public void setUp() throws Exception {
+		Method method = Handler.class.getDeclaredMethod("handle", Integer.class, String.class);
+		this.handlerMethod = new InvocableHandlerMethod(new Handler(), method);
+		this.message = MessageBuilder.withPayload("payload").build();
+	}
+
+	@Test
+	public void resolveArg() throws Exception {
+		StubArgumentResolver intResolver = new StubArgumentResolver(Integer.class, 99);
+		StubArgumentResolver stringResolver = new StubArgumentResolver(String.class, "value");
+		this.handlerMethod.setMessageMethodArgumentResolvers(createResolvers(intResolver, stringResolver));
+
+		assertEquals("99-value", this.handlerMethod.invoke(this.message));
+		assertEquals(1, intResolver.getResolvedParameters().size());
+		assertEquals(1, stringResolver.getResolvedParameters().size());
+	}
+
+	@Test
+	public void cannotResolveArg() throws Exception {
+		try {
+			this.handlerMethod.invoke(this.message);
+			fail("Expected exception");
+		}
+		catch (IllegalStateException ex) {
+			assertTrue(ex.getMessage().contains("No suitable resolver for argument [0] [type=java.lang.Integer]"));
+		}
+	}
+
+	@Test
+	public void generatedInvoker() throws Exception {
+		StubArgumentResolver intResolver = new StubArgumentResolver(Integer.class, 99);
+		StubArgumentResolver stringResolver = new StubArgumentResolver(String.class, "value");
+		InvocableHandlerMethod handlerMethod = createPublicHandlerMethod(intResolver, stringResolver);
+
+		assertEquals("99-value", handlerMethod.invoke(this.message));
+		assertEquals("99-value", handlerMethod.invoke(this.message));
+		assertEquals(2, intResolver.getResolvedParameters().size());
+		assertEquals(2, stringResolver.getResolvedParameters().size());
+
+		assertEquals("2-value", handlerMethod.invoke(this.message, 2));
+		assertEquals(2, intResolver.getResolvedParameters().size());
+		assertNotNull(GeneratedMethodInvoker.forMethod(handlerMethod.getBridgedMethod()));
+	}
+
+	@Test
+	public void generatedInvokerWithNonPublicHandler() throws Exception {
+		this.handlerMethod.setMessageMethodArgumentResolvers(createResolvers(
+				new StubArgumentResolver(Integer.class, 99), new StubArgumentResolver(String.class, "value")));
+		this.handlerMethod.setUseGeneratedInvoker(true);
+
+		assertEquals("99-value", this.handlerMethod.invoke(this.message));
+		assertNull(GeneratedMethodInvoker.forMethod(this.handlerMethod.getBridgedMethod()));
+	}
+
+	@Test
+	public void generatedInvokerCannotResolveArg() throws Exception {
+		InvocableHandlerMethod handlerMethod = createPublicHandlerMethod(new StubArgumentResolver(String.class, "value"));
+		try {
+			handlerMethod.invoke(this.message);
+			fail("Expected exception");
+		}
+		catch (IllegalStateException ex) {
+			assertTrue(ex.getMessage().contains("No suitable resolver for argument [0] [type=java.lang.Integer]"));
+		}
+	}
+
+	@Test
+	public void generatedInvokerIllegalArgumentException() throws Exception {
+		InvocableHandlerMethod handlerMethod = createPublicHandlerMethod(
+				new StubArgumentResolver(Integer.class, "__invalid__"), new StubArgumentResolver(String.class, "value"));
+		try {
+			handlerMethod.invoke(this.message);
+			fail("Expected exception");
+		}
+		catch (IllegalArgumentException ex) {
+			assertTrue(ex.getCause() instanceof IllegalArgumentException);
+			assertTrue(ex.getMessage().contains("[0] [type=java.lang.String] [value=__invalid__]"));
+		}
+	}
+
+	@Test
+	public void generatedInvokerInvocationTargetException() throws Exception {
+		InvocableHandlerMethod handlerMethod = createExceptionRaisingHandlerMethod(new Exception("error"));
+		try {
+			handlerMethod.invoke(this.message);
+			fail("Expected exception");
+		}
+		catch (Exception ex) {
+			assertEquals("error", ex.getMessage());
+			assertEquals(Exception.class, ex.getClass());
+		}
+
+		handlerMethod = createExceptionRaisingHandlerMethod(new IllegalStateException("error"));
+		try {
+			handlerMethod.invoke(this.message);
+			fail("Expected exception");
+		}
+		catch (IllegalStateException ex) {
+			assertEquals("error", ex.getMessage());
+		}
+
+		Throwable expected = new Throwable("error");
+		handlerMethod = createExceptionRaisingHandlerMethod(expected);
+		try {
+			handlerMethod.invoke(this.message);
+			fail("Expected exception");
+		}
+		catch (IllegalStateException ex) {
+			assertSame(expected, ex.getCause());
+			assertTrue(ex.getMessage().contains("Failed to invoke controller method"));
+		}
+	}
+
+
+	private HandlerMethodArgumentResolverComposite createResolvers(HandlerMethodArgumentResolver... resolvers) {
+		HandlerMethodArgumentResolverComposite composite = new HandlerMethodArgumentResolverComposite();
+		for (HandlerMethodArgumentResolver resolver : resolvers) {
+			composite.addResolver(resolver);
+		}
+		return composite;
+	}
+
+	private InvocableHandlerMethod createPublicHandlerMethod(HandlerMethodArgumentResolver... resolvers)
+			throws Exception {
+
+		Method method = PublicHandler.class.getMethod("handle", Integer.class, String.class);
+		InvocableHandlerMethod handlerMethod = new InvocableHandlerMethod(new PublicHandler(), method);
+		handlerMethod.setMessageMethodArgumentResolvers(createResolvers(resolvers));
+		handlerMethod.setUseGeneratedInvoker(true);
+		return handlerMethod;
+	}
+
+	private InvocableHandlerMethod createExceptionRaisingHandlerMethod(Throwable t) throws Exception {
+		Method method = ExceptionRaisingHandler.class.getMethod("raiseException");
+		InvocableHandlerMethod handlerMethod = new InvocableHandlerMethod(new ExceptionRaisingHandler(t), method);
+		handlerMethod.setUseGeneratedInvoker(true);
+		return handlerMethod;
+	}
+
+
+	@SuppressWarnings("unused")
+	private static class Handler {
+
+		public String handle(Integer intArg, String stringArg) {
+			return intArg + "-" + stringArg;
+		}
+	}
+
+	public static class PublicHandler {
+
+		public String handle(Integer intArg, String stringArg) {
+			return intArg + "-" + stringArg;
+		}
+	}
+
+	public static class ExceptionRaisingHandler {
+
+		private final Throwable t;
+
+		public ExceptionRaisingHandler(Throwable t) {
+			this.t = t;
+		}
+
+		public void raiseException() throws Throwable {
+			throw this.t;
+		}
+	}
+
+	private static class StubArgumentResolver implements HandlerMethodArgumentResolver {
+
+		private final Class<?> parameterType;
+
+		private final Object stubValue;
+
+		private final List<MethodParameter> resolvedParameters = new ArrayList<MethodParameter>();
+
+		public StubArgumentResolver(Class<?> parameterType, Object stubValue) {
+			this.parameterType = parameterType;
+			this.stubValue = stubValue;
+		}
+
+		public List<MethodParameter> getResolvedParameters() {
+			return this.resolvedParameters;
+		}
+
+		@Override
+		public boolean supportsParameter(MethodParameter parameter) {
+			return parameter.getParameterType().equals(this.parameterType);
+		}
+
+		@Override
+		public Object resolveArgument(MethodParameter parameter, Message<?> message) throws Exception {
+			this.resolvedParameters.add(parameter);
+			return this.stubValue;
+		}
+	}
+
+}
@@ -17,14 +17,30 @@
 package org.springframework.messaging.handler.websocket;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatcher;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.support.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.support.ConcurrentWebSocketSessionDecorator.OverflowPolicy;
 import org.springframework.web.socket.support.TestWebSocketSession;
+import org.springframework.web.socket.support.WebSocketSessionDecorator;
 
+import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 
@@ -68,8 +84,8 @@ public class SubProtocolWebSocketHandlerTests {
 		this.session.setAcceptedProtocol("sToMp");
 		this.webSocketHandler.afterConnectionEstablished(session);
 
-		verify(this.stompHandler).afterSessionStarted(session, this.channel);
-		verify(this.mqttHandler, times(0)).afterSessionStarted(session, this.channel);
+		verify(this.stompHandler).afterSessionStarted(decorated(session), eq(this.channel));
+		verify(this.mqttHandler, times(0)).afterSessionStarted(decorated(session), eq(this.channel));
 	}
 
 	@Test
@@ -78,7 +94,7 @@ public class SubProtocolWebSocketHandlerTests {
 		this.session.setAcceptedProtocol("sToMp");
 		this.webSocketHandler.afterConnectionEstablished(session);
 
-		verify(this.stompHandler).afterSessionStarted(session, this.channel);
+		verify(this.stompHandler).afterSessionStarted(decorated(session), eq(this.channel));
 	}
 
 	@Test(expected=IllegalStateException.class)
@@ -95,9 +111,9 @@ public class SubProtocolWebSocketHandlerTests {
 		this.webSocketHandler.setDefaultProtocolHandler(defaultHandler);
 		this.webSocketHandler.afterConnectionEstablished(session);
 
-		verify(this.defaultHandler).afterSessionStarted(session, this.channel);
-		verify(this.stompHandler, times(0)).afterSessionStarted(session, this.channel);
-		verify(this.mqttHandler, times(0)).afterSessionStarted(session, this.channel);
+		verify(this.defaultHandler).afterSessionStarted(decorated(session), eq(this.channel));
+		verify(this.stompHandler, times(0)).afterSessionStarted(decorated(session), eq(this.channel));
+		verify(this.mqttHandler, times(0)).afterSessionStarted(decorated(session), eq(this.channel));
 	}
 
 	@Test
@@ -105,7 +121,7 @@ public class SubProtocolWebSocketHandlerTests {
 		this.webSocketHandler.setProtocolHandlers(Arrays.asList(stompHandler));
 		this.webSocketHandler.afterConnectionEstablished(session);
 
-		verify(this.stompHandler).afterSessionStarted(session, this.channel);
+		verify(this.stompHandler).afterSessionStarted(decorated(session), eq(this.channel));
 	}
 
 	@Test(expected=IllegalStateException.class)
@@ -120,4 +136,96 @@ public class SubProtocolWebSocketHandlerTests {
 		this.webSocketHandler.afterConnectionEstablished(session);
 	}
 
+	@Test
+	public void handleBatchMessage() throws Exception {
+		this.webSocketHandler.setProtocolHandlers(Arrays.asList(stompHandler));
+		this.webSocketHandler.afterConnectionEstablished(session);
+
+		MultiValueMap<String, String> sessionSubscriptions = new LinkedMultiValueMap<String, String>();
+		sessionSubscriptions.add("1", "sub1");
+		sessionSubscriptions.add("1", "sub2");
+		sessionSubscriptions.add("2", "sub1");
+
+		SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create();
+		headers.setDestination("/foo");
+		headers.setSessionSubscriptions(sessionSubscriptions);
+		Message<String> message = MessageBuilder.withPayload("payload").copyHeaders(headers.toMap()).build();
+		this.webSocketHandler.handleMessage(message);
+
+		@SuppressWarnings("rawtypes")
+		ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+		verify(this.stompHandler, times(2)).handleMessageToClient(decorated(this.session), captor.capture());
+
+		List<Message> actual = captor.getAllValues();
+		assertEquals("sub1", SimpMessageHeaderAccessor.wrap(actual.get(0)).getSubscriptionId());
+		assertEquals("sub2", SimpMessageHeaderAccessor.wrap(actual.get(1)).getSubscriptionId());
+		for (Message<?> sessionMessage : actual) {
+			headers = SimpMessageHeaderAccessor.wrap(sessionMessage);
+			assertEquals("1", headers.getSessionId());
+			assertEquals("/foo", headers.getDestination());
+			assertNull(headers.getSessionSubscriptions());
+			assertSame(message.getPayload(), sessionMessage.getPayload());
+			assertSame(message.getHeaders(), sessionMessage.getHeaders());
+		}
+	}
+
+	@Test
+	public void handleBatchMessageWithSharedHeaders() throws Exception {
+		this.webSocketHandler.setProtocolHandlers(Arrays.asList(stompHandler));
+		this.webSocketHandler.afterConnectionEstablished(session);
+
+		SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create();
+		headers.setDestination("/foo");
+		Message<String> message = MessageBuilder.withPayload("payload").copyHeaders(headers.toMap()).build();
+
+		MultiValueMap<String, String> sessionSubscriptions = new LinkedMultiValueMap<String, String>();
+		sessionSubscriptions.add("1", "sub1");
+		Map<String, Object> batchHeaders = new HashMap<String, Object>();
+		batchHeaders.put(SimpMessageHeaderAccessor.SESSION_SUBSCRIPTIONS_HEADER, sessionSubscriptions);
+		this.webSocketHandler.handleMessage(MessageBuilder.copyWithHeaders(message, batchHeaders));
+
+		@SuppressWarnings("rawtypes")
+		ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+		verify(this.stompHandler).handleMessageToClient(decorated(this.session), captor.capture());
+
+		Message<?> sessionMessage = captor.getValue();
+		headers = SimpMessageHeaderAccessor.wrap(sessionMessage);
+		assertEquals("1", headers.getSessionId());
+		assertEquals("sub1", headers.getSubscriptionId());
+		assertNull(headers.getSessionSubscriptions());
+		assertSame(message.getHeaders(), sessionMessage.getHeaders());
+	}
+
+	@Test
+	public void sessionDecoratedWithSendLimits() throws Exception {
+		this.webSocketHandler.setProtocolHandlers(Arrays.asList(stompHandler));
+		this.webSocketHandler.setSendTimeLimit(5000);
+		this.webSocketHandler.setSendBufferSizeLimit(1024);
+		this.webSocketHandler.setSendBufferOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+		this.webSocketHandler.afterConnectionEstablished(session);
+
+		ArgumentCaptor<WebSocketSession> captor = ArgumentCaptor.forClass(WebSocketSession.class);
+		verify(this.stompHandler).afterSessionStarted(captor.capture(), eq(this.channel));
+		ConcurrentWebSocketSessionDecorator decorator = (ConcurrentWebSocketSessionDecorator) captor.getValue();
+		assertSame(this.session, decorator.getDelegate());
+		assertEquals(5000, decorator.getSendTimeLimit());
+		assertEquals(1024, decorator.getBufferSizeLimit());
+		assertEquals(OverflowPolicy.DROP_OLDEST, decorator.getOverflowPolicy());
+
+		TextMessage textMessage = new TextMessage("foo");
+		this.webSocketHandler.handleMessage(this.session, textMessage);
+		verify(this.stompHandler).handleMessageFromClient(decorator, textMessage, this.channel);
+	}
+
+
+	private WebSocketSession decorated(final WebSocketSession session) {
+		return argThat(new ArgumentMatcher<WebSocketSession>() {
+			@Override
+			public boolean matches(Object argument) {
+				return ((argument instanceof WebSocketSessionDecorator) &&
+						((WebSocketSessionDecorator) argument).getLastSession() == session);
+			}
+		});
+	}
+
 }
@@ -16,6 +16,10 @@
 
 package org.springframework.messaging.simp.handler;
 
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.apache.commons.logging.LogFactory;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -24,10 +28,17 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StopWatch;
 
+import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 
@@ -105,6 +116,88 @@ public class SimpleBrokerMessageHandlerTests {
 		assertCapturedMessage(sess2, "sub3", "/bar");
 	}
 
+	@Test
+	public void subcribePublishWithSharedHeaders() {
+
+		this.messageHandler.setShareMessageHeaders(true);
+
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub1", "/foo"));
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub2", "/foo"));
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess2", "sub1", "/foo"));
+
+		Message<String> message = createMessage("/foo", "message1");
+		this.messageHandler.handleMessage(message);
+
+		verify(this.clientChannel, times(3)).send(this.messageCaptor.capture());
+		assertTrue(assertCapturedMessage("sess1", "sub1", "/foo"));
+		assertTrue(assertCapturedMessage("sess1", "sub2", "/foo"));
+		assertTrue(assertCapturedMessage("sess2", "sub1", "/foo"));
+
+		for (Message<?> captured : this.messageCaptor.getAllValues()) {
+			assertSame(message.getPayload(), captured.getPayload());
+			assertEquals("/foo", captured.getHeaders().get(SimpMessageHeaderAccessor.DESTINATION_HEADER));
+			assertSame(message.getHeaders(), captured.getHeaders());
+		}
+	}
+
+	@Test
+	public void subcribePublishInBatches() {
+
+		this.messageHandler.setFanOutBatchSize(2);
+
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub1", "/foo"));
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub2", "/foo"));
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess2", "sub1", "/foo"));
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess3", "sub1", "/foo"));
+
+		this.messageHandler.handleMessage(createMessage("/foo", "message1"));
+
+		verify(this.clientChannel, times(2)).send(this.messageCaptor.capture());
+
+		MultiValueMap<String, String> actual = new LinkedMultiValueMap<String, String>();
+		for (Message<?> captured : this.messageCaptor.getAllValues()) {
+			SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(captured);
+			assertNull(headers.getSessionId());
+			assertEquals("/foo", headers.getDestination());
+			actual.putAll(headers.getSessionSubscriptions());
+		}
+		assertEquals(3, actual.size());
+		assertEquals(new HashSet<String>(Arrays.asList("sub1", "sub2")), new HashSet<String>(actual.get("sess1")));
+		assertEquals(Arrays.asList("sub1"), actual.get("sess2"));
+		assertEquals(Arrays.asList("sub1"), actual.get("sess3"));
+	}
+
+	@Test
+	public void fanOutPerformance() {
+		Assume.group(TestGroup.PERFORMANCE);
+
+		for (int subscriberCount : new int[] { 1000, 10000, 100000 }) {
+			StopWatch stopWatch = new StopWatch("Fan-out to " + subscriberCount + " subscribers");
+			for (int mode = 0; mode < 3; mode++) {
+				Message<String> message = createMessage("/topic/foo", "message");
+				CountingMessageChannel channel = new CountingMessageChannel(message.getHeaders());
+				SimpleBrokerMessageHandler handler = new SimpleBrokerMessageHandler(channel);
+				handler.setShareMessageHeaders(mode > 0);
+				handler.setFanOutBatchSize(mode > 1 ? 1000 : 0);
+				for (int i = 0; i < subscriberCount; i++) {
+					handler.handleMessage(createSubscriptionMessage("sess" + i, "sub1", "/topic/foo"));
+				}
+				int iterations = 1000000 / subscriberCount;
+				for (int i = 0; i < iterations / 10; i++) {
+					handler.handleMessage(message); // warm-up
+				}
+				stopWatch.start(mode == 0 ? "new headers" : (mode == 1 ? "shared headers" : "batches of 1000"));
+				for (int i = 0; i < iterations; i++) {
+					handler.handleMessage(message);
+				}
+				stopWatch.stop();
+				assertTrue(channel.count > 0);
+				assertEquals((mode > 0 ? channel.count : 0), channel.sharedHeadersCount);
+			}
+			LogFactory.getLog(getClass()).info(stopWatch.prettyPrint());
+		}
+	}
+
 
 	protected Message<String> createSubscriptionMessage(String sessionId, String subcriptionId, String destination) {
 
@@ -138,4 +231,33 @@ public class SimpleBrokerMessageHandlerTests {
 		return false;
 	}
 
+
+
+	private static class CountingMessageChannel implements MessageChannel {
+
+		private final MessageHeaders publishedHeaders;
+
+		private long count;
+
+		private long sharedHeadersCount;
+
+		public CountingMessageChannel(MessageHeaders publishedHeaders) {
+			this.publishedHeaders = publishedHeaders;
+		}
+
+		@Override
+		public boolean send(Message<?> message) {
+			this.count++;
+			if (message.getHeaders() == this.publishedHeaders) {
+				this.sharedHeadersCount++;
+			}
+			return true;
+		}
+
+		@Override
+		public boolean send(Message<?> message, long timeout) {
+			return send(message);
+		}
+	}
+
 }
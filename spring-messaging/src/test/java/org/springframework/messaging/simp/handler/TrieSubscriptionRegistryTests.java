@@ -0,0 +1,311 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.handler;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MultiValueMap;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Test fixture for {@link TrieSubscriptionRegistry}.
+ *
+ * @author Rossen Stoyanchev
+ */
+public class TrieSubscriptionRegistryTests {
+
+	private TrieSubscriptionRegistry registry;
+
+
+	@Before
+	public void setup() {
+		this.registry = new TrieSubscriptionRegistry();
+	}
+
+
+	@Test
+	public void registerSubscriptionInvalidInput() {
+
+		String sessId = "sess01";
+		String subsId = "subs01";
+		String dest = "/foo";
+
+		this.registry.registerSubscription(subscribeMessage(null, subsId, dest));
+		assertEquals(0, this.registry.findSubscriptions(message(dest)).size());
+
+		this.registry.registerSubscription(subscribeMessage(sessId, null, dest));
+		assertEquals(0, this.registry.findSubscriptions(message(dest)).size());
+
+		this.registry.registerSubscription(subscribeMessage(sessId, subsId, null));
+		assertEquals(0, this.registry.findSubscriptions(message(dest)).size());
+	}
+
+	@Test
+	public void registerSubscription() {
+
+		String sessId = "sess01";
+		String subsId = "subs01";
+		String dest = "/foo";
+
+		this.registry.registerSubscription(subscribeMessage(sessId, subsId, dest));
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(message(dest));
+
+		assertEquals("Expected one element " + actual, 1, actual.size());
+		assertEquals(Arrays.asList(subsId), actual.get(sessId));
+	}
+
+	@Test
+	public void registerSubscriptionOneSession() {
+
+		String sessId = "sess01";
+		List<String> subscriptionIds = Arrays.asList("subs01", "subs02", "subs03");
+		String dest = "/foo";
+
+		for (String subId : subscriptionIds) {
+			this.registry.registerSubscription(subscribeMessage(sessId, subId, dest));
+		}
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(message(dest));
+
+		assertEquals("Expected one element " + actual, 1, actual.size());
+		assertEquals(subscriptionIds, sort(actual.get(sessId)));
+	}
+
+	@Test
+	public void registerSubscriptionMultipleSessions() {
+
+		List<String> sessIds = Arrays.asList("sess01", "sess02", "sess03");
+		List<String> subscriptionIds = Arrays.asList("subs01", "subs02", "subs03");
+		String dest = "/foo";
+
+		for (String sessId : sessIds) {
+			for (String subsId : subscriptionIds) {
+				this.registry.registerSubscription(subscribeMessage(sessId, subsId, dest));
+			}
+		}
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(message(dest));
+
+		assertEquals("Expected three elements " + actual, 3, actual.size());
+		assertEquals(subscriptionIds, sort(actual.get(sessIds.get(0))));
+		assertEquals(subscriptionIds, sort(actual.get(sessIds.get(1))));
+		assertEquals(subscriptionIds, sort(actual.get(sessIds.get(2))));
+	}
+
+	@Test
+	public void registerSubscriptionWithDestinationPattern() {
+
+		String sessId = "sess01";
+		String subsId = "subs01";
+		String destPattern = "/topic/PRICE.STOCK.*.IBM";
+		String dest = "/topic/PRICE.STOCK.NASDAQ.IBM";
+
+		this.registry.registerSubscription(subscribeMessage(sessId, subsId, destPattern));
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(message(dest));
+
+		assertEquals("Expected one element " + actual, 1, actual.size());
+		assertEquals(Arrays.asList(subsId), actual.get(sessId));
+	}
+
+	@Test
+	public void registerSubscriptionWithDestinationPatternRegex() {
+
+		String sessId = "sess01";
+		String subsId = "subs01";
+		String destPattern = "/topic/PRICE.STOCK.*.{ticker:(IBM|MSFT)}";
+
+		this.registry.registerSubscription(subscribeMessage(sessId, subsId, destPattern));
+		Message<?> message = message("/topic/PRICE.STOCK.NASDAQ.IBM");
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(message);
+
+		assertEquals("Expected one element " + actual, 1, actual.size());
+		assertEquals(Arrays.asList(subsId), actual.get(sessId));
+
+		message = message("/topic/PRICE.STOCK.NASDAQ.MSFT");
+		actual = this.registry.findSubscriptions(message);
+
+		assertEquals("Expected one element " + actual, 1, actual.size());
+		assertEquals(Arrays.asList(subsId), actual.get(sessId));
+
+		message = message("/topic/PRICE.STOCK.NASDAQ.VMW");
+		actual = this.registry.findSubscriptions(message);
+
+		assertEquals("Expected no elements " + actual, 0, actual.size());
+	}
+
+	@Test
+	public void unregisterSubscription() {
+
+		List<String> sessIds = Arrays.asList("sess01", "sess02", "sess03");
+		List<String> subscriptionIds = Arrays.asList("subs01", "subs02", "subs03");
+		String dest = "/foo";
+
+		for (String sessId : sessIds) {
+			for (String subsId : subscriptionIds) {
+				this.registry.registerSubscription(subscribeMessage(sessId, subsId, dest));
+			}
+		}
+
+		this.registry.unregisterSubscription(unsubscribeMessage(sessIds.get(0), subscriptionIds.get(0)));
+		this.registry.unregisterSubscription(unsubscribeMessage(sessIds.get(0), subscriptionIds.get(1)));
+		this.registry.unregisterSubscription(unsubscribeMessage(sessIds.get(0), subscriptionIds.get(2)));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(message(dest));
+
+		assertEquals("Expected three elements " + actual, 2, actual.size());
+		assertEquals(subscriptionIds, sort(actual.get(sessIds.get(1))));
+		assertEquals(subscriptionIds, sort(actual.get(sessIds.get(2))));
+	}
+
+	@Test
+	public void unregisterAllSubscriptions() {
+
+		List<String> sessIds = Arrays.asList("sess01", "sess02", "sess03");
+		List<String> subscriptionIds = Arrays.asList("subs01", "subs02", "subs03");
+		String dest = "/foo";
+
+		for (String sessId : sessIds) {
+			for (String subsId : subscriptionIds) {
+				this.registry.registerSubscription(subscribeMessage(sessId, subsId, dest));
+			}
+		}
+
+		this.registry.unregisterAllSubscriptions(sessIds.get(0));
+		this.registry.unregisterAllSubscriptions(sessIds.get(1));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(message(dest));
+
+		assertEquals("Expected three elements " + actual, 1, actual.size());
+		assertEquals(subscriptionIds, sort(actual.get(sessIds.get(2))));
+	}
+
+	@Test
+	public void unregisterAllSubscriptionsNoMatch() {
+		this.registry.unregisterAllSubscriptions("bogus");
+		// no exceptions
+	}
+
+	@Test
+	public void findSubscriptionsNoMatches() {
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(message("/foo"));
+		assertEquals("Expected no elements " + actual, 0, actual.size());
+	}
+
+	@Test
+	public void registerSubscriptionWithMultiSegmentPattern() {
+
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/topic/**"));
+		this.registry.registerSubscription(subscribeMessage("sess02", "subs01", "/topic/**/IBM"));
+		this.registry.registerSubscription(subscribeMessage("sess03", "subs01", "/topic/*/IBM"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(message("/topic/NASDAQ/IBM"));
+		assertEquals("Expected three elements " + actual, 3, actual.size());
+
+		actual = this.registry.findSubscriptions(message("/topic/IBM"));
+		assertEquals("Expected two elements " + actual, 2, actual.size());
+		assertEquals(Arrays.asList("subs01"), actual.get("sess01"));
+		assertEquals(Arrays.asList("subs01"), actual.get("sess02"));
+
+		actual = this.registry.findSubscriptions(message("/queue/IBM"));
+		assertEquals("Expected no elements " + actual, 0, actual.size());
+	}
+
+	@Test
+	public void registerSubscriptionWithPatternAndDestination() {
+
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/topic/*"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "/topic/foo"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(message("/topic/foo"));
+		assertEquals("Expected one element " + actual, 1, actual.size());
+		assertEquals(Arrays.asList("subs01", "subs02"), sort(actual.get("sess01")));
+	}
+
+	@Test
+	public void resolvedDestinationsInvalidatedOnSubscriptionChange() {
+
+		String dest = "/topic/PRICE.STOCK.NASDAQ.IBM";
+
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/topic/*"));
+		assertEquals(1, this.registry.findSubscriptions(message(dest)).size());
+
+		this.registry.registerSubscription(subscribeMessage("sess02", "subs01", "/topic/PRICE.STOCK.*.IBM"));
+		assertEquals(2, this.registry.findSubscriptions(message(dest)).size());
+
+		this.registry.registerSubscription(subscribeMessage("sess03", "subs01", "/topic/*"));
+		assertEquals(3, this.registry.findSubscriptions(message(dest)).size());
+
+		this.registry.unregisterSubscription(unsubscribeMessage("sess02", "subs01"));
+		assertEquals(2, this.registry.findSubscriptions(message(dest)).size());
+
+		this.registry.unregisterAllSubscriptions("sess01");
+		this.registry.unregisterAllSubscriptions("sess03");
+		assertEquals(0, this.registry.findSubscriptions(message(dest)).size());
+	}
+
+	@Test
+	public void cacheLimit() {
+
+		this.registry.setCacheLimit(2);
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/topic/*"));
+
+		for (int i = 0; i < 10; i++) {
+			MultiValueMap<String, String> actual = this.registry.findSubscriptions(message("/topic/" + i));
+			assertEquals("Expected one element " + actual, 1, actual.size());
+		}
+	}
+
+
+	private Message<?> subscribeMessage(String sessionId, String subscriptionId, String destination) {
+		SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+		headers.setSessionId(sessionId);
+		headers.setSubscriptionId(subscriptionId);
+		if (destination != null) {
+			headers.setDestination(destination);
+		}
+		return MessageBuilder.withPayload("").copyHeaders(headers.toMap()).build();
+	}
+
+	private Message<?> unsubscribeMessage(String sessionId, String subscriptionId) {
+		SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+		headers.setSessionId(sessionId);
+		headers.setSubscriptionId(subscriptionId);
+		return MessageBuilder.withPayload("").copyHeaders(headers.toMap()).build();
+	}
+
+	private Message<?> message(String destination) {
+		SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create();
+		headers.setDestination(destination);
+		return MessageBuilder.withPayload("").copyHeaders(headers.toMap()).build();
+	}
+
+	private List<String> sort(List<String> list) {
+		Collections.sort(list);
+		return list;
+	}
+
+}
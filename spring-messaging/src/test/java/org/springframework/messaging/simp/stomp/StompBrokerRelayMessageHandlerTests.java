@@ -0,0 +1,392 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.stomp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import reactor.core.composable.Promise;
+import reactor.core.composable.Stream;
+import reactor.function.Consumer;
+import reactor.tcp.TcpClient;
+import reactor.tcp.TcpConnection;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+
+/**
+ * Test fixture for {@link StompBrokerRelayMessageHandler} with client sessions
+ * multiplexed over shared broker connections.
+ *
+ * @author Rossen Stoyanchev
+ */
+public class StompBrokerRelayMessageHandlerTests {
+
+	private StompBrokerRelayMessageHandler relay;
+
+	private MessageChannel clientChannel;
+
+	private TcpClient<Message<byte[]>, Message<?>> tcpClient;
+
+	private List<TestConnection> connections;
+
+
+	@SuppressWarnings("unchecked")
+	@Before
+	public void setup() {
+		this.clientChannel = mock(MessageChannel.class);
+		this.tcpClient = mock(TcpClient.class);
+		this.connections = new ArrayList<TestConnection>();
+
+		when(this.tcpClient.open()).thenAnswer(new Answer<Promise<TcpConnection<Message<byte[]>, Message<?>>>>() {
+			@Override
+			public Promise<TcpConnection<Message<byte[]>, Message<?>>> answer(InvocationOnMock invocation) {
+				TestConnection connection = new TestConnection();
+				connections.add(connection);
+				return connection.promise;
+			}
+		});
+		when(this.tcpClient.close()).thenReturn(mock(Promise.class));
+
+		this.relay = new StompBrokerRelayMessageHandler(this.clientChannel, Arrays.asList("/topic"));
+		this.relay.setTcpClient(this.tcpClient);
+		this.relay.setSharedConnectionCount(1);
+	}
+
+	@After
+	public void tearDown() {
+		if (this.relay.isRunning()) {
+			this.relay.stop();
+		}
+	}
+
+
+	@Test
+	public void multiplexClientSessions() {
+
+		TestConnection connection = startAndConnectSharedConnection();
+		assertEquals(StompCommand.CONNECT, connection.getSentCommand(0));
+
+		this.relay.handleMessage(createClientMessage("sess1", StompCommand.CONNECT, null, null));
+		this.relay.handleMessage(createClientMessage("sess2", StompCommand.CONNECT, null, null));
+		this.relay.handleMessage(createClientMessage("sess1", StompCommand.SUBSCRIBE, "sub1", "/topic/foo"));
+		this.relay.handleMessage(createClientMessage("sess2", StompCommand.SUBSCRIBE, "sub1", "/topic/foo"));
+
+		assertEquals("Client CONNECT frames must not be forwarded", 3, connection.sent.size());
+		StompHeaderAccessor subscribe1 = StompHeaderAccessor.wrap(connection.sent.get(1));
+		StompHeaderAccessor subscribe2 = StompHeaderAccessor.wrap(connection.sent.get(2));
+		assertEquals(StompCommand.SUBSCRIBE, subscribe1.getCommand());
+		assertEquals(StompCommand.SUBSCRIBE, subscribe2.getCommand());
+		String brokerSub1 = subscribe1.getFirstNativeHeader(StompHeaderAccessor.STOMP_ID_HEADER);
+		String brokerSub2 = subscribe2.getFirstNativeHeader(StompHeaderAccessor.STOMP_ID_HEADER);
+		assertFalse(brokerSub1.equals(brokerSub2));
+
+		connection.receive(createBrokerMessage(brokerSub2, "/topic/foo"));
+		connection.receive(createBrokerMessage(brokerSub1, "/topic/foo"));
+
+		List<Message<?>> received = captureClientMessages(2);
+		assertClientMessage(received.get(0), StompCommand.MESSAGE, "sess2", "sub1");
+		assertClientMessage(received.get(1), StompCommand.MESSAGE, "sess1", "sub1");
+		assertEquals("Expected system and shared connection only", 2, this.connections.size());
+	}
+
+	@Test
+	public void routeReceipts() {
+
+		TestConnection connection = startAndConnectSharedConnection();
+
+		this.relay.handleMessage(createClientMessage("sess1", StompCommand.CONNECT, null, null));
+		this.relay.handleMessage(createClientMessage("sess2", StompCommand.CONNECT, null, null));
+
+		for (String sessionId : Arrays.asList("sess1", "sess2")) {
+			StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.SEND);
+			headers.setSessionId(sessionId);
+			headers.setDestination("/topic/foo");
+			headers.setNativeHeader("receipt", "r1");
+			this.relay.handleMessage(MessageBuilder.withPayloadAndHeaders(new byte[0], headers).build());
+		}
+
+		String brokerReceipt1 = StompHeaderAccessor.wrap(connection.sent.get(1)).getFirstNativeHeader("receipt");
+		String brokerReceipt2 = StompHeaderAccessor.wrap(connection.sent.get(2)).getFirstNativeHeader("receipt");
+		assertFalse(brokerReceipt1.equals(brokerReceipt2));
+
+		StompHeaderAccessor receipt = StompHeaderAccessor.create(StompCommand.RECEIPT);
+		receipt.setReceiptId(brokerReceipt2);
+		connection.receive(MessageBuilder.withPayloadAndHeaders(new byte[0], receipt).build());
+
+		Message<?> received = captureClientMessages(1).get(0);
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(received);
+		assertEquals(StompCommand.RECEIPT, headers.getCommand());
+		assertEquals("sess2", headers.getSessionId());
+		assertEquals("r1", headers.getReceiptId());
+	}
+
+	@Test
+	public void disconnectClientSession() {
+
+		TestConnection connection = startAndConnectSharedConnection();
+
+		this.relay.handleMessage(createClientMessage("sess1", StompCommand.CONNECT, null, null));
+		this.relay.handleMessage(createClientMessage("sess2", StompCommand.CONNECT, null, null));
+		this.relay.handleMessage(createClientMessage("sess1", StompCommand.SUBSCRIBE, "sub1", "/topic/foo"));
+		this.relay.handleMessage(createClientMessage("sess2", StompCommand.SUBSCRIBE, "sub1", "/topic/foo"));
+		String brokerSub1 = connection.getSentHeaders(1).getFirstNativeHeader(StompHeaderAccessor.STOMP_ID_HEADER);
+		String brokerSub2 = connection.getSentHeaders(2).getFirstNativeHeader(StompHeaderAccessor.STOMP_ID_HEADER);
+
+		this.relay.handleMessage(createClientMessage("sess1", StompCommand.DISCONNECT, null, null));
+
+		assertEquals(4, connection.sent.size());
+		StompHeaderAccessor unsubscribe = connection.getSentHeaders(3);
+		assertEquals(StompCommand.UNSUBSCRIBE, unsubscribe.getCommand());
+		assertEquals(brokerSub1, unsubscribe.getFirstNativeHeader(StompHeaderAccessor.STOMP_ID_HEADER));
+
+		connection.receive(createBrokerMessage(brokerSub1, "/topic/foo"));
+		connection.receive(createBrokerMessage(brokerSub2, "/topic/foo"));
+
+		Message<?> received = captureClientMessages(1).get(0);
+		assertClientMessage(received, StompCommand.MESSAGE, "sess2", "sub1");
+
+		this.relay.handleMessage(createClientMessage("sess1", StompCommand.SUBSCRIBE, "sub2", "/topic/foo"));
+		assertEquals(4, connection.sent.size());
+	}
+
+	@Test
+	public void brokerErrorOnSharedConnection() {
+
+		TestConnection connection = startAndConnectSharedConnection();
+
+		this.relay.handleMessage(createClientMessage("sess1", StompCommand.CONNECT, null, null));
+		this.relay.handleMessage(createClientMessage("sess2", StompCommand.CONNECT, null, null));
+		this.relay.handleMessage(createClientMessage("sess1", StompCommand.SUBSCRIBE, "sub1", "/topic/foo"));
+
+		StompHeaderAccessor error = StompHeaderAccessor.create(StompCommand.ERROR);
+		error.setMessage("Bad frame");
+		connection.receive(MessageBuilder.withPayloadAndHeaders(new byte[0], error).build());
+
+		List<Message<?>> received = captureClientMessages(2);
+		assertClientMessage(received.get(0), StompCommand.ERROR, null, null);
+		assertClientMessage(received.get(1), StompCommand.ERROR, null, null);
+		List<String> sessionIds = Arrays.asList(StompHeaderAccessor.wrap(received.get(0)).getSessionId(),
+				StompHeaderAccessor.wrap(received.get(1)).getSessionId());
+		assertTrue(sessionIds.containsAll(Arrays.asList("sess1", "sess2")));
+		verify(connection.connection).close();
+
+		// The failed connection is no longer used
+		this.relay.handleMessage(createClientMessage("sess1", StompCommand.SUBSCRIBE, "sub2", "/topic/foo"));
+		assertEquals(2, connection.sent.size());
+
+		// A new client session is assigned to a new connection
+		this.relay.handleMessage(createClientMessage("sess3", StompCommand.CONNECT, null, null));
+		assertEquals(3, this.connections.size());
+		TestConnection newConnection = this.connections.get(2);
+		newConnection.connect();
+		this.relay.handleMessage(createClientMessage("sess3", StompCommand.SUBSCRIBE, "sub1", "/topic/foo"));
+		assertEquals(2, newConnection.sent.size());
+		assertEquals(StompCommand.CONNECT, newConnection.getSentCommand(0));
+		assertEquals(StompCommand.SUBSCRIBE, newConnection.getSentCommand(1));
+	}
+
+	@Test
+	public void forwardFailureOnSharedConnection() {
+
+		TestConnection connection = startAndConnectSharedConnection();
+
+		this.relay.handleMessage(createClientMessage("sess1", StompCommand.CONNECT, null, null));
+		this.relay.handleMessage(createClientMessage("sess2", StompCommand.CONNECT, null, null));
+
+		connection.failSends();
+		this.relay.handleMessage(createClientMessage("sess1", StompCommand.SUBSCRIBE, "sub1", "/topic/foo"));
+		this.relay.handleMessage(createClientMessage("sess2", StompCommand.SUBSCRIBE, "sub1", "/topic/foo"));
+
+		List<Message<?>> received = captureClientMessages(2);
+		assertClientMessage(received.get(0), StompCommand.ERROR, null, null);
+		assertClientMessage(received.get(1), StompCommand.ERROR, null, null);
+		verify(connection.connection, times(1)).close();
+		assertEquals(2, connection.sent.size());
+
+		this.relay.handleMessage(createClientMessage("sess3", StompCommand.CONNECT, null, null));
+		assertEquals(3, this.connections.size());
+	}
+
+	@Test
+	public void restartAfterStop() {
+
+		TestConnection connection = startAndConnectSharedConnection();
+		this.relay.handleMessage(createClientMessage("sess1", StompCommand.CONNECT, null, null));
+
+		this.relay.stop();
+		this.relay.start();
+
+		assertEquals(4, this.connections.size());
+		TestConnection newConnection = this.connections.get(3);
+		newConnection.connect();
+
+		// The client session of the stopped connection is gone
+		this.relay.handleMessage(createClientMessage("sess1", StompCommand.SUBSCRIBE, "sub1", "/topic/foo"));
+		assertEquals(1, connection.sent.size());
+		assertEquals(1, newConnection.sent.size());
+
+		this.relay.handleMessage(createClientMessage("sess1", StompCommand.CONNECT, null, null));
+		this.relay.handleMessage(createClientMessage("sess1", StompCommand.SUBSCRIBE, "sub1", "/topic/foo"));
+		assertEquals(1, connection.sent.size());
+		assertEquals(2, newConnection.sent.size());
+	}
+
+
+	/**
+	 * Start the relay and complete the CONNECT handshake of the shared connection.
+	 * The first connection opened is the "system" connection.
+	 */
+	private TestConnection startAndConnectSharedConnection() {
+		this.relay.start();
+		assertEquals(2, this.connections.size());
+		TestConnection connection = this.connections.get(1);
+		connection.connect();
+		return connection;
+	}
+
+	private Message<byte[]> createClientMessage(String sessionId, StompCommand command,
+			String subscriptionId, String destination) {
+
+		StompHeaderAccessor headers = StompHeaderAccessor.create(command);
+		headers.setSessionId(sessionId);
+		if (subscriptionId != null) {
+			headers.setSubscriptionId(subscriptionId);
+		}
+		if (destination != null) {
+			headers.setDestination(destination);
+		}
+		return MessageBuilder.withPayloadAndHeaders(new byte[0], headers).build();
+	}
+
+	private Message<byte[]> createBrokerMessage(String subscriptionId, String destination) {
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+		headers.setSubscriptionId(subscriptionId);
+		headers.setDestination(destination);
+		return MessageBuilder.withPayloadAndHeaders("payload".getBytes(), headers).build();
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private List<Message<?>> captureClientMessages(int expectedCount) {
+		ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+		verify(this.clientChannel, times(expectedCount)).send(captor.capture());
+		return (List) captor.getAllValues();
+	}
+
+	private void assertClientMessage(Message<?> message, StompCommand command, String sessionId,
+			String subscriptionId) {
+
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(message);
+		assertEquals(command, headers.getCommand());
+		if (sessionId != null) {
+			assertEquals(sessionId, headers.getSessionId());
+		}
+		if (subscriptionId != null) {
+			assertEquals(subscriptionId, headers.getSubscriptionId());
+		}
+	}
+
+
+	/**
+	 * A mock TCP connection to the broker that records the messages sent to it,
+	 * and through which messages from the broker can be received.
+	 */
+	private static class TestConnection {
+
+		private final TcpConnection<Message<byte[]>, Message<?>> connection;
+
+		private final Promise<TcpConnection<Message<byte[]>, Message<?>>> promise;
+
+		private final List<Message<?>> sent = new ArrayList<Message<?>>();
+
+		private Consumer<Message<byte[]>> inputConsumer;
+
+		private boolean sendFails;
+
+
+		@SuppressWarnings("unchecked")
+		public TestConnection() {
+			this.connection = mock(TcpConnection.class);
+			this.promise = mock(Promise.class);
+
+			when(this.promise.consume(any(Consumer.class))).thenAnswer(new Answer<Object>() {
+				@Override
+				public Object answer(InvocationOnMock invocation) {
+					((Consumer<TcpConnection<Message<byte[]>, Message<?>>>) invocation.getArguments()[0]).accept(connection);
+					return promise;
+				}
+			});
+			when(this.promise.onError(any(Consumer.class))).thenReturn(this.promise);
+			when(this.promise.get()).thenReturn(this.connection);
+
+			Stream<Message<byte[]>> input = mock(Stream.class);
+			when(input.consume(any(Consumer.class))).thenAnswer(new Answer<Object>() {
+				@Override
+				public Object answer(InvocationOnMock invocation) {
+					inputConsumer = (Consumer<Message<byte[]>>) invocation.getArguments()[0];
+					return invocation.getMock();
+				}
+			});
+			when(this.connection.in()).thenReturn(input);
+
+			when(this.connection.send(any(Message.class), any(Consumer.class))).thenAnswer(new Answer<Object>() {
+				@Override
+				public Object answer(InvocationOnMock invocation) {
+					sent.add((Message<?>) invocation.getArguments()[0]);
+					if (sendFails) {
+						((Consumer<Boolean>) invocation.getArguments()[1]).accept(false);
+					}
+					return connection;
+				}
+			});
+		}
+
+		public void connect() {
+			receive(MessageBuilder.withPayloadAndHeaders(new byte[0],
+					StompHeaderAccessor.create(StompCommand.CONNECTED)).build());
+		}
+
+		public void failSends() {
+			this.sendFails = true;
+		}
+
+		public void receive(Message<byte[]> message) {
+			this.inputConsumer.accept(message);
+		}
+
+		public StompHeaderAccessor getSentHeaders(int index) {
+			return StompHeaderAccessor.wrap(this.sent.get(index));
+		}
+
+		public StompCommand getSentCommand(int index) {
+			return getSentHeaders(index).getCommand();
+		}
+	}
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.stomp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.messaging.Message;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test fixture for {@link StompDecoder}.
+ *
+ * @author Rossen Stoyanchev
+ */
+public class StompDecoderTests {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private StompDecoder decoder;
+
+
+	@Before
+	public void setup() {
+		this.decoder = new StompDecoder();
+	}
+
+
+	@Test
+	public void decodeFrame() {
+		List<Message<byte[]>> messages = decode("\n\nCONNECT\naccept-version:1.1\nhost:github.org\n\n\0");
+
+		assertEquals(1, messages.size());
+		Message<byte[]> message = messages.get(0);
+		assertEquals(0, message.getPayload().length);
+
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(message);
+		assertEquals(StompCommand.CONNECT, headers.getCommand());
+		assertEquals(Collections.singleton("1.1"), headers.getAcceptVersion());
+		assertEquals("github.org", headers.getHost());
+	}
+
+	@Test
+	public void decodeFrameWithCrLfEols() {
+		List<Message<byte[]>> messages = decode("SEND\r\ndestination:/queue/foo\r\n\r\nbody\0");
+
+		assertEquals(1, messages.size());
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(messages.get(0));
+		assertEquals(StompCommand.SEND, headers.getCommand());
+		assertEquals("/queue/foo", headers.getDestination());
+		assertEquals("body", new String(messages.get(0).getPayload(), UTF_8));
+	}
+
+	@Test
+	public void decodeFrameWithEscapedHeaders() {
+		List<Message<byte[]>> messages = decode("DISCONNECT\na\\c\\r\\n\\\\b:alpha\\cbravo\\r\\n\\\\\n\n\0");
+
+		assertEquals(1, messages.size());
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(messages.get(0));
+		assertEquals("alpha:bravo\r\n\\", headers.getFirstNativeHeader("a:\r\n\\b"));
+	}
+
+	@Test
+	public void decodeFrameWithUnknownEscapeSequence() {
+		List<Message<byte[]>> messages = decode("CONNECT\nhost:st\\nomp.gi\\cthu\\b.org\n\n\0");
+
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(messages.get(0));
+		assertEquals("st\nomp.gi:thu\\b.org", headers.getHost());
+	}
+
+	@Test
+	public void decodeFrameWithContentLength() {
+		List<Message<byte[]>> messages = decode("SEND\ncontent-length:5\n\nbo\0dy\0");
+
+		assertEquals(1, messages.size());
+		assertArrayEquals("bo\0dy".getBytes(UTF_8), messages.get(0).getPayload());
+	}
+
+	@Test
+	public void decodeMultipleFramesAndHeartbeats() {
+		List<Message<byte[]>> messages = decode("\nSEND\n\nfoo\0\r\n\nSEND\n\nbar\0\n");
+
+		assertEquals(2, messages.size());
+		assertEquals("foo", new String(messages.get(0).getPayload(), UTF_8));
+		assertEquals("bar", new String(messages.get(1).getPayload(), UTF_8));
+		assertEquals(0, this.decoder.getBufferSize());
+	}
+
+	@Test
+	public void decodeHeartbeatOnly() {
+		assertEquals(0, decode("\n").size());
+		assertEquals(0, this.decoder.getBufferSize());
+	}
+
+	@Test
+	public void decodePartialFrames() {
+		String frame = "SEND\ndestination:/queue/foo\ncontent-length:3\n\nbar\0SEND\n\nba";
+
+		assertEquals(0, decode(frame.substring(0, 4)).size());
+		assertEquals(0, decode(frame.substring(4, 20)).size());
+		assertEquals(0, decode(frame.substring(20, 47)).size());
+
+		List<Message<byte[]>> messages = decode(frame.substring(47));
+		assertEquals(1, messages.size());
+		assertEquals("bar", new String(messages.get(0).getPayload(), UTF_8));
+		assertEquals("/queue/foo", StompHeaderAccessor.wrap(messages.get(0)).getDestination());
+		assertEquals(8, this.decoder.getBufferSize());
+
+		messages = decode("z\0");
+		assertEquals(1, messages.size());
+		assertEquals("baz", new String(messages.get(0).getPayload(), UTF_8));
+		assertEquals(0, this.decoder.getBufferSize());
+	}
+
+	@Test
+	public void decodeOneByteAtATime() {
+		byte[] bytes = "MESSAGE\nsubscription:s1\nmessage-id:m1\ndestination:/topic/a\n\nhello\0".getBytes(UTF_8);
+		List<Message<byte[]>> messages = Collections.emptyList();
+		for (byte b : bytes) {
+			assertTrue(messages.isEmpty());
+			messages = this.decoder.decode(ByteBuffer.wrap(new byte[] { b }));
+		}
+		assertEquals(1, messages.size());
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(messages.get(0));
+		assertEquals(StompCommand.MESSAGE, headers.getCommand());
+		assertEquals("s1", headers.getSubscriptionId());
+		assertEquals("hello", new String(messages.get(0).getPayload(), UTF_8));
+	}
+
+	@Test
+	public void decodeDirectBuffer() {
+		byte[] bytes = "SEND\ndestination:/queue/foo\n\nbody\0".getBytes(UTF_8);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes).flip();
+
+		List<Message<byte[]>> messages = this.decoder.decode(buffer);
+		assertEquals(1, messages.size());
+		assertEquals("/queue/foo", StompHeaderAccessor.wrap(messages.get(0)).getDestination());
+		assertEquals("body", new String(messages.get(0).getPayload(), UTF_8));
+	}
+
+	@Test(expected=StompConversionException.class)
+	public void decodeUnknownCommand() {
+		decode("FOO\n\n\0");
+	}
+
+	@Test(expected=StompConversionException.class)
+	public void decodeInvalidContentLength() {
+		decode("SEND\ncontent-length:abc\n\nbody\0");
+	}
+
+	@Test(expected=StompConversionException.class)
+	public void decodeMissingNullAfterContentLength() {
+		decode("SEND\ncontent-length:2\n\nbody\0");
+	}
+
+	@Test
+	public void bufferSizeLimit() {
+		this.decoder.setBufferSizeLimit(16);
+		try {
+			decode("SEND\ndestination:/queue/foo\n\nbo");
+			fail("Expected exception");
+		}
+		catch (StompConversionException ex) {
+			// expected
+		}
+		assertEquals(0, this.decoder.getBufferSize());
+	}
+
+
+	private List<Message<byte[]>> decode(String content) {
+		return this.decoder.decode(ByteBuffer.wrap(content.getBytes(UTF_8)));
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.stomp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test fixture for {@link StompEncoder}.
+ *
+ * @author Rossen Stoyanchev
+ */
+public class StompEncoderTests {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final StompEncoder encoder = new StompEncoder();
+
+
+	@Test
+	public void encodeFrameWithNoPayload() {
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.CONNECT);
+		headers.setAcceptVersion("1.2");
+		headers.setHost("github.org");
+		Message<byte[]> message = MessageBuilder.withPayloadAndHeaders(new byte[0], headers).build();
+
+		String frame = new String(this.encoder.encode(message), UTF_8);
+
+		assertTrue(frame.startsWith("CONNECT\n"));
+		assertTrue(frame.contains("accept-version:1.2\n"));
+		assertTrue(frame.contains("host:github.org\n"));
+		assertFalse(frame.contains("content-length"));
+		assertTrue(frame.endsWith("\n\n\0"));
+	}
+
+	@Test
+	public void encodeFrameWithEscapedHeaders() {
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.SEND);
+		headers.setNativeHeader("a:\r\n\\b", "alpha:bravo\r\n\\");
+		Message<byte[]> message = MessageBuilder.withPayloadAndHeaders(new byte[0], headers).build();
+
+		String frame = new String(this.encoder.encode(message), UTF_8);
+
+		assertTrue(frame.contains("a\\c\\r\\n\\\\b:alpha\\cbravo\\r\\n\\\\\n"));
+	}
+
+	@Test
+	public void encodeBinaryPayloadRoundTrip() {
+		byte[] payload = new byte[] { 1, 0, 2, 0, (byte) 0xff };
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.SEND);
+		headers.setDestination("/queue/foo");
+		Message<byte[]> message = MessageBuilder.withPayloadAndHeaders(payload, headers).build();
+
+		byte[] frame = this.encoder.encode(message);
+		assertTrue(new String(frame, UTF_8).contains("content-length:5\n"));
+
+		List<Message<byte[]>> decoded = new StompDecoder().decode(ByteBuffer.wrap(frame));
+		assertEquals(1, decoded.size());
+		assertArrayEquals(payload, decoded.get(0).getPayload());
+		assertEquals("/queue/foo", StompHeaderAccessor.wrap(decoded.get(0)).getDestination());
+	}
+
+	@Test
+	public void encodeLargeFrames() {
+		byte[] payload = new byte[200 * 1024];
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.SEND);
+		Message<byte[]> message = MessageBuilder.withPayloadAndHeaders(payload, headers).build();
+		int length = this.encoder.encode(message).length;
+
+		headers = StompHeaderAccessor.create(StompCommand.SEND);
+		message = MessageBuilder.withPayloadAndHeaders("foo".getBytes(UTF_8), headers).build();
+		assertEquals("SEND\ncontent-length:3\n\nfoo\0", new String(this.encoder.encode(message), UTF_8));
+		assertTrue(length > payload.length);
+	}
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.support;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.commons.logging.LogFactory;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+import org.springframework.util.StopWatch;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Test fixture for {@link AlternativeJdkIdGenerator}, {@link CounterIdGenerator}
+ * and {@link IdGeneratorConfigurer}.
+ *
+ * @author Rossen Stoyanchev
+ */
+public class IdGeneratorTests {
+
+	@After
+	public void resetIdGenerator() {
+		MessageHeaders.setIdGenerator(null);
+	}
+
+
+	@Test
+	public void alternativeJdkIdGenerator() {
+		AlternativeJdkIdGenerator generator = new AlternativeJdkIdGenerator();
+		Set<UUID> ids = new HashSet<UUID>();
+		for (int i = 0; i < 1000; i++) {
+			UUID id = generator.generateId();
+			assertEquals(4, id.version());
+			assertEquals(2, id.variant());
+			ids.add(id);
+		}
+		assertEquals(1000, ids.size());
+	}
+
+	@Test
+	public void counterIdGenerator() {
+		CounterIdGenerator generator = new CounterIdGenerator();
+		UUID id1 = generator.generateId();
+		UUID id2 = generator.generateId();
+		assertEquals(id1.getMostSignificantBits(), id2.getMostSignificantBits());
+		assertEquals(id1.getLeastSignificantBits() + 1, id2.getLeastSignificantBits());
+		assertFalse(id1.equals(new CounterIdGenerator().generateId()));
+	}
+
+	@Test
+	public void idGeneratorConfigurer() throws Exception {
+		CounterIdGenerator generator = new CounterIdGenerator();
+		IdGeneratorConfigurer configurer = new IdGeneratorConfigurer();
+		configurer.setIdGenerator(generator);
+		configurer.afterPropertiesSet();
+
+		UUID expected = new UUID(generator.generateId().getMostSignificantBits(), 2);
+		assertEquals(expected, MessageBuilder.withPayload("foo").build().getHeaders().getId());
+
+		configurer.destroy();
+		assertNull(MessageHeaders.getIdGenerator());
+	}
+
+	@Test
+	public void messageBuilderThroughput() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+
+		MessageHeaders.IdGenerator[] generators = new MessageHeaders.IdGenerator[] {
+				null, new AlternativeJdkIdGenerator(), new CounterIdGenerator() };
+		String[] names = new String[] { "UUID.randomUUID", "AlternativeJdkIdGenerator", "CounterIdGenerator" };
+
+		for (int threadCount = 1; threadCount <= 64; threadCount *= 2) {
+			StopWatch stopWatch = new StopWatch("MessageBuilder with " + threadCount + " thread(s)");
+			for (int i = 0; i < generators.length; i++) {
+				MessageHeaders.setIdGenerator(generators[i]);
+				buildMessages(threadCount, 100000 / threadCount); // warm-up
+				stopWatch.start(names[i]);
+				buildMessages(threadCount, 1000000 / threadCount);
+				stopWatch.stop();
+			}
+			LogFactory.getLog(getClass()).info(stopWatch.prettyPrint());
+		}
+	}
+
+	private void buildMessages(int threadCount, final int messageCount) throws InterruptedException {
+		final CountDownLatch latch = new CountDownLatch(threadCount);
+		for (int i = 0; i < threadCount; i++) {
+			new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < messageCount; j++) {
+						Message<String> message = MessageBuilder.withPayload("payload").setHeader("foo", "bar").build();
+						assertNotNull(message.getHeaders().getId());
+					}
+					latch.countDown();
+				}
+			}.start();
+		}
+		latch.await();
+	}
+
+}
@@ -68,6 +68,41 @@ public class MessageBuilderTests {
 		assertEquals("2", message2.getHeaders().get("bar"));
 	}
 
+	@Test
+	public void testCopyWithHeaders() {
+		Message<String> message1 = MessageBuilder.withPayload("test1")
+				.setHeader("foo", "1")
+				.setHeader("bar", "2")
+				.build();
+		Map<String, Object> headers = new HashMap<String, Object>();
+		headers.put("foo", "42");
+		headers.put("bar", null);
+		headers.put("baz", "3");
+		Message<String> message2 = MessageBuilder.copyWithHeaders(message1, headers);
+		assertSame(message1.getPayload(), message2.getPayload());
+		assertSame(message1.getHeaders(), message2.getHeaders());
+		assertEquals("1", message2.getHeaders().get("foo"));
+		assertEquals("42", MessageHeaderAccessor.getHeader(message2, "foo"));
+		assertNull(MessageHeaderAccessor.getHeader(message2, "bar"));
+		assertEquals("3", MessageHeaderAccessor.getHeader(message2, "baz"));
+
+		MessageHeaderAccessor accessor = new MessageHeaderAccessor(message2);
+		assertEquals("42", accessor.getHeader("foo"));
+		assertNull(accessor.getHeader("bar"));
+		assertEquals("3", accessor.getHeader("baz"));
+		assertEquals(message1.getHeaders().getId(), accessor.getId());
+		Map<String, Object> map = accessor.toMap();
+		assertEquals(4, map.size());
+		assertFalse(map.containsKey("bar"));
+
+		headers = new HashMap<String, Object>();
+		headers.put("baz", null);
+		Message<String> message3 = MessageBuilder.copyWithHeaders(message2, headers);
+		assertSame(message1.getHeaders(), message3.getHeaders());
+		assertEquals("42", MessageHeaderAccessor.getHeader(message3, "foo"));
+		assertNull(MessageHeaderAccessor.getHeader(message3, "baz"));
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void testIdHeaderValueReadOnly() {
 		UUID id = UUID.randomUUID();
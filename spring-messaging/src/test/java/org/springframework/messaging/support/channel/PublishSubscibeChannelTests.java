@@ -90,6 +90,23 @@ public class PublishSubscibeChannelTests {
 		verify(this.handler).handleMessage(this.message);
 	}
 
+	@Test
+	public void sendWithShardedExecutor() throws Exception {
+		ShardedExecutor executor = mock(ShardedExecutor.class);
+		this.channel = new ExecutorSubscribableChannel(executor);
+		this.channel.setShardKeyHeaderName("sessionId");
+		this.channel.subscribe(this.handler);
+
+		Message<Object> message = MessageBuilder.withPayload(this.payload).setHeader("sessionId", "s1").build();
+		this.channel.send(message);
+		verify(executor).execute(eq("s1"), this.runnableCaptor.capture());
+		this.runnableCaptor.getValue().run();
+		verify(this.handler).handleMessage(message);
+
+		this.channel.send(this.message);
+		verify(executor).execute(this.runnableCaptor.capture());
+	}
+
 	@Test
 	public void subscribeTwice() throws Exception {
 		assertThat(this.channel.subscribe(this.handler), equalTo(true));
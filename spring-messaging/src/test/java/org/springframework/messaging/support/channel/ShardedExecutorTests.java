@@ -0,0 +1,139 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.support.channel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test fixture for {@link ShardedExecutor}.
+ *
+ * @author Rossen Stoyanchev
+ */
+public class ShardedExecutorTests {
+
+	private ShardedExecutor executor;
+
+
+	@After
+	public void tearDown() {
+		if (this.executor != null) {
+			this.executor.shutdown();
+		}
+	}
+
+
+	@Test
+	public void orderPerShardKey() throws Exception {
+		this.executor = new ShardedExecutor(4);
+
+		final int keyCount = 16;
+		final int taskCount = 1000;
+		final Map<String, List<Integer>> results = new ConcurrentHashMap<String, List<Integer>>();
+		final CountDownLatch latch = new CountDownLatch(keyCount * taskCount);
+
+		for (int i = 0; i < keyCount; i++) {
+			results.put("key" + i, Collections.synchronizedList(new ArrayList<Integer>()));
+		}
+		for (int j = 0; j < taskCount; j++) {
+			for (int i = 0; i < keyCount; i++) {
+				final String key = "key" + i;
+				final int value = j;
+				this.executor.execute(key, new Runnable() {
+					@Override
+					public void run() {
+						results.get(key).add(value);
+						latch.countDown();
+					}
+				});
+			}
+		}
+
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		for (List<Integer> values : results.values()) {
+			assertEquals(taskCount, values.size());
+			for (int j = 0; j < taskCount; j++) {
+				assertEquals(Integer.valueOf(j), values.get(j));
+			}
+		}
+		assertEquals(keyCount * taskCount, this.executor.getCompletedTaskCount());
+	}
+
+	@Test
+	public void fullQueue() throws Exception {
+		this.executor = new ShardedExecutor(1, 1);
+
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		this.executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		this.executor.execute("key", new NoOpTask());
+		assertEquals(1, this.executor.getTotalQueueDepth());
+		assertEquals(1, this.executor.getMaxQueueDepth());
+		assertEquals(1, this.executor.getSaturatedLaneCount());
+		assertEquals(1, this.executor.getActiveLaneCount());
+
+		try {
+			this.executor.execute("key", new NoOpTask());
+			fail("Expected RejectedExecutionException");
+		}
+		catch (RejectedExecutionException ex) {
+			// expected
+		}
+		assertEquals(1, this.executor.getRejectedTaskCount());
+		release.countDown();
+	}
+
+	@Test(expected=RejectedExecutionException.class)
+	public void executeAfterShutdown() {
+		this.executor = new ShardedExecutor(2);
+		this.executor.shutdown();
+		this.executor.execute("key", new NoOpTask());
+	}
+
+
+	private static class NoOpTask implements Runnable {
+
+		@Override
+		public void run() {
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,9 +18,13 @@ package org.springframework.web.filter;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -42,6 +46,11 @@ import org.springframework.web.util.WebUtils;
  * <p>Since the ETag is based on the response content, the response (or {@link org.springframework.web.servlet.View})
  * is still rendered. As such, this filter only saves bandwidth, not server performance.
  *
+ * <p>The response content is buffered until the response is complete, since the ETag header needs to be
+ * set before any content is sent. For large responses, consider setting a {@linkplain #setMaxBufferSize
+ * maximum buffer size}, beyond which the content gets streamed to the client without an ETag, as well as
+ * a {@linkplain #setDigestAlgorithm digest algorithm} for computing the ETag while the content is written.
+ *
  * @author Arjen Poutsma
  * @author Rossen Stoyanchev
  * @since 3.0
@@ -52,6 +61,60 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 	private static String HEADER_IF_NONE_MATCH = "If-None-Match";
 
+	/** Digest algorithm name for a CRC-32 checksum rather than a {@link MessageDigest} */
+	public static final String CRC32_ALGORITHM_NAME = "CRC32";
+
+
+	private int maxBufferSize = Integer.MAX_VALUE;
+
+	private String digestAlgorithm;
+
+
+	/**
+	 * Set the maximum number of bytes of response content to buffer for generating an ETag.
+	 * <p>Once a response exceeds this size, the content buffered so far gets written to the
+	 * underlying response, with any further content written through as well. Such a response
+	 * does not receive an ETag.
+	 * <p>Default is unlimited, buffering the entire content of each response.
+	 */
+	public void setMaxBufferSize(int maxBufferSize) {
+		Assert.isTrue(maxBufferSize >= 0, "'maxBufferSize' must not be negative");
+		this.maxBufferSize = maxBufferSize;
+	}
+
+	/**
+	 * Return the maximum number of bytes of response content to buffer for generating an ETag.
+	 */
+	public int getMaxBufferSize() {
+		return this.maxBufferSize;
+	}
+
+	/**
+	 * Set the algorithm for computing the ETag while the response content is written,
+	 * rather than from the complete content once the response has been rendered.
+	 * <p>Accepts any {@link MessageDigest} algorithm name such as "MD5" - leading to the
+	 * same ETag values as the default {@link #generateETagHeaderValue} implementation -
+	 * as well as {@link #CRC32_ALGORITHM_NAME "CRC32"} for a considerably faster,
+	 * non-cryptographic checksum.
+	 * <p>Default is none, generating the ETag through {@link #generateETagHeaderValue}.
+	 * Note that this method does not get called once a digest algorithm has been set.
+	 * @since 4.0
+	 */
+	public void setDigestAlgorithm(String digestAlgorithm) {
+		if (digestAlgorithm != null) {
+			// Fail early for an unknown algorithm
+			new ContentDigest(digestAlgorithm);
+		}
+		this.digestAlgorithm = digestAlgorithm;
+	}
+
+	/**
+	 * Return the algorithm for computing the ETag while the response content is written, if any.
+	 */
+	public String getDigestAlgorithm() {
+		return this.digestAlgorithm;
+	}
+
 
 	/**
 	 * The default value is "false" so that the filter may delay the generation of
@@ -67,7 +130,8 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 			throws ServletException, IOException {
 
 		if (!isAsyncDispatch(request)) {
-			response = new ShallowEtagResponseWrapper(response);
+			ContentDigest digest = (this.digestAlgorithm != null ? new ContentDigest(this.digestAlgorithm) : null);
+			response = new ShallowEtagResponseWrapper(response, this.maxBufferSize, digest);
 		}
 
 		filterChain.doFilter(request, response);
@@ -84,11 +148,20 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 		response = (HttpServletResponse) responseWrapper.getResponse();
 
+		if (responseWrapper.isContentWrittenThrough()) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Response content exceeded maximum buffer size of " + this.maxBufferSize +
+						" bytes, not eligible for ETag");
+			}
+			return;
+		}
+
 		byte[] body = responseWrapper.toByteArray();
 		int statusCode = responseWrapper.getStatusCode();
 
 		if (isEligibleForEtag(request, responseWrapper, statusCode, body)) {
-			String responseETag = generateETagHeaderValue(body);
+			ContentDigest digest = responseWrapper.getContentDigest();
+			String responseETag = (digest != null ? digest.toETagHeaderValue() : generateETagHeaderValue(body));
 			response.setHeader(HEADER_ETAG, responseETag);
 
 			String requestETag = request.getHeader(HEADER_IF_NONE_MATCH);
@@ -151,23 +224,112 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 	}
 
 
+	/**
+	 * Incrementally computed digest of the response content, based on either
+	 * a {@link MessageDigest} or a {@link CRC32} checksum.
+	 */
+	private static class ContentDigest {
+
+		private static final char[] HEX_CHARS =
+				{'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+		private final MessageDigest messageDigest;
+
+		private final CRC32 checksum;
+
+		private ContentDigest(String algorithm) {
+			if (CRC32_ALGORITHM_NAME.equalsIgnoreCase(algorithm)) {
+				this.messageDigest = null;
+				this.checksum = new CRC32();
+			}
+			else {
+				try {
+					this.messageDigest = MessageDigest.getInstance(algorithm);
+				}
+				catch (NoSuchAlgorithmException ex) {
+					throw new IllegalArgumentException(
+							"Could not find MessageDigest with algorithm \"" + algorithm + "\"", ex);
+				}
+				this.checksum = null;
+			}
+		}
+
+		public void update(byte[] b, int off, int len) {
+			if (this.messageDigest != null) {
+				this.messageDigest.update(b, off, len);
+			}
+			else {
+				this.checksum.update(b, off, len);
+			}
+		}
+
+		public void update(byte b) {
+			if (this.messageDigest != null) {
+				this.messageDigest.update(b);
+			}
+			else {
+				this.checksum.update(b);
+			}
+		}
+
+		public void reset() {
+			if (this.messageDigest != null) {
+				this.messageDigest.reset();
+			}
+			else {
+				this.checksum.reset();
+			}
+		}
+
+		public String toETagHeaderValue() {
+			StringBuilder builder = new StringBuilder("\"0");
+			if (this.messageDigest != null) {
+				for (byte b : this.messageDigest.digest()) {
+					builder.append(HEX_CHARS[(b >>> 0x4) & 0xf]);
+					builder.append(HEX_CHARS[b & 0xf]);
+				}
+			}
+			else {
+				long value = this.checksum.getValue();
+				for (int shift = 28; shift >= 0; shift -= 4) {
+					builder.append(HEX_CHARS[(int) (value >>> shift) & 0xf]);
+				}
+			}
+			builder.append('"');
+			return builder.toString();
+		}
+	}
+
+
 	/**
 	 * {@link HttpServletRequest} wrapper that buffers all content written to the
 	 * {@linkplain #getOutputStream() output stream} and {@linkplain #getWriter() writer},
 	 * and allows this content to be retrieved via a {@link #toByteArray() byte array}.
+	 * <p>Content beyond the maximum buffer size gets written through to the wrapped
+	 * response, along with the content buffered so far.
 	 */
 	private static class ShallowEtagResponseWrapper extends HttpServletResponseWrapper {
 
 		private final ByteArrayOutputStream content = new ByteArrayOutputStream();
 
+		private final OutputStream contentStream = new ContentOutputStream();
+
 		private final ServletOutputStream outputStream = new ResponseServletOutputStream();
 
+		private final int maxBufferSize;
+
+		private final ContentDigest contentDigest;
+
+		private boolean contentWrittenThrough = false;
+
 		private PrintWriter writer;
 
 		private int statusCode = HttpServletResponse.SC_OK;
 
-		private ShallowEtagResponseWrapper(HttpServletResponse response) {
+		private ShallowEtagResponseWrapper(HttpServletResponse response, int maxBufferSize, ContentDigest digest) {
 			super(response);
+			this.maxBufferSize = maxBufferSize;
+			this.contentDigest = digest;
 		}
 
 		@Override
@@ -216,40 +378,121 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 		@Override
 		public void resetBuffer() {
-			this.content.reset();
+			if (this.contentWrittenThrough) {
+				// Throws IllegalStateException if the response has been committed already
+				super.resetBuffer();
+				this.contentWrittenThrough = false;
+			}
+			resetContent();
 		}
 
 		@Override
 		public void reset() {
 			super.reset();
-			resetBuffer();
+			this.contentWrittenThrough = false;
+			resetContent();
+		}
+
+		private void resetContent() {
+			this.content.reset();
+			if (this.contentDigest != null) {
+				this.contentDigest.reset();
+			}
 		}
 
 		private int getStatusCode() {
 			return statusCode;
 		}
 
+		private boolean isContentWrittenThrough() {
+			return this.contentWrittenThrough;
+		}
+
+		private ContentDigest getContentDigest() {
+			return this.contentDigest;
+		}
+
 		private byte[] toByteArray() {
 			return this.content.toByteArray();
 		}
 
+		private void writeContent(int b) throws IOException {
+			if (!this.contentWrittenThrough && this.content.size() + 1 > this.maxBufferSize) {
+				writeThrough();
+			}
+			if (this.contentWrittenThrough) {
+				getResponse().getOutputStream().write(b);
+			}
+			else {
+				this.content.write(b);
+				if (this.contentDigest != null) {
+					this.contentDigest.update((byte) b);
+				}
+			}
+		}
+
+		private void writeContent(byte[] b, int off, int len) throws IOException {
+			if (!this.contentWrittenThrough && this.content.size() + len > this.maxBufferSize) {
+				writeThrough();
+			}
+			if (this.contentWrittenThrough) {
+				getResponse().getOutputStream().write(b, off, len);
+			}
+			else {
+				this.content.write(b, off, len);
+				if (this.contentDigest != null) {
+					this.contentDigest.update(b, off, len);
+				}
+			}
+		}
+
+		/**
+		 * Write the content buffered so far to the wrapped response,
+		 * writing all further content through as well.
+		 */
+		private void writeThrough() throws IOException {
+			this.content.writeTo(getResponse().getOutputStream());
+			this.content.reset();
+			this.contentWrittenThrough = true;
+		}
+
+		private class ContentOutputStream extends OutputStream {
+
+			@Override
+			public void write(int b) throws IOException {
+				writeContent(b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				writeContent(b, off, len);
+			}
+		}
+
 		private class ResponseServletOutputStream extends ServletOutputStream {
 
 			@Override
 			public void write(int b) throws IOException {
-				content.write(b);
+				writeContent(b);
 			}
 
 			@Override
 			public void write(byte[] b, int off, int len) throws IOException {
-				content.write(b, off, len);
+				writeContent(b, off, len);
+			}
+
+			@Override
+			public void flush() throws IOException {
+				if (contentWrittenThrough) {
+					getResponse().flushBuffer();
+				}
 			}
 		}
 
 		private class ResponsePrintWriter extends PrintWriter {
 
 			private ResponsePrintWriter(String characterEncoding) throws UnsupportedEncodingException {
-				super(new OutputStreamWriter(content, characterEncoding));
+				super(new OutputStreamWriter(contentStream, characterEncoding));
 			}
 
 			@Override
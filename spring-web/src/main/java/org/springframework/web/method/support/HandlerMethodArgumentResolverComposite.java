@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.web.method.support;
 
+import java.lang.reflect.Method;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -47,6 +48,9 @@ public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgu
 	private final Map<MethodParameter, HandlerMethodArgumentResolver> argumentResolverCache =
 			new ConcurrentHashMap<MethodParameter, HandlerMethodArgumentResolver>(256);
 
+	private final Map<Method, HandlerMethodArgumentResolver[]> methodArgumentResolverCache =
+			new ConcurrentHashMap<Method, HandlerMethodArgumentResolver[]>(256);
+
 
 	/**
 	 * Return a read-only list with the contained resolvers, or an empty list.
@@ -100,11 +104,32 @@ public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgu
 		return result;
 	}
 
+	/**
+	 * Return the registered resolvers for the given parameters of the given method,
+	 * in parameter order, with {@code null} for any parameter that is not supported.
+	 * <p>The result is cached per method, allowing callers to resolve all arguments
+	 * of a method without looking up the resolver for each parameter again.
+	 * @param method the method that the parameters belong to
+	 * @param parameters the parameters of the method
+	 */
+	HandlerMethodArgumentResolver[] getArgumentResolvers(Method method, MethodParameter[] parameters) {
+		HandlerMethodArgumentResolver[] resolvers = this.methodArgumentResolverCache.get(method);
+		if (resolvers == null) {
+			resolvers = new HandlerMethodArgumentResolver[parameters.length];
+			for (int i = 0; i < parameters.length; i++) {
+				resolvers[i] = getArgumentResolver(parameters[i]);
+			}
+			this.methodArgumentResolverCache.put(method, resolvers);
+		}
+		return resolvers;
+	}
+
 	/**
 	 * Add the given {@link HandlerMethodArgumentResolver}.
 	 */
 	public HandlerMethodArgumentResolverComposite addResolver(HandlerMethodArgumentResolver argumentResolver) {
 		this.argumentResolvers.add(argumentResolver);
+		this.methodArgumentResolverCache.clear();
 		return this;
 	}
 
@@ -117,6 +142,7 @@ public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgu
 			for (HandlerMethodArgumentResolver resolver : argumentResolvers) {
 				this.argumentResolvers.add(resolver);
 			}
+			this.methodArgumentResolverCache.clear();
 		}
 		return this;
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.lang.reflect.Method;
 import java.util.Arrays;
 
 import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.GeneratedMethodInvoker;
 import org.springframework.core.GenericTypeResolver;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.ParameterNameDiscoverer;
@@ -53,6 +54,8 @@ public class InvocableHandlerMethod extends HandlerMethod {
 
 	private ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
 
+	private boolean useGeneratedInvoker = false;
+
 
 	/**
 	 * Creates an instance from the given handler and method.
@@ -105,6 +108,21 @@ public class InvocableHandlerMethod extends HandlerMethod {
 		this.parameterNameDiscoverer = parameterNameDiscoverer;
 	}
 
+	/**
+	 * Whether to invoke the handler method through a generated class rather than
+	 * through reflection, with the argument resolvers for its parameters looked up
+	 * once per method rather than for every invocation.
+	 * <p>The generated class calls the method directly, which is only possible for
+	 * public methods of public classes; any other method is still invoked reflectively.
+	 * Note that the resolvers contained in the {@link HandlerMethodArgumentResolverComposite}
+	 * get called directly in this case, bypassing the composite's own {@code resolveArgument}.
+	 * <p>Default is "false".
+	 * @since 4.0
+	 */
+	public void setUseGeneratedInvoker(boolean useGeneratedInvoker) {
+		this.useGeneratedInvoker = useGeneratedInvoker;
+	}
+
 	/**
 	 * Invoke the method after resolving its argument values in the context of the given request. <p>Argument
 	 * values are commonly resolved through {@link HandlerMethodArgumentResolver}s. The {@code provideArgs}
@@ -146,6 +164,10 @@ public class InvocableHandlerMethod extends HandlerMethod {
 			NativeWebRequest request, ModelAndViewContainer mavContainer,
 			Object... providedArgs) throws Exception {
 
+		if (this.useGeneratedInvoker) {
+			return getPreResolvedMethodArgumentValues(request, mavContainer, providedArgs);
+		}
+
 		MethodParameter[] parameters = getMethodParameters();
 		Object[] args = new Object[parameters.length];
 		for (int i = 0; i < parameters.length; i++) {
@@ -178,6 +200,48 @@ public class InvocableHandlerMethod extends HandlerMethod {
 		return args;
 	}
 
+	/**
+	 * Get the method argument values for the current request, using the argument
+	 * resolvers looked up once for the method.
+	 */
+	private Object[] getPreResolvedMethodArgumentValues(
+			NativeWebRequest request, ModelAndViewContainer mavContainer,
+			Object... providedArgs) throws Exception {
+
+		MethodParameter[] parameters = getMethodParameters();
+		Class<?> beanClass = getBean().getClass();
+		for (MethodParameter parameter : parameters) {
+			parameter.initParameterNameDiscovery(this.parameterNameDiscoverer);
+			GenericTypeResolver.resolveParameterType(parameter, beanClass);
+		}
+
+		HandlerMethodArgumentResolver[] resolvers =
+				this.argumentResolvers.getArgumentResolvers(getBridgedMethod(), parameters);
+		Object[] args = new Object[parameters.length];
+		for (int i = 0; i < parameters.length; i++) {
+			if (providedArgs != null && providedArgs.length > 0) {
+				args[i] = resolveProvidedArgument(parameters[i], providedArgs);
+				if (args[i] != null) {
+					continue;
+				}
+			}
+			if (resolvers[i] == null) {
+				String msg = getArgumentResolutionErrorMessage("No suitable resolver for argument", i);
+				throw new IllegalStateException(msg);
+			}
+			try {
+				args[i] = resolvers[i].resolveArgument(parameters[i], mavContainer, request, this.dataBinderFactory);
+			}
+			catch (Exception ex) {
+				if (logger.isTraceEnabled()) {
+					logger.trace(getArgumentResolutionErrorMessage("Error resolving argument", i), ex);
+				}
+				throw ex;
+			}
+		}
+		return args;
+	}
+
 	private String getArgumentResolutionErrorMessage(String message, int index) {
 		MethodParameter param = getMethodParameters()[index];
 		message += " [" + index + "] [type=" + param.getParameterType().getName() + "]";
@@ -215,8 +279,14 @@ public class InvocableHandlerMethod extends HandlerMethod {
 	 * Invoke the handler method with the given argument values.
 	 */
 	private Object invoke(Object... args) throws Exception {
-		ReflectionUtils.makeAccessible(this.getBridgedMethod());
 		try {
+			if (this.useGeneratedInvoker) {
+				GeneratedMethodInvoker invoker = GeneratedMethodInvoker.forMethod(getBridgedMethod());
+				if (invoker != null && invoker.isInvokableWith(args)) {
+					return invoker.invoke(getBean(), args);
+				}
+			}
+			ReflectionUtils.makeAccessible(this.getBridgedMethod());
 			return getBridgedMethod().invoke(getBean(), args);
 		}
 		catch (IllegalArgumentException e) {
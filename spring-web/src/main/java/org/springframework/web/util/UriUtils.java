@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -350,10 +350,17 @@ public abstract class UriUtils {
 	public static String decode(String source, String encoding) throws UnsupportedEncodingException {
 		Assert.notNull(source, "'source' must not be null");
 		Assert.hasLength(encoding, "'encoding' must not be empty");
+		int firstEscape = source.indexOf('%');
+		if (firstEscape == -1) {
+			return source;
+		}
 		int length = source.length();
 		ByteArrayOutputStream bos = new ByteArrayOutputStream(length);
+		for (int i = 0; i < firstEscape; i++) {
+			bos.write(source.charAt(i));
+		}
 		boolean changed = false;
-		for (int i = 0; i < length; i++) {
+		for (int i = firstEscape; i < length; i++) {
 			int ch = source.charAt(i);
 			if (ch == '%') {
 				if ((i + 2) < length) {
@@ -29,6 +29,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -54,6 +55,13 @@ public class UrlPathHelper {
 	 */
 	private static final String WEBSPHERE_URI_ATTRIBUTE = "com.ibm.websphere.servlet.uri_non_decoded";
 
+	/**
+	 * Name of the request attribute that holds the lookup path resolved for the
+	 * current request, along with the request state that it was resolved from.
+	 * @see #getLookupPathForRequest
+	 */
+	private static final String LOOKUP_PATH_ATTRIBUTE = UrlPathHelper.class.getName() + ".LOOKUP_PATH";
+
 	private static final Log logger = LogFactory.getLog(UrlPathHelper.class);
 
 	static volatile Boolean websphereComplianceFlag;
@@ -140,12 +148,29 @@ public class UrlPathHelper {
 	 * Return the mapping lookup path for the given request, within the current
 	 * servlet mapping if applicable, else within the web application.
 	 * <p>Detects include request URL if called within a RequestDispatcher include.
+	 * <p>The resolved lookup path is cached in a request attribute, so that
+	 * subsequent calls for the same request - e.g. from several handler mappings
+	 * and interceptors - do not have to resolve it again. The cached path is only
+	 * reused as long as the request URI, context path, servlet path, path info,
+	 * include attributes and character encoding remain the same, i.e. it gets
+	 * resolved again after a forward or within an include, as well as for a
+	 * helper with different settings.
 	 * @param request current HTTP request
 	 * @return the lookup path
 	 * @see #getPathWithinApplication
 	 * @see #getPathWithinServletMapping
 	 */
 	public String getLookupPathForRequest(HttpServletRequest request) {
+		Object cached = request.getAttribute(LOOKUP_PATH_ATTRIBUTE);
+		if (cached instanceof CachedLookupPath && ((CachedLookupPath) cached).isValidFor(this, request)) {
+			return ((CachedLookupPath) cached).getLookupPath();
+		}
+		String lookupPath = resolveLookupPath(request);
+		request.setAttribute(LOOKUP_PATH_ATTRIBUTE, new CachedLookupPath(this, request, lookupPath));
+		return lookupPath;
+	}
+
+	private String resolveLookupPath(HttpServletRequest request) {
 		// Always use full path within current servlet context?
 		if (this.alwaysUseFullPath) {
 			return getPathWithinApplication(request);
@@ -401,6 +426,10 @@ public class UrlPathHelper {
 
 	@SuppressWarnings("deprecation")
 	private String decodeInternal(HttpServletRequest request, String source) {
+		if (source.indexOf('%') == -1) {
+			// Nothing to decode: no need to determine the encoding either
+			return source;
+		}
 		String enc = determineEncoding(request);
 		try {
 			return UriUtils.decode(source, enc);
@@ -457,6 +486,9 @@ public class UrlPathHelper {
 	}
 
 	private String removeJsessionid(String requestUri) {
+		if (requestUri.indexOf(';') == -1) {
+			return requestUri;
+		}
 		int startIndex = requestUri.toLowerCase().indexOf(";jsessionid=");
 		if (startIndex != -1) {
 			int endIndex = requestUri.indexOf(';', startIndex + 12);
@@ -548,4 +580,77 @@ public class UrlPathHelper {
 		return !websphereComplianceFlag;
 	}
 
+
+
+	/**
+	 * Lookup path resolved for a request, along with the settings and the request
+	 * state that it was resolved from.
+	 */
+	private static class CachedLookupPath {
+
+		private final Class<?> helperClass;
+
+		private final boolean alwaysUseFullPath;
+
+		private final boolean urlDecode;
+
+		private final boolean removeSemicolonContent;
+
+		private final String encoding;
+
+		private final String requestUri;
+
+		private final String contextPath;
+
+		private final String servletPath;
+
+		private final String pathInfo;
+
+		private final Object includeRequestUri;
+
+		private final Object includeContextPath;
+
+		private final Object includeServletPath;
+
+		private final String lookupPath;
+
+		public CachedLookupPath(UrlPathHelper helper, HttpServletRequest request, String lookupPath) {
+			this.helperClass = helper.getClass();
+			this.alwaysUseFullPath = helper.alwaysUseFullPath;
+			this.urlDecode = helper.urlDecode;
+			this.removeSemicolonContent = helper.removeSemicolonContent;
+			this.encoding = (helper.urlDecode ? helper.determineEncoding(request) : null);
+			this.requestUri = request.getRequestURI();
+			this.contextPath = request.getContextPath();
+			this.servletPath = request.getServletPath();
+			this.pathInfo = request.getPathInfo();
+			this.includeRequestUri = request.getAttribute(WebUtils.INCLUDE_REQUEST_URI_ATTRIBUTE);
+			this.includeContextPath = request.getAttribute(WebUtils.INCLUDE_CONTEXT_PATH_ATTRIBUTE);
+			this.includeServletPath = request.getAttribute(WebUtils.INCLUDE_SERVLET_PATH_ATTRIBUTE);
+			this.lookupPath = lookupPath;
+		}
+
+		public boolean isValidFor(UrlPathHelper helper, HttpServletRequest request) {
+			return (this.helperClass == helper.getClass() &&
+					this.alwaysUseFullPath == helper.alwaysUseFullPath &&
+					this.urlDecode == helper.urlDecode &&
+					this.removeSemicolonContent == helper.removeSemicolonContent &&
+					(!helper.urlDecode || ObjectUtils.nullSafeEquals(this.encoding, helper.determineEncoding(request))) &&
+					ObjectUtils.nullSafeEquals(this.requestUri, request.getRequestURI()) &&
+					ObjectUtils.nullSafeEquals(this.contextPath, request.getContextPath()) &&
+					ObjectUtils.nullSafeEquals(this.servletPath, request.getServletPath()) &&
+					ObjectUtils.nullSafeEquals(this.pathInfo, request.getPathInfo()) &&
+					ObjectUtils.nullSafeEquals(this.includeRequestUri,
+							request.getAttribute(WebUtils.INCLUDE_REQUEST_URI_ATTRIBUTE)) &&
+					ObjectUtils.nullSafeEquals(this.includeContextPath,
+							request.getAttribute(WebUtils.INCLUDE_CONTEXT_PATH_ATTRIBUTE)) &&
+					ObjectUtils.nullSafeEquals(this.includeServletPath,
+							request.getAttribute(WebUtils.INCLUDE_SERVLET_PATH_ATTRIBUTE)));
+		}
+
+		public String getLookupPath() {
+			return this.lookupPath;
+		}
+	}
+
 }
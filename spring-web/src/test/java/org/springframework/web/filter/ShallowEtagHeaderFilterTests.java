@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.web.filter;
 
 import java.io.IOException;
+import java.util.zip.CRC32;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
@@ -129,4 +130,118 @@ public class ShallowEtagHeaderFilterTests {
 		assertArrayEquals("Invalid content", new byte[0], response.getContentAsByteArray());
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void filterWithMd5DigestAlgorithm() throws Exception {
+		filter.setDigestAlgorithm("MD5");
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(request, response, new ContentFilterChain("Hello World", 3));
+
+		assertEquals("Invalid status", 200, response.getStatus());
+		assertEquals("Invalid ETag header", "\"0b10a8db164e0754105b7a99be72e3fe5\"", response.getHeader("ETag"));
+		assertEquals("Invalid content", "Hello World", response.getContentAsString());
+	}
+
+	@Test
+	public void filterMatchWithCrc32DigestAlgorithm() throws Exception {
+		filter.setDigestAlgorithm(ShallowEtagHeaderFilter.CRC32_ALGORITHM_NAME);
+		CRC32 checksum = new CRC32();
+		checksum.update("Hello World".getBytes("UTF-8"));
+		String etag = "\"0" + String.format("%08x", checksum.getValue()) + "\"";
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("If-None-Match", etag);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(request, response, new ContentFilterChain("Hello World", 1));
+
+		assertEquals("Invalid status", 304, response.getStatus());
+		assertEquals("Invalid ETag header", etag, response.getHeader("ETag"));
+		assertArrayEquals("Invalid content", new byte[0], response.getContentAsByteArray());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownDigestAlgorithm() {
+		filter.setDigestAlgorithm("NoSuchAlgorithm");
+	}
+
+	@Test
+	public void filterWithinMaxBufferSize() throws Exception {
+		filter.setMaxBufferSize(11);
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(request, response, new ContentFilterChain("Hello World", 5));
+
+		assertEquals("Invalid ETag header", "\"0b10a8db164e0754105b7a99be72e3fe5\"", response.getHeader("ETag"));
+		assertEquals("Invalid Content-Length header", 11, response.getContentLength());
+		assertEquals("Invalid content", "Hello World", response.getContentAsString());
+	}
+
+	@Test
+	public void filterExceedingMaxBufferSize() throws Exception {
+		filter.setMaxBufferSize(8);
+		filter.setDigestAlgorithm("MD5");
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("If-None-Match", "\"0b10a8db164e0754105b7a99be72e3fe5\"");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(request, response, new ContentFilterChain("Hello World", 3));
+
+		assertEquals("Invalid status", 200, response.getStatus());
+		assertNull("Unexpected ETag header", response.getHeader("ETag"));
+		assertFalse("Response has Content-Length header", response.containsHeader("Content-Length"));
+		assertEquals("Invalid content", "Hello World", response.getContentAsString());
+	}
+
+	@Test
+	public void filterWriterExceedingMaxBufferSize() throws Exception {
+		filter.setMaxBufferSize(8);
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		FilterChain filterChain = new FilterChain() {
+			@Override
+			public void doFilter(ServletRequest filterRequest, ServletResponse filterResponse)
+					throws IOException, ServletException {
+				filterResponse.getWriter().write("Hello");
+				filterResponse.getWriter().write(' ');
+				filterResponse.getWriter().write("World");
+			}
+		};
+		filter.doFilter(request, response, filterChain);
+
+		assertNull("Unexpected ETag header", response.getHeader("ETag"));
+		assertEquals("Invalid content", "Hello World", response.getContentAsString());
+	}
+
+
+	/**
+	 * Writes the given content to the response output stream in chunks of the given size.
+	 */
+	private static class ContentFilterChain implements FilterChain {
+
+		private final String content;
+
+		private final int chunkSize;
+
+		public ContentFilterChain(String content, int chunkSize) {
+			this.content = content;
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+			byte[] bytes = this.content.getBytes("UTF-8");
+			for (int i = 0; i < bytes.length; i += this.chunkSize) {
+				if (this.chunkSize == 1) {
+					response.getOutputStream().write(bytes[i]);
+				}
+				else {
+					response.getOutputStream().write(bytes, i, Math.min(this.chunkSize, bytes.length - i));
+				}
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,12 +24,17 @@ import static org.junit.Assert.fail;
 
 import java.lang.reflect.Method;
 
+import org.apache.commons.logging.LogFactory;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.core.MethodParameter;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.mock.web.test.MockHttpServletRequest;
 import org.springframework.mock.web.test.MockHttpServletResponse;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+import org.springframework.util.StopWatch;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.support.WebDataBinderFactory;
 import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.context.request.ServletWebRequest;
@@ -194,6 +199,117 @@ public class InvocableHandlerMethodTests {
 		}
 	}
 
+	@Test
+	public void generatedInvoker() throws Exception {
+		StubArgumentResolver intResolver = new StubArgumentResolver(Integer.class, 99);
+		StubArgumentResolver stringResolver = new StubArgumentResolver(String.class, "value");
+		InvocableHandlerMethod handlerMethod = createPublicHandlerMethod(intResolver, stringResolver);
+
+		assertEquals("99-value", handlerMethod.invokeForRequest(webRequest, null));
+		assertEquals("99-value", handlerMethod.invokeForRequest(webRequest, null));
+		assertEquals(2, intResolver.getResolvedParameters().size());
+		assertEquals("intArg", intResolver.getResolvedParameters().get(0).getParameterName());
+		assertEquals("stringArg", stringResolver.getResolvedParameters().get(0).getParameterName());
+
+		assertEquals("2-value", handlerMethod.invokeForRequest(webRequest, null, 2));
+		assertEquals(2, intResolver.getResolvedParameters().size());
+	}
+
+	@Test
+	public void generatedInvokerWithNonPublicHandler() throws Exception {
+		HandlerMethodArgumentResolverComposite composite = new HandlerMethodArgumentResolverComposite();
+		composite.addResolver(new StubArgumentResolver(Integer.class, 99));
+		composite.addResolver(new StubArgumentResolver(String.class, "value"));
+		handlerMethod.setHandlerMethodArgumentResolvers(composite);
+		handlerMethod.setUseGeneratedInvoker(true);
+
+		assertEquals("99-value", handlerMethod.invokeForRequest(webRequest, null));
+	}
+
+	@Test
+	public void generatedInvokerCannotResolveArg() throws Exception {
+		InvocableHandlerMethod handlerMethod = createPublicHandlerMethod(new StubArgumentResolver(String.class, "value"));
+		try {
+			handlerMethod.invokeForRequest(webRequest, null);
+			fail("Expected exception");
+		}
+		catch (IllegalStateException ex) {
+			assertTrue(ex.getMessage().contains("No suitable resolver for argument [0] [type=java.lang.Integer]"));
+		}
+	}
+
+	@Test
+	public void generatedInvokerIllegalArgumentException() throws Exception {
+		InvocableHandlerMethod handlerMethod = createPublicHandlerMethod(
+				new StubArgumentResolver(Integer.class, "__invalid__"), new StubArgumentResolver(String.class, "value"));
+		try {
+			handlerMethod.invokeForRequest(webRequest, null);
+			fail("Expected exception");
+		}
+		catch (IllegalArgumentException ex) {
+			assertTrue(ex.getCause() instanceof IllegalArgumentException);
+			assertTrue(ex.getMessage().contains("[0] [type=java.lang.String] [value=__invalid__]"));
+		}
+	}
+
+	@Test
+	public void generatedInvokerInvocationTargetException() throws Exception {
+		Method method = PublicHandler.class.getMethod("raiseException");
+		InvocableHandlerMethod handlerMethod = new InvocableHandlerMethod(new PublicHandler(), method);
+		handlerMethod.setUseGeneratedInvoker(true);
+		try {
+			handlerMethod.invokeForRequest(webRequest, null);
+			fail("Expected exception");
+		}
+		catch (Exception ex) {
+			assertEquals("error", ex.getMessage());
+			assertEquals(Exception.class, ex.getClass());
+		}
+	}
+
+	@Test
+	public void generatedInvokerPerformance() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+		StubArgumentResolver intResolver = new StubArgumentResolver(Integer.class, 99);
+		StubArgumentResolver stringResolver = new StubArgumentResolver(String.class, "value");
+		InvocableHandlerMethod reflectiveMethod = createPublicHandlerMethod(intResolver, stringResolver);
+		reflectiveMethod.setUseGeneratedInvoker(false);
+		InvocableHandlerMethod generatedMethod = createPublicHandlerMethod(intResolver, stringResolver);
+
+		StopWatch sw = new StopWatch();
+		for (int round = 0; round < 2; round++) {
+			sw.start("reflective invocation");
+			for (int i = 0; i < 500000; i++) {
+				intResolver.getResolvedParameters().clear();
+				stringResolver.getResolvedParameters().clear();
+				reflectiveMethod.invokeForRequest(webRequest, null);
+			}
+			sw.stop();
+			sw.start("generated invocation");
+			for (int i = 0; i < 500000; i++) {
+				intResolver.getResolvedParameters().clear();
+				stringResolver.getResolvedParameters().clear();
+				generatedMethod.invokeForRequest(webRequest, null);
+			}
+			sw.stop();
+		}
+		LogFactory.getLog(getClass()).info(sw.prettyPrint());
+	}
+
+	private InvocableHandlerMethod createPublicHandlerMethod(HandlerMethodArgumentResolver... resolvers)
+			throws Exception {
+
+		HandlerMethodArgumentResolverComposite composite = new HandlerMethodArgumentResolverComposite();
+		for (HandlerMethodArgumentResolver resolver : resolvers) {
+			composite.addResolver(resolver);
+		}
+		Method method = PublicHandler.class.getMethod("handle", Integer.class, String.class);
+		InvocableHandlerMethod handlerMethod = new InvocableHandlerMethod(new PublicHandler(), method);
+		handlerMethod.setHandlerMethodArgumentResolvers(composite);
+		handlerMethod.setUseGeneratedInvoker(true);
+		return handlerMethod;
+	}
+
 	private void invokeExceptionRaisingHandler(Throwable expected) throws Exception {
 		Method method = ExceptionRaisingHandler.class.getDeclaredMethod("raiseException");
 		Object handler = new ExceptionRaisingHandler(expected);
@@ -209,6 +325,18 @@ public class InvocableHandlerMethodTests {
 		}
 	}
 
+	public static class PublicHandler {
+
+		@ResponseBody
+		public String handle(Integer intArg, String stringArg) {
+			return intArg + "-" + stringArg;
+		}
+
+		public void raiseException() throws Exception {
+			throw new Exception("error");
+		}
+	}
+
 	@SuppressWarnings("unused")
 	private static class ExceptionRaisingHandler {
 
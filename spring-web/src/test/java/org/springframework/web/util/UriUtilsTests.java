@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -93,6 +93,9 @@ public class UriUtilsTests {
 	public void decode() throws UnsupportedEncodingException {
 		assertEquals("Invalid encoded URI", "", UriUtils.decode("", ENC));
 		assertEquals("Invalid encoded URI", "foobar", UriUtils.decode("foobar", ENC));
+		String source = "/foo/bar";
+		assertSame("Decoding without escapes should return source", source, UriUtils.decode(source, ENC));
+		assertEquals("Invalid encoded URI", "/foo/bar baz", UriUtils.decode("/foo/bar%20baz", ENC));
 		assertEquals("Invalid encoded URI", "foo bar", UriUtils.decode("foo%20bar", ENC));
 		assertEquals("Invalid encoded URI", "foo+bar", UriUtils.decode("foo%2bbar", ENC));
 		assertEquals("Invalid encoded result", "T\u014dky\u014d", UriUtils.decode("T%C5%8Dky%C5%8D", ENC));
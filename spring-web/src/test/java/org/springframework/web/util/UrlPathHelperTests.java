@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -139,6 +139,59 @@ public class UrlPathHelperTests {
 		assertEquals("/welcome.html;c=d", helper.getLookupPathForRequest(request));
 	}
 
+	@Test
+	public void getLookupPathCachedPerRequest() {
+		request.setContextPath("/petclinic");
+		request.setServletPath("/main");
+		request.setRequestURI("/petclinic/main/welcome%20page.html");
+
+		String lookupPath = helper.getLookupPathForRequest(request);
+		assertEquals("/welcome page.html", lookupPath);
+		assertSame(lookupPath, helper.getLookupPathForRequest(request));
+		assertSame(lookupPath, new UrlPathHelper().getLookupPathForRequest(request));
+
+		// forward
+		request.setServletPath("/other");
+		request.setRequestURI("/petclinic/other/owners.html");
+		assertEquals("/owners.html", helper.getLookupPathForRequest(request));
+	}
+
+	@Test
+	public void getLookupPathCachedPerRequestWithinInclude() {
+		request.setContextPath("/petclinic");
+		request.setServletPath("/main");
+		request.setRequestURI("/petclinic/main/welcome.html");
+		assertEquals("/welcome.html", helper.getLookupPathForRequest(request));
+
+		request.setAttribute(WebUtils.INCLUDE_CONTEXT_PATH_ATTRIBUTE, "/petclinic");
+		request.setAttribute(WebUtils.INCLUDE_SERVLET_PATH_ATTRIBUTE, "/main");
+		request.setAttribute(WebUtils.INCLUDE_REQUEST_URI_ATTRIBUTE, "/petclinic/main/header.html");
+		assertEquals("/header.html", helper.getLookupPathForRequest(request));
+
+		request.removeAttribute(WebUtils.INCLUDE_CONTEXT_PATH_ATTRIBUTE);
+		request.removeAttribute(WebUtils.INCLUDE_SERVLET_PATH_ATTRIBUTE);
+		request.removeAttribute(WebUtils.INCLUDE_REQUEST_URI_ATTRIBUTE);
+		assertEquals("/welcome.html", helper.getLookupPathForRequest(request));
+	}
+
+	@Test
+	public void getLookupPathCachedPerRequestWithDifferentSettings() {
+		request.setContextPath("/petclinic");
+		request.setServletPath("/main");
+		request.setRequestURI("/petclinic/main/welcome%20page.html");
+		assertEquals("/welcome page.html", helper.getLookupPathForRequest(request));
+
+		UrlPathHelper fullPathHelper = new UrlPathHelper();
+		fullPathHelper.setAlwaysUseFullPath(true);
+		assertEquals("/main/welcome page.html", fullPathHelper.getLookupPathForRequest(request));
+
+		UrlPathHelper nonDecodingHelper = new UrlPathHelper();
+		nonDecodingHelper.setUrlDecode(false);
+		assertEquals("/welcome%20page.html", nonDecodingHelper.getLookupPathForRequest(request));
+
+		assertEquals("/welcome page.html", helper.getLookupPathForRequest(request));
+	}
+
 
 	//
 	// suite of tests root requests for default servlets (SRV 11.2) on Websphere vs Tomcat and other containers
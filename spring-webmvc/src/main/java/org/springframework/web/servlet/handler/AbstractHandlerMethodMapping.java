@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,15 +25,18 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
 import org.springframework.util.ReflectionUtils.MethodFilter;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.method.HandlerMethodSelector;
@@ -55,12 +58,40 @@ import org.springframework.web.servlet.HandlerMapping;
  */
 public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMapping implements InitializingBean {
 
+	/** Default maximum number of lookup paths to cache candidate mappings for: 1024 */
+	public static final int DEFAULT_LOOKUP_CACHE_LIMIT = 1024;
+
+
 	private boolean detectHandlerMethodsInAncestorContexts = false;
 
 	private final Map<T, HandlerMethod> handlerMethods = new LinkedHashMap<T, HandlerMethod>();
 
 	private final MultiValueMap<String, T> urlMap = new LinkedMultiValueMap<String, T>();
 
+	private final PathSegmentTree<T> pathSegmentTree = new PathSegmentTree<T>();
+
+	private volatile int lookupCacheLimit = DEFAULT_LOOKUP_CACHE_LIMIT;
+
+	/** Fast access cache for candidate mappings, returning already cached instances without a global lock */
+	private final Map<String, List<T>> candidateAccessCache =
+			new ConcurrentHashMap<String, List<T>>(DEFAULT_LOOKUP_CACHE_LIMIT);
+
+	/** Map from lookup path to candidate mappings, synchronized for eviction of the eldest entry */
+	@SuppressWarnings("serial")
+	private final Map<String, List<T>> candidateCreationCache =
+			new LinkedHashMap<String, List<T>>(DEFAULT_LOOKUP_CACHE_LIMIT, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, List<T>> eldest) {
+					if (size() > getLookupCacheLimit()) {
+						candidateAccessCache.remove(eldest.getKey());
+						return true;
+					}
+					else {
+						return false;
+					}
+				}
+			};
+
 
 	/**
 	 * Whether to detect handler methods in beans in ancestor ApplicationContexts.
@@ -74,6 +105,27 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		this.detectHandlerMethodsInAncestorContexts = detectHandlerMethodsInAncestorContexts;
 	}
 
+	/**
+	 * Specify the maximum number of lookup paths to cache the candidate
+	 * mappings for, as narrowed down by the path segments of their URL patterns.
+	 * Applies to lookup paths without a direct match only, typically requests
+	 * for URI templates such as {@code "/orders/{id}"}.
+	 * <p>Default is 1024. Set this to 0 in order to narrow down the candidate
+	 * mappings for every request.
+	 * @since 4.0
+	 */
+	public void setLookupCacheLimit(int lookupCacheLimit) {
+		this.lookupCacheLimit = lookupCacheLimit;
+	}
+
+	/**
+	 * Return the maximum number of lookup paths to cache candidate mappings for.
+	 * @since 4.0
+	 */
+	public int getLookupCacheLimit() {
+		return this.lookupCacheLimit;
+	}
+
 	/**
 	 * Return a map with all handler methods and their mappings.
 	 */
@@ -187,6 +239,12 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				this.urlMap.add(pattern, mapping);
 			}
 		}
+
+		this.pathSegmentTree.add(mapping, patterns);
+		synchronized (this.candidateCreationCache) {
+			this.candidateAccessCache.clear();
+			this.candidateCreationCache.clear();
+		}
 	}
 
 	/**
@@ -253,6 +311,13 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			addMatchingMappings(directPathMatches, matches, request);
 		}
 
+		if (matches.isEmpty()) {
+			List<T> candidateMatches = getCandidateMappings(lookupPath);
+			if (candidateMatches != null) {
+				addMatchingMappings(candidateMatches, matches, request);
+			}
+		}
+
 		if (matches.isEmpty()) {
 			// No choice but to go through all mappings
 			addMatchingMappings(this.handlerMethods.keySet(), matches, request);
@@ -286,6 +351,34 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		}
 	}
 
+	/**
+	 * Return the mappings whose URL patterns may match the given lookup path,
+	 * or {@code null} if they cannot be narrowed down for the configured PathMatcher,
+	 * i.e. unless it is an AntPathMatcher with the default path separator.
+	 */
+	private List<T> getCandidateMappings(String lookupPath) {
+		PathMatcher pathMatcher = getPathMatcher();
+		if (!(pathMatcher instanceof AntPathMatcher) || !AntPathMatcher.DEFAULT_PATH_SEPARATOR.equals(
+				((AntPathMatcher) pathMatcher).getPathSeparator())) {
+			return null;
+		}
+		if (getLookupCacheLimit() <= 0) {
+			return this.pathSegmentTree.getCandidates(lookupPath);
+		}
+		List<T> candidates = this.candidateAccessCache.get(lookupPath);
+		if (candidates == null) {
+			synchronized (this.candidateCreationCache) {
+				candidates = this.candidateCreationCache.get(lookupPath);
+				if (candidates == null) {
+					candidates = this.pathSegmentTree.getCandidates(lookupPath);
+					this.candidateAccessCache.put(lookupPath, candidates);
+					this.candidateCreationCache.put(lookupPath, candidates);
+				}
+			}
+		}
+		return candidates;
+	}
+
 	private void addMatchingMappings(Collection<T> mappings, List<Match> matches, HttpServletRequest request) {
 		for (T mapping : mappings) {
 			T match = getMatchingMapping(mapping, request);
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Tree of mappings keyed by the path segments of their URL patterns, used by
+ * {@link AbstractHandlerMethodMapping} to narrow down the mappings to check
+ * for a lookup path that has no direct match.
+ *
+ * <p>Each pattern is compiled into a path from the root of the tree: literal
+ * segments lead to a child per segment value, while any other single segment
+ * (e.g. a URI variable such as {@code {id}} or a wildcard such as {@code *.html})
+ * leads to a child matching every segment value. The mapping is attached to the
+ * node reached before the last segment of its pattern, or before a {@code **}
+ * segment. The last segment is never compiled since it may match with a suffix
+ * or a trailing slash appended. Mappings without any patterns are attached
+ * to the root node.
+ *
+ * <p>The candidates for a lookup path are all mappings attached to nodes along
+ * the way when following its segments. Those are a superset of the mappings
+ * whose patterns match the lookup path according to {@link
+ * org.springframework.util.AntPathMatcher AntPathMatcher}, with the default
+ * path separator.
+ *
+ * @author Rossen Stoyanchev
+ * @since 4.0
+ */
+class PathSegmentTree<T> {
+
+	private static final String PATH_SEPARATOR = "/";
+
+	private final Node<T> root = new Node<T>();
+
+	/** Registration order of all mappings */
+	private final Map<T, Integer> registrationOrder = new HashMap<T, Integer>();
+
+	private final Comparator<T> registrationOrderComparator = new Comparator<T>() {
+		@Override
+		public int compare(T mapping1, T mapping2) {
+			return registrationOrder.get(mapping1).compareTo(registrationOrder.get(mapping2));
+		}
+	};
+
+
+	/**
+	 * Add the given mapping under each of the given URL patterns.
+	 * @param mapping the mapping to add
+	 * @param patterns the URL patterns of the mapping; if empty,
+	 * the mapping is a candidate for every lookup path
+	 */
+	public void add(T mapping, Collection<String> patterns) {
+		if (!this.registrationOrder.containsKey(mapping)) {
+			this.registrationOrder.put(mapping, this.registrationOrder.size());
+		}
+		if (patterns.isEmpty()) {
+			this.root.addMapping(mapping);
+			return;
+		}
+		for (String pattern : patterns) {
+			String[] segments = tokenize(pattern);
+			Node<T> node = this.root;
+			for (int i = 0; i < segments.length - 1 && !"**".equals(segments[i]); i++) {
+				node = node.getOrCreateChild(segments[i]);
+			}
+			node.addMapping(mapping);
+		}
+	}
+
+	/**
+	 * Return the mappings that may match the given lookup path.
+	 * @param lookupPath the lookup path to find candidates for
+	 * @return the candidate mappings, in registration order
+	 */
+	public List<T> getCandidates(String lookupPath) {
+		Set<T> candidates = new LinkedHashSet<T>();
+		collectCandidates(this.root, tokenize(lookupPath), 0, candidates);
+		List<T> result = new ArrayList<T>(candidates);
+		Collections.sort(result, this.registrationOrderComparator);
+		return result;
+	}
+
+	private void collectCandidates(Node<T> node, String[] segments, int index, Set<T> candidates) {
+		if (node.mappings != null) {
+			candidates.addAll(node.mappings);
+		}
+		if (index < segments.length) {
+			if (node.literalChildren != null) {
+				Node<T> child = node.literalChildren.get(segments[index]);
+				if (child != null) {
+					collectCandidates(child, segments, index + 1, candidates);
+				}
+			}
+			if (node.wildcardChild != null) {
+				collectCandidates(node.wildcardChild, segments, index + 1, candidates);
+			}
+		}
+	}
+
+	private static String[] tokenize(String path) {
+		return StringUtils.tokenizeToStringArray(path, PATH_SEPARATOR, true, true);
+	}
+
+	private static boolean isLiteral(String segment) {
+		return (segment.indexOf('*') == -1 && segment.indexOf('?') == -1 && segment.indexOf('{') == -1);
+	}
+
+
+	/**
+	 * A node in the tree, reached through the path segments leading to it.
+	 */
+	private static class Node<T> {
+
+		private Map<String, Node<T>> literalChildren;
+
+		private Node<T> wildcardChild;
+
+		private Set<T> mappings;
+
+		public Node<T> getOrCreateChild(String segment) {
+			if (isLiteral(segment)) {
+				if (this.literalChildren == null) {
+					this.literalChildren = new HashMap<String, Node<T>>(4);
+				}
+				Node<T> child = this.literalChildren.get(segment);
+				if (child == null) {
+					child = new Node<T>();
+					this.literalChildren.put(segment, child);
+				}
+				return child;
+			}
+			else {
+				if (this.wildcardChild == null) {
+					this.wildcardChild = new Node<T>();
+				}
+				return this.wildcardChild;
+			}
+		}
+
+		public void addMapping(T mapping) {
+			if (this.mappings == null) {
+				this.mappings = new LinkedHashSet<T>(4);
+			}
+			this.mappings.add(mapping);
+		}
+	}
+
+}
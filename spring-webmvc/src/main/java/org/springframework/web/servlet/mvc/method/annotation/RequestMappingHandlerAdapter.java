@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -151,6 +151,8 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
 
 	private ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
 
+	private boolean useGeneratedInvokers = false;
+
 	private ConfigurableBeanFactory beanFactory;
 
 
@@ -459,6 +461,18 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
 		this.parameterNameDiscoverer = parameterNameDiscoverer;
 	}
 
+	/**
+	 * Whether to invoke {@code @RequestMapping}, {@code @ModelAttribute} and
+	 * {@code @InitBinder} methods through generated classes rather than through
+	 * reflection, with the argument resolvers for each method looked up only once.
+	 * <p>Default is "false".
+	 * @since 4.0
+	 * @see InvocableHandlerMethod#setUseGeneratedInvoker
+	 */
+	public void setUseGeneratedInvokers(boolean useGeneratedInvokers) {
+		this.useGeneratedInvokers = useGeneratedInvokers;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * <p>A {@link ConfigurableBeanFactory} is expected for resolving
@@ -761,6 +775,7 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
 		requestMethod.setHandlerMethodReturnValueHandlers(this.returnValueHandlers);
 		requestMethod.setDataBinderFactory(binderFactory);
 		requestMethod.setParameterNameDiscoverer(this.parameterNameDiscoverer);
+		requestMethod.setUseGeneratedInvoker(this.useGeneratedInvokers);
 		return requestMethod;
 	}
 
@@ -792,6 +807,7 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
 		attrMethod.setHandlerMethodArgumentResolvers(this.argumentResolvers);
 		attrMethod.setParameterNameDiscoverer(this.parameterNameDiscoverer);
 		attrMethod.setDataBinderFactory(factory);
+		attrMethod.setUseGeneratedInvoker(this.useGeneratedInvokers);
 		return attrMethod;
 	}
 
@@ -822,6 +838,7 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
 		binderMethod.setHandlerMethodArgumentResolvers(this.initBinderArgumentResolvers);
 		binderMethod.setDataBinderFactory(new DefaultDataBinderFactory(this.webBindingInitializer));
 		binderMethod.setParameterNameDiscoverer(this.parameterNameDiscoverer);
+		binderMethod.setUseGeneratedInvoker(this.useGeneratedInvokers);
 		return binderMethod;
 	}
 
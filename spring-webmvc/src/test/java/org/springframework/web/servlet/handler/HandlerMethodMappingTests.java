@@ -17,8 +17,10 @@
 package org.springframework.web.servlet.handler;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Set;
@@ -31,7 +33,6 @@ import org.springframework.context.support.StaticApplicationContext;
 import org.springframework.mock.web.test.MockHttpServletRequest;
 import org.springframework.stereotype.Controller;
 import org.springframework.util.AntPathMatcher;
-import org.springframework.util.PathMatcher;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.util.UrlPathHelper;
@@ -91,6 +92,71 @@ public class HandlerMethodMappingTests {
 		mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/foo"));
 	}
 
+	@Test
+	public void patternMatchNarrowedByPathSegments() throws Exception {
+		mapping = new MyPatternHandlerMethodMapping();
+		mapping.registerHandlerMethod(handler, method1, "/orders/{id}");
+		mapping.registerHandlerMethod(handler, method2, "/orders/{id}/items/*");
+
+		HandlerMethod result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/orders/1"));
+		assertEquals(method1, result.getMethod());
+		result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/orders/1/items/2"));
+		assertEquals(method2, result.getMethod());
+		result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/orders/1/items/"));
+		assertEquals(method2, result.getMethod());
+		assertNull(mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/customers/1")));
+	}
+
+	@Test
+	public void patternMatchWithDoubleWildcard() throws Exception {
+		mapping = new MyPatternHandlerMethodMapping();
+		mapping.registerHandlerMethod(handler, method1, "/orders/**/items");
+		mapping.registerHandlerMethod(handler, method2, "/**");
+
+		HandlerMethod result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/orders/1/2/items"));
+		assertEquals(method1, result.getMethod());
+		result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/customers/1"));
+		assertEquals(method2, result.getMethod());
+	}
+
+	@Test
+	public void patternMatchWithoutLookupCache() throws Exception {
+		mapping = new MyPatternHandlerMethodMapping();
+		mapping.setLookupCacheLimit(0);
+		mapping.registerHandlerMethod(handler, method1, "/orders/{id}");
+
+		HandlerMethod result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/orders/1"));
+		assertEquals(method1, result.getMethod());
+		mapping.registerHandlerMethod(handler, method2, "/orders/{id}/items");
+		result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/orders/1/items"));
+		assertEquals(method2, result.getMethod());
+	}
+
+	@Test
+	public void patternMatchAfterRegistration() throws Exception {
+		mapping = new MyPatternHandlerMethodMapping();
+		mapping.registerHandlerMethod(handler, method1, "/**");
+		HandlerMethod result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/orders/1"));
+		assertEquals(method1, result.getMethod());
+
+		mapping.registerHandlerMethod(handler, method2, "/orders/{id}");
+		result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/orders/1"));
+		assertEquals(method2, result.getMethod());
+	}
+
+	@Test
+	public void patternMatchWithCustomPathSeparator() throws Exception {
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		pathMatcher.setPathSeparator(".");
+		mapping = new MyPatternHandlerMethodMapping();
+		mapping.setPathMatcher(pathMatcher);
+		mapping.registerHandlerMethod(handler, method1, "/{name}/items/report.*");
+		mapping.registerHandlerMethod(handler, method2, "**");
+
+		HandlerMethod result = mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/a/b/items/report.pdf"));
+		assertEquals(method1, result.getMethod());
+	}
+
 	@Test
 	public void testDetectHandlerMethodsInAncestorContexts() {
 		StaticApplicationContext cxt = new StaticApplicationContext();
@@ -115,12 +181,10 @@ public class HandlerMethodMappingTests {
 
 		private UrlPathHelper pathHelper = new UrlPathHelper();
 
-		private PathMatcher pathMatcher = new AntPathMatcher();
-
 		@Override
 		protected String getMatchingMapping(String pattern, HttpServletRequest request) {
 			String lookupPath = pathHelper.getLookupPathForRequest(request);
-			return pathMatcher.match(pattern, lookupPath) ? pattern : null;
+			return getPathMatcher().match(pattern, lookupPath) ? pattern : null;
 		}
 
 		@Override
@@ -132,7 +196,7 @@ public class HandlerMethodMappingTests {
 		@Override
 		protected Comparator<String> getMappingComparator(HttpServletRequest request) {
 			String lookupPath = pathHelper.getLookupPathForRequest(request);
-			return pathMatcher.getPatternComparator(lookupPath);
+			return getPathMatcher().getPatternComparator(lookupPath);
 		}
 
 		@Override
@@ -146,6 +210,14 @@ public class HandlerMethodMappingTests {
 		}
 	}
 
+	private static class MyPatternHandlerMethodMapping extends MyHandlerMethodMapping {
+
+		@Override
+		protected Set<String> getMappingPathPatterns(String key) {
+			return Collections.singleton(key);
+		}
+	}
+
 	@Controller
 	static class MyHandler {
 
@@ -19,19 +19,26 @@ package org.springframework.web.servlet.mvc.method;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 import javax.servlet.http.HttpServletRequest;
 
+import org.apache.commons.logging.LogFactory;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.test.MockHttpServletRequest;
 import org.springframework.stereotype.Controller;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StopWatch;
 import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
@@ -64,6 +71,8 @@ import static org.junit.Assert.*;
  */
 public class RequestMappingInfoHandlerMappingTests {
 
+	private static final int LOOKUP_COUNT = 2000;
+
 	private TestRequestMappingInfoHandlerMapping handlerMapping;
 
 	private HandlerMethod fooMethod;
@@ -395,6 +404,43 @@ public class RequestMappingInfoHandlerMappingTests {
 		this.handlerMapping.handleMatch(info, lookupPath, request);
 	}
 
+	@Test
+	public void lookupWithManyMappingsIsFastEnough() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+		Method method = this.fooMethod.getMethod();
+		for (int mappingCount : new int[] {100, 1000, 1800}) {
+			long treeTime = timeLookups(mappingCount, new AntPathMatcher(), method);
+			long scanTime = timeLookups(mappingCount, new NonAntPathMatcher(), method);
+			LogFactory.getLog(getClass()).info(mappingCount + " mappings: " + (1000 * LOOKUP_COUNT / Math.max(treeTime, 1)) +
+					" requests/sec (full scan: " + (1000 * LOOKUP_COUNT / Math.max(scanTime, 1)) + " requests/sec)");
+			if (mappingCount >= 1000) {
+				assertTrue("Lookups took " + treeTime + "ms versus " + scanTime + "ms with full scan",
+						treeTime < scanTime);
+			}
+		}
+	}
+
+	private long timeLookups(int mappingCount, PathMatcher pathMatcher, Method method) throws Exception {
+		TestRequestMappingInfoHandlerMapping mapping = new TestRequestMappingInfoHandlerMapping();
+		mapping.setPathMatcher(pathMatcher);
+		for (int i = 0; i < mappingCount; i++) {
+			String[] patterns = new String[] {"/resource" + i + "/{id}"};
+			RequestMappingInfo info = new RequestMappingInfo(
+					new PatternsRequestCondition(patterns, mapping.getUrlPathHelper(), pathMatcher, true, true),
+					new RequestMethodsRequestCondition(RequestMethod.GET), null, null, null, null, null);
+			mapping.registerHandlerMethod(this.fooMethod.getBean(), method, info);
+		}
+		StopWatch sw = new StopWatch();
+		sw.start();
+		for (int i = 0; i < LOOKUP_COUNT; i++) {
+			String path = "/resource" + (i % mappingCount) + "/" + (i % 50);
+			HandlerExecutionChain chain = mapping.getHandler(new MockHttpServletRequest("GET", path));
+			assertEquals(method, ((HandlerMethod) chain.getHandler()).getMethod());
+		}
+		sw.stop();
+		return sw.getTotalTimeMillis();
+	}
+
 	@SuppressWarnings("unchecked")
 	private MultiValueMap<String, String> getMatrixVariables(HttpServletRequest request, String uriVarName) {
 		String attrName = HandlerMapping.MATRIX_VARIABLES_ATTRIBUTE;
@@ -408,6 +454,50 @@ public class RequestMappingInfoHandlerMappingTests {
 	}
 
 
+	/**
+	 * AntPathMatcher behavior, without the ability to narrow down candidate mappings.
+	 */
+	private static class NonAntPathMatcher implements PathMatcher {
+
+		private final PathMatcher delegate = new AntPathMatcher();
+
+		@Override
+		public boolean isPattern(String path) {
+			return this.delegate.isPattern(path);
+		}
+
+		@Override
+		public boolean match(String pattern, String path) {
+			return this.delegate.match(pattern, path);
+		}
+
+		@Override
+		public boolean matchStart(String pattern, String path) {
+			return this.delegate.matchStart(pattern, path);
+		}
+
+		@Override
+		public String extractPathWithinPattern(String pattern, String path) {
+			return this.delegate.extractPathWithinPattern(pattern, path);
+		}
+
+		@Override
+		public Map<String, String> extractUriTemplateVariables(String pattern, String path) {
+			return this.delegate.extractUriTemplateVariables(pattern, path);
+		}
+
+		@Override
+		public Comparator<String> getPatternComparator(String path) {
+			return this.delegate.getPatternComparator(path);
+		}
+
+		@Override
+		public String combine(String pattern1, String pattern2) {
+			return this.delegate.combine(pattern1, pattern2);
+		}
+	}
+
+
 	@Controller
 	private static class TestController {
 
@@ -470,6 +560,11 @@ public class RequestMappingInfoHandlerMappingTests {
 			super.detectHandlerMethods(handler);
 		}
 
+		@Override
+		public void registerHandlerMethod(Object handler, Method method, RequestMappingInfo mapping) {
+			super.registerHandlerMethod(handler, method, mapping);
+		}
+
 		@Override
 		protected boolean isHandler(Class<?> beanType) {
 			return AnnotationUtils.findAnnotation(beanType, RequestMapping.class) != null;
@@ -133,6 +133,13 @@ public final class CloseStatus {
 	 */
 	public static final CloseStatus TLS_HANDSHAKE_FAILURE = new CloseStatus(1015);
 
+	/**
+	 * A status code for use within the framework that indicates a session has become
+	 * unreliable, e.g. because sending a message to it timed out or too many messages
+	 * have been buffered for it, and is being closed.
+	 */
+	public static final CloseStatus SESSION_NOT_RELIABLE = new CloseStatus(4500);
+
 
 	private final int code;
 
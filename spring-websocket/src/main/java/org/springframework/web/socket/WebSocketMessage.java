@@ -61,6 +61,14 @@ public abstract class WebSocketMessage<T> {
 		return this.last;
 	}
 
+	/**
+	 * Return the length of the message payload, i.e. the number of characters of
+	 * a text message or the number of bytes of a binary message.
+	 */
+	public int getPayloadLength() {
+		return getPayloadSize();
+	}
+
 	@Override
 	public int hashCode() {
 		return WebSocketMessage.class.hashCode() * 13 + ObjectUtils.nullSafeHashCode(this.payload);
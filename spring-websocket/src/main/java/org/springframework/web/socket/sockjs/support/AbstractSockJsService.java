@@ -32,6 +32,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.InvalidMediaTypeException;
@@ -64,7 +65,7 @@ import org.springframework.web.socket.sockjs.SockJsService;
  * @author Rossen Stoyanchev
  * @since 4.0
  */
-public abstract class AbstractSockJsService implements SockJsService {
+public abstract class AbstractSockJsService implements SockJsService, DisposableBean {
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -77,6 +78,8 @@ public abstract class AbstractSockJsService implements SockJsService {
 
 	private int streamBytesLimit = 128 * 1024;
 
+	private int httpMessageCacheSize = 100;
+
 	private boolean sessionCookieEnabled = false;
 
 	private long heartbeatTime = 25 * 1000;
@@ -87,6 +90,10 @@ public abstract class AbstractSockJsService implements SockJsService {
 
 	private final TaskScheduler taskScheduler;
 
+	private final TimingWheelHeartbeatScheduler defaultHeartbeatScheduler;
+
+	private TimingWheelHeartbeatScheduler heartbeatScheduler;
+
 	private final List<String> validSockJsPrefixes = new ArrayList<String>();
 
 	private final Set<String> knownSockJsPrefixes = new CopyOnWriteArraySet<String>();
@@ -95,6 +102,8 @@ public abstract class AbstractSockJsService implements SockJsService {
 	public AbstractSockJsService(TaskScheduler scheduler) {
 		Assert.notNull(scheduler, "scheduler must not be null");
 		this.taskScheduler = scheduler;
+		this.defaultHeartbeatScheduler = new TimingWheelHeartbeatScheduler(scheduler);
+		this.heartbeatScheduler = this.defaultHeartbeatScheduler;
 	}
 
 
@@ -185,6 +194,28 @@ public abstract class AbstractSockJsService implements SockJsService {
 		return this.streamBytesLimit;
 	}
 
+	/**
+	 * HTTP transports cache messages sent to the client between requests, e.g.
+	 * between the end of one long polling request and the start of the next, as
+	 * well as messages sent while another thread is writing to the response.
+	 * Cached messages are written together in a single frame. This property
+	 * sets the maximum number of messages a session may cache; sending more
+	 * fails with a {@link org.springframework.web.socket.sockjs.SockJsTransportFailureException}.
+	 *
+	 * <p>The default value is 100.
+	 */
+	public void setHttpMessageCacheSize(int httpMessageCacheSize) {
+		this.httpMessageCacheSize = httpMessageCacheSize;
+	}
+
+	/**
+	 * Return the maximum number of messages an HTTP transport session may cache.
+	 * @see #setHttpMessageCacheSize(int)
+	 */
+	public int getHttpMessageCacheSize() {
+		return this.httpMessageCacheSize;
+	}
+
 	/**
 	 * Some load balancers do sticky sessions, but only if there is a "JSESSIONID"
 	 * cookie. Even if it is set to a dummy value, it doesn't matter since
@@ -226,6 +257,25 @@ public abstract class AbstractSockJsService implements SockJsService {
 		return this.taskScheduler;
 	}
 
+	/**
+	 * Configure the scheduler that sessions register with once in order to send
+	 * heartbeat frames, rather than scheduling a task for every heartbeat. A
+	 * single instance may be shared by several services.
+	 *
+	 * <p>By default an instance driven by the {@link #getTaskScheduler() task
+	 * scheduler} is used, and it is shut down when this service is
+	 * {@link #destroy() destroyed}. An instance configured here is not shut down
+	 * by this service. If set to {@code null}, each session schedules its
+	 * heartbeats with the task scheduler instead.
+	 */
+	public void setHeartbeatScheduler(TimingWheelHeartbeatScheduler heartbeatScheduler) {
+		this.heartbeatScheduler = heartbeatScheduler;
+	}
+
+	public TimingWheelHeartbeatScheduler getHeartbeatScheduler() {
+		return this.heartbeatScheduler;
+	}
+
 	/**
 	 * The amount of time in milliseconds before a client is considered
 	 * disconnected after not having a receiving connection, i.e. an active
@@ -262,6 +312,14 @@ public abstract class AbstractSockJsService implements SockJsService {
 		return this.webSocketsEnabled;
 	}
 
+	/**
+	 * Shut down the default {@link #setHeartbeatScheduler heartbeat scheduler}.
+	 */
+	@Override
+	public void destroy() {
+		this.defaultHeartbeatScheduler.shutdown();
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * <p>
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.socket.sockjs.support;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.Assert;
+
+/**
+ * Runs idle timeout tasks, such as SockJS heartbeats or disconnect checks, for a
+ * large number of sessions using a single periodic task and a hashed timing wheel.
+ *
+ * <p>A task is registered once and reports the time of its last activity through
+ * {@link IdleTask#getLastActiveTime()}. Activity therefore only requires updating
+ * a timestamp, as opposed to cancelling and re-scheduling a task with the
+ * {@link TaskScheduler} for every message. When a task's bucket comes around, the
+ * wheel checks whether the task has been idle for its idle time and either runs it
+ * or moves it to the bucket of its new deadline. The cost per tick is proportional
+ * to the number of tasks in the bucket, and the precision is that of the tick
+ * duration.
+ *
+ * <p>Due tasks are not run on the thread that drives the wheel but are handed off
+ * to an {@link Executor}, by default the {@link TaskScheduler} itself. A task that
+ * blocks, for example sending a heartbeat to a slow client, therefore delays
+ * neither the wheel nor the tasks of other sessions. A task is not handed off
+ * again while a previous run of it is still in progress.
+ *
+ * @author Rossen Stoyanchev
+ * @since 4.0
+ */
+public class TimingWheelHeartbeatScheduler implements DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(TimingWheelHeartbeatScheduler.class);
+
+
+	/**
+	 * A task to run after a period of inactivity.
+	 */
+	public static interface IdleTask extends Runnable {
+
+		/**
+		 * Return the time in milliseconds of the last activity. The task is run
+		 * once it has been idle for the time it was registered with.
+		 */
+		long getLastActiveTime();
+	}
+
+	/**
+	 * A handle to a registered {@link IdleTask}.
+	 */
+	public static interface Registration {
+
+		/**
+		 * Remove the task from the wheel. It will not be run again.
+		 */
+		void cancel();
+	}
+
+
+	private final TaskScheduler taskScheduler;
+
+	private Executor taskExecutor;
+
+	private long tickDuration = 500;
+
+	private int ticksPerWheel = 512;
+
+	private final Queue<Entry> pendingEntries = new ConcurrentLinkedQueue<Entry>();
+
+	private final AtomicInteger registrationCount = new AtomicInteger();
+
+	private List<List<Entry>> wheel;
+
+	private long startTime;
+
+	private long lastTick;
+
+	private ScheduledFuture<?> tickTask;
+
+	private volatile boolean started;
+
+
+	public TimingWheelHeartbeatScheduler(final TaskScheduler taskScheduler) {
+		Assert.notNull(taskScheduler, "taskScheduler must not be null");
+		this.taskScheduler = taskScheduler;
+		this.taskExecutor = new Executor() {
+			@Override
+			public void execute(Runnable task) {
+				taskScheduler.schedule(task, new Date());
+			}
+		};
+	}
+
+
+	/**
+	 * Configure the executor to run due tasks with.
+	 * <p>By default tasks are handed off to the {@link TaskScheduler} that drives
+	 * the wheel, to be run immediately.
+	 */
+	public void setTaskExecutor(Executor taskExecutor) {
+		Assert.notNull(taskExecutor, "taskExecutor must not be null");
+		this.taskExecutor = taskExecutor;
+	}
+
+	public Executor getTaskExecutor() {
+		return this.taskExecutor;
+	}
+
+	/**
+	 * Configure the time in milliseconds between ticks of the wheel, i.e. the
+	 * precision with which tasks are run.
+	 * <p>The default value is 500.
+	 */
+	public void setTickDuration(long tickDuration) {
+		Assert.isTrue(tickDuration > 0, "tickDuration must be > 0");
+		Assert.state(!this.started, "Cannot change tickDuration after start");
+		this.tickDuration = tickDuration;
+	}
+
+	public long getTickDuration() {
+		return this.tickDuration;
+	}
+
+	/**
+	 * Configure the number of buckets in the wheel, rounded up to a power of two.
+	 * Ideally the wheel covers the longest idle time, i.e. idle time divided by the
+	 * tick duration does not exceed this number, or otherwise tasks are checked
+	 * more than once before they are due.
+	 * <p>The default value is 512.
+	 */
+	public void setTicksPerWheel(int ticksPerWheel) {
+		Assert.isTrue(ticksPerWheel > 0 && ticksPerWheel <= (1 << 20), "ticksPerWheel must be between 1 and 2^20");
+		Assert.state(!this.started, "Cannot change ticksPerWheel after start");
+		int size = 1;
+		while (size < ticksPerWheel) {
+			size <<= 1;
+		}
+		this.ticksPerWheel = size;
+	}
+
+	public int getTicksPerWheel() {
+		return this.ticksPerWheel;
+	}
+
+	/**
+	 * Return the number of registered tasks.
+	 */
+	public int getRegistrationCount() {
+		return this.registrationCount.get();
+	}
+
+
+	/**
+	 * Register a task to be run whenever it has been idle for the given time.
+	 * After the task runs, its idle time starts over.
+	 * @param task the task
+	 * @param idleTime the idle time in milliseconds
+	 * @return a handle to cancel the registration with
+	 */
+	public Registration register(IdleTask task, long idleTime) {
+		Assert.notNull(task, "task must not be null");
+		Assert.isTrue(idleTime > 0, "idleTime must be > 0");
+		if (!this.started) {
+			start();
+		}
+		Entry entry = new Entry(task, idleTime);
+		this.registrationCount.incrementAndGet();
+		this.pendingEntries.add(entry);
+		return entry;
+	}
+
+	private synchronized void start() {
+		if (this.started) {
+			return;
+		}
+		this.wheel = new ArrayList<List<Entry>>(this.ticksPerWheel);
+		for (int i = 0; i < this.ticksPerWheel; i++) {
+			this.wheel.add(new ArrayList<Entry>());
+		}
+		this.startTime = System.currentTimeMillis();
+		this.lastTick = 0;
+		this.started = true;
+		this.tickTask = this.taskScheduler.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					tick(System.currentTimeMillis());
+				}
+				catch (Throwable t) {
+					logger.error("Failed to process heartbeat timing wheel tick", t);
+				}
+			}
+		}, this.tickDuration);
+	}
+
+	/**
+	 * Advance the wheel to the given time, processing all buckets passed since
+	 * the previous tick. Invoked by a single thread at a time.
+	 */
+	void tick(long now) {
+		long currentTick = (now - this.startTime) / this.tickDuration;
+		Entry entry;
+		while ((entry = this.pendingEntries.poll()) != null) {
+			if (!entry.cancelled) {
+				schedule(entry, entry.task.getLastActiveTime() + entry.idleTime);
+			}
+		}
+		if (currentTick - this.lastTick > this.ticksPerWheel) {
+			this.lastTick = currentTick - this.ticksPerWheel;
+		}
+		while (this.lastTick < currentTick) {
+			this.lastTick++;
+			processBucket(this.lastTick, now);
+		}
+	}
+
+	private void processBucket(long tick, long now) {
+		int index = (int) (tick & (this.ticksPerWheel - 1));
+		List<Entry> entries = this.wheel.get(index);
+		this.wheel.set(index, new ArrayList<Entry>());
+		for (Entry entry : entries) {
+			if (entry.cancelled) {
+				continue;
+			}
+			if (entry.tick > tick) {
+				this.wheel.get(index).add(entry);
+				continue;
+			}
+			long deadline = entry.task.getLastActiveTime() + entry.idleTime;
+			if (deadline <= now) {
+				runTask(entry);
+				deadline = now + entry.idleTime;
+			}
+			schedule(entry, deadline);
+		}
+	}
+
+	private void runTask(final Entry entry) {
+		if (!entry.running.compareAndSet(false, true)) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Previous run still in progress, skipping idle task: " + entry.task);
+			}
+			return;
+		}
+		try {
+			this.taskExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						if (!entry.cancelled) {
+							entry.task.run();
+						}
+					}
+					catch (Throwable t) {
+						logger.error("Idle task failed: " + entry.task, t);
+					}
+					finally {
+						entry.running.set(false);
+					}
+				}
+			});
+		}
+		catch (Throwable t) {
+			entry.running.set(false);
+			logger.error("Failed to hand off idle task: " + entry.task, t);
+		}
+	}
+
+	private void schedule(Entry entry, long deadline) {
+		long tick = (deadline - this.startTime + this.tickDuration - 1) / this.tickDuration;
+		entry.tick = Math.max(tick, this.lastTick + 1);
+		this.wheel.get((int) (entry.tick & (this.ticksPerWheel - 1))).add(entry);
+	}
+
+	/**
+	 * Stop the periodic task driving the wheel. Registered tasks are no longer run.
+	 */
+	public synchronized void shutdown() {
+		if (this.tickTask != null) {
+			this.tickTask.cancel(false);
+			this.tickTask = null;
+		}
+	}
+
+	@Override
+	public void destroy() {
+		shutdown();
+	}
+
+
+	private class Entry implements Registration {
+
+		private final IdleTask task;
+
+		private final long idleTime;
+
+		private long tick;
+
+		private volatile boolean cancelled;
+
+		private final AtomicBoolean running = new AtomicBoolean();
+
+
+		public Entry(IdleTask task, long idleTime) {
+			this.task = task;
+			this.idleTime = idleTime;
+		}
+
+		@Override
+		public synchronized void cancel() {
+			if (!this.cancelled) {
+				this.cancelled = true;
+				registrationCount.decrementAndGet();
+			}
+		}
+	}
+
+}
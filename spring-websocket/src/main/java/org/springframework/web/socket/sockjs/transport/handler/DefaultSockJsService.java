@@ -46,6 +46,7 @@ import org.springframework.web.socket.server.support.ServerWebSocketSessionIniti
 import org.springframework.web.socket.sockjs.SockJsException;
 import org.springframework.web.socket.sockjs.SockJsService;
 import org.springframework.web.socket.sockjs.support.AbstractSockJsService;
+import org.springframework.web.socket.sockjs.support.TimingWheelHeartbeatScheduler;
 import org.springframework.web.socket.sockjs.support.frame.Jackson2SockJsMessageCodec;
 import org.springframework.web.socket.sockjs.support.frame.SockJsMessageCodec;
 import org.springframework.web.socket.sockjs.transport.TransportHandler;
@@ -338,6 +339,11 @@ public class DefaultSockJsService extends AbstractSockJsService {
 			return DefaultSockJsService.this.getTaskScheduler();
 		}
 
+		@Override
+		public TimingWheelHeartbeatScheduler getHeartbeatScheduler() {
+			return DefaultSockJsService.this.getHeartbeatScheduler();
+		}
+
 		@Override
 		public SockJsMessageCodec getMessageCodec() {
 			Assert.state(DefaultSockJsService.this.getMessageCodec() != null,
@@ -345,6 +351,11 @@ public class DefaultSockJsService extends AbstractSockJsService {
 					+ " Either add Jackson 2 or Jackson 1.x to the classpath, or configure a SockJsMessageCode");
 			return DefaultSockJsService.this.getMessageCodec();
 		}
+
+		@Override
+		public int getHttpMessageCacheSize() {
+			return DefaultSockJsService.this.getHttpMessageCacheSize();
+		}
 	};
 
 }
@@ -17,8 +17,14 @@
 package org.springframework.web.socket.sockjs.transport.session;
 
 import java.io.IOException;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.springframework.http.server.ServerHttpAsyncRequestControl;
 import org.springframework.http.server.ServerHttpRequest;
@@ -34,6 +40,12 @@ import org.springframework.web.socket.sockjs.support.frame.SockJsFrame.FrameForm
 /**
  * An abstract base class for use with HTTP transport based SockJS sessions.
  *
+ * <p>Messages are added to a non-blocking cache and written by whichever thread
+ * manages to acquire the flush lock, so threads sending messages never wait on
+ * each other or on the session monitor. Any messages that accumulate while a
+ * flush is in progress, or while there is no active request, are written in a
+ * single frame by the next flush.
+ *
  * @author Rossen Stoyanchev
  * @since 4.0
  */
@@ -41,19 +53,22 @@ public abstract class AbstractHttpSockJsSession extends AbstractSockJsSession {
 
 	private FrameFormat frameFormat;
 
-	private final BlockingQueue<String> messageCache = new ArrayBlockingQueue<String>(100);
+	private final MessageCache messageCache;
+
+	private final Lock flushLock = new ReentrantLock();
 
-	private ServerHttpRequest request;
+	private volatile ServerHttpRequest request;
 
-	private ServerHttpResponse response;
+	private volatile ServerHttpResponse response;
 
-	private ServerHttpAsyncRequestControl asyncRequestControl;
+	private volatile ServerHttpAsyncRequestControl asyncRequestControl;
 
 	private String protocol;
 
 
 	public AbstractHttpSockJsSession(String sessionId, SockJsServiceConfig config, WebSocketHandler handler) {
 		super(sessionId, config, handler);
+		this.messageCache = new MessageCache(config.getHttpMessageCacheSize());
 	}
 
 
@@ -130,14 +145,35 @@ public abstract class AbstractHttpSockJsSession extends AbstractSockJsSession {
 
 
 	@Override
-	public synchronized boolean isActive() {
-		return ((this.asyncRequestControl != null) && (!this.asyncRequestControl.isCompleted()));
+	public boolean isActive() {
+		ServerHttpAsyncRequestControl control = this.asyncRequestControl;
+		return ((control != null) && (!control.isCompleted()));
 	}
 
-	protected BlockingQueue<String> getMessageCache() {
+	protected Queue<String> getMessageCache() {
 		return this.messageCache;
 	}
 
+	/**
+	 * Remove cached messages, at least one if any are cached, until their combined
+	 * length reaches the given limit.
+	 * @param lengthLimit the number of characters after which to stop
+	 * @return the removed messages, possibly none
+	 */
+	protected String[] drainMessageCache(int lengthLimit) {
+		List<String> messages = new ArrayList<String>();
+		int length = 0;
+		while (length < lengthLimit) {
+			String message = this.messageCache.poll();
+			if (message == null) {
+				break;
+			}
+			messages.add(message);
+			length += message.length();
+		}
+		return messages.toArray(new String[messages.size()]);
+	}
+
 	protected ServerHttpRequest getRequest() {
 		return this.request;
 	}
@@ -147,20 +183,50 @@ public abstract class AbstractHttpSockJsSession extends AbstractSockJsSession {
 	}
 
 	@Override
-	protected final synchronized void sendMessageInternal(String message) throws SockJsTransportFailureException {
-		this.messageCache.add(message);
+	protected final void sendMessageInternal(String message) throws SockJsTransportFailureException {
+		if (!this.messageCache.offer(message)) {
+			throw new SockJsTransportFailureException("Message cache full: " +
+					this.messageCache.size() + " messages not flushed", getId(), null);
+		}
 		tryFlushCache();
 	}
 
+	/**
+	 * Flush cached messages unless another thread is already doing so, in which
+	 * case that thread picks up the messages cached in the mean time: the cache
+	 * is checked again after every release of the flush lock, and flushing is
+	 * repeated as long as messages remain, unless the last flush made no progress
+	 * and no messages were added while it was in progress.
+	 */
 	private void tryFlushCache() throws SockJsTransportFailureException {
-		if (isActive() && !getMessageCache().isEmpty()) {
-			logger.trace("Flushing messages");
-			flushCache();
+		while (isActive() && !this.messageCache.isEmpty()) {
+			if (!this.flushLock.tryLock()) {
+				return;
+			}
+			long offerCount = this.messageCache.getOfferCount();
+			boolean flushed = true;
+			try {
+				synchronized (this) {
+					if (isActive() && !this.messageCache.isEmpty()) {
+						logger.trace("Flushing messages");
+						long pollCount = this.messageCache.getPollCount();
+						flushCache();
+						flushed = (this.messageCache.getPollCount() != pollCount);
+					}
+				}
+			}
+			finally {
+				this.flushLock.unlock();
+			}
+			if (!flushed && (this.messageCache.getOfferCount() == offerCount)) {
+				return;
+			}
 		}
 	}
 
 	/**
-	 * Only called if the connection is currently active
+	 * Only called if the connection is currently active and by one thread at a
+	 * time, holding the session monitor.
 	 */
 	protected abstract void flushCache() throws SockJsTransportFailureException;
 
@@ -196,4 +262,71 @@ public abstract class AbstractHttpSockJsSession extends AbstractSockJsSession {
 		}
 	}
 
+
+
+	/**
+	 * A lock-free queue that keeps track of its size and rejects messages beyond
+	 * a fixed capacity.
+	 */
+	@SuppressWarnings("serial")
+	private static class MessageCache extends ConcurrentLinkedQueue<String> {
+
+		private final int capacity;
+
+		private final AtomicInteger size = new AtomicInteger();
+
+		private final AtomicLong offerCount = new AtomicLong();
+
+		private final AtomicLong pollCount = new AtomicLong();
+
+
+		public MessageCache(int capacity) {
+			Assert.isTrue(capacity > 0, "capacity must be > 0");
+			this.capacity = capacity;
+		}
+
+		@Override
+		public boolean offer(String message) {
+			if (this.size.incrementAndGet() > this.capacity) {
+				this.size.decrementAndGet();
+				return false;
+			}
+			super.offer(message);
+			this.offerCount.incrementAndGet();
+			return true;
+		}
+
+		@Override
+		public String poll() {
+			String message = super.poll();
+			if (message != null) {
+				this.size.decrementAndGet();
+				this.pollCount.incrementAndGet();
+			}
+			return message;
+		}
+
+		@Override
+		public boolean remove(Object message) {
+			if (super.remove(message)) {
+				this.size.decrementAndGet();
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public int size() {
+			return this.size.get();
+		}
+
+		public long getOfferCount() {
+			return this.offerCount.get();
+		}
+
+		public long getPollCount() {
+			return this.pollCount.get();
+		}
+	}
+
 }
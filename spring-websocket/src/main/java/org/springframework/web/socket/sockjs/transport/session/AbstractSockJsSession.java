@@ -38,6 +38,7 @@ import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.adapter.ConfigurableWebSocketSession;
 import org.springframework.web.socket.sockjs.SockJsMessageDeliveryException;
 import org.springframework.web.socket.sockjs.SockJsTransportFailureException;
+import org.springframework.web.socket.sockjs.support.TimingWheelHeartbeatScheduler;
 import org.springframework.web.socket.sockjs.support.frame.SockJsFrame;
 
 /**
@@ -64,7 +65,7 @@ public abstract class AbstractSockJsSession implements ConfigurableWebSocketSess
 
 	private final WebSocketHandler handler;
 
-	private State state = State.NEW;
+	private volatile State state = State.NEW;
 
 	private final long timeCreated = System.currentTimeMillis();
 
@@ -72,6 +73,10 @@ public abstract class AbstractSockJsSession implements ConfigurableWebSocketSess
 
 	private ScheduledFuture<?> heartbeatTask;
 
+	private volatile long timeLastHeartbeatScheduled = this.timeCreated;
+
+	private volatile TimingWheelHeartbeatScheduler.Registration heartbeatRegistration;
+
 
 	/**
 	 * @param sessionId the session ID
@@ -220,6 +225,7 @@ public abstract class AbstractSockJsSession implements ConfigurableWebSocketSess
 			try {
 				updateLastActiveTime();
 				cancelHeartbeat();
+				unregisterHeartbeat();
 			}
 			finally {
 				this.state = State.CLOSED;
@@ -232,7 +238,7 @@ public abstract class AbstractSockJsSession implements ConfigurableWebSocketSess
 		this.handler.handleTransportError(this, ex);
 	}
 
-	public final synchronized void sendMessage(WebSocketMessage message) throws IOException {
+	public final void sendMessage(WebSocketMessage message) throws IOException {
 		Assert.isTrue(!isClosed(), "Cannot send a message when session is closed");
 		Assert.isInstanceOf(TextMessage.class, message, "Expected text message: " + message);
 		sendMessageInternal(((TextMessage) message).getPayload());
@@ -274,6 +280,7 @@ public abstract class AbstractSockJsSession implements ConfigurableWebSocketSess
 				}
 				updateLastActiveTime();
 				cancelHeartbeat();
+				unregisterHeartbeat();
 				disconnect(status);
 			}
 			finally {
@@ -346,7 +353,20 @@ public abstract class AbstractSockJsSession implements ConfigurableWebSocketSess
 		}
 	}
 
+	/**
+	 * Schedule a heartbeat to be sent if no other frame is written within the
+	 * heartbeat time. When a {@link TimingWheelHeartbeatScheduler} is configured,
+	 * the session registers with it once and afterwards only records the time.
+	 */
 	protected void scheduleHeartbeat() {
+		TimingWheelHeartbeatScheduler heartbeatScheduler = this.sockJsServiceConfig.getHeartbeatScheduler();
+		if (heartbeatScheduler != null) {
+			this.timeLastHeartbeatScheduled = System.currentTimeMillis();
+			if ((this.heartbeatRegistration == null) && isActive()) {
+				registerHeartbeat(heartbeatScheduler);
+			}
+			return;
+		}
 		Assert.state(this.sockJsServiceConfig.getTaskScheduler() != null, "heartbeatScheduler not configured");
 		cancelHeartbeat();
 		if (!isActive()) {
@@ -368,6 +388,48 @@ public abstract class AbstractSockJsSession implements ConfigurableWebSocketSess
 		}
 	}
 
+	private synchronized void registerHeartbeat(TimingWheelHeartbeatScheduler heartbeatScheduler) {
+		if ((this.heartbeatRegistration != null) || isClosed()) {
+			return;
+		}
+		this.heartbeatRegistration = heartbeatScheduler.register(new TimingWheelHeartbeatScheduler.IdleTask() {
+			@Override
+			public long getLastActiveTime() {
+				return timeLastHeartbeatScheduled;
+			}
+			@Override
+			public void run() {
+				if (isClosed()) {
+					unregisterHeartbeat();
+					return;
+				}
+				try {
+					sendHeartbeat();
+				}
+				catch (Throwable t) {
+					// ignore
+				}
+			}
+		}, this.sockJsServiceConfig.getHeartbeatTime());
+		if (logger.isTraceEnabled()) {
+			logger.trace("Registered for heartbeats after " + this.sockJsServiceConfig.getHeartbeatTime()/1000 + " seconds");
+		}
+	}
+
+	private void unregisterHeartbeat() {
+		TimingWheelHeartbeatScheduler.Registration registration = this.heartbeatRegistration;
+		if (registration != null) {
+			registration.cancel();
+			this.heartbeatRegistration = null;
+		}
+	}
+
+	/**
+	 * Cancel the heartbeat scheduled with the {@code TaskScheduler}, if any. Heartbeats
+	 * registered with a {@link TimingWheelHeartbeatScheduler} are not cancelled, since
+	 * they are only sent to an active session that has not been written to within the
+	 * heartbeat time.
+	 */
 	protected void cancelHeartbeat() {
 		if ((this.heartbeatTask != null) && !this.heartbeatTask.isDone()) {
 			if (logger.isTraceEnabled()) {
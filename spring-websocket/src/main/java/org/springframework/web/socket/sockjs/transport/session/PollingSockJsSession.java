@@ -37,8 +37,7 @@ public class PollingSockJsSession extends AbstractHttpSockJsSession {
 	protected void flushCache() throws SockJsTransportFailureException {
 
 		cancelHeartbeat();
-		String[] messages = getMessageCache().toArray(new String[getMessageCache().size()]);
-		getMessageCache().clear();
+		String[] messages = drainMessageCache(Integer.MAX_VALUE);
 
 		SockJsMessageCodec messageCodec = getSockJsServiceConfig().getMessageCodec();
 		SockJsFrame frame = SockJsFrame.messageFrame(messageCodec, messages);
@@ -18,6 +18,7 @@ package org.springframework.web.socket.sockjs.transport.session;
 
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.sockjs.SockJsService;
+import org.springframework.web.socket.sockjs.support.TimingWheelHeartbeatScheduler;
 import org.springframework.web.socket.sockjs.support.frame.SockJsMessageCodec;
 
 /**
@@ -35,6 +36,18 @@ public interface SockJsServiceConfig {
 
 	TaskScheduler getTaskScheduler();
 
+	/**
+	 * The scheduler to register heartbeat tasks with, or {@code null} to schedule
+	 * each heartbeat with the {@link #getTaskScheduler() TaskScheduler}.
+	 */
+	TimingWheelHeartbeatScheduler getHeartbeatScheduler();
+
 	SockJsMessageCodec getMessageCodec();
 
+	/**
+	 * The maximum number of messages an HTTP transport session caches while
+	 * there is no active request to write them to.
+	 */
+	int getHttpMessageCacheSize();
+
 }
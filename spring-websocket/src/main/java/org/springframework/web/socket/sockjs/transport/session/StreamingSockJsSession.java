@@ -59,18 +59,25 @@ public class StreamingSockJsSession extends AbstractHttpSockJsSession {
 
 		cancelHeartbeat();
 
+		SockJsMessageCodec messageCodec = getSockJsServiceConfig().getMessageCodec();
+		int streamBytesLimit = getSockJsServiceConfig().getStreamBytesLimit();
+
 		do {
-			String message = getMessageCache().poll();
-			SockJsMessageCodec messageCodec = getSockJsServiceConfig().getMessageCodec();
-			SockJsFrame frame = SockJsFrame.messageFrame(messageCodec, message);
+			// drain up to the remaining byte budget so that a single frame does not
+			// overshoot the limit by much (message length is a lower bound on its size)
+			String[] messages = drainMessageCache(streamBytesLimit - this.byteCount);
+			if (messages.length == 0) {
+				break;
+			}
+			SockJsFrame frame = SockJsFrame.messageFrame(messageCodec, messages);
 			writeFrame(frame);
 
 			this.byteCount += frame.getContentBytes().length + 1;
 			if (logger.isTraceEnabled()) {
-				logger.trace(this.byteCount + " bytes written so far, "
+				logger.trace(messages.length + " messages flushed, " + this.byteCount + " bytes written so far, "
 						+ getMessageCache().size() + " more messages not flushed");
 			}
-			if (this.byteCount >= getSockJsServiceConfig().getStreamBytesLimit()) {
+			if (this.byteCount >= streamBytesLimit) {
 				if (logger.isTraceEnabled()) {
 					logger.trace("Streamed bytes limit reached. Recycling current request");
 				}
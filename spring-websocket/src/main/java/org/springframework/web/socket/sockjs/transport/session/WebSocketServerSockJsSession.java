@@ -95,7 +95,7 @@ public class WebSocketServerSockJsSession extends AbstractSockJsSession {
 	}
 
 	@Override
-	public void sendMessageInternal(String message) throws SockJsTransportFailureException {
+	public synchronized void sendMessageInternal(String message) throws SockJsTransportFailureException {
 		cancelHeartbeat();
 		SockJsMessageCodec messageCodec = getSockJsServiceConfig().getMessageCodec();
 		SockJsFrame frame = SockJsFrame.messageFrame(messageCodec, message);
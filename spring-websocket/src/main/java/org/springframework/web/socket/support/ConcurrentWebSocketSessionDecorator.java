@@ -0,0 +1,351 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.socket.support;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.Assert;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Wraps a {@link WebSocketSession} to guarantee that only one thread at a time sends
+ * messages, and that a thread never blocks on a send already in progress.
+ *
+ * <p>Messages sent while another thread is sending are added to a buffer, which the
+ * sending thread then drains. The buffer is bounded by a number of bytes and,
+ * optionally, a number of messages. When a limit is exceeded the configured
+ * {@link OverflowPolicy} is applied. When a send does not complete within the send
+ * time limit the session is closed with {@link CloseStatus#SESSION_NOT_RELIABLE},
+ * regardless of the policy, since discarding buffered messages would not help.
+ *
+ * <p>The net effect is that a slow client holds back only the thread that is sending
+ * to it, while other threads, e.g. a broker fanning out a message to many sessions,
+ * move on.
+ *
+ * @author Rossen Stoyanchev
+ * @since 4.0
+ */
+public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorator {
+
+	private static final Log logger = LogFactory.getLog(ConcurrentWebSocketSessionDecorator.class);
+
+
+	/**
+	 * What to do when the buffer size or message count limit is exceeded.
+	 */
+	public static enum OverflowPolicy {
+
+		/** Discard the oldest buffered messages until the buffer is within limits. */
+		DROP_OLDEST,
+
+		/**
+		 * Discard buffered messages superseded by a later buffered message with the
+		 * same {@link CoalescingKeyResolver coalescing key}, then the oldest messages
+		 * if the buffer is still not within limits.
+		 */
+		COALESCE,
+
+		/** Close the session with {@link CloseStatus#SESSION_NOT_RELIABLE}. */
+		CLOSE
+	}
+
+
+	/**
+	 * Strategy to determine which buffered messages supersede each other for the
+	 * {@link OverflowPolicy#COALESCE} policy.
+	 */
+	public static interface CoalescingKeyResolver {
+
+		/**
+		 * Return the coalescing key of a message, or {@code null} if the message
+		 * must not be coalesced with other messages.
+		 */
+		Object getCoalescingKey(WebSocketMessage<?> message);
+	}
+
+
+	private final int sendTimeLimit;
+
+	private final int bufferSizeLimit;
+
+	private int messageCountLimit = -1;
+
+	private OverflowPolicy overflowPolicy = OverflowPolicy.CLOSE;
+
+	private CoalescingKeyResolver coalescingKeyResolver;
+
+	private final BlockingQueue<WebSocketMessage<?>> buffer = new LinkedBlockingQueue<WebSocketMessage<?>>();
+
+	private final AtomicInteger bufferSize = new AtomicInteger();
+
+	private final AtomicLong discardedMessageCount = new AtomicLong();
+
+	private volatile long sendStartTime;
+
+	private volatile boolean limitExceeded;
+
+	private final Lock flushLock = new ReentrantLock();
+
+	private final Lock overflowLock = new ReentrantLock();
+
+
+	/**
+	 * Create a new decorator.
+	 * @param delegate the session to send messages to
+	 * @param sendTimeLimit the maximum amount of time in milliseconds a single send
+	 *        may take before the session is closed
+	 * @param bufferSizeLimit the maximum number of payload bytes (characters for text
+	 *        messages) to buffer
+	 */
+	public ConcurrentWebSocketSessionDecorator(WebSocketSession delegate, int sendTimeLimit, int bufferSizeLimit) {
+		super(delegate);
+		Assert.isTrue(sendTimeLimit > 0, "sendTimeLimit must be > 0");
+		Assert.isTrue(bufferSizeLimit > 0, "bufferSizeLimit must be > 0");
+		this.sendTimeLimit = sendTimeLimit;
+		this.bufferSizeLimit = bufferSizeLimit;
+	}
+
+
+	/**
+	 * Configure the maximum number of messages to buffer. By default this is not
+	 * set and only the {@code bufferSizeLimit} applies.
+	 */
+	public void setMessageCountLimit(int messageCountLimit) {
+		this.messageCountLimit = messageCountLimit;
+	}
+
+	public int getMessageCountLimit() {
+		return this.messageCountLimit;
+	}
+
+	/**
+	 * Configure what to do when a buffer limit is exceeded.
+	 * <p>By default this is set to {@link OverflowPolicy#CLOSE}.
+	 */
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		Assert.notNull(overflowPolicy, "overflowPolicy is required");
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	public OverflowPolicy getOverflowPolicy() {
+		return this.overflowPolicy;
+	}
+
+	/**
+	 * Configure the strategy to determine coalescing keys for the
+	 * {@link OverflowPolicy#COALESCE} policy. If not set, that policy discards
+	 * the oldest messages.
+	 */
+	public void setCoalescingKeyResolver(CoalescingKeyResolver coalescingKeyResolver) {
+		this.coalescingKeyResolver = coalescingKeyResolver;
+	}
+
+	public CoalescingKeyResolver getCoalescingKeyResolver() {
+		return this.coalescingKeyResolver;
+	}
+
+	public int getSendTimeLimit() {
+		return this.sendTimeLimit;
+	}
+
+	public int getBufferSizeLimit() {
+		return this.bufferSizeLimit;
+	}
+
+	/**
+	 * Return the number of payload bytes (characters for text messages) buffered.
+	 */
+	public int getBufferSize() {
+		return this.bufferSize.get();
+	}
+
+	/**
+	 * Return the number of buffered messages.
+	 */
+	public int getBufferedMessageCount() {
+		return this.buffer.size();
+	}
+
+	/**
+	 * Return the number of messages discarded due to buffer limits.
+	 */
+	public long getDiscardedMessageCount() {
+		return this.discardedMessageCount.get();
+	}
+
+	/**
+	 * Return the time in milliseconds since the current send started, or 0 if no
+	 * send is in progress.
+	 */
+	public long getTimeSinceSendStarted() {
+		long start = this.sendStartTime;
+		return (start > 0) ? (System.currentTimeMillis() - start) : 0;
+	}
+
+
+	@Override
+	public void sendMessage(WebSocketMessage<?> message) throws IOException {
+		if (this.limitExceeded) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Session limits exceeded, discarding message " + message);
+			}
+			return;
+		}
+
+		this.buffer.add(message);
+		this.bufferSize.addAndGet(message.getPayloadLength());
+
+		do {
+			if (!tryFlushBuffer()) {
+				checkLimits();
+				break;
+			}
+		}
+		while (!this.buffer.isEmpty() && !this.limitExceeded);
+	}
+
+	private boolean tryFlushBuffer() throws IOException {
+		if (this.flushLock.tryLock()) {
+			try {
+				while (!this.limitExceeded) {
+					WebSocketMessage<?> message = this.buffer.poll();
+					if (message == null) {
+						break;
+					}
+					this.bufferSize.addAndGet(-message.getPayloadLength());
+					this.sendStartTime = System.currentTimeMillis();
+					getDelegate().sendMessage(message);
+					this.sendStartTime = 0;
+				}
+			}
+			finally {
+				this.sendStartTime = 0;
+				this.flushLock.unlock();
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private void checkLimits() throws IOException {
+		if (this.overflowLock.tryLock()) {
+			try {
+				if (getTimeSinceSendStarted() > this.sendTimeLimit) {
+					closeSession("Message send time " + getTimeSinceSendStarted() +
+							" (ms) exceeded the allowed limit " + this.sendTimeLimit);
+				}
+				else if (isBufferLimitExceeded()) {
+					if (OverflowPolicy.CLOSE.equals(this.overflowPolicy)) {
+						closeSession("Buffer size " + getBufferSize() + " or message count " +
+								getBufferedMessageCount() + " exceeded the allowed limit");
+					}
+					else {
+						if (OverflowPolicy.COALESCE.equals(this.overflowPolicy)) {
+							coalesce();
+						}
+						discardOldest();
+					}
+				}
+			}
+			finally {
+				this.overflowLock.unlock();
+			}
+		}
+	}
+
+	private boolean isBufferLimitExceeded() {
+		return ((getBufferSize() > this.bufferSizeLimit) ||
+				((this.messageCountLimit > 0) && (getBufferedMessageCount() > this.messageCountLimit)));
+	}
+
+	private void closeSession(String reason) throws IOException {
+		this.limitExceeded = true;
+		if (logger.isWarnEnabled()) {
+			logger.warn("Closing session id=" + getId() + ": " + reason);
+		}
+		this.buffer.clear();
+		this.bufferSize.set(0);
+		getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+	}
+
+	private void coalesce() {
+		if (this.coalescingKeyResolver == null) {
+			return;
+		}
+		Map<Object, WebSocketMessage<?>> latest = new HashMap<Object, WebSocketMessage<?>>();
+		Map<WebSocketMessage<?>, Boolean> superseded = new HashMap<WebSocketMessage<?>, Boolean>();
+		for (WebSocketMessage<?> message : this.buffer) {
+			Object key = this.coalescingKeyResolver.getCoalescingKey(message);
+			if (key != null) {
+				WebSocketMessage<?> previous = latest.put(key, message);
+				if (previous != null) {
+					superseded.put(previous, Boolean.TRUE);
+				}
+			}
+		}
+		for (WebSocketMessage<?> message : superseded.keySet()) {
+			discard(message);
+		}
+	}
+
+	private void discardOldest() {
+		while (isBufferLimitExceeded()) {
+			WebSocketMessage<?> message = this.buffer.peek();
+			if ((message == null) || !discard(message)) {
+				break;
+			}
+		}
+	}
+
+	private boolean discard(WebSocketMessage<?> message) {
+		if (this.buffer.remove(message)) {
+			this.bufferSize.addAndGet(-message.getPayloadLength());
+			this.discardedMessageCount.incrementAndGet();
+			if (logger.isTraceEnabled()) {
+				logger.trace("Discarded message " + message + " for session id=" + getId());
+			}
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void close(CloseStatus status) throws IOException {
+		this.limitExceeded = true;
+		this.buffer.clear();
+		this.bufferSize.set(0);
+		super.close(status);
+	}
+
+	@Override
+	public void close() throws IOException {
+		close(CloseStatus.NORMAL);
+	}
+
+}
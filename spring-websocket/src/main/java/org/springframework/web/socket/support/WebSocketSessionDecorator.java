@@ -0,0 +1,117 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.socket.support;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.Principal;
+
+import org.springframework.util.Assert;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Wraps another {@link WebSocketSession} instance and delegates to it.
+ *
+ * @author Rossen Stoyanchev
+ * @since 4.0
+ */
+public class WebSocketSessionDecorator implements WebSocketSession {
+
+	private final WebSocketSession delegate;
+
+
+	public WebSocketSessionDecorator(WebSocketSession session) {
+		Assert.notNull(session, "delegate session is required");
+		this.delegate = session;
+	}
+
+
+	public WebSocketSession getDelegate() {
+		return this.delegate;
+	}
+
+	public WebSocketSession getLastSession() {
+		WebSocketSession result = this.delegate;
+		while (result instanceof WebSocketSessionDecorator) {
+			result = ((WebSocketSessionDecorator) result).getDelegate();
+		}
+		return result;
+	}
+
+	@Override
+	public String getId() {
+		return this.delegate.getId();
+	}
+
+	@Override
+	public URI getUri() {
+		return this.delegate.getUri();
+	}
+
+	@Override
+	public boolean isSecure() {
+		return this.delegate.isSecure();
+	}
+
+	@Override
+	public Principal getPrincipal() {
+		return this.delegate.getPrincipal();
+	}
+
+	@Override
+	public String getRemoteHostName() {
+		return this.delegate.getRemoteHostName();
+	}
+
+	@Override
+	public String getRemoteAddress() {
+		return this.delegate.getRemoteAddress();
+	}
+
+	@Override
+	public String getAcceptedProtocol() {
+		return this.delegate.getAcceptedProtocol();
+	}
+
+	@Override
+	public boolean isOpen() {
+		return this.delegate.isOpen();
+	}
+
+	@Override
+	public void sendMessage(WebSocketMessage<?> message) throws IOException {
+		this.delegate.sendMessage(message);
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.delegate.close();
+	}
+
+	@Override
+	public void close(CloseStatus status) throws IOException {
+		this.delegate.close(status);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " [delegate=" + this.delegate + "]";
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.web.socket.sockjs.support;
 
 import java.io.IOException;
+import java.util.concurrent.ScheduledFuture;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -28,9 +29,11 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.socket.AbstractHttpRequestTests;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.sockjs.SockJsException;
+import org.springframework.web.socket.sockjs.support.TimingWheelHeartbeatScheduler.IdleTask;
 import org.springframework.web.socket.sockjs.transport.TransportType;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
 
 /**
  * Test fixture for {@link AbstractSockJsService}.
@@ -206,6 +209,21 @@ public class AbstractSockJsServiceTests extends AbstractHttpRequestTests {
 		assertSame(this.handler, this.service.handler);
 	}
 
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void destroyShutsDownDefaultHeartbeatScheduler() throws Exception {
+
+		TaskScheduler taskScheduler = mock(TaskScheduler.class);
+		ScheduledFuture tickTask = mock(ScheduledFuture.class);
+		when(taskScheduler.scheduleAtFixedRate(any(Runnable.class), anyLong())).thenReturn(tickTask);
+
+		TestSockJsService service = new TestSockJsService(taskScheduler);
+		service.getHeartbeatScheduler().register(mock(IdleTask.class), 1000);
+		service.destroy();
+
+		verify(tickTask).cancel(false);
+	}
+
 
 	private void handleRequest(String httpMethod, String uri, HttpStatus httpStatus) throws IOException {
 		resetResponse();
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.socket.sockjs.support;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.web.socket.sockjs.support.TimingWheelHeartbeatScheduler.IdleTask;
+import org.springframework.web.socket.sockjs.support.TimingWheelHeartbeatScheduler.Registration;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test fixture for {@link TimingWheelHeartbeatScheduler}.
+ *
+ * @author Rossen Stoyanchev
+ */
+public class TimingWheelHeartbeatSchedulerTests {
+
+	private TaskScheduler taskScheduler;
+
+	private TimingWheelHeartbeatScheduler heartbeatScheduler;
+
+	private long start;
+
+
+	@Before
+	public void setUp() {
+		this.taskScheduler = mock(TaskScheduler.class);
+		this.heartbeatScheduler = new TimingWheelHeartbeatScheduler(this.taskScheduler);
+		this.heartbeatScheduler.setTickDuration(10);
+		this.heartbeatScheduler.setTicksPerWheel(8);
+		this.heartbeatScheduler.setTaskExecutor(new SyncTaskExecutor());
+		this.start = System.currentTimeMillis();
+	}
+
+
+	@Test
+	public void ticksPerWheelRoundedToPowerOfTwo() {
+		this.heartbeatScheduler.setTicksPerWheel(100);
+		assertEquals(128, this.heartbeatScheduler.getTicksPerWheel());
+	}
+
+	@Test
+	public void runWhenIdle() {
+		TestIdleTask task = new TestIdleTask(this.start);
+		this.heartbeatScheduler.register(task, 100);
+		verify(this.taskScheduler).scheduleAtFixedRate(any(Runnable.class), eq(10L));
+
+		this.heartbeatScheduler.tick(this.start + 50);
+		assertEquals(0, task.runCount);
+
+		this.heartbeatScheduler.tick(this.start + 120);
+		assertEquals(1, task.runCount);
+
+		this.heartbeatScheduler.tick(this.start + 150);
+		assertEquals(1, task.runCount);
+
+		this.heartbeatScheduler.tick(this.start + 240);
+		assertEquals(2, task.runCount);
+	}
+
+	@Test
+	public void activityPostponesRun() {
+		TestIdleTask task = new TestIdleTask(this.start);
+		this.heartbeatScheduler.register(task, 100);
+
+		this.heartbeatScheduler.tick(this.start + 50);
+		task.lastActiveTime = this.start + 80;
+
+		this.heartbeatScheduler.tick(this.start + 120);
+		assertEquals(0, task.runCount);
+
+		this.heartbeatScheduler.tick(this.start + 200);
+		assertEquals(1, task.runCount);
+	}
+
+	@Test
+	public void cancel() {
+		TestIdleTask task = new TestIdleTask(this.start);
+		Registration registration = this.heartbeatScheduler.register(task, 100);
+		assertEquals(1, this.heartbeatScheduler.getRegistrationCount());
+
+		this.heartbeatScheduler.tick(this.start + 50);
+		registration.cancel();
+		registration.cancel();
+		assertEquals(0, this.heartbeatScheduler.getRegistrationCount());
+
+		this.heartbeatScheduler.tick(this.start + 200);
+		assertEquals(0, task.runCount);
+	}
+
+	@Test
+	public void catchUpAfterDelayedTick() {
+		TestIdleTask[] tasks = new TestIdleTask[20];
+		for (int i = 0; i < tasks.length; i++) {
+			tasks[i] = new TestIdleTask(this.start + i * 10);
+			this.heartbeatScheduler.register(tasks[i], 30);
+		}
+		this.heartbeatScheduler.tick(this.start + 5);
+		this.heartbeatScheduler.tick(this.start + 1000);
+
+		for (TestIdleTask task : tasks) {
+			assertEquals(1, task.runCount);
+		}
+		verify(this.taskScheduler, times(1)).scheduleAtFixedRate(any(Runnable.class), anyLong());
+	}
+
+	@Test
+	public void handOffToTaskSchedulerByDefault() {
+		this.heartbeatScheduler = new TimingWheelHeartbeatScheduler(this.taskScheduler);
+		this.heartbeatScheduler.setTickDuration(10);
+		TestIdleTask task = new TestIdleTask(this.start);
+		this.heartbeatScheduler.register(task, 100);
+
+		this.heartbeatScheduler.tick(this.start + 120);
+
+		assertEquals(0, task.runCount);
+		verify(this.taskScheduler).schedule(any(Runnable.class), any(Date.class));
+	}
+
+	@Test
+	public void noHandOffWhileRunInProgress() {
+		final List<Runnable> handedOff = new ArrayList<Runnable>();
+		this.heartbeatScheduler.setTaskExecutor(new Executor() {
+			@Override
+			public void execute(Runnable task) {
+				handedOff.add(task);
+			}
+		});
+		TestIdleTask task = new TestIdleTask(this.start);
+		this.heartbeatScheduler.register(task, 100);
+
+		this.heartbeatScheduler.tick(this.start + 120);
+		this.heartbeatScheduler.tick(this.start + 240);
+		assertEquals(1, handedOff.size());
+
+		handedOff.get(0).run();
+		assertEquals(1, task.runCount);
+
+		this.heartbeatScheduler.tick(this.start + 360);
+		assertEquals(2, handedOff.size());
+	}
+
+
+	private static class TestIdleTask implements IdleTask {
+
+		private volatile long lastActiveTime;
+
+		private int runCount;
+
+
+		public TestIdleTask(long lastActiveTime) {
+			this.lastActiveTime = lastActiveTime;
+		}
+
+		@Override
+		public long getLastActiveTime() {
+			return this.lastActiveTime;
+		}
+
+		@Override
+		public void run() {
+			this.runCount++;
+		}
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.web.socket.sockjs.transport.session;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -27,7 +28,9 @@ import org.springframework.http.server.ServletServerHttpResponse;
 import org.springframework.mock.web.test.MockHttpServletRequest;
 import org.springframework.mock.web.test.MockHttpServletResponse;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.sockjs.SockJsTransportFailureException;
 import org.springframework.web.socket.sockjs.support.frame.SockJsFrame;
 import org.springframework.web.socket.sockjs.support.frame.SockJsFrame.DefaultFrameFormat;
 import org.springframework.web.socket.sockjs.support.frame.SockJsFrame.FrameFormat;
@@ -116,6 +119,105 @@ public class AbstractHttpSockJsSessionTests extends BaseAbstractSockJsSessionTes
 		assertFalse(this.servletRequest.isAsyncStarted());
 	}
 
+	@Test
+	public void sendMessageWhenCacheFull() throws Exception {
+
+		this.sockJsConfig.setHttpMessageCacheSize(2);
+		this.session = initSockJsSession();
+
+		this.session.sendMessage(new TextMessage("x"));
+		this.session.sendMessage(new TextMessage("y"));
+		try {
+			this.session.sendMessage(new TextMessage("z"));
+			fail("Expected exception");
+		}
+		catch (SockJsTransportFailureException ex) {
+			// expected
+		}
+		assertEquals(2, this.session.getMessageCache().size());
+	}
+
+	@Test
+	public void flushCachedMessagesInSingleFrame() throws Exception {
+
+		PollingSockJsSession session = new PollingSockJsSession("1", this.sockJsConfig, this.webSocketHandler);
+		session.sendMessage(new TextMessage("x"));
+		session.sendMessage(new TextMessage("y"));
+		session.sendMessage(new TextMessage("z"));
+
+		session.setLongPollingRequest(this.request, this.response, this.frameFormat);
+
+		assertEquals("a[\"x\",\"y\",\"z\"]", this.servletResponse.getContentAsString());
+		assertEquals(0, session.getMessageCache().size());
+		assertFalse(session.isActive());
+	}
+
+	@Test
+	public void flushCachedMessagesWithStreamBytesLimit() throws Exception {
+
+		this.sockJsConfig.setStreamBytesLimit(6);
+		StreamingSockJsSession session = new StreamingSockJsSession("1", this.sockJsConfig, this.webSocketHandler);
+		session.sendMessage(new TextMessage("aaaa"));
+		session.sendMessage(new TextMessage("bbbb"));
+		session.sendMessage(new TextMessage("cccc"));
+
+		session.setLongPollingRequest(this.request, this.response, this.frameFormat);
+
+		assertEquals("a[\"aaaa\",\"bbbb\"]", this.servletResponse.getContentAsString());
+		assertEquals(1, session.getMessageCache().size());
+		assertFalse(session.isActive());
+	}
+
+
+	@Test
+	public void flushMessageCachedByOtherThreadDuringFlush() throws Exception {
+
+		StreamingSockJsSession session = new StreamingSockJsSession("1", this.sockJsConfig, this.webSocketHandler) {
+
+			private boolean firstFlush = true;
+
+			@Override
+			protected void flushCache() throws SockJsTransportFailureException {
+				if (this.firstFlush) {
+					// Flush nothing while another thread fails to acquire the flush lock
+					this.firstFlush = false;
+					sendMessageFromOtherThread(this, "y");
+					return;
+				}
+				super.flushCache();
+			}
+		};
+		session.sendMessage(new TextMessage("x"));
+
+		session.setLongPollingRequest(this.request, this.response, this.frameFormat);
+
+		assertEquals("a[\"x\",\"y\"]", this.servletResponse.getContentAsString());
+		assertEquals(0, session.getMessageCache().size());
+	}
+
+	private static void sendMessageFromOtherThread(final AbstractSockJsSession session, final String payload) {
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					session.sendMessage(new TextMessage(payload));
+				}
+				catch (Throwable ex) {
+					failure.set(ex);
+				}
+			}
+		});
+		thread.start();
+		try {
+			thread.join();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		assertNull(failure.get());
+	}
+
 
 	static class TestAbstractHttpSockJsSession extends AbstractHttpSockJsSession {
 
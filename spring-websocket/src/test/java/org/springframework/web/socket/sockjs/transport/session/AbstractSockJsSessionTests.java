@@ -28,6 +28,7 @@ import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.sockjs.SockJsMessageDeliveryException;
 import org.springframework.web.socket.sockjs.SockJsTransportFailureException;
+import org.springframework.web.socket.sockjs.support.TimingWheelHeartbeatScheduler;
 import org.springframework.web.socket.sockjs.support.frame.SockJsFrame;
 import org.springframework.web.socket.support.ExceptionWebSocketHandlerDecorator;
 
@@ -284,4 +285,24 @@ public class AbstractSockJsSessionTests extends BaseAbstractSockJsSessionTests<T
 		verifyNoMoreInteractions(task);
 	}
 
+	@Test
+	public void scheduleHeartbeatWithTimingWheel() throws Exception {
+
+		TimingWheelHeartbeatScheduler heartbeatScheduler = mock(TimingWheelHeartbeatScheduler.class);
+		TimingWheelHeartbeatScheduler.Registration registration = mock(TimingWheelHeartbeatScheduler.Registration.class);
+		when(heartbeatScheduler.register(any(TimingWheelHeartbeatScheduler.IdleTask.class), eq(25 * 1000L))).thenReturn(registration);
+		this.sockJsConfig.setHeartbeatScheduler(heartbeatScheduler);
+
+		this.session.delegateConnectionEstablished();
+		this.session.setActive(true);
+		this.session.scheduleHeartbeat();
+		this.session.scheduleHeartbeat();
+
+		verify(heartbeatScheduler).register(any(TimingWheelHeartbeatScheduler.IdleTask.class), eq(25 * 1000L));
+		verifyNoMoreInteractions(this.taskScheduler);
+
+		this.session.close();
+		verify(registration).cancel();
+	}
+
 }
@@ -18,6 +18,7 @@ package org.springframework.web.socket.sockjs.transport.session;
 
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.sockjs.support.TimingWheelHeartbeatScheduler;
 import org.springframework.web.socket.sockjs.support.frame.Jackson2SockJsMessageCodec;
 import org.springframework.web.socket.sockjs.support.frame.SockJsMessageCodec;
 
@@ -32,8 +33,12 @@ public class StubSockJsServiceConfig implements SockJsServiceConfig {
 
 	private TaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
 
+	private TimingWheelHeartbeatScheduler heartbeatScheduler;
+
 	private SockJsMessageCodec messageCodec = new Jackson2SockJsMessageCodec();
 
+	private int httpMessageCacheSize = 100;
+
 
 	@Override
 	public int getStreamBytesLimit() {
@@ -62,6 +67,15 @@ public class StubSockJsServiceConfig implements SockJsServiceConfig {
 		this.taskScheduler = taskScheduler;
 	}
 
+	@Override
+	public TimingWheelHeartbeatScheduler getHeartbeatScheduler() {
+		return this.heartbeatScheduler;
+	}
+
+	public void setHeartbeatScheduler(TimingWheelHeartbeatScheduler heartbeatScheduler) {
+		this.heartbeatScheduler = heartbeatScheduler;
+	}
+
 	@Override
 	public SockJsMessageCodec getMessageCodec() {
 		return this.messageCodec;
@@ -71,4 +85,13 @@ public class StubSockJsServiceConfig implements SockJsServiceConfig {
 		this.messageCodec = messageCodec;
 	}
 
+	@Override
+	public int getHttpMessageCacheSize() {
+		return this.httpMessageCacheSize;
+	}
+
+	public void setHttpMessageCacheSize(int httpMessageCacheSize) {
+		this.httpMessageCacheSize = httpMessageCacheSize;
+	}
+
 }
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.socket.support;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.support.ConcurrentWebSocketSessionDecorator.CoalescingKeyResolver;
+import org.springframework.web.socket.support.ConcurrentWebSocketSessionDecorator.OverflowPolicy;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test fixture for {@link ConcurrentWebSocketSessionDecorator}.
+ *
+ * @author Rossen Stoyanchev
+ */
+public class ConcurrentWebSocketSessionDecoratorTests {
+
+	private BlockingWebSocketSession session;
+
+
+	@Before
+	public void setup() {
+		this.session = new BlockingWebSocketSession();
+		this.session.setId("123");
+		this.session.setOpen(true);
+	}
+
+	@After
+	public void tearDown() {
+		this.session.release();
+	}
+
+
+	@Test
+	public void send() throws IOException {
+		this.session.release();
+		ConcurrentWebSocketSessionDecorator decorator = new ConcurrentWebSocketSessionDecorator(this.session, 1000, 1024);
+
+		TextMessage textMessage = new TextMessage("payload");
+		decorator.sendMessage(textMessage);
+
+		assertEquals(1, this.session.getSentMessages().size());
+		assertEquals(textMessage, this.session.getSentMessages().get(0));
+		assertEquals(0, decorator.getBufferSize());
+		assertEquals(0, decorator.getTimeSinceSendStarted());
+		assertTrue(this.session.isOpen());
+	}
+
+	@Test
+	public void sendWhileBlocked() throws Exception {
+		ConcurrentWebSocketSessionDecorator decorator = new ConcurrentWebSocketSessionDecorator(this.session, 10 * 1000, 1024);
+		sendBlocking(decorator, new TextMessage("slow"));
+
+		decorator.sendMessage(new TextMessage("foo"));
+		decorator.sendMessage(new TextMessage("bar"));
+		Thread.sleep(10);
+
+		assertEquals(6, decorator.getBufferSize());
+		assertEquals(2, decorator.getBufferedMessageCount());
+		assertTrue(decorator.getTimeSinceSendStarted() > 0);
+		assertTrue(this.session.isOpen());
+	}
+
+	@Test
+	public void sendTimeLimitExceeded() throws Exception {
+		ConcurrentWebSocketSessionDecorator decorator = new ConcurrentWebSocketSessionDecorator(this.session, 100, 1024);
+		sendBlocking(decorator, new TextMessage("slow"));
+
+		Thread.sleep(200);
+		decorator.sendMessage(new TextMessage("foo"));
+
+		assertFalse(this.session.isOpen());
+		assertEquals(CloseStatus.SESSION_NOT_RELIABLE, this.session.getCloseStatus());
+	}
+
+	@Test
+	public void bufferSizeLimitExceededWithClosePolicy() throws Exception {
+		ConcurrentWebSocketSessionDecorator decorator = new ConcurrentWebSocketSessionDecorator(this.session, 10 * 1000, 5);
+		sendBlocking(decorator, new TextMessage("slow"));
+
+		decorator.sendMessage(new TextMessage("foo"));
+		assertTrue(this.session.isOpen());
+
+		decorator.sendMessage(new TextMessage("bar"));
+		assertFalse(this.session.isOpen());
+		assertEquals(CloseStatus.SESSION_NOT_RELIABLE, this.session.getCloseStatus());
+		assertEquals(0, decorator.getBufferSize());
+	}
+
+	@Test
+	public void messageCountLimitExceededWithDropOldestPolicy() throws Exception {
+		ConcurrentWebSocketSessionDecorator decorator = new ConcurrentWebSocketSessionDecorator(this.session, 10 * 1000, 1024);
+		decorator.setMessageCountLimit(2);
+		decorator.setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+		sendBlocking(decorator, new TextMessage("slow"));
+
+		decorator.sendMessage(new TextMessage("1"));
+		decorator.sendMessage(new TextMessage("2"));
+		decorator.sendMessage(new TextMessage("3"));
+
+		assertTrue(this.session.isOpen());
+		assertEquals(2, decorator.getBufferedMessageCount());
+		assertEquals(1, decorator.getDiscardedMessageCount());
+
+		this.session.release();
+		assertEquals("[slow, 2, 3]", this.session.awaitSentPayloads(3));
+		decorator.sendMessage(new TextMessage("4"));
+		assertEquals("[slow, 2, 3, 4]", this.session.awaitSentPayloads(4));
+	}
+
+	@Test
+	public void bufferSizeLimitExceededWithCoalescePolicy() throws Exception {
+		ConcurrentWebSocketSessionDecorator decorator = new ConcurrentWebSocketSessionDecorator(this.session, 10 * 1000, 6);
+		decorator.setOverflowPolicy(OverflowPolicy.COALESCE);
+		decorator.setCoalescingKeyResolver(new CoalescingKeyResolver() {
+			@Override
+			public Object getCoalescingKey(WebSocketMessage<?> message) {
+				return ((TextMessage) message).getPayload().substring(0, 1);
+			}
+		});
+		sendBlocking(decorator, new TextMessage("slow"));
+
+		decorator.sendMessage(new TextMessage("a1"));
+		decorator.sendMessage(new TextMessage("b1"));
+		decorator.sendMessage(new TextMessage("a2"));
+		decorator.sendMessage(new TextMessage("a3"));
+
+		assertTrue(this.session.isOpen());
+		assertEquals(2, decorator.getDiscardedMessageCount());
+
+		this.session.release();
+		assertEquals("[slow, b1, a3]", this.session.awaitSentPayloads(3));
+		decorator.sendMessage(new TextMessage("b2"));
+		assertEquals("[slow, b1, a3, b2]", this.session.awaitSentPayloads(4));
+	}
+
+
+	private void sendBlocking(final ConcurrentWebSocketSessionDecorator decorator,
+			final TextMessage message) throws InterruptedException {
+
+		new Thread() {
+			@Override
+			public void run() {
+				try {
+					decorator.sendMessage(message);
+				}
+				catch (IOException ex) {
+					// ignore
+				}
+			}
+		}.start();
+		assertTrue(this.session.awaitSendStarted());
+	}
+
+
+	private static class BlockingWebSocketSession extends TestWebSocketSession {
+
+		private final CountDownLatch sendStarted = new CountDownLatch(1);
+
+		private final CountDownLatch release = new CountDownLatch(1);
+
+
+		@Override
+		public void sendMessage(WebSocketMessage<?> message) throws IOException {
+			super.sendMessage(message);
+			this.sendStarted.countDown();
+			try {
+				this.release.await();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		public boolean awaitSendStarted() throws InterruptedException {
+			return this.sendStarted.await(5, TimeUnit.SECONDS);
+		}
+
+		public void release() {
+			this.release.countDown();
+		}
+
+		public String awaitSentPayloads(int count) throws InterruptedException {
+			for (int i = 0; (i < 500) && (getSentMessages().size() < count); i++) {
+				Thread.sleep(10);
+			}
+			return getSentPayloads();
+		}
+
+		public String getSentPayloads() {
+			StringBuilder sb = new StringBuilder("[");
+			for (WebSocketMessage<?> message : getSentMessages()) {
+				if (sb.length() > 1) {
+					sb.append(", ");
+				}
+				sb.append(message.getPayload());
+			}
+			return sb.append("]").toString();
+		}
+	}
+
+}